@@ -0,0 +1,141 @@
+package com.trinket.trinketos.ai;
+
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.repository.TicketRepository;
+import com.trinket.trinketos.service.OrganizationTierResolver;
+import com.trinket.trinketos.service.TicketAIService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs ticket triage off the request thread. Pending analyses are queued per
+ * organization and picked by weighted fair queuing (weight = tier), skipping
+ * tenants whose rate-limit bucket is empty, so a large tenant's spike does not
+ * hold back small tenants. Tickets that never get a slot, or whose call was
+ * rejected by AiCallGuard, stay untriaged and are re-queued by retryUntriaged;
+ * failed calls count towards a per-ticket cap shared by every node, and
+ * unparseable replies are not retried.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AiAnalysisScheduler {
+
+  private final TicketAIService ticketAIService;
+  private final AiRateLimiter rateLimiter;
+  private final OrganizationTierResolver tierResolver;
+  private final MeterRegistry meterRegistry;
+  private final AiCallGuard aiCallGuard;
+  private final TicketRepository ticketRepository;
+
+  @Value("${application.ai.analysis.workers:4}")
+  private int workers;
+
+  @Value("${application.ai.analysis.max-queued-per-organization:500}")
+  private int maxQueuedPerOrganization;
+
+  @Value("${application.ai.analysis.idle-wait-ms:200}")
+  private long idleWaitMs;
+
+  @Value("${application.ai.analysis.retry-window-hours:24}")
+  private long retryWindowHours;
+
+  @Value("${application.ai.analysis.max-attempts:3}")
+  private int maxAttempts;
+
+  private WeightedFairQueue<UUID> queue;
+  private ExecutorService executor;
+  private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+  private final Object signal = new Object();
+  private volatile boolean running = true;
+
+  @PostConstruct
+  void start() {
+    queue = new WeightedFairQueue<>(maxQueuedPerOrganization);
+    meterRegistry.gauge("trinketos.ai.analysis.queued", queue, WeightedFairQueue::size);
+
+    AtomicInteger threadCount = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(workers, runnable -> {
+      Thread thread = new Thread(runnable, "ai-analysis-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (int i = 0; i < workers; i++) {
+      executor.submit(this::work);
+    }
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    executor.shutdownNow();
+    executor.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  public void submit(UUID organizationId, UUID ticketId) {
+    if (!pending.add(ticketId)) {
+      return;
+    }
+    int weight = tierResolver.tierOf(organizationId).getWeight();
+    if (!queue.add(organizationId, weight, ticketId)) {
+      pending.remove(ticketId);
+      log.warn("AI analysis queue full for organization {}, ticket {} left untriaged", organizationId, ticketId);
+      return;
+    }
+    synchronized (signal) {
+      signal.notify();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${application.ai.analysis.retry-interval-ms:300000}")
+  void retryUntriaged() {
+    if (!aiCallGuard.isCircuitClosed()) {
+      return;
+    }
+    LocalDateTime since = LocalDateTime.now().minusHours(retryWindowHours);
+    for (Ticket ticket : ticketRepository.findUnanalyzedSince(since,
+        TicketAiAnalysis.Failure.UNAVAILABLE, maxAttempts, Limit.of(500))) {
+      submit(ticket.getOrganizationId(), ticket.getId());
+    }
+  }
+
+  private void work() {
+    while (running) {
+      UUID ticketId = queue.poll(rateLimiter::tryAcquireOrDelay);
+      if (ticketId == null) {
+        try {
+          synchronized (signal) {
+            signal.wait(idleWaitMs);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        continue;
+      }
+      pending.remove(ticketId);
+      try {
+        ticketAIService.analyzeTicket(ticketId);
+      } catch (Exception e) {
+        log.error("AI analysis failed for ticket {}", ticketId, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package com.trinket.trinketos.ai;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer around every ChatClient call: circuit breaker, adaptive
+ * concurrency limit and a hard per-call timeout. The call itself runs on a
+ * virtual thread so a hung HTTP request never pins a request or worker thread;
+ * its concurrency slot is only released once it really returns.
+ */
+@Component
+@Slf4j
+public class AiCallGuard {
+
+  private final CircuitBreaker circuitBreaker;
+  private final AimdConcurrencyLimiter limiter;
+  private final long timeoutMs;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  public AiCallGuard(
+      MeterRegistry meterRegistry,
+      @Value("${application.ai.resilience.timeout-ms:20000}") long timeoutMs,
+      @Value("${application.ai.resilience.circuit.window-size:20}") int windowSize,
+      @Value("${application.ai.resilience.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+      @Value("${application.ai.resilience.circuit.open-duration-ms:30000}") long openDurationMs,
+      @Value("${application.ai.resilience.concurrency.initial-limit:8}") int initialLimit,
+      @Value("${application.ai.resilience.concurrency.min-limit:1}") int minLimit,
+      @Value("${application.ai.resilience.concurrency.max-limit:32}") int maxLimit,
+      @Value("${application.ai.resilience.concurrency.latency-target-ms:8000}") long latencyTargetMs) {
+    this.timeoutMs = timeoutMs;
+    this.circuitBreaker = new CircuitBreaker(windowSize, failureRateThreshold, openDurationMs);
+    this.limiter = new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit, 0.9, latencyTargetMs);
+
+    Gauge.builder("trinketos.ai.concurrency.limit", limiter, AimdConcurrencyLimiter::getLimit).register(meterRegistry);
+    Gauge.builder("trinketos.ai.concurrency.in_flight", limiter, AimdConcurrencyLimiter::getInFlight)
+        .register(meterRegistry);
+    Gauge.builder("trinketos.ai.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+        .description("0=closed, 1=open, 2=half-open")
+        .register(meterRegistry);
+  }
+
+  public <T> T call(Supplier<T> call) {
+    if (!circuitBreaker.tryAcquire()) {
+      throw new AiUnavailableException("AI circuit open");
+    }
+    if (!limiter.tryAcquire()) {
+      circuitBreaker.onIgnored();
+      throw new AiUnavailableException("AI concurrency limit reached (" + limiter.getLimit() + ")");
+    }
+
+    long start = System.nanoTime();
+    CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> {
+      try {
+        return call.get();
+      } finally {
+        limiter.release();
+      }
+    }, executor);
+
+    boolean recorded = false;
+    try {
+      T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+      limiter.onSample(System.nanoTime() - start, false);
+      circuitBreaker.onSuccess();
+      recorded = true;
+      return result;
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      onFailure(start);
+      recorded = true;
+      throw new AiUnavailableException("AI call timed out after " + timeoutMs + " ms", e);
+    } catch (ExecutionException e) {
+      onFailure(start);
+      recorded = true;
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw new AiUnavailableException("AI call failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+      throw new AiUnavailableException("AI call interrupted", e);
+    } finally {
+      if (!recorded) {
+        // No outcome to report, but a half-open probe must not stay taken forever
+        circuitBreaker.onIgnored();
+      }
+    }
+  }
+
+  public boolean isCircuitClosed() {
+    return circuitBreaker.getState() == CircuitBreaker.State.CLOSED;
+  }
+
+  private void onFailure(long start) {
+    limiter.onSample(System.nanoTime() - start, true);
+    circuitBreaker.onFailure();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
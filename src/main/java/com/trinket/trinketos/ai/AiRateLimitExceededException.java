@@ -0,0 +1,10 @@
+package com.trinket.trinketos.ai;
+
+import java.util.UUID;
+
+public class AiRateLimitExceededException extends RuntimeException {
+
+  public AiRateLimitExceededException(UUID organizationId) {
+    super("AI rate limit exceeded for organization " + organizationId);
+  }
+}
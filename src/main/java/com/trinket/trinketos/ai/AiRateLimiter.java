@@ -0,0 +1,28 @@
+package com.trinket.trinketos.ai;
+
+import java.util.UUID;
+
+/**
+ * Per-organization budget for Gemini calls, so one tenant cannot drain the
+ * shared quota.
+ */
+public interface AiRateLimiter {
+
+  /**
+   * Takes a token, or tells how long until one is available, so the caller
+   * can leave the organization alone until then instead of asking again.
+   *
+   * @return 0 when a token was taken, otherwise the nanoseconds to wait
+   */
+  long tryAcquireOrDelay(UUID organizationId);
+
+  default boolean tryAcquire(UUID organizationId) {
+    return tryAcquireOrDelay(organizationId) == 0;
+  }
+
+  default void acquireOrThrow(UUID organizationId) {
+    if (!tryAcquire(organizationId)) {
+      throw new AiRateLimitExceededException(organizationId);
+    }
+  }
+}
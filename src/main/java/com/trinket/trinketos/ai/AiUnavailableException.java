@@ -0,0 +1,21 @@
+package com.trinket.trinketos.ai;
+
+/**
+ * Thrown without calling Gemini when the circuit is open or the concurrency
+ * limit is reached, and with the cause when the call failed or timed out.
+ */
+public class AiUnavailableException extends RuntimeException {
+
+  public AiUnavailableException(String message) {
+    super(message);
+  }
+
+  public AiUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  /** Refused by AiCallGuard before anything was sent. */
+  public boolean isRejected() {
+    return getCause() == null;
+  }
+}
@@ -0,0 +1,60 @@
+package com.trinket.trinketos.ai;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive in-flight limit (additive increase, multiplicative decrease).
+ * Every fast success grows the limit by 1/limit (about +1 per round trip);
+ * a timeout, error or call slower than the latency target cuts it by
+ * {@code backoffRatio}. Callers that find no free slot are rejected at once
+ * instead of queueing behind a slow upstream.
+ */
+public class AimdConcurrencyLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyTargetNanos;
+
+  private double limit;
+  private int inFlight;
+
+  public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+      long latencyTargetMs) {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMs);
+  }
+
+  public synchronized boolean tryAcquire() {
+    if (inFlight >= (int) limit) {
+      return false;
+    }
+    inFlight++;
+    return true;
+  }
+
+  /** Frees the slot once the underlying call has actually returned. */
+  public synchronized void release() {
+    inFlight--;
+  }
+
+  public synchronized void onSample(long latencyNanos, boolean dropped) {
+    if (dropped || latencyNanos > latencyTargetNanos) {
+      limit = Math.max(minLimit, limit * backoffRatio);
+    } else if (inFlight + 1 >= (int) limit) {
+      // Only grow when the current limit is actually being used
+      limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+  }
+
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+}
@@ -0,0 +1,301 @@
+package com.trinket.trinketos.ai;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Okapi BM25 inverted index, built like a small LSM tree: new documents go
+ * to an in-memory buffer that is sealed into an immutable segment (compact
+ * posting arrays) every {@code segmentSize} documents. Adjacent segments are
+ * merged once there are more than {@code maxSegments}, dropping replaced and
+ * removed documents, and the oldest segments are evicted to keep at most
+ * {@code maxDocuments} stored. Not thread-safe; {@link ResolvedTicketIndex}
+ * guards each instance.
+ */
+final class Bm25Index {
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  record Hit(UUID id, double score) {
+  }
+
+  /** Current version of a document; copies with another sequence number are dead. */
+  private record Version(long sequence, int length) {
+  }
+
+  private record Document(UUID id, long sequence, Map<String, Integer> termFrequencies, int length) {
+
+    private static Document of(UUID id, long sequence, List<String> tokens) {
+      Map<String, Integer> termFrequencies = new HashMap<>();
+      tokens.forEach(token -> termFrequencies.merge(token, 1, Integer::sum));
+      return new Document(id, sequence, termFrequencies, tokens.size());
+    }
+  }
+
+  /** Sealed documents; each posting list holds (document, term frequency) pairs. */
+  private static final class Segment {
+    private final UUID[] ids;
+    private final long[] sequences;
+    private final int[] lengths;
+    private final Map<String, int[]> postings;
+
+    private Segment(List<Document> documents) {
+      ids = new UUID[documents.size()];
+      sequences = new long[documents.size()];
+      lengths = new int[documents.size()];
+      Map<String, List<Integer>> building = new HashMap<>();
+      for (int doc = 0; doc < documents.size(); doc++) {
+        Document document = documents.get(doc);
+        ids[doc] = document.id();
+        sequences[doc] = document.sequence();
+        lengths[doc] = document.length();
+        for (Map.Entry<String, Integer> entry : document.termFrequencies().entrySet()) {
+          List<Integer> list = building.computeIfAbsent(entry.getKey(), t -> new ArrayList<>());
+          list.add(doc);
+          list.add(entry.getValue());
+        }
+      }
+      postings = new HashMap<>(building.size() * 4 / 3 + 1);
+      building.forEach((term, list) -> postings.put(term, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    private int size() {
+      return ids.length;
+    }
+
+    /** Live documents containing the term; dead copies would push df past the document count. */
+    private int documentFrequency(String term, Map<UUID, Version> live) {
+      int[] list = postings.get(term);
+      if (list == null) {
+        return 0;
+      }
+      int df = 0;
+      for (int i = 0; i < list.length; i += 2) {
+        df += isLive(live, list[i]) ? 1 : 0;
+      }
+      return df;
+    }
+
+    /** Rebuilds the documents still alive, for merging. */
+    private List<Document> liveDocuments(Map<UUID, Version> live) {
+      List<Map<String, Integer>> termFrequencies = new ArrayList<>(ids.length);
+      for (int doc = 0; doc < ids.length; doc++) {
+        termFrequencies.add(isLive(live, doc) ? new HashMap<>() : null);
+      }
+      postings.forEach((term, list) -> {
+        for (int i = 0; i < list.length; i += 2) {
+          Map<String, Integer> document = termFrequencies.get(list[i]);
+          if (document != null) {
+            document.put(term, list[i + 1]);
+          }
+        }
+      });
+      List<Document> documents = new ArrayList<>();
+      for (int doc = 0; doc < ids.length; doc++) {
+        if (termFrequencies.get(doc) != null) {
+          documents.add(new Document(ids[doc], sequences[doc], termFrequencies.get(doc), lengths[doc]));
+        }
+      }
+      return documents;
+    }
+
+    private boolean isLive(Map<UUID, Version> live, int doc) {
+      Version version = live.get(ids[doc]);
+      return version != null && version.sequence() == sequences[doc];
+    }
+  }
+
+  private final int segmentSize;
+  private final int maxSegments;
+  private final int maxDocuments;
+  private final int maxMergedSize;
+
+  /** Oldest first. */
+  private final List<Segment> segments = new ArrayList<>();
+  private final List<Document> buffer = new ArrayList<>();
+  private final Map<UUID, Version> live = new HashMap<>();
+  private long nextSequence;
+  private long liveLength;
+  private int storedDocuments;
+
+  Bm25Index(int segmentSize, int maxSegments, int maxDocuments) {
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+    this.maxDocuments = maxDocuments;
+    // Evicting the oldest segment then drops at most about a quarter of the index
+    this.maxMergedSize = Math.max(segmentSize, maxDocuments / 4);
+  }
+
+  /** Adds or replaces a document. */
+  void add(UUID id, List<String> tokens) {
+    remove(id);
+    Document document = Document.of(id, nextSequence++, tokens);
+    live.put(id, new Version(document.sequence(), document.length()));
+    liveLength += document.length();
+    buffer.add(document);
+    storedDocuments++;
+    if (buffer.size() >= segmentSize) {
+      seal();
+    }
+  }
+
+  void remove(UUID id) {
+    Version version = live.remove(id);
+    if (version != null) {
+      liveLength -= version.length();
+    }
+  }
+
+  boolean contains(UUID id) {
+    return live.containsKey(id);
+  }
+
+  int size() {
+    return live.size();
+  }
+
+  int segments() {
+    return segments.size();
+  }
+
+  /** Documents held in memory, including replaced/removed ones not merged away yet. */
+  int storedDocuments() {
+    return storedDocuments;
+  }
+
+  /** Best {@code limit} documents for the query, highest score first. */
+  List<Hit> search(List<String> query, int limit, UUID exclude) {
+    if (live.isEmpty() || limit <= 0) {
+      return List.of();
+    }
+    int documents = live.size();
+    double averageLength = Math.max(1, (double) liveLength / documents);
+    Map<String, Double> idf = new HashMap<>();
+    for (String term : new HashSet<>(query)) {
+      int df = 0;
+      for (Segment segment : segments) {
+        df += segment.documentFrequency(term, live);
+      }
+      for (Document document : buffer) {
+        df += document.termFrequencies().containsKey(term) && isLive(document) ? 1 : 0;
+      }
+      if (df > 0) {
+        idf.put(term, Math.log(1 + (documents - df + 0.5) / (df + 0.5)));
+      }
+    }
+    if (idf.isEmpty()) {
+      return List.of();
+    }
+
+    PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Hit::score));
+    for (Segment segment : segments) {
+      double[] norms = new double[segment.size()];
+      for (int doc = 0; doc < norms.length; doc++) {
+        norms[doc] = norm(segment.lengths[doc], averageLength);
+      }
+      double[] scores = new double[segment.size()];
+      idf.forEach((term, weight) -> {
+        int[] list = segment.postings.get(term);
+        if (list == null) {
+          return;
+        }
+        for (int i = 0; i < list.length; i += 2) {
+          int tf = list[i + 1];
+          scores[list[i]] += weight * tf * (K1 + 1) / (tf + norms[list[i]]);
+        }
+      });
+      for (int doc = 0; doc < scores.length; doc++) {
+        // Liveness is a map lookup, only check documents that would make the top k
+        if (scores[doc] > 0 && (best.size() < limit || scores[doc] > best.peek().score())
+            && segment.isLive(live, doc) && !segment.ids[doc].equals(exclude)) {
+          offer(best, new Hit(segment.ids[doc], scores[doc]), limit);
+        }
+      }
+    }
+    for (Document document : buffer) {
+      double score = 0;
+      double norm = norm(document.length(), averageLength);
+      for (Map.Entry<String, Double> entry : idf.entrySet()) {
+        Integer tf = document.termFrequencies().get(entry.getKey());
+        if (tf != null) {
+          score += entry.getValue() * tf * (K1 + 1) / (tf + norm);
+        }
+      }
+      if (score > 0 && isLive(document) && !document.id().equals(exclude)) {
+        offer(best, new Hit(document.id(), score), limit);
+      }
+    }
+    List<Hit> hits = new ArrayList<>(best);
+    hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+    return hits;
+  }
+
+  private boolean isLive(Document document) {
+    Version version = live.get(document.id());
+    return version != null && version.sequence() == document.sequence();
+  }
+
+  /** Document length normalization of the BM25 term frequency saturation. */
+  private static double norm(int length, double averageLength) {
+    return K1 * (1 - B + B * length / averageLength);
+  }
+
+  private static void offer(PriorityQueue<Hit> best, Hit hit, int limit) {
+    if (best.size() < limit) {
+      best.add(hit);
+    } else if (hit.score() > best.peek().score()) {
+      best.poll();
+      best.add(hit);
+    }
+  }
+
+  private void seal() {
+    segments.add(new Segment(buffer));
+    buffer.clear();
+    merge();
+    evict();
+  }
+
+  /** Merges the smallest adjacent pair while there are too many segments. */
+  private void merge() {
+    while (segments.size() > maxSegments) {
+      int pair = -1;
+      int smallest = Integer.MAX_VALUE;
+      for (int i = 0; i + 1 < segments.size(); i++) {
+        int merged = segments.get(i).size() + segments.get(i + 1).size();
+        if (merged < smallest) {
+          smallest = merged;
+          pair = i;
+        }
+      }
+      List<Document> documents = new ArrayList<>(segments.get(pair).liveDocuments(live));
+      documents.addAll(segments.get(pair + 1).liveDocuments(live));
+      if (documents.size() > maxMergedSize) {
+        // Only large segments left; eviction brings the count back down
+        break;
+      }
+      storedDocuments -= segments.get(pair).size() + segments.get(pair + 1).size() - documents.size();
+      segments.remove(pair + 1);
+      segments.set(pair, new Segment(documents));
+    }
+  }
+
+  private void evict() {
+    while (storedDocuments > maxDocuments && !segments.isEmpty()) {
+      Segment oldest = segments.removeFirst();
+      storedDocuments -= oldest.size();
+      for (int doc = 0; doc < oldest.size(); doc++) {
+        if (oldest.isLive(live, doc)) {
+          remove(oldest.ids[doc]);
+        }
+      }
+    }
+  }
+}
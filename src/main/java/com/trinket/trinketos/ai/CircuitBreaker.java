@@ -0,0 +1,123 @@
+package com.trinket.trinketos.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. CLOSED trips to OPEN when the failure rate over
+ * the last {@code windowSize} calls reaches {@code failureRateThreshold};
+ * after {@code openDurationMs} a single probe is let through (HALF_OPEN) and
+ * its outcome closes or re-opens the circuit.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int windowSize;
+  private final double failureRateThreshold;
+  private final long openDurationNanos;
+  private final LongSupplier clock;
+
+  private final boolean[] window;
+  private int windowIndex;
+  private int recorded;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean probeInFlight;
+
+  public CircuitBreaker(int windowSize, double failureRateThreshold, long openDurationMs) {
+    this(windowSize, failureRateThreshold, openDurationMs, System::nanoTime);
+  }
+
+  CircuitBreaker(int windowSize, double failureRateThreshold, long openDurationMs, LongSupplier clock) {
+    this.windowSize = windowSize;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    this.clock = clock;
+    this.window = new boolean[windowSize];
+  }
+
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (clock.getAsLong() - openedAt < openDurationNanos) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        probeInFlight = true;
+        return true;
+      default:
+        if (probeInFlight) {
+          return false;
+        }
+        probeInFlight = true;
+        return true;
+    }
+  }
+
+  public synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      reset();
+      return;
+    }
+    record(false);
+  }
+
+  public synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      open();
+      return;
+    }
+    record(true);
+    if (recorded >= windowSize && (double) failures / recorded >= failureRateThreshold) {
+      open();
+    }
+  }
+
+  /** Gives back a permit whose call never reached the upstream. */
+  public synchronized void onIgnored() {
+    if (state == State.HALF_OPEN) {
+      probeInFlight = false;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private void record(boolean failed) {
+    if (recorded == windowSize && window[windowIndex]) {
+      failures--;
+    }
+    window[windowIndex] = failed;
+    if (failed) {
+      failures++;
+    }
+    windowIndex = (windowIndex + 1) % windowSize;
+    recorded = Math.min(recorded + 1, windowSize);
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = clock.getAsLong();
+    probeInFlight = false;
+  }
+
+  private void reset() {
+    state = State.CLOSED;
+    probeInFlight = false;
+    windowIndex = 0;
+    recorded = 0;
+    failures = 0;
+    Arrays.fill(window, false);
+  }
+}
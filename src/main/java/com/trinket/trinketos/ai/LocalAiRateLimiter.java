@@ -0,0 +1,31 @@
+package com.trinket.trinketos.ai;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory buckets, one per organization. Limits are per node.
+ */
+@Component
+@ConditionalOnProperty(name = "application.ai.rate-limit.store", havingValue = "local", matchIfMissing = true)
+public class LocalAiRateLimiter implements AiRateLimiter {
+
+  private final Map<UUID, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+  @Value("${application.ai.rate-limit.capacity:20}")
+  private double capacity;
+
+  @Value("${application.ai.rate-limit.refill-per-minute:10}")
+  private double refillPerMinute;
+
+  @Override
+  public long tryAcquireOrDelay(UUID organizationId) {
+    return buckets.computeIfAbsent(organizationId, id -> new TokenBucket(capacity, refillPerMinute / 60))
+        .tryConsumeOrDelay();
+  }
+}
@@ -0,0 +1,82 @@
+package com.trinket.trinketos.ai;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Multinomial naive Bayes over binary token occurrence (each token counted
+ * once per document, which suits short ticket texts) with Laplace
+ * smoothing. Training is a counter update, so documents can be added one at
+ * a time. Not thread-safe; {@link TicketPreClassifier} guards each instance.
+ */
+final class NaiveBayesClassifier {
+
+  /** Most likely label and its posterior probability. */
+  record Prediction(String label, double confidence) {
+  }
+
+  private static final class LabelStats {
+    private final Map<String, Integer> tokenCounts = new HashMap<>();
+    private int documents;
+    private long tokens;
+  }
+
+  private final Map<String, LabelStats> labels = new HashMap<>();
+  private final Set<String> vocabulary = new HashSet<>();
+  private int documents;
+
+  void add(Collection<String> tokens, String label) {
+    LabelStats stats = labels.computeIfAbsent(label, l -> new LabelStats());
+    stats.documents++;
+    documents++;
+    for (String token : new HashSet<>(tokens)) {
+      stats.tokenCounts.merge(token, 1, Integer::sum);
+      stats.tokens++;
+      vocabulary.add(token);
+    }
+  }
+
+  /** @return null until at least one document was added */
+  Prediction predict(Collection<String> tokens) {
+    if (documents == 0) {
+      return null;
+    }
+    // Unseen tokens score the same under every label, skip them
+    List<String> known = new ArrayList<>();
+    for (String token : new HashSet<>(tokens)) {
+      if (vocabulary.contains(token)) {
+        known.add(token);
+      }
+    }
+    int vocabularySize = vocabulary.size();
+    List<String> names = new ArrayList<>(labels.keySet());
+    double[] scores = new double[names.size()];
+    int best = 0;
+    for (int i = 0; i < names.size(); i++) {
+      LabelStats stats = labels.get(names.get(i));
+      double denominator = Math.log(stats.tokens + vocabularySize);
+      double score = Math.log((double) stats.documents / documents);
+      for (String token : known) {
+        score += Math.log(stats.tokenCounts.getOrDefault(token, 0) + 1) - denominator;
+      }
+      scores[i] = score;
+      if (score > scores[best]) {
+        best = i;
+      }
+    }
+    double sum = 0;
+    for (double score : scores) {
+      sum += Math.exp(score - scores[best]);
+    }
+    return new Prediction(names.get(best), 1 / sum);
+  }
+
+  int documents() {
+    return documents;
+  }
+}
@@ -0,0 +1,66 @@
+package com.trinket.trinketos.ai;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buckets shared by every API node, stored in ai_rate_limits. Refill and
+ * consume happen in a single conditional UPDATE, so concurrent nodes never
+ * over-spend a bucket.
+ */
+@Component
+@ConditionalOnProperty(name = "application.ai.rate-limit.store", havingValue = "postgres")
+@RequiredArgsConstructor
+public class PostgresAiRateLimiter implements AiRateLimiter {
+
+  private static final String INSERT_BUCKET = """
+      INSERT INTO ai_rate_limits (organization_id, tokens, refilled_at)
+      VALUES (?, ?, clock_timestamp())
+      ON CONFLICT (organization_id) DO NOTHING
+      """;
+
+  private static final String CONSUME = """
+      UPDATE ai_rate_limits
+      SET tokens = LEAST(?, tokens + EXTRACT(EPOCH FROM (clock_timestamp() - refilled_at)) * ?) - 1,
+          refilled_at = clock_timestamp()
+      WHERE organization_id = ?
+        AND LEAST(?, tokens + EXTRACT(EPOCH FROM (clock_timestamp() - refilled_at)) * ?) >= 1
+      """;
+
+  private static final String SECONDS_TO_NEXT_TOKEN = """
+      SELECT (1 - LEAST(?, tokens + EXTRACT(EPOCH FROM (clock_timestamp() - refilled_at)) * ?)) / ?
+      FROM ai_rate_limits
+      WHERE organization_id = ?
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Value("${application.ai.rate-limit.capacity:20}")
+  private double capacity;
+
+  @Value("${application.ai.rate-limit.refill-per-minute:10}")
+  private double refillPerMinute;
+
+  @Override
+  public long tryAcquireOrDelay(UUID organizationId) {
+    double refillPerSecond = refillPerMinute / 60;
+    int updated = jdbcTemplate.update(CONSUME, capacity, refillPerSecond, organizationId, capacity, refillPerSecond);
+    if (updated == 0 && jdbcTemplate.update(INSERT_BUCKET, organizationId, capacity) == 1) {
+      // First call for this organization: a full bucket was created, retry once
+      updated = jdbcTemplate.update(CONSUME, capacity, refillPerSecond, organizationId, capacity, refillPerSecond);
+    }
+    if (updated == 1) {
+      return 0;
+    }
+    // Only asked when refused; callers cache it instead of retrying blindly
+    Double seconds = jdbcTemplate.queryForObject(SECONDS_TO_NEXT_TOKEN, Double.class,
+        capacity, refillPerSecond, refillPerSecond, organizationId);
+    return Math.max(1, (long) Math.ceil((seconds != null ? seconds : 0) * TimeUnit.SECONDS.toNanos(1)));
+  }
+}
@@ -0,0 +1,368 @@
+package com.trinket.trinketos.ai;
+
+import com.trinket.trinketos.dto.SimilarTicketResponse;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.util.TextTokenizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Per-organization BM25 index over resolved/closed tickets: title,
+ * description and the diagnosis and solution from ticket_ai_analysis. Used
+ * to show agents how similar tickets were fixed and to ground the triage
+ * prompt in TicketAIService.
+ *
+ * An organization's index is built on a background thread on first use and
+ * every {@code rebuild-interval-ms} (which also picks up edits to tickets
+ * already resolved). In between, tickets are added when they get resolved
+ * and removed when reopened or deleted, locally through Hibernate
+ * post-commit listeners and from other nodes through
+ * {@link CacheInvalidation}. Searches only touch memory; ticket details for
+ * the hits are read in one query.
+ */
+@Service
+@Slf4j
+public class ResolvedTicketIndex implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+  private static final String LOAD = """
+      SELECT t.id, t.title, t.description, a.diagnosis, a.suggested_solution
+      FROM tickets t LEFT JOIN ticket_ai_analysis a ON a.ticket_id = t.id
+      WHERE t.organization_id = :organizationId AND t.status IN ('RESOLVED', 'CLOSED')
+      ORDER BY COALESCE(t.resolved_at, t.created_at) DESC
+      LIMIT :limit
+      """;
+
+  private static final String LOAD_ONE = """
+      SELECT t.id, t.title, t.description, t.status, a.diagnosis, a.suggested_solution
+      FROM tickets t LEFT JOIN ticket_ai_analysis a ON a.ticket_id = t.id
+      WHERE t.id = :id
+      """;
+
+  private static final String DETAILS = """
+      SELECT t.id, t.code, t.title, t.category, t.team_id, t.resolved_at, a.diagnosis, a.suggested_solution
+      FROM tickets t LEFT JOIN ticket_ai_analysis a ON a.ticket_id = t.id
+      WHERE t.organization_id = :organizationId AND t.id IN (:ids)
+      """;
+
+  /** Agents only see their team's tickets, so more hits are read before filtering. */
+  private static final int VISIBILITY_OVERFETCH = 4;
+
+  record Indexed(UUID id, List<String> tokens) {
+  }
+
+  private static final class OrganizationIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Bm25Index index;
+
+    private OrganizationIndex(Bm25Index index) {
+      this.index = index;
+    }
+  }
+
+  private final JdbcClient jdbcClient;
+  private final TransactionTemplate readOnlyTransaction;
+  private final EntityManagerFactory entityManagerFactory;
+  private final Timer searches;
+  private final boolean enabled;
+  private final int maxDocuments;
+  private final int segmentSize;
+  private final int maxSegments;
+
+  private final Map<UUID, OrganizationIndex> indexes = new ConcurrentHashMap<>();
+  private final Set<UUID> building = ConcurrentHashMap.newKeySet();
+  private final ExecutorService indexer = Executors.newSingleThreadExecutor(
+      runnable -> Thread.ofPlatform().daemon().name("resolved-ticket-indexer").unstarted(runnable));
+
+  public ResolvedTicketIndex(
+      JdbcClient jdbcClient,
+      PlatformTransactionManager transactionManager,
+      EntityManagerFactory entityManagerFactory,
+      MeterRegistry meterRegistry,
+      @Value("${application.ai.similar-tickets.enabled:true}") boolean enabled,
+      @Value("${application.ai.similar-tickets.max-documents:20000}") int maxDocuments,
+      @Value("${application.ai.similar-tickets.segment-size:256}") int segmentSize,
+      @Value("${application.ai.similar-tickets.max-segments:8}") int maxSegments) {
+    this.jdbcClient = jdbcClient;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.entityManagerFactory = entityManagerFactory;
+    this.searches = Timer.builder("trinketos.ai.similar_tickets.search")
+        .description("In-memory BM25 lookup, without the details query")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+    this.enabled = enabled;
+    this.maxDocuments = maxDocuments;
+    this.segmentSize = segmentSize;
+    this.maxSegments = maxSegments;
+  }
+
+  @PostConstruct
+  void registerListeners() {
+    if (!enabled) {
+      return;
+    }
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  @PreDestroy
+  void stop() {
+    indexer.shutdownNow();
+  }
+
+  /**
+   * Resolved tickets closest to the given text, best first. Empty while the
+   * organization's index is being built.
+   *
+   * @param exclude  ticket to leave out (the one being looked at), or null
+   * @param teamId   non-null restricts to the team OR its categories, as for agents
+   */
+  public List<SimilarTicketResponse> similar(UUID organizationId, UUID exclude, String title, String description,
+      int limit, UUID teamId, List<String> categories) {
+    List<Bm25Index.Hit> hits = search(organizationId, exclude, TextTokenizer.tokenize(title, description),
+        teamId != null ? limit * VISIBILITY_OVERFETCH : limit);
+    if (hits.isEmpty()) {
+      return List.of();
+    }
+    Map<UUID, Double> scores = hits.stream().collect(Collectors.toMap(Bm25Index.Hit::id, Bm25Index.Hit::score));
+    List<SimilarTicketResponse> details = readOnlyTransaction.execute(tx -> jdbcClient.sql(DETAILS)
+        .param("organizationId", organizationId)
+        .param("ids", scores.keySet())
+        .query((rs, rowNum) -> {
+          Timestamp resolvedAt = rs.getTimestamp("resolved_at");
+          UUID id = rs.getObject("id", UUID.class);
+          return new SimilarTicketResponse(
+              id,
+              rs.getString("code"),
+              rs.getString("title"),
+              rs.getString("category"),
+              rs.getObject("team_id", UUID.class),
+              rs.getString("diagnosis"),
+              rs.getString("suggested_solution"),
+              resolvedAt != null ? resolvedAt.toLocalDateTime() : null,
+              scores.get(id));
+        })
+        .list());
+    return details.stream()
+        .filter(ticket -> teamId == null || teamId.equals(ticket.teamId())
+            || (ticket.category() != null && categories.contains(ticket.category())))
+        .sorted(Comparator.comparingDouble(SimilarTicketResponse::score).reversed())
+        .limit(limit)
+        .toList();
+  }
+
+  List<Bm25Index.Hit> search(UUID organizationId, UUID exclude, List<String> query, int limit) {
+    if (!enabled || organizationId == null) {
+      return List.of();
+    }
+    OrganizationIndex index = indexes.get(organizationId);
+    if (index == null) {
+      scheduleBuild(organizationId);
+      return List.of();
+    }
+    long startedAt = System.nanoTime();
+    index.lock.readLock().lock();
+    try {
+      return index.index.search(query, limit, exclude);
+    } finally {
+      index.lock.readLock().unlock();
+      searches.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${application.ai.similar-tickets.rebuild-interval-ms:21600000}")
+  void rebuild() {
+    indexes.keySet().forEach(this::scheduleBuild);
+  }
+
+  /** Tickets changed on another node: re-check the ones we may hold; reload everything after a gap. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      indexes.keySet().forEach(this::scheduleBuild);
+    } else if (invalidation.kind() == CacheInvalidation.Kind.TICKET && isTracked(invalidation.organizationId())) {
+      indexer.execute(() -> refresh(invalidation.organizationId(), invalidation.id()));
+    }
+  }
+
+  /**
+   * Whether changes to the organization's tickets must be followed. While a
+   * build is running they are queued on the indexer behind it, since its
+   * load may have read the ticket before the change committed.
+   */
+  private boolean isTracked(UUID organizationId) {
+    return indexes.containsKey(organizationId) || building.contains(organizationId);
+  }
+
+  private void scheduleBuild(UUID organizationId) {
+    if (!building.add(organizationId)) {
+      return;
+    }
+    indexer.execute(() -> {
+      try {
+        build(organizationId, load(organizationId));
+      } catch (Exception e) {
+        log.warn("Could not build resolved ticket index for organization {}", organizationId, e);
+        // Empty placeholder, so the next rebuild tries again instead of every request
+        indexes.putIfAbsent(organizationId, newIndex());
+      } finally {
+        building.remove(organizationId);
+      }
+    });
+  }
+
+  private List<Indexed> load(UUID organizationId) {
+    List<Indexed> tickets = new ArrayList<>(readOnlyTransaction.execute(tx -> jdbcClient.sql(LOAD)
+        .param("organizationId", organizationId)
+        .param("limit", maxDocuments)
+        .query((rs, rowNum) -> new Indexed(rs.getObject("id", UUID.class), TextTokenizer.tokenize(
+            rs.getString("title"), rs.getString("description"),
+            rs.getString("diagnosis"), rs.getString("suggested_solution"))))
+        .list()));
+    // Oldest first, so the oldest end up in the segments evicted first
+    Collections.reverse(tickets);
+    return tickets;
+  }
+
+  void build(UUID organizationId, List<Indexed> ticketsOldestFirst) {
+    OrganizationIndex index = newIndex();
+    ticketsOldestFirst.forEach(ticket -> index.index.add(ticket.id(), ticket.tokens()));
+    indexes.put(organizationId, index);
+    log.info("Resolved ticket index for organization {}: {} tickets in {} segments", organizationId,
+        index.index.size(), index.index.segments());
+  }
+
+  private OrganizationIndex newIndex() {
+    return new OrganizationIndex(new Bm25Index(segmentSize, maxSegments, maxDocuments));
+  }
+
+  /** Adds the ticket if it is resolved/closed, removes it otherwise. */
+  private void refresh(UUID organizationId, UUID ticketId) {
+    OrganizationIndex index = indexes.get(organizationId);
+    if (index == null) {
+      return;
+    }
+    try {
+      List<Indexed> resolved = readOnlyTransaction.execute(tx -> jdbcClient.sql(LOAD_ONE)
+          .param("id", ticketId)
+          .query((rs, rowNum) -> isResolved(TicketStatus.valueOf(rs.getString("status")))
+              ? new Indexed(ticketId, TextTokenizer.tokenize(rs.getString("title"), rs.getString("description"),
+                  rs.getString("diagnosis"), rs.getString("suggested_solution")))
+              : null)
+          .list());
+      update(index, ticketId, resolved.isEmpty() ? null : resolved.getFirst());
+    } catch (Exception e) {
+      log.warn("Could not refresh ticket {} in the resolved ticket index", ticketId, e);
+    }
+  }
+
+  private static void update(OrganizationIndex index, UUID ticketId, Indexed ticket) {
+    index.lock.writeLock().lock();
+    try {
+      if (ticket != null) {
+        index.index.add(ticket.id(), ticket.tokens());
+      } else {
+        index.index.remove(ticketId);
+      }
+    } finally {
+      index.lock.writeLock().unlock();
+    }
+  }
+
+  private static boolean isResolved(TicketStatus status) {
+    return status == TicketStatus.RESOLVED || status == TicketStatus.CLOSED;
+  }
+
+  // --- Hibernate post-commit listeners: follow tickets into and out of resolved ---
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Ticket ticket) || !isTracked(ticket.getOrganizationId())) {
+      return;
+    }
+    Object[] oldState = event.getOldState();
+    boolean wasResolved = false;
+    if (oldState != null) {
+      int status = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("status");
+      wasResolved = isResolved((TicketStatus) oldState[status]);
+    }
+    if (oldState == null || wasResolved != isResolved(ticket.getStatus())) {
+      // The diagnosis and solution live in ticket_ai_analysis, read them off the request thread
+      indexer.execute(() -> refresh(ticket.getOrganizationId(), ticket.getId()));
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (!(event.getEntity() instanceof Ticket ticket)) {
+      return;
+    }
+    OrganizationIndex index = indexes.get(ticket.getOrganizationId());
+    if (index != null) {
+      update(index, ticket.getId(), null);
+    }
+    if (building.contains(ticket.getOrganizationId())) {
+      // The index being built may have loaded it; remove it again once that one is installed
+      indexer.execute(() -> {
+        OrganizationIndex built = indexes.get(ticket.getOrganizationId());
+        if (built != null) {
+          update(built, ticket.getId(), null);
+        }
+      });
+    }
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+}
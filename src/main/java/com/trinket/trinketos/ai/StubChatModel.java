@@ -0,0 +1,46 @@
+package com.trinket.trinketos.ai;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local stand-in for Gemini with configurable latency and failure rate, used
+ * by the ai-stub profile to exercise timeouts, the circuit breaker and the
+ * concurrency limit without a real API key.
+ */
+public class StubChatModel implements ChatModel {
+
+  private static final String TRIAGE_JSON = """
+      {"title": "Ticket de teste", "sentiment": "Neutro", "priority": "MEDIUM", "category": "Geral",
+       "diagnosis": "Resposta gerada pelo modelo stub.", "suggested_solution": "Nenhuma ação necessária."}
+      """;
+
+  private final long latencyMs;
+  private final double failureRate;
+
+  public StubChatModel(long latencyMs, double failureRate) {
+    this.latencyMs = latencyMs;
+    this.failureRate = failureRate;
+  }
+
+  @Override
+  public ChatResponse call(Prompt prompt) {
+    try {
+      Thread.sleep(latencyMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Stub model interrupted", e);
+    }
+    if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+      throw new IllegalStateException("Stub model failure");
+    }
+    String text = prompt.getSystemMessage().getText().contains("JSON") ? TRIAGE_JSON : prompt.getUserMessage().getText();
+    return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+  }
+}
@@ -0,0 +1,382 @@
+package com.trinket.trinketos.ai;
+
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.repository.CategoryRepository;
+import com.trinket.trinketos.util.TextTokenizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-organization naive Bayes models for category and priority, trained
+ * on resolved/closed tickets (whose category and priority an agent has
+ * seen through), leaving out the ones it triaged itself unless an agent
+ * corrected them. At ticket creation a confident prediction on both sets
+ * them directly and the LLM call is skipped; anything uncertain still goes
+ * to the LLM.
+ *
+ * A tenant's model is trusted only after an offline evaluation: the newest
+ * 20% of its tickets are held out, and the precision on the ones the model
+ * was confident about must reach {@code min-precision}. Training runs on a
+ * background thread, on first use and every {@code retrain-interval-ms};
+ * newly resolved tickets are added incrementally in between.
+ */
+@Service
+@Slf4j
+public class TicketPreClassifier implements PostCommitUpdateEventListener {
+
+  public static final String MODEL_ID = "local-naive-bayes";
+  public static final String MODEL_VERSION = "preclassifier-v1";
+
+  /** Local triage result for a new ticket. */
+  public record Classification(String category, Priority priority, double categoryConfidence,
+      double priorityConfidence) {
+  }
+
+  /** Hold-out evaluation from a tenant's last full training. */
+  public record EvaluationReport(int trainingTickets, int heldOutTickets, double categoryAccuracy,
+      double priorityAccuracy, double coverage, double precisionWhenConfident, boolean autoClassifying,
+      LocalDateTime trainedAt) {
+  }
+
+  record Example(List<String> tokens, String category, Priority priority) {
+  }
+
+  /**
+   * Tickets this classifier triaged teach it nothing unless an agent changed
+   * what it predicted; learning its own output back would inflate the
+   * measured precision. Category can't be edited by agents, so only a
+   * priority change counts as a correction.
+   */
+  private static final String AGENT_LABELLED = """
+      (a.model_id IS NULL OR a.model_id <> ? OR EXISTS (
+        SELECT 1 FROM ticket_events e JOIN users u ON u.id = e.actor_id
+        WHERE e.ticket_id = t.id AND e.type = 'PRIORITY_CHANGED' AND u.role <> 'ROLE_CUSTOMER'))
+      """;
+
+  private static final String LOAD = """
+      SELECT t.title, t.description, t.category, t.priority FROM tickets t
+      LEFT JOIN ticket_ai_analysis a ON a.ticket_id = t.id
+      WHERE t.organization_id = ? AND t.status IN ('RESOLVED', 'CLOSED')
+        AND t.category IS NOT NULL AND t.priority IS NOT NULL
+        AND """ + AGENT_LABELLED + """
+      ORDER BY t.created_at DESC
+      LIMIT ?
+      """;
+
+  private static final String IS_AGENT_LABELLED = """
+      SELECT count(*) FROM tickets t
+      LEFT JOIN ticket_ai_analysis a ON a.ticket_id = t.id
+      WHERE t.id = ? AND """ + AGENT_LABELLED;
+
+  private static final class Model {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NaiveBayesClassifier categories = new NaiveBayesClassifier();
+    private final NaiveBayesClassifier priorities = new NaiveBayesClassifier();
+    private final EvaluationReport report;
+
+    private Model(EvaluationReport report) {
+      this.report = report;
+    }
+
+    private void add(Example example) {
+      categories.add(example.tokens(), example.category());
+      priorities.add(example.tokens(), example.priority().name());
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final EntityManagerFactory entityManagerFactory;
+  private final CategoryRepository categoryRepository;
+  private final Counter local;
+  private final Counter llm;
+  private final boolean enabled;
+  private final double confidenceThreshold;
+  private final double minPrecision;
+  private final int minTrainingTickets;
+  private final int maxTrainingTickets;
+
+  private final Map<UUID, Model> models = new ConcurrentHashMap<>();
+  private final Set<UUID> training = ConcurrentHashMap.newKeySet();
+  private final ExecutorService trainer = Executors.newSingleThreadExecutor(
+      runnable -> Thread.ofPlatform().daemon().name("ticket-classifier-trainer").unstarted(runnable));
+
+  public TicketPreClassifier(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      EntityManagerFactory entityManagerFactory,
+      CategoryRepository categoryRepository,
+      MeterRegistry meterRegistry,
+      @Value("${application.ai.preclassifier.enabled:false}") boolean enabled,
+      @Value("${application.ai.preclassifier.confidence-threshold:0.9}") double confidenceThreshold,
+      @Value("${application.ai.preclassifier.min-precision:0.9}") double minPrecision,
+      @Value("${application.ai.preclassifier.min-training-tickets:200}") int minTrainingTickets,
+      @Value("${application.ai.preclassifier.max-training-tickets:20000}") int maxTrainingTickets) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.entityManagerFactory = entityManagerFactory;
+    this.categoryRepository = categoryRepository;
+    this.local = meterRegistry.counter("trinketos.ai.preclassifier.decisions", "result", "local");
+    this.llm = meterRegistry.counter("trinketos.ai.preclassifier.decisions", "result", "llm");
+    this.enabled = enabled;
+    this.confidenceThreshold = confidenceThreshold;
+    this.minPrecision = minPrecision;
+    this.minTrainingTickets = minTrainingTickets;
+    this.maxTrainingTickets = maxTrainingTickets;
+  }
+
+  @PostConstruct
+  void registerListeners() {
+    if (!enabled) {
+      return;
+    }
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+  }
+
+  @PreDestroy
+  void stop() {
+    trainer.shutdownNow();
+  }
+
+  /**
+   * Category and priority for a new ticket, or empty when the tenant's model
+   * isn't trained/trusted yet or isn't confident about both.
+   */
+  public Optional<Classification> classify(UUID organizationId, String title, String description) {
+    if (!enabled || organizationId == null) {
+      return Optional.empty();
+    }
+    Model model = models.get(organizationId);
+    if (model == null) {
+      scheduleTraining(organizationId);
+    }
+    List<String> tokens = TextTokenizer.tokenize(title, description);
+    if (model == null || !model.report.autoClassifying() || tokens.isEmpty()) {
+      llm.increment();
+      return Optional.empty();
+    }
+
+    NaiveBayesClassifier.Prediction category;
+    NaiveBayesClassifier.Prediction priority;
+    model.lock.readLock().lock();
+    try {
+      category = model.categories.predict(tokens);
+      priority = model.priorities.predict(tokens);
+    } finally {
+      model.lock.readLock().unlock();
+    }
+    if (!isConfident(category) || !isConfident(priority) || !categoryExists(organizationId, category.label())) {
+      llm.increment();
+      return Optional.empty();
+    }
+    local.increment();
+    return Optional.of(new Classification(category.label(), Priority.valueOf(priority.label()),
+        category.confidence(), priority.confidence()));
+  }
+
+  /** Offline evaluation of the tenant's current model; triggers training if there is none yet. */
+  public Optional<EvaluationReport> report(UUID organizationId) {
+    Model model = models.get(organizationId);
+    if (model == null && enabled) {
+      scheduleTraining(organizationId);
+    }
+    return Optional.ofNullable(model).map(m -> m.report);
+  }
+
+  @Scheduled(fixedDelayString = "${application.ai.preclassifier.retrain-interval-ms:3600000}")
+  void retrain() {
+    models.keySet().forEach(this::scheduleTraining);
+  }
+
+  private void scheduleTraining(UUID organizationId) {
+    if (!training.add(organizationId)) {
+      return;
+    }
+    trainer.execute(() -> {
+      try {
+        fit(organizationId, load(organizationId));
+      } catch (Exception e) {
+        log.warn("Could not train ticket classifier for organization {}", organizationId, e);
+        // Untrusted placeholder, so the next retrain tries again instead of every new ticket
+        models.putIfAbsent(organizationId, new Model(
+            new EvaluationReport(0, 0, 0, 0, 0, 0, false, LocalDateTime.now())));
+      } finally {
+        training.remove(organizationId);
+      }
+    });
+  }
+
+  List<Example> load(UUID organizationId) {
+    List<Example> examples = new ArrayList<>();
+    readOnlyTransaction.executeWithoutResult(tx -> jdbcTemplate.query(LOAD, rs -> {
+      try {
+        examples.add(new Example(
+            TextTokenizer.tokenize(rs.getString("title"), rs.getString("description")),
+            rs.getString("category"),
+            Priority.valueOf(rs.getString("priority"))));
+      } catch (IllegalArgumentException e) {
+        // Unknown priority value, skip the row
+      }
+    }, organizationId, MODEL_ID, maxTrainingTickets));
+    Collections.reverse(examples);
+    return examples;
+  }
+
+  boolean isAgentLabelled(UUID ticketId) {
+    Long matches = readOnlyTransaction.execute(tx ->
+        jdbcTemplate.queryForObject(IS_AGENT_LABELLED, Long.class, ticketId, MODEL_ID));
+    return matches != null && matches > 0;
+  }
+
+  /**
+   * Evaluates on the newest 20% after training on the rest, then trains the
+   * final model on everything and puts it in use.
+   *
+   * @param examples oldest first
+   */
+  EvaluationReport fit(UUID organizationId, List<Example> examples) {
+    int split = examples.size() - examples.size() / 5;
+    Model candidate = new Model(null);
+    examples.subList(0, split).forEach(candidate::add);
+
+    List<Example> heldOut = examples.subList(split, examples.size());
+    int categoryHits = 0;
+    int priorityHits = 0;
+    int confident = 0;
+    int confidentHits = 0;
+    for (Example example : heldOut) {
+      NaiveBayesClassifier.Prediction category = candidate.categories.predict(example.tokens());
+      NaiveBayesClassifier.Prediction priority = candidate.priorities.predict(example.tokens());
+      boolean categoryHit = category != null && category.label().equals(example.category());
+      boolean priorityHit = priority != null && priority.label().equals(example.priority().name());
+      categoryHits += categoryHit ? 1 : 0;
+      priorityHits += priorityHit ? 1 : 0;
+      if (isConfident(category) && isConfident(priority)) {
+        confident++;
+        confidentHits += categoryHit && priorityHit ? 1 : 0;
+      }
+    }
+    double precision = confident > 0 ? (double) confidentHits / confident : 0;
+    EvaluationReport report = new EvaluationReport(
+        examples.size(),
+        heldOut.size(),
+        ratio(categoryHits, heldOut.size()),
+        ratio(priorityHits, heldOut.size()),
+        ratio(confident, heldOut.size()),
+        precision,
+        examples.size() >= minTrainingTickets && confident > 0 && precision >= minPrecision,
+        LocalDateTime.now());
+
+    Model model = new Model(report);
+    examples.forEach(model::add);
+    models.put(organizationId, model);
+    log.info("Ticket classifier for organization {}: {}", organizationId, report);
+    return report;
+  }
+
+  private boolean isConfident(NaiveBayesClassifier.Prediction prediction) {
+    return prediction != null && prediction.confidence() >= confidenceThreshold;
+  }
+
+  private boolean categoryExists(UUID organizationId, String name) {
+    // Served from the query cache; the model may still know a deleted category
+    return categoryRepository.findByOrganizationId(organizationId).stream()
+        .map(Category::getName)
+        .anyMatch(name::equals);
+  }
+
+  private static double ratio(int part, int total) {
+    return total > 0 ? (double) part / total : 0;
+  }
+
+  // --- Hibernate post-commit listener: learn from tickets as they get resolved ---
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Ticket ticket) || !isConfirmed(ticket.getStatus())
+        || ticket.getCategory() == null || ticket.getPriority() == null) {
+      return;
+    }
+    Model model = models.get(ticket.getOrganizationId());
+    Object[] oldState = event.getOldState();
+    // Without a snapshot we can't tell whether it was already learned; the next retrain picks it up
+    if (model == null || oldState == null) {
+      return;
+    }
+    int status = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("status");
+    if (isConfirmed((TicketStatus) oldState[status])) {
+      return;
+    }
+    UUID ticketId = ticket.getId();
+    Example example = new Example(TextTokenizer.tokenize(ticket.getTitle(), ticket.getDescription()),
+        ticket.getCategory(), ticket.getPriority());
+    // Checking who labelled it takes a query, keep it off the committing thread
+    trainer.execute(() -> {
+      try {
+        if (!isAgentLabelled(ticketId)) {
+          return;
+        }
+      } catch (Exception e) {
+        log.warn("Could not check how ticket {} was labelled; the next retrain decides", ticketId, e);
+        return;
+      }
+      model.lock.writeLock().lock();
+      try {
+        model.add(example);
+      } finally {
+        model.lock.writeLock().unlock();
+      }
+    });
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+
+  private static boolean isConfirmed(TicketStatus status) {
+    return status == TicketStatus.RESOLVED || status == TicketStatus.CLOSED;
+  }
+}
@@ -0,0 +1,49 @@
+package com.trinket.trinketos.ai;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Classic token bucket: holds up to {@code capacity} tokens and refills
+ * continuously at {@code refillPerSecond}.
+ */
+public class TokenBucket {
+
+  private final double capacity;
+  private final double refillPerNano;
+  private final LongSupplier clock;
+
+  private double tokens;
+  private long refilledAt;
+
+  public TokenBucket(double capacity, double refillPerSecond) {
+    this(capacity, refillPerSecond, System::nanoTime);
+  }
+
+  TokenBucket(double capacity, double refillPerSecond, LongSupplier clock) {
+    this.capacity = capacity;
+    this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.clock = clock;
+    this.tokens = capacity;
+    this.refilledAt = clock.getAsLong();
+  }
+
+  public boolean tryConsume() {
+    return tryConsumeOrDelay() == 0;
+  }
+
+  /**
+   * @return 0 when a token was taken, otherwise the nanoseconds until the
+   *         next one is available
+   */
+  public synchronized long tryConsumeOrDelay() {
+    long now = clock.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - refilledAt) * refillPerNano);
+    refilledAt = now;
+    if (tokens < 1) {
+      return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerNano));
+    }
+    tokens -= 1;
+    return 0;
+  }
+}
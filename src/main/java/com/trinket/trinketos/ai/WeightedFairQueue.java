@@ -0,0 +1,160 @@
+package com.trinket.trinketos.ai;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Weighted fair queue over tenants. Each item gets a virtual finish tag of
+ * {@code max(virtualTime, tenant's last tag) + 1 / weight}; the head with the
+ * smallest tag runs next. A tenant with a thousand queued items therefore
+ * only delays a small tenant's next item by about one slot per weight unit.
+ *
+ * Tenants are kept ordered by their head's tag, so picking one doesn't sort.
+ * The admission check (a rate-limit token, possibly a database call) runs
+ * outside the lock, and a refused tenant is skipped without asking again
+ * until the delay it was given has passed.
+ */
+public class WeightedFairQueue<T> {
+
+  private record Tagged<T>(T item, double finish) {
+  }
+
+  private static final class Flow<T> {
+    private final UUID tenant;
+    private final ArrayDeque<Tagged<T>> items = new ArrayDeque<>();
+    private double lastFinish;
+    private boolean admitting;
+
+    private Flow(UUID tenant) {
+      this.tenant = tenant;
+    }
+
+    private double headFinish() {
+      return items.peekFirst().finish();
+    }
+  }
+
+  private final Map<UUID, Flow<T>> flows = new HashMap<>();
+  /** Non-empty flows by head tag. */
+  private final TreeSet<Flow<T>> ready = new TreeSet<>(
+      Comparator.<Flow<T>>comparingDouble(Flow::headFinish).thenComparing(flow -> flow.tenant));
+  /** Tenants refused by admission, until the refill time they were given (clock nanos). */
+  private final Map<UUID, Long> throttledUntil = new HashMap<>();
+  private final int maxPerTenant;
+  private final LongSupplier clock;
+  private double virtualTime;
+  private int size;
+
+  public WeightedFairQueue(int maxPerTenant) {
+    this(maxPerTenant, System::nanoTime);
+  }
+
+  WeightedFairQueue(int maxPerTenant, LongSupplier clock) {
+    this.maxPerTenant = maxPerTenant;
+    this.clock = clock;
+  }
+
+  /**
+   * @return false when the tenant already has {@code maxPerTenant} items queued
+   */
+  public synchronized boolean add(UUID tenant, int weight, T item) {
+    Flow<T> flow = flows.computeIfAbsent(tenant, Flow::new);
+    if (flow.items.size() >= maxPerTenant) {
+      return false;
+    }
+    double finish = Math.max(virtualTime, flow.lastFinish) + 1.0 / weight;
+    flow.lastFinish = finish;
+    flow.items.addLast(new Tagged<>(item, finish));
+    if (flow.items.size() == 1) {
+      ready.add(flow);
+    }
+    size++;
+    return true;
+  }
+
+  /**
+   * Removes the head with the smallest finish tag among tenants accepted by
+   * {@code admit}, which is asked in tag order, outside the lock, and may
+   * consume a token. It returns 0 to accept, or the nanoseconds until the
+   * tenant can be asked again.
+   *
+   * @return null when nothing is queued or no tenant is admitted
+   */
+  public T poll(ToLongFunction<UUID> admit) {
+    while (true) {
+      Flow<T> candidate = nextCandidate();
+      if (candidate == null) {
+        return null;
+      }
+      long delay;
+      try {
+        delay = admit.applyAsLong(candidate.tenant);
+      } catch (RuntimeException e) {
+        release(candidate, 0);
+        throw e;
+      }
+      if (delay <= 0) {
+        T item = take(candidate);
+        if (item != null) {
+          return item;
+        }
+      } else {
+        release(candidate, delay);
+      }
+    }
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private synchronized Flow<T> nextCandidate() {
+    long now = clock.getAsLong();
+    for (Flow<T> flow : ready) {
+      if (flow.admitting) {
+        continue;
+      }
+      Long until = throttledUntil.get(flow.tenant);
+      if (until != null) {
+        if (now - until < 0) {
+          continue;
+        }
+        throttledUntil.remove(flow.tenant);
+      }
+      flow.admitting = true;
+      return flow;
+    }
+    return null;
+  }
+
+  private synchronized void release(Flow<T> flow, long delay) {
+    flow.admitting = false;
+    if (delay > 0) {
+      throttledUntil.put(flow.tenant, clock.getAsLong() + delay);
+    }
+  }
+
+  /** @return null if the flow was drained meanwhile */
+  private synchronized T take(Flow<T> flow) {
+    flow.admitting = false;
+    if (flow.items.isEmpty()) {
+      return null;
+    }
+    ready.remove(flow);
+    Tagged<T> head = flow.items.pollFirst();
+    virtualTime = Math.max(virtualTime, head.finish());
+    if (flow.items.isEmpty()) {
+      flows.remove(flow.tenant);
+    } else {
+      ready.add(flow);
+    }
+    size--;
+    return head.item();
+  }
+}
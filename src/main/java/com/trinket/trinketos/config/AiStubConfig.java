@@ -0,0 +1,22 @@
+package com.trinket.trinketos.config;
+
+import com.trinket.trinketos.ai.StubChatModel;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+@Profile("ai-stub")
+public class AiStubConfig {
+
+  @Bean
+  @Primary
+  public ChatModel stubChatModel(
+      @Value("${application.ai.stub.latency-ms:500}") long latencyMs,
+      @Value("${application.ai.stub.failure-rate:0.0}") double failureRate) {
+    return new StubChatModel(latencyMs, failureRate);
+  }
+}
@@ -1,7 +1,10 @@
 package com.trinket.trinketos.config;
 
 import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.security.OffloadedPasswordEncoder;
+import com.trinket.trinketos.security.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -9,18 +12,29 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
   private final UserRepository repository;
+  private final PasswordHashingExecutor passwordHashingExecutor;
+
+  @Value("${application.security.password.algorithm:bcrypt}")
+  private String passwordAlgorithm;
+
+  @Value("${application.security.password.bcrypt-strength:10}")
+  private int bcryptStrength;
 
   @Bean
   public UserDetailsService userDetailsService() {
@@ -37,9 +51,28 @@ public class ApplicationConfig {
     DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
     authProvider.setUserDetailsService(userDetailsService());
     authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
     return authProvider;
   }
 
+  /**
+   * Called by the provider after a successful login whose stored hash is
+   * outdated (legacy un-prefixed bcrypt, lower cost, or another algorithm),
+   * so cost upgrades roll out transparently as users sign in.
+   */
+  @Bean
+  public UserDetailsPasswordService userDetailsPasswordService() {
+    return (userDetails, newPassword) -> {
+      repository.findByEmail(userDetails.getUsername()).ifPresent(user -> {
+        user.setPassword(newPassword);
+        repository.save(user);
+      });
+      return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+          .password(newPassword)
+          .build();
+    };
+  }
+
   @Bean
   public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
     return config.getAuthenticationManager();
@@ -47,6 +80,12 @@ public class ApplicationConfig {
 
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+    DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(passwordAlgorithm, Map.of(
+        "bcrypt", bcrypt,
+        "argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8()));
+    // Hashes stored before the {id} prefix existed are plain bcrypt
+    delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+    return new OffloadedPasswordEncoder(delegating, passwordHashingExecutor);
   }
 }
@@ -0,0 +1,68 @@
+package com.trinket.trinketos.config;
+
+import com.trinket.trinketos.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the auto-configured DataSource with primary + replicas routing
+ * when {@code application.datasource.replicas.enabled} is set. Replicas
+ * reuse the primary's credentials unless overridden.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(
+      HikariDataSource primaryDataSource,
+      DataSourceProperties properties,
+      MeterRegistry meterRegistry,
+      @Value("${application.datasource.replicas.urls}") List<String> urls,
+      @Value("${application.datasource.replicas.username:}") String username,
+      @Value("${application.datasource.replicas.password:}") String password,
+      @Value("${application.datasource.replicas.pool-size:10}") int poolSize,
+      @Value("${application.datasource.replicas.max-lag-ms:5000}") long maxLagMs) {
+    List<DataSource> replicas = new ArrayList<>();
+    for (String url : urls) {
+      if (url.isBlank()) {
+        continue;
+      }
+      HikariDataSource replica = new HikariDataSource();
+      replica.setPoolName("replica-" + replicas.size());
+      replica.setJdbcUrl(url.trim());
+      replica.setUsername(username.isBlank() ? properties.determineUsername() : username);
+      replica.setPassword(password.isBlank() ? properties.determinePassword() : password);
+      replica.setMaximumPoolSize(poolSize);
+      replica.setReadOnly(true);
+      replicas.add(replica);
+    }
+    return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs, meterRegistry);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+}
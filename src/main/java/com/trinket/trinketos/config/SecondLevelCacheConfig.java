@@ -0,0 +1,112 @@
+package com.trinket.trinketos.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache (JCache over Caffeine) for the reference
+ * entities: organizations, categories, teams with their category sets, and
+ * the queries that list them. They only change through admin endpoints,
+ * which go through Hibernate, so READ_WRITE regions stay consistent on this
+ * node; other nodes see the change once the region TTL runs out.
+ *
+ * Each region is sized under {@code application.second-level-cache.regions.<name>}.
+ * Per-region hit/miss/put meters are published as hibernate.second.level.cache.*
+ * when statistics are on.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+  /** A cache region and its limits; a null TTL means entries only leave by eviction or invalidation. */
+  public record Region(String name, long maxEntries, Duration ttl) {
+  }
+
+  private static final String PREFIX = "application.second-level-cache.regions.";
+
+  private static final List<Region> DEFAULTS = List.of(
+      new Region("organizations", 10_000, Duration.ofHours(1)),
+      new Region("categories", 50_000, Duration.ofHours(1)),
+      new Region("teams", 20_000, Duration.ofHours(1)),
+      new Region("teams.categories", 20_000, Duration.ofHours(1)),
+      new Region(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, 20_000, Duration.ofMinutes(10)));
+
+  @Value("${application.second-level-cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${application.second-level-cache.statistics:true}")
+  private boolean statistics;
+
+  @Bean(destroyMethod = "close")
+  public CacheManager hibernateCacheManager(Environment environment) {
+    List<Region> regions = DEFAULTS.stream()
+        .map(region -> new Region(region.name(),
+            environment.getProperty(PREFIX + region.name() + ".max-entries", Long.class, region.maxEntries()),
+            environment.getProperty(PREFIX + region.name() + ".ttl", Duration.class, region.ttl())))
+        .toList();
+    return createCacheManager(regions, statistics);
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+    return properties -> properties.putAll(hibernateSettings(hibernateCacheManager, enabled, statistics));
+  }
+
+  /**
+   * Creates the regions up front so each gets its own limits. The update
+   * timestamps region is left unbounded: losing an entry there would let
+   * stale query results through.
+   */
+  public static CacheManager createCacheManager(List<Region> regions, boolean statistics) {
+    CaffeineCachingProvider provider = new CaffeineCachingProvider();
+    CacheManager cacheManager = provider.getCacheManager(
+        URI.create("trinketos-hibernate"), SecondLevelCacheConfig.class.getClassLoader());
+    for (Region region : regions) {
+      cacheManager.createCache(region.name(), configuration(statistics)
+          .setMaximumSize(OptionalLong.of(region.maxEntries()))
+          .setExpireAfterWrite(region.ttl() != null ? OptionalLong.of(region.ttl().toNanos()) : OptionalLong.empty()));
+    }
+    cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, configuration(statistics));
+    return cacheManager;
+  }
+
+  public static Map<String, Object> hibernateSettings(CacheManager cacheManager, boolean enabled,
+      boolean statistics) {
+    Map<String, Object> settings = new HashMap<>();
+    // hibernate-jcache on the classpath turns caching on by default, so "off" must be explicit
+    settings.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+    settings.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+    if (enabled) {
+      settings.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+      settings.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+      settings.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+    }
+    settings.put(AvailableSettings.GENERATE_STATISTICS, statistics);
+    // Statistics on would otherwise log a metrics summary for every session
+    settings.put(AvailableSettings.LOG_SESSION_METRICS, false);
+    return settings;
+  }
+
+  private static CaffeineConfiguration<Object, Object> configuration(boolean statistics) {
+    CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+    // Hibernate already caches disassembled state, copying it again buys nothing
+    configuration.setStoreByValue(false);
+    configuration.setStatisticsEnabled(statistics);
+    return configuration;
+  }
+}
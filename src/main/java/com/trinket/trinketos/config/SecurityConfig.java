@@ -2,14 +2,25 @@ package com.trinket.trinketos.config;
 
 import com.trinket.trinketos.security.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -22,7 +33,43 @@ public class SecurityConfig {
   private final JwtAuthenticationFilter jwtAuthFilter;
   private final AuthenticationProvider authenticationProvider;
 
+  /**
+   * Metrics carry per-organization tags, so scraping needs HTTP Basic with
+   * the scrape user (application.metrics.scrape-*); with no password set
+   * nobody can scrape.
+   */
   @Bean
+  @Order(1)
+  public SecurityFilterChain metricsFilterChain(HttpSecurity http,
+      @Value("${application.metrics.scrape-username:prometheus}") String username,
+      @Value("${application.metrics.scrape-password:}") String password) throws Exception {
+    http
+        .securityMatcher("/actuator/prometheus")
+        .csrf(AbstractHttpConfigurer::disable)
+        .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("METRICS"))
+        .sessionManagement(session -> session
+            .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .httpBasic(Customizer.withDefaults())
+        .authenticationManager(scrapeAuthenticationManager(username, password));
+
+    return http.build();
+  }
+
+  static AuthenticationManager scrapeAuthenticationManager(String username, String password) {
+    if (password.isBlank()) {
+      return authentication -> {
+        throw new BadCredentialsException("Metrics scraping is not configured");
+      };
+    }
+    PasswordEncoder encoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new InMemoryUserDetailsManager(
+        User.withUsername(username).password(encoder.encode(password)).roles("METRICS").build()));
+    provider.setPasswordEncoder(encoder);
+    return new ProviderManager(provider);
+  }
+
+  @Bean
+  @Order(2)
   public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http
         .csrf(AbstractHttpConfigurer::disable)
@@ -31,11 +78,14 @@ public class SecurityConfig {
             .requestMatchers(
                 "/api/v1/auth/login",
                 "/api/v1/auth/register-tenant",
+                "/api/v1/auth/refresh",
+                "/api/v1/auth/logout",
                 "/v3/api-docs/**",
                 "/api-docs",
                 "/api-docs/**",
                 "/swagger-ui/**",
-                "/swagger-ui.html")
+                "/swagger-ui.html",
+                "/actuator/health")
             .permitAll()
             .anyRequest().authenticated())
         .sessionManagement(session -> session
@@ -52,6 +102,7 @@ public class SecurityConfig {
     configuration.setAllowedOrigins(java.util.List.of("http://localhost:3000", "http://localhost:5173"));
     configuration.setAllowedMethods(java.util.List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
     configuration.setAllowedHeaders(java.util.List.of("*"));
+    configuration.setExposedHeaders(java.util.List.of("ETag"));
 
     org.springframework.web.cors.UrlBasedCorsConfigurationSource source = new org.springframework.web.cors.UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", configuration);
@@ -0,0 +1,45 @@
+package com.trinket.trinketos.config;
+
+import com.trinket.trinketos.observability.SqlCountingDataSource;
+import com.trinket.trinketos.observability.SqlEntityLoadInterceptor;
+import com.trinket.trinketos.observability.SqlSessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "application.sql-instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlInstrumentationConfig {
+
+  /**
+   * Statements are counted on the application DataSource rather than in
+   * Hibernate, so reads through JdbcClient/JdbcTemplate (the JDBC read model,
+   * time series) count towards @QueryBudget too. Only the bean named
+   * dataSource is wrapped: with replicas, that is the routing proxy in front
+   * of the pools.
+   */
+  @Bean
+  public static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource dataSource && "dataSource".equals(beanName)
+            ? new SqlCountingDataSource(dataSource)
+            : bean;
+      }
+    };
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer sqlInstrumentationCustomizer() {
+    return properties -> {
+      properties.put(AvailableSettings.INTERCEPTOR, new SqlEntityLoadInterceptor());
+      properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlSessionEventListener.class.getName());
+    };
+  }
+}
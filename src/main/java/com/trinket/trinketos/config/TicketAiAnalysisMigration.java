@@ -0,0 +1,65 @@
+package com.trinket.trinketos.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One-off move of diagnosis/suggested_solution from tickets into
+ * ticket_ai_analysis. Hibernate's ddl update never drops columns, so
+ * databases created before the split still carry them. They are copied on
+ * startup (idempotent) but only dropped, in the same transaction, when
+ * {@code application.migrations.drop-legacy-ai-columns} is set, so a
+ * rollback to the previous release still finds its data. Does nothing once
+ * the columns are gone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TicketAiAnalysisMigration implements ApplicationRunner {
+
+  private static final String LEGACY_COLUMNS = """
+      SELECT count(*) FROM information_schema.columns
+      WHERE table_schema = current_schema() AND table_name = 'tickets'
+        AND column_name IN ('diagnosis', 'suggested_solution')
+      """;
+
+  private static final String COPY = """
+      INSERT INTO ticket_ai_analysis (ticket_id, diagnosis, suggested_solution, analyzed_at)
+      SELECT id, diagnosis, suggested_solution, coalesce(created_at, now())
+      FROM tickets
+      WHERE diagnosis IS NOT NULL OR suggested_solution IS NOT NULL
+      ON CONFLICT (ticket_id) DO NOTHING
+      """;
+
+  private static final String DROP = "ALTER TABLE tickets DROP COLUMN diagnosis, DROP COLUMN suggested_solution";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${application.migrations.drop-legacy-ai-columns:false}")
+  private boolean dropLegacyColumns;
+
+  @Override
+  public void run(ApplicationArguments args) {
+    Integer legacy = jdbcTemplate.queryForObject(LEGACY_COLUMNS, Integer.class);
+    if (legacy == null || legacy < 2) {
+      return;
+    }
+    transactionTemplate.executeWithoutResult(status -> {
+      int copied = jdbcTemplate.update(COPY);
+      if (dropLegacyColumns) {
+        jdbcTemplate.execute(DROP);
+        log.info("Moved {} AI analyses from tickets to ticket_ai_analysis", copied);
+      } else {
+        log.info("Copied {} AI analyses to ticket_ai_analysis; tickets.diagnosis/suggested_solution are kept "
+            + "until application.migrations.drop-legacy-ai-columns is set", copied);
+      }
+    });
+  }
+}
@@ -1,11 +1,18 @@
 package com.trinket.trinketos.controller;
 
+import com.trinket.trinketos.ai.TicketPreClassifier;
 import com.trinket.trinketos.dto.RefineRequest;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.repository.UserRepository;
 import com.trinket.trinketos.service.TicketAIService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -20,6 +27,8 @@ import java.util.Map;
 public class AIController {
 
   private final TicketAIService ticketAIService;
+  private final UserRepository userRepository;
+  private final TicketPreClassifier ticketPreClassifier;
 
   @PostMapping("/process")
   @Operation(summary = "Process text (Refine or Summarize) using AI", responses = {
@@ -27,10 +36,31 @@ public class AIController {
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request"),
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
   })
-  public ResponseEntity<Map<String, String>> processText(@RequestBody RefineRequest request) {
+  public ResponseEntity<Map<String, String>> processText(@RequestBody RefineRequest request,
+      Authentication authentication) {
+    User user = getUser(authentication);
     var instruction = request.instruction() != null ? request.instruction()
         : com.trinket.trinketos.model.AIInstructionType.REFINE;
-    String result = ticketAIService.processText(request.text(), instruction);
+    String result = ticketAIService.processText(request.text(), instruction, user.getOrganizationId());
     return ResponseEntity.ok(Map.of("result", result));
   }
+
+  @GetMapping("/classifier/report")
+  @PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_MANAGER')")
+  @Operation(summary = "Offline evaluation of the organization's local ticket classifier", responses = {
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Evaluation of the current model"),
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "204", description = "No model yet (training started)")
+  })
+  public ResponseEntity<TicketPreClassifier.EvaluationReport> classifierReport(Authentication authentication) {
+    User user = getUser(authentication);
+    return ticketPreClassifier.report(user.getOrganizationId())
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.noContent().build());
+  }
+
+  private User getUser(Authentication authentication) {
+    UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+    return userRepository.findByEmail(userDetails.getUsername())
+        .orElseThrow(() -> new RuntimeException("User not found"));
+  }
 }
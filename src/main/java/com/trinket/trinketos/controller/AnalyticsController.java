@@ -1,12 +1,16 @@
 package com.trinket.trinketos.controller;
 
 import com.trinket.trinketos.dto.AnalyticsResponse;
+import com.trinket.trinketos.dto.TimeGranularity;
 import com.trinket.trinketos.dto.TimePeriod;
+import com.trinket.trinketos.dto.TimeSeriesResponse;
 import com.trinket.trinketos.model.Role;
 import com.trinket.trinketos.model.User;
 import com.trinket.trinketos.repository.TeamRepository;
 import com.trinket.trinketos.repository.UserRepository;
 import com.trinket.trinketos.service.AnalyticsService;
+import com.trinket.trinketos.service.TimeSeriesService;
+import com.trinket.trinketos.observability.QueryBudget;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -27,8 +31,10 @@ public class AnalyticsController {
   private final AnalyticsService analyticsService;
   private final UserRepository userRepository;
   private final TeamRepository teamRepository;
+  private final TimeSeriesService timeSeriesService;
 
   @GetMapping("/dashboard")
+  @QueryBudget(9)
   @Operation(summary = "Get main dashboard metrics (Admin: All, Agent: Personal)", responses = {
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Metrics retrieved successfully"),
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
@@ -56,6 +62,33 @@ public class AnalyticsController {
     return ResponseEntity.ok(analyticsService.getAnalytics(user.getOrganizationId(), null, range));
   }
 
+  @GetMapping("/timeseries")
+  @QueryBudget(5)
+  @Operation(summary = "Ticket volume over time", description = "Created, resolved and backlog per HOUR, DAY or WEEK bucket (Admin: org-wide, Agent: team visibility). Closed buckets are cached.")
+  public ResponseEntity<TimeSeriesResponse> getTimeSeries(
+      @RequestParam(defaultValue = "MONTH") TimePeriod range,
+      @RequestParam(defaultValue = "DAY") TimeGranularity granularity,
+      Authentication authentication) {
+
+    User user = getUser(authentication);
+
+    TimeSeriesService.Scope scope = TimeSeriesService.Scope.ORGANIZATION;
+    if (user.getRole() == Role.ROLE_AGENT) {
+      if (user.getTeamId() == null) {
+        return ResponseEntity.ok(new TimeSeriesResponse(range, granularity, List.of()));
+      }
+      List<String> allowedCategories = teamRepository.findById(user.getTeamId())
+          .map(team -> team.getCategories().stream()
+              .map(com.trinket.trinketos.model.Category::getName)
+              .toList())
+          .orElse(List.of());
+      scope = new TimeSeriesService.Scope(user.getTeamId(), allowedCategories);
+    }
+
+    return ResponseEntity.ok(new TimeSeriesResponse(range, granularity,
+        timeSeriesService.timeSeries(user.getOrganizationId(), scope, range, granularity)));
+  }
+
   @GetMapping("/advanced")
   @Operation(summary = "Get advanced analytics (Admin can filter by agent)", responses = {
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Metrics retrieved successfully"),
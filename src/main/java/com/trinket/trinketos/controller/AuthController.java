@@ -2,6 +2,7 @@ package com.trinket.trinketos.controller;
 
 import com.trinket.trinketos.dto.AuthResponse;
 import com.trinket.trinketos.dto.LoginRequest;
+import com.trinket.trinketos.dto.RefreshRequest;
 import com.trinket.trinketos.dto.RegisterRequest;
 import com.trinket.trinketos.dto.TenantRegisterRequest;
 import com.trinket.trinketos.model.User;
@@ -19,6 +20,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/v1/auth")
 @RequiredArgsConstructor
@@ -40,10 +43,29 @@ public class AuthController {
   @PostMapping("/login")
   @Operation(summary = "Login to get JWT", responses = {
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Authentication successful"),
-      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Invalid credentials")
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Invalid credentials"),
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "503", description = "Login capacity exhausted, retry shortly")
+  })
+  public CompletableFuture<ResponseEntity<AuthResponse>> login(@RequestBody LoginRequest request) {
+    return service.authenticateAsync(request).thenApply(ResponseEntity::ok);
+  }
+
+  @PostMapping("/refresh")
+  @Operation(summary = "Exchange a refresh token for a new access token (rotates the refresh token)", responses = {
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Tokens refreshed"),
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Invalid, used or expired refresh token")
+  })
+  public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+    return ResponseEntity.ok(service.refresh(request));
+  }
+
+  @PostMapping("/logout")
+  @Operation(summary = "Revoke a refresh token", responses = {
+      @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "204", description = "Refresh token revoked")
   })
-  public ResponseEntity<AuthResponse> login(@RequestBody LoginRequest request) {
-    return ResponseEntity.ok(service.authenticate(request));
+  public ResponseEntity<Void> logout(@RequestBody RefreshRequest request) {
+    service.logout(request);
+    return ResponseEntity.noContent().build();
   }
 
   @PostMapping("/register-user")
@@ -10,6 +10,8 @@ import com.trinket.trinketos.model.Category;
 import com.trinket.trinketos.model.User;
 import com.trinket.trinketos.repository.CategoryRepository;
 import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.service.CounterService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,6 +34,7 @@ public class CategoryController {
 
   private final CategoryRepository categoryRepository;
   private final UserRepository userRepository;
+  private final CounterService counterService;
 
   @GetMapping
   @Operation(summary = "List all categories (Paged)", description = "Search by name or description")
@@ -100,12 +103,11 @@ public class CategoryController {
   }
 
   @GetMapping("/count")
+  @QueryBudget(2)
   @Operation(summary = "Count categories")
   public ResponseEntity<Long> countCategories(Authentication authentication) {
     User user = getUser(authentication);
-    long count = categoryRepository
-        .count((root, query, cb) -> cb.equal(root.get("organizationId"), user.getOrganizationId()));
-    return ResponseEntity.ok(count);
+    return ResponseEntity.ok(counterService.countCategories(user.getOrganizationId()));
   }
 
   @PostMapping
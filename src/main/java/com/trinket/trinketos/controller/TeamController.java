@@ -10,6 +10,9 @@ import com.trinket.trinketos.model.User;
 import com.trinket.trinketos.repository.CategoryRepository;
 import com.trinket.trinketos.repository.TeamRepository;
 import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.service.CounterService;
+import com.trinket.trinketos.service.ResourceVersions;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,6 +23,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -40,6 +45,8 @@ public class TeamController {
   private final TeamRepository teamRepository;
   private final UserRepository userRepository;
   private final CategoryRepository categoryRepository;
+  private final CounterService counterService;
+  private final ResourceVersions resourceVersions;
 
   @PostMapping
   @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -98,6 +105,7 @@ public class TeamController {
   }
 
   @GetMapping
+  @QueryBudget(6)
   @Operation(summary = "List all teams for the organization (Paged)", responses = {
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Page of teams retrieved"),
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
@@ -105,10 +113,18 @@ public class TeamController {
   public ResponseEntity<Page<TeamResponse>> getTeams(
       Authentication authentication,
       @ParameterObject @PageableDefault(size = 10, sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable,
-      @RequestParam(required = false) String search) {
+      @RequestParam(required = false) String search,
+      @RequestParam(defaultValue = "false") boolean includeMemberCount,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      jakarta.servlet.http.HttpServletRequest request) {
 
     User user = getUser(authentication);
 
+    String etag = resourceVersions.listTag(user.getOrganizationId(), "teams", user.getId(), request.getQueryString());
+    if (ResourceVersions.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
     Specification<Team> spec = (root, query, cb) -> {
       List<Predicate> predicates = new ArrayList<>();
       predicates.add(cb.equal(root.get("organizationId"), user.getOrganizationId()));
@@ -124,19 +140,40 @@ public class TeamController {
     };
 
     Page<Team> page = teamRepository.findAll(spec, pageable);
-    return ResponseEntity.ok(page.map(this::mapToResponse));
+    if (!includeMemberCount || page.isEmpty()) {
+      return ResponseEntity.ok().eTag(etag).body(page.map(this::mapToResponse));
+    }
+
+    // One grouped query for the whole page instead of a member scan per team
+    Map<UUID, Long> memberCounts = userRepository
+        .countMembersByTeamIds(page.getContent().stream().map(Team::getId).toList())
+        .stream()
+        .collect(Collectors.toMap(UserRepository.TeamMemberCount::getTeamId, UserRepository.TeamMemberCount::getMembers));
+    return ResponseEntity.ok().eTag(etag)
+        .body(page.map(t -> mapToResponse(t, memberCounts.getOrDefault(t.getId(), 0L))));
   }
 
   @GetMapping("/{id}")
   @Operation(summary = "Get team details")
-  public ResponseEntity<TeamResponse> getTeam(@PathVariable UUID id, Authentication authentication) {
+  public ResponseEntity<TeamResponse> getTeam(@PathVariable UUID id,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      Authentication authentication) {
     User user = getUser(authentication);
+
+    if (ifNoneMatch != null) {
+      String current = resourceVersions.currentTeamTag(id, user.getOrganizationId());
+      if (ResourceVersions.matches(ifNoneMatch, current)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+      }
+    }
+
     Team team = teamRepository.findById(id).orElseThrow(() -> new RuntimeException("Team not found"));
 
     if (!team.getOrganizationId().equals(user.getOrganizationId())) {
       return ResponseEntity.status(403).build();
     }
-    return ResponseEntity.ok(mapToResponse(team));
+    String etag = resourceVersions.rememberTeam(team.getId(), team.getOrganizationId(), ResourceVersions.teamTag(team));
+    return ResponseEntity.ok().eTag(etag).body(mapToResponse(team));
   }
 
   @PutMapping("/{id}")
@@ -198,12 +235,11 @@ public class TeamController {
   }
 
   @GetMapping("/count")
+  @QueryBudget(2)
   @Operation(summary = "Count teams")
   public ResponseEntity<Long> countTeams(Authentication authentication) {
     User user = getUser(authentication);
-    long count = teamRepository
-        .count((root, query, cb) -> cb.equal(root.get("organizationId"), user.getOrganizationId()));
-    return ResponseEntity.ok(count);
+    return ResponseEntity.ok(counterService.countTeams(user.getOrganizationId()));
   }
 
   // --- Team Members ---
@@ -308,11 +344,15 @@ public class TeamController {
   }
 
   private TeamResponse mapToResponse(Team t) {
+    return mapToResponse(t, null);
+  }
+
+  private TeamResponse mapToResponse(Team t, Long memberCount) {
     List<UUID> categoryIds = t.getCategories() != null
         ? t.getCategories().stream().map(Category::getId).collect(Collectors.toList())
         : List.of();
     return new TeamResponse(t.getId(), t.getName(), t.getDisplayName(), t.getDescription(), t.getOrganizationId(),
-        t.getCreatedAt(), t.getUpdatedAt(), categoryIds);
+        t.getCreatedAt(), t.getUpdatedAt(), categoryIds, memberCount);
   }
 
   private UserResponse mapUserToResponse(User user) {
@@ -1,27 +1,52 @@
 package com.trinket.trinketos.controller;
 
+import com.trinket.trinketos.ai.AiAnalysisScheduler;
+import com.trinket.trinketos.ai.ResolvedTicketIndex;
+import com.trinket.trinketos.ai.TicketPreClassifier;
+import com.trinket.trinketos.dto.SimilarTicketResponse;
+import com.trinket.trinketos.dto.TicketHistoryResponse;
 import com.trinket.trinketos.dto.TicketRequest;
 import com.trinket.trinketos.dto.TicketResponse;
 import com.trinket.trinketos.model.Role;
 import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketHistoryEntry;
 import com.trinket.trinketos.model.TicketStatus;
 import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.repository.TicketAiAnalysisRepository;
 import com.trinket.trinketos.repository.TicketRepository;
 import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.readmodel.TicketReadModel;
+import com.trinket.trinketos.realtime.TicketEvent;
+import com.trinket.trinketos.realtime.TicketEventBroadcaster;
+import com.trinket.trinketos.service.CounterService;
+import com.trinket.trinketos.service.ResourceVersions;
 import com.trinket.trinketos.service.TicketAIService;
+import com.trinket.trinketos.service.TicketArchiveService;
+import com.trinket.trinketos.service.TicketHistoryService;
+import com.trinket.trinketos.service.TicketWriteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.UUID;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/tickets")
@@ -31,9 +56,24 @@ import java.util.List;
 public class TicketController {
 
   private final TicketRepository ticketRepository;
+  private final TicketAiAnalysisRepository ticketAiAnalysisRepository;
   private final UserRepository userRepository;
   private final com.trinket.trinketos.repository.TeamRepository teamRepository;
+  private final AiAnalysisScheduler aiAnalysisScheduler;
+  private final TicketEventBroadcaster ticketEventBroadcaster;
+  private final ApplicationEventPublisher eventPublisher;
+  private final CounterService counterService;
+  private final TicketHistoryService ticketHistoryService;
+  private final TicketWriteService ticketWriteService;
+  private final TicketArchiveService ticketArchiveService;
+  private final ResourceVersions resourceVersions;
+  private final TicketReadModel ticketReadModel;
+  private final TicketPreClassifier ticketPreClassifier;
   private final TicketAIService ticketAIService;
+  private final ResolvedTicketIndex resolvedTicketIndex;
+
+  @Value("${application.read-model.jdbc:true}")
+  private boolean jdbcReadModel;
 
   @PostMapping
   @Operation(summary = "Create a new ticket and trigger AI analysis", responses = {
@@ -57,10 +97,25 @@ public class TicketController {
         .customerId(request.customerId()) // or set from current user if they are customer
         .build();
 
-    Ticket saved = ticketRepository.save(ticket);
+    // Confidently classified tickets skip the LLM call
+    Optional<TicketPreClassifier.Classification> classification = ticketPreClassifier.classify(
+        user.getOrganizationId(), request.title(), request.description());
+    classification.ifPresent(c -> {
+      ticket.setCategory(c.category());
+      if (ticket.getPriority() == null) {
+        ticket.setPriority(c.priority());
+      }
+    });
 
-    // Trigger AI analysis
-    ticketAIService.analyzeTicket(saved.getId());
+    Ticket saved = ticketHistoryService.save(ticket, null, user.getId());
+    eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.TICKET_CREATED, saved));
+
+    if (classification.isPresent()) {
+      ticketAIService.saveLocalAnalysis(saved);
+    } else {
+      // Trigger AI analysis
+      aiAnalysisScheduler.submit(saved.getOrganizationId(), saved.getId());
+    }
 
     return ResponseEntity.ok(mapToResponse(saved));
   }
@@ -69,7 +124,7 @@ public class TicketController {
     int maxRetries = 5;
     for (int i = 0; i < maxRetries; i++) {
       String code = "TKT-" + java.util.UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-      if (!ticketRepository.existsByCode(code)) {
+      if (!ticketRepository.existsByCode(code) && !ticketArchiveService.existsByCode(code)) {
         return code;
       }
     }
@@ -77,6 +132,7 @@ public class TicketController {
   }
 
   @GetMapping
+  @QueryBudget(6)
   @Operation(summary = "List all tickets (Paged)", description = "Search by Title, Description or Ticket Code (e.g. 'TKT-1234' or '1234'). Filters by Status and Priority.", responses = {
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Page of tickets retrieved"),
       @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
@@ -86,10 +142,27 @@ public class TicketController {
       @org.springdoc.core.annotations.ParameterObject @org.springframework.data.web.PageableDefault(size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) org.springframework.data.domain.Pageable pageable,
       @RequestParam(required = false) TicketStatus status,
       @RequestParam(required = false) com.trinket.trinketos.model.Priority priority,
-      @RequestParam(required = false) String search) {
+      @RequestParam(required = false) String search,
+      @RequestParam(defaultValue = "false") boolean archived,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      jakarta.servlet.http.HttpServletRequest request) {
 
     User user = getUser(authentication);
 
+    if (archived) {
+      return ResponseEntity.ok(findArchived(user, search, pageable));
+    }
+
+    // Taken before the query, so a write racing with it changes the next tag
+    String etag = resourceVersions.listTag(user.getOrganizationId(), "tickets", user.getId(), request.getQueryString());
+    if (ResourceVersions.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    if (jdbcReadModel) {
+      return ResponseEntity.ok().eTag(etag).body(findWithReadModel(user, status, priority, search, pageable));
+    }
+
     org.springframework.data.jpa.domain.Specification<Ticket> spec = (root, query, cb) -> {
       List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
 
@@ -155,78 +228,121 @@ public class TicketController {
     };
 
     org.springframework.data.domain.Page<Ticket> page = ticketRepository.findAll(spec, pageable);
-    return ResponseEntity.ok(page.map(this::mapToResponse));
+    return ResponseEntity.ok().eTag(etag).body(page.map(this::mapToResponse));
   }
 
   @GetMapping("/{id}")
-  @Operation(summary = "Get ticket details")
-  public ResponseEntity<TicketResponse> getTicket(@PathVariable UUID id, Authentication authentication) {
+  @QueryBudget(5)
+  @Operation(summary = "Get ticket details", description = "Use archived=true for tickets moved to the archive.")
+  public ResponseEntity<TicketResponse> getTicket(@PathVariable UUID id,
+      @RequestParam(defaultValue = "false") boolean archived,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+      Authentication authentication) {
     User currentUser = getUser(authentication);
 
-    Ticket ticket = ticketRepository.findById(id).orElseThrow(() -> new RuntimeException("Ticket not found"));
-
-    if (!ticket.getOrganizationId().equals(currentUser.getOrganizationId())) {
-      return ResponseEntity.status(403).build();
+    // Unchanged since the client's copy: answer from the version map, no entity load. Only for roles
+    // that see the whole organization (the tag lookup is scoped to it); agents need the team/category check first
+    if (!archived && ifNoneMatch != null && currentUser.getRole() != Role.ROLE_AGENT) {
+      String current = resourceVersions.currentTicketTag(id, currentUser.getOrganizationId());
+      if (ResourceVersions.matches(ifNoneMatch, current)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build();
+      }
     }
 
-    // Agent check: must be in the same team OR handling the category
-    if (currentUser.getRole() == Role.ROLE_AGENT) {
-      if (currentUser.getTeamId() == null) {
-        return ResponseEntity.status(403).build();
+    if (archived) {
+      TicketResponse archivedTicket = ticketArchiveService.findById(currentUser.getOrganizationId(), id);
+      if (archivedTicket == null) {
+        throw new RuntimeException("Ticket not found");
       }
-      
-      boolean sameTeam = currentUser.getTeamId().equals(ticket.getTeamId());
-      var team = teamRepository.findById(currentUser.getTeamId()).orElse(null);
-      boolean handlesCategory = (team != null) && team.getCategories().stream()
-          .anyMatch(c -> c.getName().equals(ticket.getCategory()));
-
-      if (!sameTeam && !handlesCategory) {
+      if (!canView(currentUser, archivedTicket.organizationId(), archivedTicket.teamId(), archivedTicket.category())) {
         return ResponseEntity.status(403).build();
       }
+      return ResponseEntity.ok(archivedTicket);
+    }
+
+    if (jdbcReadModel) {
+      return getTicketWithReadModel(id, currentUser, ifNoneMatch);
+    }
+
+    Ticket ticket = ticketRepository.findById(id).orElseThrow(() -> new RuntimeException("Ticket not found"));
+
+    if (!canView(currentUser, ticket)) {
+      return ResponseEntity.status(403).build();
     }
 
-    return ResponseEntity.ok(mapToResponse(ticket));
+    TicketAiAnalysis analysis = ticketAiAnalysisRepository.findById(ticket.getId()).orElse(null);
+    String etag = resourceVersions.remember(ticket.getId(), ticket.getOrganizationId(),
+        ResourceVersions.ticketTag(ticket, analysis));
+    if (ResourceVersions.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    return ResponseEntity.ok().eTag(etag).body(mapToResponse(ticket, analysis));
   }
 
   @PutMapping("/{id}")
   @Operation(summary = "Update ticket")
-  public ResponseEntity<TicketResponse> updateTicket(@PathVariable UUID id, @RequestBody TicketRequest request,
+  public CompletableFuture<ResponseEntity<TicketResponse>> updateTicket(@PathVariable UUID id,
+      @RequestBody TicketRequest request, Authentication authentication) {
+    User currentUser = getUser(authentication);
+    Ticket ticket = ticketRepository.findById(id).orElseThrow(() -> new RuntimeException("Ticket not found"));
+
+    if (!canView(currentUser, ticket)) {
+      return CompletableFuture.completedFuture(ResponseEntity.status(403).build());
+    }
+
+    if (request.agentId() != null && !request.agentId().equals(ticket.getAgentId())) {
+      User assignee = userRepository.findById(request.agentId())
+          .orElseThrow(() -> new RuntimeException("User not found"));
+      if (!assignee.getOrganizationId().equals(currentUser.getOrganizationId())
+          || assignee.getRole() == Role.ROLE_CUSTOMER) {
+        return CompletableFuture.completedFuture(ResponseEntity.status(403).build());
+      }
+    }
+
+    // Allow updating basic fields (title, description, priority, status, assignee).
+    TicketAiAnalysis analysis = ticketAiAnalysisRepository.findById(id).orElse(null);
+    return ticketWriteService.update(ticket, request, currentUser.getId())
+        .thenApply(updated -> ResponseEntity.ok(mapToResponse(updated, analysis)));
+  }
+
+  @GetMapping("/{id}/history")
+  @Operation(summary = "Get ticket history", description = "Status, priority, assignment and sentiment transitions in order.")
+  public ResponseEntity<List<TicketHistoryResponse>> getTicketHistory(@PathVariable UUID id,
       Authentication authentication) {
     User currentUser = getUser(authentication);
     Ticket ticket = ticketRepository.findById(id).orElseThrow(() -> new RuntimeException("Ticket not found"));
 
-    if (!ticket.getOrganizationId().equals(currentUser.getOrganizationId())) {
+    if (!canView(currentUser, ticket)) {
       return ResponseEntity.status(403).build();
     }
 
-    // Agent check: same team OR handles category
-    if (currentUser.getRole() == Role.ROLE_AGENT) {
-      if (currentUser.getTeamId() == null) {
-        return ResponseEntity.status(403).build();
-      }
+    return ResponseEntity.ok(ticketHistoryService.history(id).stream().map(this::mapToHistoryResponse).toList());
+  }
 
-      boolean sameTeam = currentUser.getTeamId().equals(ticket.getTeamId());
-      var team = teamRepository.findById(currentUser.getTeamId()).orElse(null);
-      boolean handlesCategory = (team != null) && team.getCategories().stream()
-          .anyMatch(c -> c.getName().equals(ticket.getCategory()));
+  @GetMapping("/{id}/similar")
+  @Operation(summary = "Resolved tickets similar to this one", description = "BM25 over title, description, diagnosis and solution of the organization's resolved tickets, best match first. Empty while the organization's index is being built.")
+  public ResponseEntity<List<SimilarTicketResponse>> getSimilarTickets(@PathVariable UUID id,
+      @RequestParam(defaultValue = "5") int limit, Authentication authentication) {
+    User currentUser = getUser(authentication);
+    Ticket ticket = ticketRepository.findById(id).orElseThrow(() -> new RuntimeException("Ticket not found"));
 
-      if (!sameTeam && !handlesCategory) {
-        return ResponseEntity.status(403).build();
-      }
+    // Other customers' tickets: staff only
+    if (!canView(currentUser, ticket) || currentUser.getRole() == Role.ROLE_CUSTOMER) {
+      return ResponseEntity.status(403).build();
+    }
+    if (limit < 1 || limit > 20) {
+      throw new IllegalArgumentException("O limite deve estar entre 1 e 20");
+    }
+
+    UUID teamId = null;
+    List<String> categoryNames = List.of();
+    if (currentUser.getRole() == Role.ROLE_AGENT) {
+      teamId = currentUser.getTeamId();
+      categoryNames = teamCategoryNames(teamId);
     }
 
-    // Allow updating basic fields.
-    if (request.title() != null)
-      ticket.setTitle(request.title());
-    if (request.description() != null)
-      ticket.setDescription(request.description());
-    if (request.priority() != null)
-      ticket.setPriority(request.priority());
-    if (request.status() != null)
-      ticket.setStatus(request.status());
-
-    Ticket updated = ticketRepository.save(ticket);
-    return ResponseEntity.ok(mapToResponse(updated));
+    return ResponseEntity.ok(resolvedTicketIndex.similar(currentUser.getOrganizationId(), ticket.getId(),
+        ticket.getTitle(), ticket.getDescription(), limit, teamId, categoryNames));
   }
 
   @DeleteMapping("/{id}")
@@ -241,40 +357,114 @@ public class TicketController {
     }
 
     ticketRepository.delete(ticket);
+    eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.TICKET_DELETED, ticket));
     return ResponseEntity.noContent().build();
   }
 
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(summary = "Stream ticket events (SSE)", description = "Pushes TICKET_CREATED, TICKET_UPDATED, TICKET_DELETED and AI_ANALYSIS_COMPLETED for tickets visible to the caller, replacing list/count polling.")
+  public SseEmitter streamTickets(Authentication authentication) {
+    User user = getUser(authentication);
+
+    List<String> categoryNames = List.of();
+    if (user.getRole() == Role.ROLE_AGENT && user.getTeamId() != null) {
+      categoryNames = teamCategoryNames(user.getTeamId());
+    }
+    return ticketEventBroadcaster.subscribe(user, categoryNames);
+  }
+
   @GetMapping("/count")
-  @Operation(summary = "Count tickets")
-  public ResponseEntity<Long> countTickets(Authentication authentication) {
+  @QueryBudget(4)
+  @Operation(summary = "Count tickets", description = "Served from in-memory counters; optionally filter by status.")
+  public ResponseEntity<Long> countTickets(
+      Authentication authentication,
+      @RequestParam(required = false) TicketStatus status) {
     User currentUser = getUser(authentication);
-    long count = ticketRepository.count((root, query, cb) -> {
-      List<jakarta.persistence.criteria.Predicate> predicates = new ArrayList<>();
-      predicates.add(cb.equal(root.get("organizationId"), currentUser.getOrganizationId()));
-
-      if (currentUser.getRole() == Role.ROLE_AGENT) {
-        if (currentUser.getTeamId() == null) {
-          predicates.add(cb.disjunction());
-        } else {
-          var team = teamRepository.findById(currentUser.getTeamId()).orElse(null);
-          List<String> categoryNames = (team != null) 
-              ? team.getCategories().stream().map(com.trinket.trinketos.model.Category::getName).toList() 
-              : List.of();
+    if (currentUser.getRole() != Role.ROLE_AGENT) {
+      return ResponseEntity.ok(counterService.countTickets(currentUser.getOrganizationId(), null, List.of(), status));
+    }
+    if (currentUser.getTeamId() == null) {
+      return ResponseEntity.ok(0L);
+    }
+    List<String> categoryNames = teamCategoryNames(currentUser.getTeamId());
+    return ResponseEntity.ok(counterService.countTickets(
+        currentUser.getOrganizationId(), currentUser.getTeamId(), categoryNames, status));
+  }
 
-          jakarta.persistence.criteria.Predicate teamPredicate = cb.equal(root.get("teamId"), currentUser.getTeamId());
-          
-          if (!categoryNames.isEmpty()) {
-            jakarta.persistence.criteria.Predicate categoryPredicate = root.get("category").in(categoryNames);
-            predicates.add(cb.or(teamPredicate, categoryPredicate));
-          } else {
-            predicates.add(teamPredicate);
-          }
-        }
+  private org.springframework.data.domain.Page<TicketResponse> findWithReadModel(User user, TicketStatus status,
+      com.trinket.trinketos.model.Priority priority, String search, org.springframework.data.domain.Pageable pageable) {
+    UUID teamId = null;
+    List<String> categoryNames = List.of();
+    if (user.getRole() == Role.ROLE_AGENT) {
+      if (user.getTeamId() == null) {
+        return org.springframework.data.domain.Page.empty(pageable);
       }
+      teamId = user.getTeamId();
+      categoryNames = teamCategoryNames(teamId);
+    }
+    return ticketReadModel.findPage(new TicketReadModel.TicketFilter(
+        user.getOrganizationId(), teamId, categoryNames, status, priority, search), pageable);
+  }
 
-      return cb.and(predicates.toArray(new jakarta.persistence.criteria.Predicate[0]));
-    });
-    return ResponseEntity.ok(count);
+  private ResponseEntity<TicketResponse> getTicketWithReadModel(UUID id, User currentUser, String ifNoneMatch) {
+    TicketReadModel.TicketDetail detail = ticketReadModel.findById(id)
+        .orElseThrow(() -> new RuntimeException("Ticket not found"));
+    TicketResponse ticket = detail.ticket();
+
+    if (!canView(currentUser, ticket.organizationId(), ticket.teamId(), ticket.category())) {
+      return ResponseEntity.status(403).build();
+    }
+
+    String etag = resourceVersions.remember(ticket.id(), ticket.organizationId(),
+        ResourceVersions.ticketTag(ticket.version(), detail.analyzedAt()));
+    if (ResourceVersions.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    return ResponseEntity.ok().eTag(etag).body(ticket);
+  }
+
+  private org.springframework.data.domain.Page<TicketResponse> findArchived(User user, String search,
+      org.springframework.data.domain.Pageable pageable) {
+    if (user.getRole() != Role.ROLE_AGENT) {
+      return ticketArchiveService.find(user.getOrganizationId(), null, List.of(), search, pageable);
+    }
+    if (user.getTeamId() == null) {
+      return org.springframework.data.domain.Page.empty(pageable);
+    }
+    List<String> categoryNames = teamCategoryNames(user.getTeamId());
+    return ticketArchiveService.find(user.getOrganizationId(), user.getTeamId(), categoryNames, search, pageable);
+  }
+
+  private boolean canView(User user, Ticket ticket) {
+    return canView(user, ticket.getOrganizationId(), ticket.getTeamId(), ticket.getCategory());
+  }
+
+  /**
+   * Single-ticket visibility: same organization, and agents only see tickets
+   * of their team or of categories their team handles (the list filter rule).
+   */
+  private boolean canView(User user, UUID organizationId, UUID teamId, String category) {
+    if (!organizationId.equals(user.getOrganizationId())) {
+      return false;
+    }
+    if (user.getRole() != Role.ROLE_AGENT) {
+      return true;
+    }
+    if (user.getTeamId() == null) {
+      return false;
+    }
+    // List.of() (no team found) rejects contains(null)
+    return user.getTeamId().equals(teamId)
+        || (category != null && teamCategoryNames(user.getTeamId()).contains(category));
+  }
+
+  private List<String> teamCategoryNames(UUID teamId) {
+    if (jdbcReadModel) {
+      return ticketReadModel.teamCategoryNames(teamId);
+    }
+    return teamRepository.findById(teamId)
+        .map(team -> team.getCategories().stream().map(com.trinket.trinketos.model.Category::getName).toList())
+        .orElse(List.of());
   }
 
   private User getUser(Authentication authentication) {
@@ -292,11 +482,22 @@ public class TicketController {
     return user;
   }
 
+  private TicketHistoryResponse mapToHistoryResponse(TicketHistoryEntry e) {
+    return new TicketHistoryResponse(e.getId(), e.getType(), e.getFromValue(), e.getToValue(), e.getActorId(),
+        e.getElapsedMinutes(), e.isSlaBreached(), e.getOccurredAt());
+  }
+
   private TicketResponse mapToResponse(Ticket t) {
+    return mapToResponse(t, null);
+  }
+
+  /** Diagnosis and solution come from ticket_ai_analysis; list views leave them out. */
+  private TicketResponse mapToResponse(Ticket t, TicketAiAnalysis analysis) {
     return new TicketResponse(
         t.getId(), t.getCode(), t.getTitle(), t.getDescription(), t.getStatus(),
         t.getPriority(), t.getCategory(), t.getSentiment(),
-        t.getDiagnosis(), t.getSuggestedSolution(),
-        t.getCustomerId(), t.getAgentId(), t.getTeamId(), t.getOrganizationId(), t.getCreatedAt());
+        analysis != null ? analysis.getDiagnosis() : null,
+        analysis != null ? analysis.getSuggestedSolution() : null,
+        t.getCustomerId(), t.getAgentId(), t.getTeamId(), t.getOrganizationId(), t.getCreatedAt(), t.getVersion());
   }
 }
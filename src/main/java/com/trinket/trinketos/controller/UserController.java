@@ -7,10 +7,14 @@ import com.trinket.trinketos.dto.UserUpdateRequest;
 import com.trinket.trinketos.model.User;
 import com.trinket.trinketos.repository.UserRepository;
 import com.trinket.trinketos.service.AuthenticationService;
+import com.trinket.trinketos.service.CounterService;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.readmodel.UserReadModel;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -31,6 +35,11 @@ public class UserController {
 
   private final UserRepository userRepository;
   private final AuthenticationService authenticationService;
+  private final CounterService counterService;
+  private final UserReadModel userReadModel;
+
+  @Value("${application.read-model.jdbc:true}")
+  private boolean jdbcReadModel;
 
   @PostMapping
   @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -41,6 +50,7 @@ public class UserController {
   }
 
   @GetMapping
+  @QueryBudget(4)
   @Operation(summary = "List users (Paged)")
   public ResponseEntity<Page<UserResponse>> listUsers(
       Authentication authentication,
@@ -49,6 +59,10 @@ public class UserController {
 
     User currentUser = getAuthenticatedUser(authentication);
 
+    if (jdbcReadModel) {
+      return ResponseEntity.ok(userReadModel.findPage(currentUser.getOrganizationId(), search, pageable));
+    }
+
     Specification<User> spec = (root, query, cb) -> {
       var predicates = new java.util.ArrayList<jakarta.persistence.criteria.Predicate>();
 
@@ -144,6 +158,7 @@ public class UserController {
   }
 
   @GetMapping("/count")
+  @QueryBudget(2)
   @Operation(summary = "Count users", description = "Optionally filter by role (e.g. ROLE_AGENT, ROLE_CUSTOMER)")
   public ResponseEntity<Long> countUsers(
       Authentication authentication,
@@ -151,20 +166,7 @@ public class UserController {
 
     User currentUser = getAuthenticatedUser(authentication);
 
-    long count = userRepository.count((root, query, cb) -> {
-      var predicates = new java.util.ArrayList<jakarta.persistence.criteria.Predicate>();
-
-      // Filter by Organization
-      predicates.add(cb.equal(root.get("organizationId"), currentUser.getOrganizationId()));
-
-      if (role != null) {
-        predicates.add(cb.equal(root.get("role"), role));
-      }
-
-      return cb.and(predicates.toArray(new jakarta.persistence.criteria.Predicate[0]));
-    });
-
-    return ResponseEntity.ok(count);
+    return ResponseEntity.ok(counterService.countUsers(currentUser.getOrganizationId(), role));
   }
 
   private User getAuthenticatedUser(Authentication authentication) {
@@ -0,0 +1,43 @@
+package com.trinket.trinketos.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Whether read-only transactions on the current thread may be served by a
+ * replica. Off by default, so background jobs and write requests always see
+ * the primary; {@link ReadYourWritesFilter} turns it on for safe requests.
+ */
+public final class ReadRoutingContext {
+
+  private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+  private ReadRoutingContext() {
+  }
+
+  public static void allowReplica() {
+    REPLICA_ALLOWED.set(Boolean.TRUE);
+  }
+
+  public static boolean isReplicaAllowed() {
+    return REPLICA_ALLOWED.get() != null;
+  }
+
+  public static void clear() {
+    REPLICA_ALLOWED.remove();
+  }
+
+  /** Wraps {@code task} so it runs with the calling thread's routing decision. */
+  public static <T> Supplier<T> propagate(Supplier<T> task) {
+    boolean allowed = isReplicaAllowed();
+    return () -> {
+      if (allowed) {
+        allowReplica();
+      }
+      try {
+        return task.get();
+      } finally {
+        clear();
+      }
+    };
+  }
+}
@@ -0,0 +1,77 @@
+package com.trinket.trinketos.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides per request whether reads may go to a replica. Only safe methods
+ * qualify, and only for users who have not written in the last
+ * {@code read-your-writes-ms}, so a user always reads their own changes.
+ *
+ * Runs after the security chain (no explicit order) to know the user. Write
+ * timestamps are kept per node; with several nodes, the window should cover
+ * replication lag or the load balancer should be sticky.
+ */
+@Component
+@ConditionalOnProperty(name = "application.datasource.replicas.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+  private final long windowMs;
+  private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+  public ReadYourWritesFilter(@Value("${application.datasource.replicas.read-your-writes-ms:5000}") long windowMs) {
+    this.windowMs = windowMs;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String user = currentUser();
+    boolean safe = isSafe(request.getMethod());
+
+    if (safe && (user == null || !wroteRecently(user))) {
+      ReadRoutingContext.allowReplica();
+    }
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      ReadRoutingContext.clear();
+      if (!safe && user != null && response.getStatus() < 400) {
+        lastWrites.put(user, System.currentTimeMillis());
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${application.datasource.replicas.read-your-writes-ms:5000}")
+  void purge() {
+    long cutoff = System.currentTimeMillis() - windowMs;
+    lastWrites.values().removeIf(at -> at < cutoff);
+  }
+
+  boolean wroteRecently(String user) {
+    Long at = lastWrites.get(user);
+    return at != null && System.currentTimeMillis() - at < windowMs;
+  }
+
+  private static boolean isSafe(String method) {
+    return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+  }
+
+  private static String currentUser() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+  }
+}
@@ -0,0 +1,131 @@
+package com.trinket.trinketos.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Sends read-only transactions to a healthy replica (round-robin) when the
+ * current thread allows it, everything else to the primary. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * so the connection is fetched after the transaction's read-only flag is set.
+ *
+ * Replicas are probed on a schedule; one that fails the probe or lags more
+ * than {@code maxLagMs} behind the primary is skipped until it recovers.
+ * With no healthy replica all reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  static final String PRIMARY = "primary";
+
+  /**
+   * Time since the last replayed transaction only measures lag while there is
+   * WAL left to replay; on an idle primary it just keeps growing. A replica
+   * that replayed everything it received is caught up.
+   */
+  private static final String LAG_QUERY = """
+      SELECT pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() AS caught_up,
+        COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) AS since_last_replay_ms
+      """;
+
+  private final List<DataSource> replicas;
+  private final long maxLagMs;
+  private final AtomicIntegerArray healthy;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long maxLagMs,
+      MeterRegistry meterRegistry) {
+    this.replicas = replicas;
+    this.maxLagMs = maxLagMs;
+    this.healthy = new AtomicIntegerArray(replicas.size());
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      targets.put(replicaKey(i), replicas.get(i));
+      int index = i;
+      Gauge.builder("trinketos.datasource.replica.healthy", healthy, h -> h.get(index))
+          .description("1 when the replica passes its health and lag check")
+          .tag("replica", replicaKey(i))
+          .register(meterRegistry);
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!ReadRoutingContext.isReplicaAllowed()
+        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return PRIMARY;
+    }
+    int size = replicas.size();
+    int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+    for (int i = 0; i < size; i++) {
+      int candidate = (start + i) % size;
+      if (healthy.get(candidate) == 1) {
+        return replicaKey(candidate);
+      }
+    }
+    return PRIMARY;
+  }
+
+  @Scheduled(fixedDelayString = "${application.datasource.replicas.health-check-ms:5000}", initialDelay = 0)
+  public void checkReplicas() {
+    for (int i = 0; i < replicas.size(); i++) {
+      boolean ok = probe(replicas.get(i), i);
+      if (healthy.getAndSet(i, ok ? 1 : 0) != (ok ? 1 : 0)) {
+        log.info("Replica {} is now {}", replicaKey(i), ok ? "healthy" : "unhealthy");
+      }
+    }
+  }
+
+  /** Called by Spring on shutdown (inferred destroy method). */
+  public void close() throws Exception {
+    for (DataSource replica : replicas) {
+      if (replica instanceof AutoCloseable closeable) {
+        closeable.close();
+      }
+    }
+  }
+
+  void markHealthy(int replica, boolean ok) {
+    healthy.set(replica, ok ? 1 : 0);
+  }
+
+  private boolean probe(DataSource replica, int index) {
+    try (Connection connection = replica.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.setQueryTimeout(2);
+      try (ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+        double lagMs = rs.next() && !rs.getBoolean("caught_up") ? rs.getDouble("since_last_replay_ms") : 0;
+        if (lagMs > maxLagMs) {
+          log.warn("Replica {} lags {} ms behind the primary", replicaKey(index), (long) lagMs);
+          return false;
+        }
+        return true;
+      }
+    } catch (Exception e) {
+      log.warn("Replica {} health check failed: {}", replicaKey(index), e.getMessage());
+      return false;
+    }
+  }
+
+  private static String replicaKey(int index) {
+    return "replica-" + index;
+  }
+}
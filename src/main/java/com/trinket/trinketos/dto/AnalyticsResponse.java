@@ -25,5 +25,9 @@ public record AnalyticsResponse(
 
     // Key Insights
     long criticalIssuesCount,
-    double overallResolutionRate) {
+    double overallResolutionRate,
+
+    // Tail latency in minutes ("p50", "p90", "p99")
+    Map<String, Double> firstResponsePercentiles,
+    Map<String, Double> resolutionPercentiles) {
 }
@@ -10,5 +10,6 @@ public record AuthResponse(
     String email,
     Role role,
     UUID organizationId,
-    UUID teamId) {
+    UUID teamId,
+    String refreshToken) {
 }
@@ -0,0 +1,4 @@
+package com.trinket.trinketos.dto;
+
+public record RefreshRequest(String refreshToken) {
+}
@@ -0,0 +1,16 @@
+package com.trinket.trinketos.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record SimilarTicketResponse(
+    UUID id,
+    String code,
+    String title,
+    String category,
+    UUID teamId,
+    String diagnosis,
+    String suggestedSolution,
+    LocalDateTime resolvedAt,
+    double score) {
+}
@@ -6,5 +6,6 @@ import java.util.UUID;
 import java.time.LocalDateTime;
 
 public record TeamResponse(UUID id, String name, String displayName, String description, UUID organizationId,
-    LocalDateTime createdAt, LocalDateTime updatedAt, List<UUID> categoryIds) {
+    LocalDateTime createdAt, LocalDateTime updatedAt, List<UUID> categoryIds,
+    Long memberCount) { // null unless requested with includeMemberCount
 }
@@ -0,0 +1,17 @@
+package com.trinket.trinketos.dto;
+
+import com.trinket.trinketos.model.TicketHistoryType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record TicketHistoryResponse(
+    UUID id,
+    TicketHistoryType type,
+    String fromValue,
+    String toValue,
+    UUID actorId, // null for AI or system transitions
+    long elapsedMinutes,
+    boolean slaBreached,
+    LocalDateTime occurredAt) {
+}
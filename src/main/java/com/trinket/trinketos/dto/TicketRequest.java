@@ -10,5 +10,7 @@ public record TicketRequest(
         String description,
         Priority priority, // User might set it, or let AI suggest.
         TicketStatus status,
-        UUID customerId) {
+        UUID customerId,
+        UUID agentId, // Assignee; only applied on update
+        Long version) { // Optional; update is rejected with 409 if the ticket changed since
 }
@@ -20,5 +20,6 @@ public record TicketResponse(
     UUID agentId,
     UUID teamId,
     UUID organizationId,
-    LocalDateTime createdAt) {
+    LocalDateTime createdAt,
+    Long version) {
 }
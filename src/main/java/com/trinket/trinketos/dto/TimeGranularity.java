@@ -0,0 +1,7 @@
+package com.trinket.trinketos.dto;
+
+public enum TimeGranularity {
+  HOUR,
+  DAY,
+  WEEK // ISO weeks, starting Monday
+}
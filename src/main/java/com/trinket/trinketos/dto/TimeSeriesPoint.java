@@ -0,0 +1,10 @@
+package com.trinket.trinketos.dto;
+
+import java.time.LocalDateTime;
+
+public record TimeSeriesPoint(
+    LocalDateTime bucket, // Bucket start
+    long created,
+    long resolved,
+    long backlog) { // Open tickets at the end of the bucket
+}
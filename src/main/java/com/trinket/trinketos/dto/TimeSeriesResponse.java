@@ -0,0 +1,9 @@
+package com.trinket.trinketos.dto;
+
+import java.util.List;
+
+public record TimeSeriesResponse(
+    TimePeriod range,
+    TimeGranularity granularity,
+    List<TimeSeriesPoint> points) {
+}
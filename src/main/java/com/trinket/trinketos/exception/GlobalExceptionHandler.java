@@ -1,5 +1,9 @@
 package com.trinket.trinketos.exception;
 
+import com.trinket.trinketos.ai.AiRateLimitExceededException;
+import com.trinket.trinketos.ai.AiUnavailableException;
+import com.trinket.trinketos.security.PasswordHashingBusyException;
+import com.trinket.trinketos.util.AiErrors;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -44,12 +48,45 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(Map.of("error", "Invalid email or password"), HttpStatus.UNAUTHORIZED);
   }
 
+  @ExceptionHandler(org.springframework.security.core.AuthenticationException.class)
+  public ResponseEntity<Map<String, String>> handleAuthenticationException(
+      org.springframework.security.core.AuthenticationException ex) {
+    return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.UNAUTHORIZED);
+  }
+
+  @ExceptionHandler(AiRateLimitExceededException.class)
+  public ResponseEntity<Map<String, String>> handleAiRateLimitExceededException(AiRateLimitExceededException ex) {
+    return new ResponseEntity<>(
+        Map.of("error", "Limite de uso de IA da organização atingido. Tente novamente em alguns minutos."),
+        HttpStatus.TOO_MANY_REQUESTS);
+  }
+
+  @ExceptionHandler(AiUnavailableException.class)
+  public ResponseEntity<Map<String, String>> handleAiUnavailableException(AiUnavailableException ex) {
+    return new ResponseEntity<>(
+        Map.of("error", "Serviço de IA indisponível no momento. Tente novamente em instantes."),
+        HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
+  @ExceptionHandler(PasswordHashingBusyException.class)
+  public ResponseEntity<Map<String, String>> handlePasswordHashingBusyException(PasswordHashingBusyException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header("Retry-After", "1")
+        .body(Map.of("error", "Muitas requisições de login no momento. Tente novamente em instantes."));
+  }
+
+  @ExceptionHandler(org.springframework.dao.OptimisticLockingFailureException.class)
+  public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(
+      org.springframework.dao.OptimisticLockingFailureException ex) {
+    return new ResponseEntity<>(
+        Map.of("error", "O registro foi alterado por outra pessoa. Recarregue e tente novamente."),
+        HttpStatus.CONFLICT);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<Map<String, String>> handleGeneralException(Exception ex) {
     // Check for AI Quota Exceeded (Gemini)
-    if (ex.getMessage() != null && (ex.getMessage().contains("Quota exceeded")
-        || ex.getMessage().contains("Too Many Requests")
-        || ex.getMessage().contains("429"))) {
+    if (AiErrors.isQuotaExceeded(ex)) {
       return new ResponseEntity<>(
           Map.of("error", "Cota de IA excedida (Free Tier). Tente novamente em alguns minutos."),
           HttpStatus.TOO_MANY_REQUESTS);
@@ -0,0 +1,34 @@
+package com.trinket.trinketos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Shared token bucket row per organization, used when AI rate limiting runs
+ * against PostgreSQL (application.ai.rate-limit.store=postgres). Updated only
+ * through the atomic statement in PostgresAiRateLimiter.
+ */
+@Entity
+@Table(name = "ai_rate_limits")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiRateLimitBucket {
+
+  @Id
+  @Column(name = "organization_id")
+  private UUID organizationId;
+
+  @Column(nullable = false)
+  private double tokens;
+
+  @Column(name = "refilled_at", nullable = false)
+  private LocalDateTime refilledAt;
+}
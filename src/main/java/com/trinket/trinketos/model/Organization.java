@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,6 +14,8 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "organizations")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "organizations")
 @Data
 @Builder
 @NoArgsConstructor
@@ -35,6 +39,11 @@ public class Organization {
   @Column(name = "tax_id", nullable = false, unique = true)
   private String taxId;
 
+  @Enumerated(EnumType.STRING)
+  @Column(name = "tier")
+  @Builder.Default
+  private OrganizationTier tier = OrganizationTier.FREE;
+
   @CreationTimestamp
   @Column(updatable = false)
   private LocalDateTime createdAt;
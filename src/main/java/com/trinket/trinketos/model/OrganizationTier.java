@@ -0,0 +1,18 @@
+package com.trinket.trinketos.model;
+
+public enum OrganizationTier {
+  FREE(1),
+  PRO(2),
+  ENTERPRISE(4);
+
+  /** Share of AI analysis throughput relative to FREE when tenants compete. */
+  private final int weight;
+
+  OrganizationTier(int weight) {
+    this.weight = weight;
+  }
+
+  public int getWeight() {
+    return weight;
+  }
+}
@@ -5,6 +5,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,6 +18,8 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "teams")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teams")
 @Data
 @Builder
 @NoArgsConstructor
@@ -40,7 +45,10 @@ public class Team {
   @Column(name = "organization_id", nullable = false)
   private UUID organizationId;
 
+  // Listing a page of teams initializes these in one IN-query instead of one per team
   @ManyToMany
+  @BatchSize(size = 100)
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teams.categories")
   @JoinTable(
     name = "team_categories",
     joinColumns = @JoinColumn(name = "team_id"),
@@ -55,5 +63,9 @@ public class Team {
 
   @UpdateTimestamp
   private LocalDateTime updatedAt;
+
+  @Version
+  @Column(columnDefinition = "bigint not null default 0")
+  private Long version;
 }
 
@@ -6,12 +6,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
 @Table(name = "tickets")
+@DynamicUpdate
 @Data
 @Builder
 @NoArgsConstructor
@@ -41,12 +43,6 @@ public class Ticket {
 
   private String sentiment;
 
-  @Column(columnDefinition = "TEXT")
-  private String diagnosis;
-
-  @Column(columnDefinition = "TEXT")
-  private String suggestedSolution;
-
   @Column(name = "customer_id")
   private UUID customerId;
 
@@ -59,10 +55,17 @@ public class Ticket {
   @Column(name = "organization_id", nullable = false)
   private UUID organizationId;
 
+  @Column(name = "first_response_at")
+  private LocalDateTime firstResponseAt;
+
   @Column(name = "resolved_at")
   private LocalDateTime resolvedAt;
 
   @CreationTimestamp
   @Column(updatable = false)
   private LocalDateTime createdAt;
+
+  @Version
+  @Column(columnDefinition = "bigint not null default 0")
+  private Long version;
 }
@@ -0,0 +1,77 @@
+package com.trinket.trinketos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * AI output for a ticket, kept out of {@code tickets} so list scans and
+ * updates don't drag the TEXT columns along. One row per ticket, sharing its
+ * id; only loaded when a single ticket is opened. A row with a failure holds
+ * no analysis yet, only the attempts that produced none.
+ */
+@Entity
+@Table(name = "ticket_ai_analysis")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketAiAnalysis {
+
+  public enum Failure {
+    /** Gemini failed or timed out; retried up to application.ai.analysis.max-attempts. */
+    UNAVAILABLE,
+    /** The reply was empty or not the requested JSON; resending the same prompt won't help. */
+    UNPARSEABLE
+  }
+
+  @Id
+  @Column(name = "ticket_id")
+  private UUID ticketId;
+
+  @MapsId
+  @OneToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "ticket_id")
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  @ToString.Exclude
+  private Ticket ticket;
+
+  @Column(columnDefinition = "TEXT")
+  private String diagnosis;
+
+  @Column(columnDefinition = "TEXT")
+  private String suggestedSolution;
+
+  @Column(name = "model_id")
+  private String modelId;
+
+  @Column(name = "prompt_version")
+  private String promptVersion;
+
+  @Column(name = "latency_ms")
+  private Long latencyMs;
+
+  @Column(name = "prompt_tokens")
+  private Integer promptTokens;
+
+  @Column(name = "completion_tokens")
+  private Integer completionTokens;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "failure")
+  private Failure failure;
+
+  @Column(name = "failed_attempts")
+  private Integer failedAttempts;
+
+  @Column(name = "analyzed_at", nullable = false)
+  private LocalDateTime analyzedAt;
+}
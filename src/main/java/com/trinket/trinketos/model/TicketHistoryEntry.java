@@ -0,0 +1,75 @@
+package com.trinket.trinketos.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Append-only ticket transition log. Each row carries the ticket's team,
+ * category, agent and priority at the time of the event plus the elapsed time
+ * since creation, so metrics can be rolled up without joining back to tickets.
+ */
+@Entity
+@Table(name = "ticket_events", indexes = {
+    @Index(name = "idx_ticket_events_org_occurred_at", columnList = "organization_id, occurred_at"),
+    @Index(name = "idx_ticket_events_ticket_id", columnList = "ticket_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketHistoryEntry {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
+
+  @Column(name = "ticket_id", nullable = false, updatable = false)
+  private UUID ticketId;
+
+  @Column(name = "organization_id", nullable = false, updatable = false)
+  private UUID organizationId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, updatable = false, length = 32)
+  private TicketHistoryType type;
+
+  @Column(name = "from_value", updatable = false)
+  private String fromValue;
+
+  @Column(name = "to_value", updatable = false)
+  private String toValue;
+
+  @Column(name = "team_id", updatable = false)
+  private UUID teamId;
+
+  @Column(updatable = false)
+  private String category;
+
+  @Column(name = "agent_id", updatable = false)
+  private UUID agentId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(updatable = false)
+  private Priority priority;
+
+  /** User who made the change; null for AI or system transitions. */
+  @Column(name = "actor_id", updatable = false)
+  private UUID actorId;
+
+  /** Minutes since the ticket was created. */
+  @Column(name = "elapsed_minutes", nullable = false, updatable = false)
+  private long elapsedMinutes;
+
+  /** Set on FIRST_RESPONSE and RESOLVED when the SLA target was missed. */
+  @Column(name = "sla_breached", nullable = false, updatable = false)
+  private boolean slaBreached;
+
+  @Column(name = "occurred_at", nullable = false, updatable = false)
+  private LocalDateTime occurredAt;
+}
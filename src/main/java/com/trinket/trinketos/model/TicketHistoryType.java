@@ -0,0 +1,12 @@
+package com.trinket.trinketos.model;
+
+public enum TicketHistoryType {
+  CREATED,
+  STATUS_CHANGED,
+  PRIORITY_CHANGED,
+  ASSIGNED,
+  SENTIMENT_CHANGED,
+  FIRST_RESPONSE,
+  RESOLVED,
+  REOPENED
+}
@@ -0,0 +1,40 @@
+package com.trinket.trinketos.observability;
+
+import com.trinket.trinketos.service.OrganizationTierResolver;
+import com.trinket.trinketos.util.AiErrors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Times Gemini calls as trinketos.ai.calls, tagged by operation, tier and
+ * outcome (success, error, quota_exceeded).
+ */
+@Component
+@RequiredArgsConstructor
+public class AiMetrics {
+
+  private final MeterRegistry meterRegistry;
+  private final OrganizationTierResolver tierResolver;
+
+  public <T> T record(String operation, UUID organizationId, Supplier<T> call) {
+    String tier = tierResolver.tierOf(organizationId).name();
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "success";
+    try {
+      return call.get();
+    } catch (RuntimeException e) {
+      outcome = AiErrors.isQuotaExceeded(e) ? "quota_exceeded" : "error";
+      throw e;
+    } finally {
+      sample.stop(Timer.builder("trinketos.ai.calls")
+          .description("Gemini call latency")
+          .tags("operation", operation, "tier", tier, "outcome", outcome)
+          .register(meterRegistry));
+    }
+  }
+}
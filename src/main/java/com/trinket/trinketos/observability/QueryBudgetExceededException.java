@@ -0,0 +1,8 @@
+package com.trinket.trinketos.observability;
+
+public class QueryBudgetExceededException extends RuntimeException {
+
+  public QueryBudgetExceededException(String endpoint, int budget, int statements) {
+    super("Query budget exceeded for " + endpoint + ": " + statements + " statements (budget " + budget + ")");
+  }
+}
@@ -0,0 +1,77 @@
+package com.trinket.trinketos.observability;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Counts every statement sent through the connections it hands out, so
+ * Hibernate, JdbcClient and JdbcTemplate reads all land in the request's
+ * {@link SqlStatistics}. A prepared statement is counted when prepared (as
+ * a Hibernate StatementInspector would), a plain one when executed or batched.
+ */
+public class SqlCountingDataSource extends DelegatingDataSource {
+
+  private static final Set<String> PREPARE = Set.of("prepareStatement", "prepareCall");
+  private static final Set<String> EXECUTE = Set.of("execute", "executeQuery", "executeUpdate",
+      "executeLargeUpdate", "addBatch");
+
+  public SqlCountingDataSource(DataSource targetDataSource) {
+    super(targetDataSource);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return counting(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return counting(super.getConnection(username, password));
+  }
+
+  private static Connection counting(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(),
+        new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+          if (PREPARE.contains(method.getName()) && args != null && args[0] instanceof String sql) {
+            record(sql);
+          }
+          Object result = invoke(connection, method, args);
+          return result instanceof Statement statement && method.getName().equals("createStatement")
+              ? counting(statement)
+              : result;
+        });
+  }
+
+  private static Statement counting(Statement statement) {
+    return (Statement) Proxy.newProxyInstance(SqlCountingDataSource.class.getClassLoader(),
+        new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+          if (EXECUTE.contains(method.getName()) && args != null && args[0] instanceof String sql) {
+            record(sql);
+          }
+          return invoke(statement, method, args);
+        });
+  }
+
+  private static void record(String sql) {
+    SqlStatistics statistics = SqlStatistics.current();
+    if (statistics != null) {
+      statistics.recordStatement(sql);
+    }
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.trinket.trinketos.observability;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Counts entities hydrated from result sets, i.e. the rows fetched for the request.
+ */
+public class SqlEntityLoadInterceptor implements Interceptor {
+
+  @Override
+  public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+    SqlStatistics statistics = SqlStatistics.current();
+    if (statistics != null) {
+      statistics.entityLoaded();
+    }
+    return false;
+  }
+}
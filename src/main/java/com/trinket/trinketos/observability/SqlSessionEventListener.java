@@ -0,0 +1,36 @@
+package com.trinket.trinketos.observability;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Measures JDBC execution time. Hibernate creates one instance per session
+ * (hibernate.session.events.auto), which needs the public no-arg constructor.
+ */
+public class SqlSessionEventListener implements SessionEventListener {
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    SqlStatistics statistics = SqlStatistics.current();
+    if (statistics != null) {
+      statistics.executionStarted();
+    }
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    SqlStatistics statistics = SqlStatistics.current();
+    if (statistics != null) {
+      statistics.executionEnded();
+    }
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    jdbcExecuteStatementStart();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    jdbcExecuteStatementEnd();
+  }
+}
@@ -0,0 +1,91 @@
+package com.trinket.trinketos.observability;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-request SQL accounting, bound to the request thread by {@link SqlStatisticsFilter}.
+ * The JDBC and Hibernate hooks only record into it when a request is in flight, so @Async work is ignored.
+ */
+public final class SqlStatistics {
+
+  private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private int entitiesLoaded;
+  private long executionNanos;
+  private long executionStartedAt;
+  private final Map<String, Integer> statementCounts = new HashMap<>();
+
+  public static SqlStatistics begin() {
+    SqlStatistics statistics = new SqlStatistics();
+    CURRENT.set(statistics);
+    return statistics;
+  }
+
+  public static SqlStatistics current() {
+    return CURRENT.get();
+  }
+
+  public static void end() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Folds in statistics recorded on another thread for this request (e.g. a
+   * parallel query). Call from the request thread once that work has finished.
+   */
+  public void merge(SqlStatistics other) {
+    statements += other.statements;
+    entitiesLoaded += other.entitiesLoaded;
+    executionNanos += other.executionNanos;
+    other.statementCounts.forEach((sql, count) -> statementCounts.merge(sql, count, Integer::sum));
+  }
+
+  void recordStatement(String sql) {
+    statements++;
+    statementCounts.merge(sql, 1, Integer::sum);
+  }
+
+  void executionStarted() {
+    executionStartedAt = System.nanoTime();
+  }
+
+  void executionEnded() {
+    if (executionStartedAt != 0) {
+      executionNanos += System.nanoTime() - executionStartedAt;
+      executionStartedAt = 0;
+    }
+  }
+
+  void entityLoaded() {
+    entitiesLoaded++;
+  }
+
+  public int getStatements() {
+    return statements;
+  }
+
+  public int getEntitiesLoaded() {
+    return entitiesLoaded;
+  }
+
+  public long getExecutionNanos() {
+    return executionNanos;
+  }
+
+  /**
+   * Highest number of times a single SQL string ran in this request.
+   * The same select repeated once per parent row is the N+1 signature.
+   */
+  public int getMaxRepeatedStatement() {
+    return statementCounts.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+  }
+
+  public String getMostRepeatedStatement() {
+    return statementCounts.entrySet().stream()
+        .max(Map.Entry.comparingByValue())
+        .map(Map.Entry::getKey)
+        .orElse(null);
+  }
+}
@@ -0,0 +1,136 @@
+package com.trinket.trinketos.observability;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link SqlStatistics} scope around each request (including the security
+ * filter chain, which loads the user) and publishes the totals per endpoint,
+ * along with the bytes the request thread allocated.
+ *
+ * {@link QueryBudget} is checked here, after the response body is written, so
+ * lazy loads triggered by serialization are counted. With
+ * {@code enforce-budget} an overrun fails the request; as the body may already
+ * be sent by then, that is meant for tests.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "application.sql-instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+  private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+  private final MeterRegistry meterRegistry;
+
+  @Value("${application.sql-instrumentation.n-plus-one-threshold:5}")
+  private int nPlusOneThreshold;
+
+  @Value("${application.sql-instrumentation.enforce-budget:false}")
+  private boolean enforceBudget;
+
+  @Override
+  protected void doFilterInternal(
+      @NonNull HttpServletRequest request,
+      @NonNull HttpServletResponse response,
+      @NonNull FilterChain filterChain) throws ServletException, IOException {
+    SqlStatistics statistics = SqlStatistics.begin();
+    long allocatedBefore = allocatedBytes();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      long allocated = allocatedBefore >= 0 ? allocatedBytes() - allocatedBefore : -1;
+      SqlStatistics.end();
+      record(request, statistics, allocated);
+    }
+    checkBudget(request, statistics);
+  }
+
+  private void checkBudget(HttpServletRequest request, SqlStatistics statistics) {
+    if (!(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)) {
+      return;
+    }
+    QueryBudget budget = handler.getMethodAnnotation(QueryBudget.class);
+    if (budget == null || statistics.getStatements() <= budget.value()) {
+      return;
+    }
+    String endpoint = handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName();
+    meterRegistry.counter("trinketos.sql.budget.exceeded", "endpoint", endpoint).increment();
+    if (enforceBudget) {
+      throw new QueryBudgetExceededException(endpoint, budget.value(), statistics.getStatements());
+    }
+    log.warn("Query budget exceeded for {}: {} statements (budget {})", endpoint, statistics.getStatements(),
+        budget.value());
+  }
+
+  private void record(HttpServletRequest request, SqlStatistics statistics, long allocatedBytes) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+    String method = request.getMethod();
+
+    DistributionSummary.builder("trinketos.sql.statements")
+        .description("SQL statements issued per request")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry)
+        .record(statistics.getStatements());
+    DistributionSummary.builder("trinketos.sql.entities")
+        .description("Entities loaded per request")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry)
+        .record(statistics.getEntitiesLoaded());
+    Timer.builder("trinketos.sql.time")
+        .description("JDBC execution time per request")
+        .tags("method", method, "uri", uri)
+        .register(meterRegistry)
+        .record(statistics.getExecutionNanos(), TimeUnit.NANOSECONDS);
+    if (allocatedBytes >= 0) {
+      // Compares the JDBC read model with the JPA path under load (application.read-model.jdbc)
+      DistributionSummary.builder("trinketos.http.allocated_bytes")
+          .description("Heap allocated by the request thread")
+          .baseUnit("bytes")
+          .tags("method", method, "uri", uri)
+          .register(meterRegistry)
+          .record(allocatedBytes);
+    }
+
+    if (statistics.getMaxRepeatedStatement() >= nPlusOneThreshold) {
+      meterRegistry.counter("trinketos.sql.n_plus_one", "method", method, "uri", uri).increment();
+      log.warn("Possible N+1 on {} {}: statement repeated {} times: {}", method, uri,
+          statistics.getMaxRepeatedStatement(), statistics.getMostRepeatedStatement());
+    }
+  }
+
+  /** Bytes allocated so far by the current thread, or -1 when the JVM doesn't track it. */
+  private static long allocatedBytes() {
+    return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+  }
+
+  private static com.sun.management.ThreadMXBean threadMXBean() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+        && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+      return threads;
+    }
+    return null;
+  }
+}
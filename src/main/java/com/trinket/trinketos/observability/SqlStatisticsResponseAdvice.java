@@ -0,0 +1,48 @@
+package com.trinket.trinketos.observability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs just before the body is written, while headers can still be set:
+ * exposes the request's SQL counters (dev). {@link QueryBudget} is checked by
+ * {@link SqlStatisticsFilter} once the body is written, so statements issued
+ * by lazy loads during serialization count too.
+ */
+@RestControllerAdvice
+public class SqlStatisticsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+  @Value("${application.sql-instrumentation.response-headers:false}")
+  private boolean responseHeaders;
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+    SqlStatistics statistics = SqlStatistics.current();
+    if (statistics == null) {
+      return body;
+    }
+
+    if (responseHeaders) {
+      response.getHeaders().add("X-SQL-Statements", String.valueOf(statistics.getStatements()));
+      response.getHeaders().add("X-SQL-Entities", String.valueOf(statistics.getEntitiesLoaded()));
+      response.getHeaders().add("X-SQL-Time-Ms",
+          String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getExecutionNanos())));
+    }
+    return body;
+  }
+}
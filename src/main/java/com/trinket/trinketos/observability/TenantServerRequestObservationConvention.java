@@ -0,0 +1,29 @@
+package com.trinket.trinketos.observability;
+
+import com.trinket.trinketos.security.JwtAuthenticationFilter;
+import com.trinket.trinketos.service.OrganizationTierResolver;
+import io.micrometer.common.KeyValues;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Adds the organization tier to http.server.requests, so every controller
+ * method gets a latency timer per tier without per-method annotations.
+ */
+@Component
+@RequiredArgsConstructor
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+  private final OrganizationTierResolver tierResolver;
+
+  @Override
+  public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+    Object organizationId = context.getCarrier().getAttribute(JwtAuthenticationFilter.ORGANIZATION_ID_ATTRIBUTE);
+    String tier = organizationId instanceof UUID id ? tierResolver.tierOf(id).name() : "NONE";
+    return super.getLowCardinalityKeyValues(context).and("tier", tier);
+  }
+}
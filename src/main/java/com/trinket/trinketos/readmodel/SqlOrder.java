@@ -0,0 +1,28 @@
+package com.trinket.trinketos.readmodel;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/** Translates a Pageable sort into an ORDER BY over a whitelist of columns. */
+final class SqlOrder {
+
+  private SqlOrder() {
+  }
+
+  static String of(Sort sort, Map<String, String> sortable) {
+    if (sort.isUnsorted()) {
+      return "";
+    }
+    StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+    for (Sort.Order order : sort) {
+      String column = sortable.get(order.getProperty());
+      if (column == null) {
+        throw new IllegalArgumentException("Não é possível ordenar por " + order.getProperty());
+      }
+      orderBy.add(column + (order.isAscending() ? " ASC" : " DESC"));
+    }
+    return orderBy.toString();
+  }
+}
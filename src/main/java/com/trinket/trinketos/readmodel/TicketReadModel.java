@@ -0,0 +1,175 @@
+package com.trinket.trinketos.readmodel;
+
+import com.trinket.trinketos.dto.TicketResponse;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.TicketStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ticket reads straight from SQL into {@link TicketResponse}: no entities,
+ * dirty-checking snapshots or proxies. Filters and search follow the JPA
+ * Specification in TicketController.getTickets.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class TicketReadModel {
+
+  /** A ticket plus the AI analysis time its ETag depends on. */
+  public record TicketDetail(TicketResponse ticket, LocalDateTime analyzedAt) {
+  }
+
+  /** List filters; {@code teamId} non-null restricts to the team OR its categories. */
+  public record TicketFilter(UUID organizationId, UUID teamId, List<String> categories, TicketStatus status,
+      Priority priority, String search) {
+  }
+
+  private static final String LIST_COLUMNS = """
+      t.id, t.code, t.title, t.description, t.status, t.priority, t.category, t.sentiment,
+      NULL AS diagnosis, NULL AS suggested_solution,
+      t.customer_id, t.agent_id, t.team_id, t.organization_id, t.created_at, t.version
+      """;
+
+  private static final Map<String, String> SORTABLE = Map.of(
+      "createdAt", "t.created_at",
+      "code", "t.code",
+      "title", "t.title",
+      "status", "t.status",
+      "priority", "t.priority",
+      "category", "t.category",
+      "sentiment", "t.sentiment");
+
+  private static final RowMapper<TicketResponse> TICKET = TicketReadModel::mapTicket;
+
+  private final JdbcClient jdbcClient;
+
+  public TicketReadModel(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  public Page<TicketResponse> findPage(TicketFilter filter, Pageable pageable) {
+    Map<String, Object> params = new HashMap<>();
+    String where = where(filter, params);
+    params.put("limit", pageable.getPageSize());
+    params.put("offset", pageable.getOffset());
+
+    List<TicketResponse> content = jdbcClient
+        .sql("SELECT " + LIST_COLUMNS + " FROM tickets t" + where + SqlOrder.of(pageable.getSort(), SORTABLE)
+            + " LIMIT :limit OFFSET :offset")
+        .params(params)
+        .query(TICKET)
+        .list();
+    return PageableExecutionUtils.getPage(content, pageable, () -> jdbcClient
+        .sql("SELECT count(*) FROM tickets t" + where)
+        .params(params)
+        .query(Long.class)
+        .single());
+  }
+
+  public Optional<TicketDetail> findById(UUID id) {
+    return jdbcClient.sql("""
+        SELECT t.id, t.code, t.title, t.description, t.status, t.priority, t.category, t.sentiment,
+          a.diagnosis, a.suggested_solution, t.customer_id, t.agent_id, t.team_id, t.organization_id,
+          t.created_at, t.version, a.analyzed_at
+        FROM tickets t LEFT JOIN ticket_ai_analysis a ON a.ticket_id = t.id
+        WHERE t.id = :id
+        """)
+        .param("id", id)
+        .query((rs, rowNum) -> new TicketDetail(mapTicket(rs, rowNum),
+            toLocalDateTime(rs.getTimestamp("analyzed_at"))))
+        .optional();
+  }
+
+  /** Names of the categories a team handles, for the agent visibility rule. */
+  public List<String> teamCategoryNames(UUID teamId) {
+    return jdbcClient.sql("""
+        SELECT c.name FROM team_categories tc JOIN categories c ON c.id = tc.category_id
+        WHERE tc.team_id = :teamId
+        """)
+        .param("teamId", teamId)
+        .query(String.class)
+        .list();
+  }
+
+  private static String where(TicketFilter filter, Map<String, Object> params) {
+    StringBuilder where = new StringBuilder(" WHERE t.organization_id = :organizationId");
+    params.put("organizationId", filter.organizationId());
+
+    if (filter.teamId() != null) {
+      params.put("teamId", filter.teamId());
+      if (filter.categories().isEmpty()) {
+        where.append(" AND t.team_id = :teamId");
+      } else {
+        params.put("categories", filter.categories());
+        where.append(" AND (t.team_id = :teamId OR t.category IN (:categories))");
+      }
+    }
+    if (filter.status() != null) {
+      params.put("status", filter.status().name());
+      where.append(" AND t.status = :status");
+    }
+    if (filter.priority() != null) {
+      params.put("priority", filter.priority().name());
+      where.append(" AND t.priority = :priority");
+    }
+
+    String search = filter.search();
+    if (search != null && !search.isBlank()) {
+      params.put("likePattern", "%" + search.toLowerCase() + "%");
+      String text = "lower(t.title) LIKE :likePattern OR lower(t.description) LIKE :likePattern";
+      String codeSearch = search.trim().toUpperCase();
+      if (codeSearch.startsWith("TKT-")) {
+        params.put("codePattern", "%" + codeSearch + "%");
+        where.append(" AND (upper(t.code) LIKE :codePattern OR ").append(text).append(")");
+      } else if (codeSearch.matches("^[A-Z0-9]{8}$")) {
+        // Potential short code
+        params.put("code", "TKT-" + codeSearch);
+        where.append(" AND (t.code = :code OR ").append(text).append(")");
+      } else {
+        where.append(" AND (").append(text).append(")");
+      }
+    }
+    return where.toString();
+  }
+
+  private static TicketResponse mapTicket(ResultSet rs, int rowNum) throws SQLException {
+    String status = rs.getString("status");
+    String priority = rs.getString("priority");
+    return new TicketResponse(
+        rs.getObject("id", UUID.class),
+        rs.getString("code"),
+        rs.getString("title"),
+        rs.getString("description"),
+        status != null ? TicketStatus.valueOf(status) : null,
+        priority != null ? Priority.valueOf(priority) : null,
+        rs.getString("category"),
+        rs.getString("sentiment"),
+        rs.getString("diagnosis"),
+        rs.getString("suggested_solution"),
+        rs.getObject("customer_id", UUID.class),
+        rs.getObject("agent_id", UUID.class),
+        rs.getObject("team_id", UUID.class),
+        rs.getObject("organization_id", UUID.class),
+        toLocalDateTime(rs.getTimestamp("created_at")),
+        rs.getObject("version", Long.class));
+  }
+
+  private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+    return timestamp != null ? timestamp.toLocalDateTime() : null;
+  }
+}
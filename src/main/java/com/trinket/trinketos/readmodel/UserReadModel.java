@@ -0,0 +1,72 @@
+package com.trinket.trinketos.readmodel;
+
+import com.trinket.trinketos.dto.UserResponse;
+import com.trinket.trinketos.model.DocumentType;
+import com.trinket.trinketos.model.Role;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/** User listing straight from SQL into {@link UserResponse}; never selects the password hash. */
+@Repository
+@Transactional(readOnly = true)
+public class UserReadModel {
+
+  private static final Map<String, String> SORTABLE = Map.of(
+      "name", "u.name",
+      "email", "u.email",
+      "role", "u.role");
+
+  private static final RowMapper<UserResponse> USER = (rs, rowNum) -> {
+    String documentType = rs.getString("document_type");
+    return new UserResponse(
+        rs.getObject("id", UUID.class),
+        rs.getString("name"),
+        rs.getString("email"),
+        Role.valueOf(rs.getString("role")),
+        rs.getObject("organization_id", UUID.class),
+        rs.getObject("team_id", UUID.class),
+        rs.getString("document"),
+        documentType != null ? DocumentType.valueOf(documentType) : null);
+  };
+
+  private final JdbcClient jdbcClient;
+
+  public UserReadModel(JdbcClient jdbcClient) {
+    this.jdbcClient = jdbcClient;
+  }
+
+  public Page<UserResponse> findPage(UUID organizationId, String search, Pageable pageable) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("organizationId", organizationId);
+    String where = " WHERE u.organization_id = :organizationId";
+    if (search != null && !search.isBlank()) {
+      params.put("likePattern", "%" + search.toLowerCase() + "%");
+      where += " AND (lower(u.name) LIKE :likePattern OR lower(u.email) LIKE :likePattern)";
+    }
+    params.put("limit", pageable.getPageSize());
+    params.put("offset", pageable.getOffset());
+
+    List<UserResponse> content = jdbcClient
+        .sql("SELECT u.id, u.name, u.email, u.role, u.organization_id, u.team_id, u.document, u.document_type"
+            + " FROM users u" + where + SqlOrder.of(pageable.getSort(), SORTABLE) + " LIMIT :limit OFFSET :offset")
+        .params(params)
+        .query(USER)
+        .list();
+    String countWhere = where;
+    return PageableExecutionUtils.getPage(content, pageable, () -> jdbcClient
+        .sql("SELECT count(*) FROM users u" + countWhere)
+        .params(params)
+        .query(Long.class)
+        .single());
+  }
+}
@@ -0,0 +1,32 @@
+package com.trinket.trinketos.realtime;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.UUID;
+
+/**
+ * A change committed on another API node, published locally by
+ * {@link PostgresInvalidationBus}. In-process caches drop what they hold for
+ * the entity and its organization, or everything for {@link Kind#ALL}.
+ */
+public record CacheInvalidation(Kind kind, UUID organizationId, UUID id) {
+
+  public enum Kind {
+    ORGANIZATION,
+    USER,
+    TEAM,
+    CATEGORY,
+    TICKET,
+    /** Changes may have been missed (listener reconnected): drop everything. */
+    ALL
+  }
+
+  public static CacheInvalidation all() {
+    return new CacheInvalidation(Kind.ALL, null, null);
+  }
+
+  @JsonIgnore
+  public boolean isAll() {
+    return kind == Kind.ALL;
+  }
+}
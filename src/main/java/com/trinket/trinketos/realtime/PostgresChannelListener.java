@@ -0,0 +1,82 @@
+package com.trinket.trinketos.realtime;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * LISTEN loop on a dedicated connection, opened outside the Hikari pool so
+ * it never holds a pooled connection. Reconnects after a second on any
+ * failure; {@code onReconnect} runs once LISTEN is re-established, since
+ * anything sent while disconnected is lost.
+ */
+@Slf4j
+final class PostgresChannelListener {
+
+  private final DataSourceProperties dataSourceProperties;
+  private final String channel;
+  private final Consumer<String> onNotification;
+  private final Runnable onReconnect;
+
+  private volatile boolean running = true;
+  private Thread thread;
+
+  PostgresChannelListener(DataSourceProperties dataSourceProperties, String channel,
+      Consumer<String> onNotification, Runnable onReconnect) {
+    this.dataSourceProperties = dataSourceProperties;
+    this.channel = channel;
+    this.onNotification = onNotification;
+    this.onReconnect = onReconnect;
+  }
+
+  void start() {
+    thread = Thread.ofPlatform().daemon().name(channel + "-listener").start(this::listen);
+  }
+
+  void stop() {
+    running = false;
+    thread.interrupt();
+  }
+
+  private void listen() {
+    boolean connectedBefore = false;
+    while (running) {
+      try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+          dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        if (connectedBefore) {
+          onReconnect.run();
+        }
+        connectedBefore = true;
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(5000);
+          if (notifications == null) {
+            continue;
+          }
+          for (PGNotification notification : notifications) {
+            onNotification.accept(notification.getParameter());
+          }
+        }
+      } catch (Exception e) {
+        if (!running) {
+          return;
+        }
+        log.warn("Listener on {} disconnected, reconnecting", channel, e);
+        try {
+          Thread.sleep(1000);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+}
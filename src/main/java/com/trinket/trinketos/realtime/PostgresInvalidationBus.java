@@ -0,0 +1,236 @@
+package com.trinket.trinketos.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Organization;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cross-node invalidation for the in-process caches (ETags, counters,
+ * dashboards, tiers, Hibernate second-level cache) over PostgreSQL
+ * LISTEN/NOTIFY, so replicas don't serve each other's stale data for a
+ * whole TTL.
+ *
+ * Committed writes to organizations, users, teams, categories and tickets
+ * are collected by Hibernate post-commit listeners, deduplicated and sent
+ * every {@code batch-interval-ms} with pg_notify. A dedicated connection
+ * receives other nodes' batches, evicts the second-level cache and
+ * publishes a {@link CacheInvalidation} per change for the other caches.
+ * After a reconnect everything is dropped, since notifications sent in the
+ * meantime are gone.
+ */
+@Component
+@ConditionalOnProperty(name = "application.cache-invalidation.enabled", havingValue = "true")
+@Slf4j
+public class PostgresInvalidationBus implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+  static final String CHANNEL = "cache_invalidation";
+
+  /** NOTIFY payloads are capped at 8000 bytes; a change takes about 130. */
+  static final int MAX_CHANGES_PER_NOTIFICATION = 50;
+
+  private static final String TEAM_CATEGORIES = Team.class.getName() + ".categories";
+
+  record Batch(String node, long sentAt, List<CacheInvalidation> changes) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSourceProperties dataSourceProperties;
+  private final ObjectMapper objectMapper;
+  private final EntityManagerFactory entityManagerFactory;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Counter sent;
+  private final Counter received;
+  private final Counter resyncs;
+  private final Timer lag;
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Set<CacheInvalidation> pending = ConcurrentHashMap.newKeySet();
+  private PostgresChannelListener listener;
+
+  public PostgresInvalidationBus(
+      JdbcTemplate jdbcTemplate,
+      DataSourceProperties dataSourceProperties,
+      ObjectMapper objectMapper,
+      EntityManagerFactory entityManagerFactory,
+      ApplicationEventPublisher eventPublisher,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.dataSourceProperties = dataSourceProperties;
+    this.objectMapper = objectMapper;
+    this.entityManagerFactory = entityManagerFactory;
+    this.eventPublisher = eventPublisher;
+    this.sent = meterRegistry.counter("trinketos.cache.invalidation.changes", "direction", "sent");
+    this.received = meterRegistry.counter("trinketos.cache.invalidation.changes", "direction", "received");
+    this.resyncs = meterRegistry.counter("trinketos.cache.invalidation.resyncs");
+    this.lag = Timer.builder("trinketos.cache.invalidation.lag")
+        .description("From the sending node's flush to local eviction (includes clock skew between nodes)")
+        .register(meterRegistry);
+  }
+
+  @PostConstruct
+  void start() {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    listener = new PostgresChannelListener(dataSourceProperties, CHANNEL, this::receive, this::resync);
+    listener.start();
+  }
+
+  @PreDestroy
+  void stop() {
+    listener.stop();
+    flush();
+  }
+
+  @Scheduled(fixedDelayString = "${application.cache-invalidation.batch-interval-ms:50}")
+  void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    List<CacheInvalidation> changes = new ArrayList<>(pending);
+    pending.removeAll(changes);
+    for (int from = 0; from < changes.size(); from += MAX_CHANGES_PER_NOTIFICATION) {
+      List<CacheInvalidation> chunk = changes.subList(from, Math.min(from + MAX_CHANGES_PER_NOTIFICATION, changes.size()));
+      try {
+        String payload = objectMapper.writeValueAsString(new Batch(nodeId, System.currentTimeMillis(), chunk));
+        jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class, CHANNEL, payload);
+        sent.increment(chunk.size());
+      } catch (Exception e) {
+        // Other nodes converge through their cache TTLs and reconciles
+        log.warn("Could not send {} cache invalidations to other nodes", chunk.size(), e);
+      }
+    }
+  }
+
+  void receive(String payload) {
+    try {
+      Batch batch = objectMapper.readValue(payload, Batch.class);
+      if (nodeId.equals(batch.node())) {
+        return;
+      }
+      batch.changes().forEach(this::apply);
+      received.increment(batch.changes().size());
+      lag.record(Math.max(0, System.currentTimeMillis() - batch.sentAt()), TimeUnit.MILLISECONDS);
+    } catch (Exception e) {
+      log.warn("Ignoring malformed cache invalidation notification", e);
+    }
+  }
+
+  void resync() {
+    log.info("Cache invalidation listener reconnected, dropping local caches");
+    resyncs.increment();
+    apply(CacheInvalidation.all());
+  }
+
+  private void apply(CacheInvalidation change) {
+    Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    switch (change.kind()) {
+      case ALL -> cache.evictAllRegions();
+      case ORGANIZATION -> evict(cache, Organization.class, change.id());
+      case CATEGORY -> evict(cache, Category.class, change.id());
+      case TEAM -> {
+        evict(cache, Team.class, change.id());
+        cache.evictCollectionData(TEAM_CATEGORIES, change.id());
+      }
+      default -> {
+      }
+    }
+    eventPublisher.publishEvent(change);
+  }
+
+  private static void evict(Cache cache, Class<?> entity, UUID id) {
+    cache.evictEntityData(entity, id);
+    // The update timestamps this node keeps don't know about the remote write
+    cache.evictDefaultQueryRegion();
+  }
+
+  // --- Hibernate post-commit listeners ---
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    changed(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    changed(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    changed(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+
+  private void changed(Object entity) {
+    CacheInvalidation change = switch (entity) {
+      case Organization organization ->
+          new CacheInvalidation(CacheInvalidation.Kind.ORGANIZATION, organization.getId(), organization.getId());
+      case User user -> new CacheInvalidation(CacheInvalidation.Kind.USER, user.getOrganizationId(), user.getId());
+      case Team team -> new CacheInvalidation(CacheInvalidation.Kind.TEAM, team.getOrganizationId(), team.getId());
+      case Category category ->
+          new CacheInvalidation(CacheInvalidation.Kind.CATEGORY, category.getOrganizationId(), category.getId());
+      case Ticket ticket ->
+          new CacheInvalidation(CacheInvalidation.Kind.TICKET, ticket.getOrganizationId(), ticket.getId());
+      default -> null;
+    };
+    if (change != null) {
+      pending.add(change);
+    }
+  }
+}
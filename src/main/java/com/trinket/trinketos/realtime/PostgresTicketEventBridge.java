@@ -0,0 +1,73 @@
+package com.trinket.trinketos.realtime;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Relays {@link TicketEvent}s between API nodes through PostgreSQL
+ * LISTEN/NOTIFY. Local events are sent with pg_notify after commit; a
+ * dedicated connection (outside the Hikari pool) listens and hands events
+ * from other nodes to the local broadcaster.
+ */
+@Component
+@ConditionalOnProperty(name = "application.realtime.postgres-bridge.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresTicketEventBridge {
+
+  private static final String CHANNEL = "ticket_events";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSourceProperties dataSourceProperties;
+  private final ObjectMapper objectMapper;
+  private final TicketEventBroadcaster broadcaster;
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private PostgresChannelListener listener;
+
+  @PostConstruct
+  void start() {
+    // Events sent while disconnected are not replayed
+    listener = new PostgresChannelListener(dataSourceProperties, CHANNEL, this::receive, () -> { });
+    listener.start();
+  }
+
+  @PreDestroy
+  void stop() {
+    listener.stop();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void forward(TicketEvent event) {
+    try {
+      String payload = objectMapper.writeValueAsString(
+          objectMapper.createObjectNode().put("node", nodeId).set("event", objectMapper.valueToTree(event)));
+      jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class, CHANNEL, payload);
+    } catch (Exception e) {
+      log.warn("Could not forward ticket event {} to other nodes", event.ticketId(), e);
+    }
+  }
+
+  private void receive(String payload) {
+    try {
+      JsonNode root = objectMapper.readTree(payload);
+      if (nodeId.equals(root.path("node").asText())) {
+        return;
+      }
+      broadcaster.deliver(objectMapper.treeToValue(root.get("event"), TicketEvent.class));
+    } catch (Exception e) {
+      log.warn("Ignoring malformed ticket event notification", e);
+    }
+  }
+}
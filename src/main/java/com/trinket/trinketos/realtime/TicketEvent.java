@@ -0,0 +1,40 @@
+package com.trinket.trinketos.realtime;
+
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compact ticket change notification pushed to dashboards. Carries only the
+ * fields needed for list badges and visibility checks; clients fetch the full
+ * ticket when they open it.
+ */
+public record TicketEvent(
+    Type type,
+    UUID ticketId,
+    String code,
+    String title,
+    TicketStatus status,
+    Priority priority,
+    String category,
+    UUID teamId,
+    UUID agentId,
+    UUID organizationId,
+    LocalDateTime occurredAt) {
+
+  public enum Type {
+    TICKET_CREATED,
+    TICKET_UPDATED,
+    TICKET_DELETED,
+    AI_ANALYSIS_COMPLETED
+  }
+
+  public static TicketEvent of(Type type, Ticket ticket) {
+    return new TicketEvent(type, ticket.getId(), ticket.getCode(), ticket.getTitle(), ticket.getStatus(),
+        ticket.getPriority(), ticket.getCategory(), ticket.getTeamId(), ticket.getAgentId(),
+        ticket.getOrganizationId(), LocalDateTime.now());
+  }
+}
@@ -0,0 +1,161 @@
+package com.trinket.trinketos.realtime;
+
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process fan-out of {@link TicketEvent}s to SSE subscribers, partitioned by
+ * organization. Agents only receive tickets of their team or of categories
+ * their team handles, mirroring the ticket list visibility rule. An open
+ * emitter holds no thread, so idle dashboards cost nothing.
+ *
+ * Publishing only enqueues: each subscriber has a bounded queue drained on a
+ * virtual thread, so a slow client never holds up the committing request or
+ * the other subscribers. A client that falls {@code subscriber-queue-size}
+ * events behind is disconnected and reloads when its EventSource reconnects.
+ */
+@Component
+@Slf4j
+public class TicketEventBroadcaster {
+
+  private record Subscriber(SseEmitter emitter, Role role, UUID teamId, Set<String> categories,
+      BlockingQueue<SseEmitter.SseEventBuilder> queue, AtomicBoolean draining) {
+
+    boolean canSee(TicketEvent event) {
+      if (role != Role.ROLE_AGENT) {
+        return true;
+      }
+      if (teamId == null) {
+        return false;
+      }
+      return teamId.equals(event.teamId()) || (event.category() != null && categories.contains(event.category()));
+    }
+  }
+
+  private final Map<UUID, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicInteger connected = new AtomicInteger();
+  private final Counter overflows;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  @Value("${application.realtime.emitter-timeout-ms:1800000}")
+  private long emitterTimeoutMs;
+
+  @Value("${application.realtime.subscriber-queue-size:256}")
+  private int subscriberQueueSize;
+
+  public TicketEventBroadcaster(MeterRegistry meterRegistry) {
+    meterRegistry.gauge("trinketos.realtime.subscribers", connected);
+    this.overflows = Counter.builder("trinketos.realtime.overflows")
+        .description("Subscribers disconnected because they fell too far behind")
+        .register(meterRegistry);
+  }
+
+  public SseEmitter subscribe(User user, List<String> teamCategories) {
+    return subscribe(new SseEmitter(emitterTimeoutMs), user, teamCategories);
+  }
+
+  SseEmitter subscribe(SseEmitter emitter, User user, List<String> teamCategories) {
+    Subscriber subscriber = new Subscriber(emitter, user.getRole(), user.getTeamId(), Set.copyOf(teamCategories),
+        new ArrayBlockingQueue<>(subscriberQueueSize), new AtomicBoolean());
+    Set<Subscriber> organizationSubscribers = subscribers.computeIfAbsent(user.getOrganizationId(),
+        id -> ConcurrentHashMap.newKeySet());
+    organizationSubscribers.add(subscriber);
+    connected.incrementAndGet();
+
+    Runnable remove = () -> {
+      if (organizationSubscribers.remove(subscriber)) {
+        connected.decrementAndGet();
+      }
+    };
+    emitter.onCompletion(remove);
+    emitter.onTimeout(remove);
+    emitter.onError(e -> remove.run());
+    return emitter;
+  }
+
+  /** Local writes: delivered after commit, or immediately outside a transaction. */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onTicketEvent(TicketEvent event) {
+    deliver(event);
+  }
+
+  /** Entry point for events from this node and from other nodes (see PostgresTicketEventBridge). */
+  public void deliver(TicketEvent event) {
+    Set<Subscriber> organizationSubscribers = subscribers.get(event.organizationId());
+    if (organizationSubscribers == null) {
+      return;
+    }
+    for (Subscriber subscriber : organizationSubscribers) {
+      if (subscriber.canSee(event)) {
+        enqueue(organizationSubscribers, subscriber, SseEmitter.event().name(event.type().name()).data(event));
+      }
+    }
+  }
+
+  /** Comment line so proxies and load balancers keep idle streams open. */
+  @Scheduled(fixedDelayString = "${application.realtime.heartbeat-ms:25000}")
+  void heartbeat() {
+    subscribers.values().forEach(organizationSubscribers -> organizationSubscribers
+        .forEach(subscriber -> enqueue(organizationSubscribers, subscriber, SseEmitter.event().comment("ping"))));
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private void enqueue(Set<Subscriber> organizationSubscribers, Subscriber subscriber,
+      SseEmitter.SseEventBuilder event) {
+    if (!subscriber.queue().offer(event)) {
+      // Missed events can't be replayed; dropping the stream makes the client reconnect and reload
+      if (organizationSubscribers.remove(subscriber)) {
+        connected.decrementAndGet();
+        overflows.increment();
+        log.warn("SSE subscriber fell {} events behind, disconnecting", subscriberQueueSize);
+        subscriber.emitter().complete();
+      }
+      return;
+    }
+    if (subscriber.draining().compareAndSet(false, true)) {
+      executor.execute(() -> drain(subscriber));
+    }
+  }
+
+  private void drain(Subscriber subscriber) {
+    do {
+      SseEmitter.SseEventBuilder event;
+      while ((event = subscriber.queue().poll()) != null) {
+        try {
+          subscriber.emitter().send(event);
+        } catch (IOException | IllegalStateException e) {
+          subscriber.queue().clear();
+          subscriber.emitter().completeWithError(e);
+        }
+      }
+      subscriber.draining().set(false);
+      // An event enqueued after the last poll but before the flag was cleared found it set
+    } while (!subscriber.queue().isEmpty() && subscriber.draining().compareAndSet(false, true));
+  }
+}
@@ -1,16 +1,35 @@
 package com.trinket.trinketos.repository;
 
 import com.trinket.trinketos.model.Team;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface TeamRepository extends JpaRepository<Team, UUID>, JpaSpecificationExecutor<Team> {
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   List<Team> findByOrganizationId(UUID organizationId);
 
+  long countByOrganizationId(UUID organizationId);
+
   boolean existsBySlugAndOrganizationId(String slug, UUID organizationId);
+
+  /** Just enough to compute a team's ETag without loading it. */
+  @Query("select t.organizationId as organizationId, t.version as version from Team t where t.id = :id")
+  Optional<VersionStamp> findVersionStamp(@Param("id") UUID id);
+
+  interface VersionStamp {
+    UUID getOrganizationId();
+
+    Long getVersion();
+  }
 }
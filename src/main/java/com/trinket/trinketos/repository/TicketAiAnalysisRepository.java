@@ -0,0 +1,9 @@
+package com.trinket.trinketos.repository;
+
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+public interface TicketAiAnalysisRepository extends JpaRepository<TicketAiAnalysis, UUID> {
+}
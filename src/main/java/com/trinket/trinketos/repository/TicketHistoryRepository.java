@@ -0,0 +1,80 @@
+package com.trinket.trinketos.repository;
+
+import com.trinket.trinketos.model.TicketHistoryEntry;
+import com.trinket.trinketos.model.TicketHistoryType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TicketHistoryRepository extends JpaRepository<TicketHistoryEntry, UUID> {
+
+  List<TicketHistoryEntry> findByTicketIdOrderByOccurredAtAsc(UUID ticketId);
+
+  /** One row per distinct elapsed time, so callers can rebuild both sums and quantile sketches. */
+  @Query("""
+      select cast(e.occurredAt as LocalDate) as day, e.teamId as teamId, e.category as category,
+        e.agentId as agentId, e.type as type, e.elapsedMinutes as elapsedMinutes, count(e) as total,
+        sum(case when e.slaBreached = true then 1 else 0 end) as breaches
+      from TicketHistoryEntry e
+      where e.organizationId = :organizationId and e.occurredAt >= :since and e.type in :types
+      group by cast(e.occurredAt as LocalDate), e.teamId, e.category, e.agentId, e.type, e.elapsedMinutes
+      """)
+  List<DailyRollup> rollup(@Param("organizationId") UUID organizationId, @Param("since") LocalDateTime since,
+      @Param("types") Collection<TicketHistoryType> types);
+
+  @Query("""
+      select cast(e.occurredAt as LocalDate) as day, e.teamId as teamId, e.category as category,
+        e.agentId as agentId, e.fromValue as fromValue, e.toValue as toValue, count(e) as total
+      from TicketHistoryEntry e
+      where e.organizationId = :organizationId and e.occurredAt >= :since
+        and e.type = com.trinket.trinketos.model.TicketHistoryType.SENTIMENT_CHANGED and e.fromValue is not null
+      group by cast(e.occurredAt as LocalDate), e.teamId, e.category, e.agentId, e.fromValue, e.toValue
+      """)
+  List<SentimentRollup> sentimentRollup(@Param("organizationId") UUID organizationId,
+      @Param("since") LocalDateTime since);
+
+  @Query("select e.id from TicketHistoryEntry e where e.id in :ids")
+  List<UUID> findIdsByIdIn(@Param("ids") Collection<UUID> ids);
+
+  interface DailyRollup {
+    LocalDate getDay();
+
+    UUID getTeamId();
+
+    String getCategory();
+
+    UUID getAgentId();
+
+    TicketHistoryType getType();
+
+    long getElapsedMinutes();
+
+    long getTotal();
+
+    long getBreaches();
+  }
+
+  interface SentimentRollup {
+    LocalDate getDay();
+
+    UUID getTeamId();
+
+    String getCategory();
+
+    UUID getAgentId();
+
+    String getFromValue();
+
+    String getToValue();
+
+    long getTotal();
+  }
+}
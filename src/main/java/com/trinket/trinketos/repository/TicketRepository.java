@@ -1,16 +1,37 @@
 package com.trinket.trinketos.repository;
 
 import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, UUID>, JpaSpecificationExecutor<Ticket> {
+
+  /**
+   * Dashboard scope shared by the aggregate queries below: tickets created
+   * after :since, optionally restricted to an agent, or to a team plus the
+   * categories it handles.
+   */
+  String ANALYTICS_SCOPE = """
+      t.organizationId = :organizationId and t.createdAt > :since
+        and (:agentId is null or t.agentId = :agentId)
+        and (:teamId is null or t.teamId = :teamId or t.category in :categories)
+      """;
+
   boolean existsByCode(String code);
 
   List<Ticket> findByOrganizationId(UUID organizationId);
@@ -18,4 +39,89 @@ public interface TicketRepository extends JpaRepository<Ticket, UUID>, JpaSpecif
   List<Ticket> findByCustomerId(UUID customerId);
 
   List<Ticket> findByAgentId(UUID agentId);
+
+  /**
+   * Tickets created after {@code since} without an AI analysis, oldest first.
+   * Tickets whose reply couldn't be parsed, or that already failed
+   * {@code maxAttempts} times, are left out.
+   */
+  @Query("""
+      select t from Ticket t
+      where t.createdAt > :since
+        and not exists (select 1 from TicketAiAnalysis a where a.ticketId = t.id
+          and (a.failure is null or a.failure <> :retryable or a.failedAttempts >= :maxAttempts))
+      order by t.createdAt
+      """)
+  List<Ticket> findUnanalyzedSince(@Param("since") LocalDateTime since,
+      @Param("retryable") TicketAiAnalysis.Failure retryable, @Param("maxAttempts") int maxAttempts, Limit limit);
+
+  @Query("""
+      select t.teamId as teamId, t.category as category, t.status as status, count(t) as total
+      from Ticket t where t.organizationId = :organizationId
+      group by t.teamId, t.category, t.status
+      """)
+  List<TicketCountRow> countByTeamCategoryAndStatus(@Param("organizationId") UUID organizationId);
+
+  // Dashboard aggregates run outside any request transaction (ParallelQueryExecutor
+  // forks); read-only so ReplicaRoutingDataSource can send them to a replica
+  @Transactional(readOnly = true)
+  @Query("select t.status as key, count(t) as total from Ticket t where " + ANALYTICS_SCOPE
+      + " group by t.status")
+  List<GroupCount> countByStatus(@Param("organizationId") UUID organizationId, @Param("since") LocalDateTime since,
+      @Param("agentId") UUID agentId, @Param("teamId") UUID teamId,
+      @Param("categories") Collection<String> categories);
+
+  @Transactional(readOnly = true)
+  @Query("select t.priority as key, count(t) as total from Ticket t where " + ANALYTICS_SCOPE
+      + " and t.priority is not null group by t.priority")
+  List<GroupCount> countByPriority(@Param("organizationId") UUID organizationId, @Param("since") LocalDateTime since,
+      @Param("agentId") UUID agentId, @Param("teamId") UUID teamId,
+      @Param("categories") Collection<String> categories);
+
+  @Transactional(readOnly = true)
+  @Query("select t.sentiment as key, count(t) as total from Ticket t where " + ANALYTICS_SCOPE
+      + " and t.sentiment is not null group by t.sentiment")
+  List<GroupCount> countBySentiment(@Param("organizationId") UUID organizationId, @Param("since") LocalDateTime since,
+      @Param("agentId") UUID agentId, @Param("teamId") UUID teamId,
+      @Param("categories") Collection<String> categories);
+
+  @Transactional(readOnly = true)
+  @Query("select count(t) from Ticket t where " + ANALYTICS_SCOPE
+      + " and t.priority = com.trinket.trinketos.model.Priority.CRITICAL"
+      + " and t.status = com.trinket.trinketos.model.TicketStatus.OPEN")
+  long countCriticalOpen(@Param("organizationId") UUID organizationId, @Param("since") LocalDateTime since,
+      @Param("agentId") UUID agentId, @Param("teamId") UUID teamId,
+      @Param("categories") Collection<String> categories);
+
+  interface GroupCount {
+    Object getKey();
+
+    long getTotal();
+  }
+
+  /** Just enough to compute a ticket's ETag without loading it. */
+  @Query("""
+      select t.organizationId as organizationId, t.version as version, a.analyzedAt as analyzedAt
+      from Ticket t left join TicketAiAnalysis a on a.ticketId = t.id
+      where t.id = :id
+      """)
+  Optional<VersionStamp> findVersionStamp(@Param("id") UUID id);
+
+  interface VersionStamp {
+    UUID getOrganizationId();
+
+    Long getVersion();
+
+    LocalDateTime getAnalyzedAt();
+  }
+
+  interface TicketCountRow {
+    UUID getTeamId();
+
+    String getCategory();
+
+    TicketStatus getStatus();
+
+    long getTotal();
+  }
 }
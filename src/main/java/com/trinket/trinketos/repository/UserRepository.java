@@ -1,10 +1,14 @@
 package com.trinket.trinketos.repository;
 
+import com.trinket.trinketos.model.Role;
 import com.trinket.trinketos.model.User;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,4 +20,22 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
   List<User> findByOrganizationId(UUID organizationId);
 
   boolean existsByEmail(String email);
+
+  @Query("select u.teamId as teamId, count(u) as members from User u where u.teamId in :teamIds group by u.teamId")
+  List<TeamMemberCount> countMembersByTeamIds(@Param("teamIds") Collection<UUID> teamIds);
+
+  @Query("select u.role as role, count(u) as total from User u where u.organizationId = :organizationId group by u.role")
+  List<RoleCount> countByRole(@Param("organizationId") UUID organizationId);
+
+  interface RoleCount {
+    Role getRole();
+
+    long getTotal();
+  }
+
+  interface TeamMemberCount {
+    UUID getTeamId();
+
+    long getMembers();
+  }
 }
@@ -20,6 +20,9 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+  /** Request attribute holding the caller's organization id, for metric tags. */
+  public static final String ORGANIZATION_ID_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".organizationId";
+
   private final JwtService jwtService;
   private final UserDetailsService userDetailsService;
 
@@ -51,6 +54,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         authToken.setDetails(
             new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authToken);
+        request.setAttribute(ORGANIZATION_ID_ATTRIBUTE, jwtService.extractOrganizationId(jwt));
       }
     }
     filterChain.doFilter(request, response);
@@ -29,6 +29,11 @@ public class JwtService {
     return extractClaim(token, Claims::getSubject);
   }
 
+  public UUID extractOrganizationId(String token) {
+    String organizationId = extractClaim(token, claims -> claims.get("organizationId", String.class));
+    return organizationId != null ? UUID.fromString(organizationId) : null;
+  }
+
   public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
     final Claims claims = extractAllClaims(token);
     return claimsResolver.apply(claims);
@@ -0,0 +1,54 @@
+package com.trinket.trinketos.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Runs encode/matches on the {@link PasswordHashingExecutor}, so hashing work
+ * is capped at the pool size no matter which thread asks for it. Calls already
+ * on a hashing thread (the offloaded login) run inline.
+ */
+public class OffloadedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final PasswordHashingExecutor executor;
+
+  public OffloadedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+    this.delegate = delegate;
+    this.executor = executor;
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    if (executor.isHashingThread()) {
+      return delegate.encode(rawPassword);
+    }
+    return join(executor.submit(() -> delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    if (executor.isHashingThread()) {
+      return delegate.matches(rawPassword, encodedPassword);
+    }
+    return join(executor.submit(() -> delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.trinket.trinketos.security;
+
+public class PasswordHashingBusyException extends RuntimeException {
+
+  public PasswordHashingBusyException() {
+    super("Password hashing capacity exhausted");
+  }
+}
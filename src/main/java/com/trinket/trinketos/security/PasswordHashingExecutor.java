@@ -0,0 +1,68 @@
+package com.trinket.trinketos.security;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated pool for password hashing (one thread per core by default) with a
+ * bounded queue. When the queue is full, work is refused immediately with
+ * {@link PasswordHashingBusyException} (503) instead of piling up Tomcat threads.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+  private static final ThreadLocal<Boolean> HASHING_THREAD = ThreadLocal.withInitial(() -> false);
+
+  private final ThreadPoolExecutor executor;
+
+  public PasswordHashingExecutor(
+      MeterRegistry meterRegistry,
+      @Value("${application.security.password.hashing-threads:0}") int threads,
+      @Value("${application.security.password.hashing-queue-capacity:64}") int queueCapacity) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(() -> {
+            HASHING_THREAD.set(true);
+            runnable.run();
+          }, "password-hashing-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+
+    Gauge.builder("trinketos.password.hashing.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    Gauge.builder("trinketos.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+        .register(meterRegistry);
+  }
+
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      throw new PasswordHashingBusyException();
+    }
+  }
+
+  public boolean isHashingThread() {
+    return HASHING_THREAD.get();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,152 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.dto.AnalyticsResponse;
+import com.trinket.trinketos.dto.TimePeriod;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.realtime.TicketEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived dashboard results with single-flight loading: concurrent
+ * requests for the same key wait on one computation instead of each running
+ * the aggregate queries. Any ticket write in an organization drops its
+ * entries, so the TTL only bounds staleness from changes this node doesn't
+ * see (other nodes, bulk statements). Past the per-organization cap, expired
+ * entries go first, then the oldest live ones.
+ */
+@Component
+public class AnalyticsCache {
+
+  /** Scope of one dashboard result; categories are part of it since team edits change them. */
+  public record Key(UUID organizationId, UUID teamId, UUID agentId, List<String> categories, TimePeriod range) {
+    public Key {
+      categories = categories.stream().sorted().toList();
+    }
+  }
+
+  /** {@code sequence} orders entries by creation, for eviction. */
+  private record Entry(CompletableFuture<AnalyticsResponse> result, long expiresAt, long sequence) {
+    boolean isExpired(long now) {
+      return result.isDone() && now >= expiresAt;
+    }
+  }
+
+  private final Map<UUID, Map<Key, Entry>> organizations = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final long ttlMs;
+  private final int maxEntriesPerOrganization;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter coalesced;
+
+  public AnalyticsCache(
+      MeterRegistry meterRegistry,
+      @Value("${application.analytics.cache.ttl-ms:30000}") long ttlMs,
+      @Value("${application.analytics.cache.max-entries-per-organization:500}") int maxEntriesPerOrganization) {
+    this.ttlMs = ttlMs;
+    this.maxEntriesPerOrganization = maxEntriesPerOrganization;
+    this.hits = meterRegistry.counter("trinketos.analytics.cache.requests", "result", "hit");
+    this.misses = meterRegistry.counter("trinketos.analytics.cache.requests", "result", "miss");
+    this.coalesced = meterRegistry.counter("trinketos.analytics.cache.requests", "result", "coalesced");
+    Gauge.builder("trinketos.analytics.cache.hit_ratio", this, AnalyticsCache::hitRatio).register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached result, joins a computation already running for the
+   * key, or runs {@code loader} on the calling thread and shares its result.
+   */
+  public AnalyticsResponse get(Key key, Supplier<AnalyticsResponse> loader) {
+    if (ttlMs <= 0) {
+      return loader.get();
+    }
+    Map<Key, Entry> entries = organizations.computeIfAbsent(key.organizationId(), id -> new ConcurrentHashMap<>());
+    long now = System.currentTimeMillis();
+    CompletableFuture<AnalyticsResponse> mine = new CompletableFuture<>();
+    Entry entry = entries.compute(key, (k, current) ->
+        current == null || current.isExpired(now) ? new Entry(mine, now + ttlMs, sequence.incrementAndGet()) : current);
+
+    if (entry.result() != mine) {
+      (entry.result().isDone() ? hits : coalesced).increment();
+      try {
+        return entry.result().join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof Error error) {
+          throw error;
+        }
+        throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+      }
+    }
+
+    misses.increment();
+    if (entries.size() > maxEntriesPerOrganization) {
+      evict(entries, now);
+    }
+    try {
+      AnalyticsResponse response = loader.get();
+      mine.complete(response);
+      return response;
+    } catch (RuntimeException | Error e) {
+      // Don't cache failures; waiters get the same error, the next request retries
+      entries.remove(key, entry);
+      mine.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Brings an organization back to its cap. Evicting an entry still loading
+   * is safe: its waiters hold the future, and the next request recomputes.
+   */
+  private void evict(Map<Key, Entry> entries, long now) {
+    entries.values().removeIf(other -> other.isExpired(now));
+    int excess = entries.size() - maxEntriesPerOrganization;
+    if (excess > 0) {
+      entries.entrySet().stream()
+          .sorted(Comparator.comparingLong(e -> e.getValue().sequence()))
+          .limit(excess)
+          .toList()
+          .forEach(e -> entries.remove(e.getKey(), e.getValue()));
+    }
+  }
+
+  /** Drops every cached result of an organization. */
+  public void invalidate(UUID organizationId) {
+    organizations.remove(organizationId);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onTicketEvent(TicketEvent event) {
+    invalidate(event.organizationId());
+  }
+
+  /** Ticket, team or user changes on other nodes, when application.cache-invalidation is on. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      organizations.clear();
+    } else if (invalidation.organizationId() != null) {
+      invalidate(invalidation.organizationId());
+    }
+  }
+
+  private double hitRatio() {
+    double total = hits.count() + misses.count() + coalesced.count();
+    return total > 0 ? (hits.count() + coalesced.count()) / total : 0;
+  }
+}
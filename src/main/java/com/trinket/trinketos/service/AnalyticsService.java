@@ -2,25 +2,33 @@ package com.trinket.trinketos.service;
 
 import com.trinket.trinketos.dto.AnalyticsResponse;
 import com.trinket.trinketos.dto.TimePeriod;
-import com.trinket.trinketos.model.Ticket;
 import com.trinket.trinketos.model.TicketStatus;
 import com.trinket.trinketos.repository.TicketRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
-
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
 
   private final TicketRepository ticketRepository;
+  private final TicketMetricsEngine ticketMetricsEngine;
+  private final ParallelQueryExecutor parallelQueryExecutor;
+  private final TicketColumnStore ticketColumnStore;
+  private final AnalyticsCache analyticsCache;
+
+  /** Ticket filter shared by every dashboard query. */
+  private record Scope(UUID organizationId, LocalDateTime since, UUID agentId, UUID teamId,
+      List<String> categories) {
+  }
 
   /**
    * Get analytics filtered by agent's team visibility:
@@ -32,90 +40,98 @@ public class AnalyticsService {
       return emptyAnalytics();
     }
 
-    LocalDateTime startDate = calculateStartDate(range);
-    List<Ticket> allTickets = ticketRepository.findByOrganizationId(organizationId);
-
-    List<Ticket> filtered = allTickets.stream()
-        .filter(t -> t.getCreatedAt().isAfter(startDate))
-        .filter(t -> {
-          boolean sameTeam = teamId.equals(t.getTeamId());
-          boolean handlesCategory = t.getCategory() != null && allowedCategories.contains(t.getCategory());
-          return sameTeam || handlesCategory;
-        })
-        .toList();
-
-    return buildAnalyticsResponse(filtered);
+    AnalyticsCache.Key key = new AnalyticsCache.Key(organizationId, teamId, null, allowedCategories, range);
+    return analyticsCache.get(key, () -> {
+      Scope scope = new Scope(organizationId, calculateStartDate(range), null, teamId, allowedCategories);
+      return buildAnalyticsResponse(scope, cell -> teamId.equals(cell.teamId())
+          || (cell.category() != null && allowedCategories.contains(cell.category())));
+    });
   }
 
   public AnalyticsResponse getAnalytics(UUID organizationId, UUID agentId, TimePeriod range) {
-    LocalDateTime startDate = calculateStartDate(range);
-
-    List<Ticket> allTickets = ticketRepository.findByOrganizationId(organizationId);
-
-    // Filter by Date and Agent
-    List<Ticket> filtered = allTickets.stream()
-        .filter(t -> t.getCreatedAt().isAfter(startDate))
-        .filter(t -> agentId == null || (t.getAgentId() != null && t.getAgentId().equals(agentId)))
-        .toList();
-
-    return buildAnalyticsResponse(filtered);
+    AnalyticsCache.Key key = new AnalyticsCache.Key(organizationId, null, agentId, List.of(), range);
+    return analyticsCache.get(key, () -> {
+      Scope scope = new Scope(organizationId, calculateStartDate(range), agentId, null, List.of());
+      return buildAnalyticsResponse(scope, cell -> agentId == null || agentId.equals(cell.agentId()));
+    });
   }
 
-  private AnalyticsResponse buildAnalyticsResponse(List<Ticket> filtered) {
-    long total = filtered.size();
-    long resolved = filtered.stream()
-        .filter(t -> t.getStatus() == TicketStatus.RESOLVED || t.getStatus() == TicketStatus.CLOSED).count();
-
-    // Avg ART (Resolution Time)
-    double avgResolutionMinutes = filtered.stream()
-        .filter(t -> t.getResolvedAt() != null)
-        .mapToLong(t -> Duration.between(t.getCreatedAt(), t.getResolvedAt()).toMinutes())
-        .average().orElse(0);
-    String avgArt = formatDuration(avgResolutionMinutes);
-
-    // 2. Distributions
-    Map<String, Long> statusDist = filtered.stream()
-        .collect(Collectors.groupingBy(t -> t.getStatus().name(), Collectors.counting()));
+  /**
+   * The distributions, critical count and SLA metrics are independent, so
+   * they run concurrently and the response waits only for the slowest one.
+   * Large tenants with a columnar snapshot skip the four SQL aggregates.
+   */
+  private AnalyticsResponse buildAnalyticsResponse(Scope scope, Predicate<TicketMetricsEngine.Cell> cells) {
+    TicketColumns.Distributions columnar = ticketColumnStore.distributions(scope.organizationId(), scope.since(),
+        scope.agentId(), scope.teamId(), scope.categories());
+    ParallelQueryExecutor.Batch batch = parallelQueryExecutor.batch();
+    if (columnar != null) {
+      Supplier<TicketMetricsEngine.Metrics> metricsResult = batch.fork(() -> ticketMetricsEngine.compute(
+          scope.organizationId(), scope.since().toLocalDate(), cells));
+      batch.join();
+      return toResponse(columnar.status(), columnar.priority(), columnar.sentiment(), columnar.criticalOpen(),
+          metricsResult.get());
+    }
 
-    Map<String, Long> priorityDist = filtered.stream()
-        .filter(t -> t.getPriority() != null)
-        .collect(Collectors.groupingBy(t -> t.getPriority().name(), Collectors.counting()));
+    Supplier<Map<String, Long>> statusDist = batch.fork(() -> toMap(ticketRepository.countByStatus(
+        scope.organizationId(), scope.since(), scope.agentId(), scope.teamId(), scope.categories())));
+    Supplier<Map<String, Long>> priorityDist = batch.fork(() -> toMap(ticketRepository.countByPriority(
+        scope.organizationId(), scope.since(), scope.agentId(), scope.teamId(), scope.categories())));
+    Supplier<Map<String, Long>> sentimentDist = batch.fork(() -> toMap(ticketRepository.countBySentiment(
+        scope.organizationId(), scope.since(), scope.agentId(), scope.teamId(), scope.categories())));
+    Supplier<Long> criticalCount = batch.fork(() -> ticketRepository.countCriticalOpen(
+        scope.organizationId(), scope.since(), scope.agentId(), scope.teamId(), scope.categories()));
+    Supplier<TicketMetricsEngine.Metrics> metricsResult = batch.fork(() -> ticketMetricsEngine.compute(
+        scope.organizationId(), scope.since().toLocalDate(), cells));
+    batch.join();
+    return toResponse(statusDist.get(), priorityDist.get(), sentimentDist.get(), criticalCount.get(),
+        metricsResult.get());
+  }
 
-    Map<String, Long> sentimentDist = filtered.stream()
-        .filter(t -> t.getSentiment() != null)
-        .collect(Collectors.groupingBy(Ticket::getSentiment, Collectors.counting()));
+  private AnalyticsResponse toResponse(Map<String, Long> statusDist, Map<String, Long> priorityDist,
+      Map<String, Long> sentimentDist, long criticalCount, TicketMetricsEngine.Metrics metrics) {
+    long total = statusDist.values().stream().mapToLong(Long::longValue).sum();
+    long resolved = statusDist.getOrDefault(TicketStatus.RESOLVED.name(), 0L)
+        + statusDist.getOrDefault(TicketStatus.CLOSED.name(), 0L);
 
-    // 3. Key Insights
-    long criticalCount = filtered.stream()
-        .filter(t -> "CRITICAL".equals(t.getPriority() != null ? t.getPriority().name() : ""))
-        .filter(t -> t.getStatus() == TicketStatus.OPEN)
-        .count();
+    // FRT, ART, SLA, FCR and sentiment shifts come from the ticket_events rollups
+    String avgFrt = formatDuration(metrics.avgFirstResponseMinutes());
+    String avgArt = formatDuration(metrics.avgResolutionMinutes());
 
     return new AnalyticsResponse(
-        "0 min", // Placeholder for FRT
+        avgFrt,
         avgArt,
-        0.0, // SLA Placeholder
+        metrics.resolutionSlaRate(),
         resolved,
         0.0, // CSAT Placeholder
-        0.0, // FCR Placeholder
-        Map.of("Negative -> Positive", 0L, "Positive -> Negative", 0L),
+        metrics.fcrRate(),
+        metrics.sentimentShift(),
         0.0, // Suggestion Acceptance
         0.0, // Triage Accuracy
         statusDist,
         priorityDist,
         sentimentDist,
         criticalCount,
-        total > 0 ? (double) resolved / total * 100 : 0);
+        total > 0 ? (double) resolved / total * 100 : 0,
+        metrics.firstResponsePercentiles(),
+        metrics.resolutionPercentiles());
+  }
+
+  private static Map<String, Long> toMap(List<TicketRepository.GroupCount> rows) {
+    Map<String, Long> counts = new HashMap<>();
+    rows.forEach(row -> counts.put(row.getKey().toString(), row.getTotal()));
+    return counts;
   }
 
   private AnalyticsResponse emptyAnalytics() {
     return new AnalyticsResponse(
         "0 min", "0 min", 0.0, 0L, 0.0, 0.0,
         Map.of(), 0.0, 0.0,
-        Map.of(), Map.of(), Map.of(), 0L, 0.0);
+        Map.of(), Map.of(), Map.of(), 0L, 0.0,
+        Map.of(), Map.of());
   }
 
-  private LocalDateTime calculateStartDate(TimePeriod range) {
+  static LocalDateTime calculateStartDate(TimePeriod range) {
     LocalDateTime now = LocalDateTime.now();
     return switch (range) {
       case WEEK -> now.minusWeeks(1);
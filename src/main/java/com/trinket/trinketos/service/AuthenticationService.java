@@ -2,6 +2,7 @@ package com.trinket.trinketos.service;
 
 import com.trinket.trinketos.dto.AuthResponse;
 import com.trinket.trinketos.dto.LoginRequest;
+import com.trinket.trinketos.dto.RefreshRequest;
 import com.trinket.trinketos.dto.RegisterRequest;
 import com.trinket.trinketos.dto.TenantRegisterRequest;
 import com.trinket.trinketos.model.DocumentType;
@@ -11,6 +12,7 @@ import com.trinket.trinketos.model.User;
 import com.trinket.trinketos.repository.OrganizationRepository;
 import com.trinket.trinketos.repository.UserRepository;
 import com.trinket.trinketos.security.JwtService;
+import com.trinket.trinketos.security.PasswordHashingExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -18,6 +20,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
@@ -27,6 +31,8 @@ public class AuthenticationService {
 	private final PasswordEncoder passwordEncoder;
 	private final JwtService jwtService;
 	private final AuthenticationManager authenticationManager;
+	private final PasswordHashingExecutor passwordHashingExecutor;
+	private final RefreshTokenService refreshTokenService;
 
 	@Transactional
 	public AuthResponse registerTenant(TenantRegisterRequest request) {
@@ -72,7 +78,15 @@ public class AuthenticationService {
 
 		var jwtToken = jwtService.generateToken(userDetails, user.getOrganizationId(), user.getRole().name(), user.getTeamId());
 		return new AuthResponse(jwtToken, user.getId(), user.getName(), user.getEmail(), user.getRole(),
-				user.getOrganizationId(), user.getTeamId());
+				user.getOrganizationId(), user.getTeamId(), refreshTokenService.issue(user));
+	}
+
+	/**
+	 * Runs the whole login (lookup + hash verification + token) on the hashing
+	 * pool, releasing the request thread. Fails fast with 503 when the pool is saturated.
+	 */
+	public CompletableFuture<AuthResponse> authenticateAsync(LoginRequest request) {
+		return passwordHashingExecutor.submit(() -> authenticate(request));
 	}
 
 	public AuthResponse authenticate(LoginRequest request) {
@@ -90,7 +104,30 @@ public class AuthenticationService {
 
 		var jwtToken = jwtService.generateToken(userDetails, user.getOrganizationId(), user.getRole().name(), user.getTeamId());
 		return new AuthResponse(jwtToken, user.getId(), user.getName(), user.getEmail(), user.getRole(),
-				user.getOrganizationId(), user.getTeamId());
+				user.getOrganizationId(), user.getTeamId(), refreshTokenService.issue(user));
+	}
+
+	/**
+	 * Exchanges a refresh token for a new access token and a new refresh token.
+	 * No password verification, so it stays cheap for short-lived access tokens.
+	 */
+	@Transactional
+	public AuthResponse refresh(RefreshRequest request) {
+		var rotation = refreshTokenService.rotate(request.refreshToken());
+		var owner = rotation.owner();
+
+		var userDetails = org.springframework.security.core.userdetails.User.withUsername(owner.email())
+				.password("")
+				.authorities(owner.role().name())
+				.build();
+
+		var jwtToken = jwtService.generateToken(userDetails, owner.organizationId(), owner.role().name(), owner.teamId());
+		return new AuthResponse(jwtToken, owner.userId(), owner.name(), owner.email(), owner.role(),
+				owner.organizationId(), owner.teamId(), rotation.refreshToken());
+	}
+
+	public void logout(RefreshRequest request) {
+		refreshTokenService.revoke(request.refreshToken());
 	}
 
 	public AuthResponse registerUser(RegisterRequest request, User adminUser) {
@@ -128,7 +165,8 @@ public class AuthenticationService {
 								user.getRole().name())));
 
 		var jwtToken = jwtService.generateToken(userDetails, user.getOrganizationId(), user.getRole().name(), user.getTeamId());
+		// The admin registering someone else must not receive a session for that user
 		return new AuthResponse(jwtToken, user.getId(), user.getName(), user.getEmail(), user.getRole(),
-				user.getOrganizationId(), user.getTeamId());
+				user.getOrganizationId(), user.getTeamId(), null);
 	}
 }
@@ -0,0 +1,293 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.CategoryRepository;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory counters behind the /count endpoints. Each organization is loaded
+ * with a few grouped queries on first use, then kept current by Hibernate
+ * post-commit listeners on every Ticket/User/Team/Category write, and
+ * periodically reconciled against the database to absorb any drift (bulk
+ * statements, races with the initial load, other nodes). A change on another
+ * node marks only the affected counter stale; it is re-read with its own
+ * query on next use, however many changes arrived meanwhile.
+ *
+ * Tickets are counted per (team, category, status) cell so the agent rule
+ * "team's tickets OR tickets in the team's categories" is a sum over cells.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CounterService implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+  private record TicketCell(UUID teamId, String category, TicketStatus status) {
+  }
+
+  private static final class OrganizationCounts {
+    private volatile Map<TicketCell, LongAdder> tickets;
+    private volatile Map<Role, LongAdder> users;
+    private volatile LongAdder teams;
+    private volatile LongAdder categories;
+    /** Counters changed on another node, re-read on their next use. */
+    private final Set<CacheInvalidation.Kind> stale = ConcurrentHashMap.newKeySet();
+  }
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final TicketRepository ticketRepository;
+  private final UserRepository userRepository;
+  private final TeamRepository teamRepository;
+  private final CategoryRepository categoryRepository;
+
+  private final Map<UUID, OrganizationCounts> organizations = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void registerListeners() {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  /**
+   * @param teamId     agent's team, or null for an organization-wide count
+   * @param categories categories handled by the agent's team
+   * @param status     optional status filter
+   */
+  public long countTickets(UUID organizationId, UUID teamId, Collection<String> categories, TicketStatus status) {
+    long total = 0;
+    Map<TicketCell, LongAdder> tickets = counts(organizationId, CacheInvalidation.Kind.TICKET).tickets;
+    for (Map.Entry<TicketCell, LongAdder> entry : tickets.entrySet()) {
+      TicketCell cell = entry.getKey();
+      if (status != null && status != cell.status()) {
+        continue;
+      }
+      if (teamId != null && !teamId.equals(cell.teamId())
+          && (cell.category() == null || !categories.contains(cell.category()))) {
+        continue;
+      }
+      total += entry.getValue().sum();
+    }
+    return total;
+  }
+
+  public long countUsers(UUID organizationId, Role role) {
+    Map<Role, LongAdder> users = counts(organizationId, CacheInvalidation.Kind.USER).users;
+    if (role != null) {
+      LongAdder count = users.get(role);
+      return count != null ? count.sum() : 0;
+    }
+    return users.values().stream().mapToLong(LongAdder::sum).sum();
+  }
+
+  public long countTeams(UUID organizationId) {
+    return counts(organizationId, CacheInvalidation.Kind.TEAM).teams.sum();
+  }
+
+  public long countCategories(UUID organizationId) {
+    return counts(organizationId, CacheInvalidation.Kind.CATEGORY).categories.sum();
+  }
+
+  @Scheduled(fixedDelayString = "${application.counters.reconcile-interval-ms:300000}")
+  void reconcile() {
+    organizations.replaceAll((organizationId, current) -> load(organizationId));
+  }
+
+  /** Re-reads an organization's counts after rows changed outside Hibernate. */
+  public void refresh(UUID organizationId) {
+    organizations.computeIfPresent(organizationId, (id, current) -> load(id));
+  }
+
+  /** A row changed on another node: mark the counter it affects stale. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      organizations.clear();
+      return;
+    }
+    OrganizationCounts counts = invalidation.organizationId() != null
+        ? organizations.get(invalidation.organizationId())
+        : null;
+    if (counts != null && invalidation.kind() != CacheInvalidation.Kind.ORGANIZATION) {
+      counts.stale.add(invalidation.kind());
+    }
+  }
+
+  private OrganizationCounts counts(UUID organizationId, CacheInvalidation.Kind counter) {
+    OrganizationCounts counts = organizations.computeIfAbsent(organizationId, this::load);
+    if (counts.stale.remove(counter)) {
+      // Local deltas applied to the replaced counter during the query are absorbed by the next reconcile
+      reload(organizationId, counts, counter);
+    }
+    return counts;
+  }
+
+  private OrganizationCounts load(UUID organizationId) {
+    OrganizationCounts counts = new OrganizationCounts();
+    for (CacheInvalidation.Kind counter : List.of(CacheInvalidation.Kind.TICKET, CacheInvalidation.Kind.USER,
+        CacheInvalidation.Kind.TEAM, CacheInvalidation.Kind.CATEGORY)) {
+      reload(organizationId, counts, counter);
+    }
+    return counts;
+  }
+
+  private void reload(UUID organizationId, OrganizationCounts counts, CacheInvalidation.Kind counter) {
+    switch (counter) {
+      case TICKET -> {
+        Map<TicketCell, LongAdder> tickets = new ConcurrentHashMap<>();
+        ticketRepository.countByTeamCategoryAndStatus(organizationId).forEach(row -> add(tickets,
+            new TicketCell(row.getTeamId(), row.getCategory(), row.getStatus()), row.getTotal()));
+        counts.tickets = tickets;
+      }
+      case USER -> {
+        Map<Role, LongAdder> users = new ConcurrentHashMap<>();
+        userRepository.countByRole(organizationId).forEach(row -> add(users, row.getRole(), row.getTotal()));
+        counts.users = users;
+      }
+      case TEAM -> counts.teams = adder(teamRepository.countByOrganizationId(organizationId));
+      case CATEGORY -> counts.categories = adder(categoryRepository.countByOrganizationId(organizationId));
+      default -> {
+      }
+    }
+  }
+
+  // --- Hibernate post-commit listeners ---
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    apply(event.getEntity(), 1);
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    apply(event.getEntity(), -1);
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Ticket ticket)) {
+      return;
+    }
+    OrganizationCounts counts = organizations.get(ticket.getOrganizationId());
+    if (counts == null) {
+      return;
+    }
+    Object[] oldState = event.getOldState();
+    if (oldState == null) {
+      // Detached update without a snapshot: rebuild this organization
+      organizations.remove(ticket.getOrganizationId());
+      return;
+    }
+    String[] names = event.getPersister().getPropertyNames();
+    TicketCell before = new TicketCell(
+        (UUID) oldState[indexOf(names, "teamId")],
+        (String) oldState[indexOf(names, "category")],
+        (TicketStatus) oldState[indexOf(names, "status")]);
+    TicketCell after = cellOf(ticket);
+    if (!before.equals(after)) {
+      add(counts.tickets, before, -1);
+      add(counts.tickets, after, 1);
+    }
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+
+  private void apply(Object entity, int delta) {
+    // Organizations not loaded yet will pick the change up on first load
+    if (entity instanceof Ticket ticket) {
+      OrganizationCounts counts = organizations.get(ticket.getOrganizationId());
+      if (counts != null) {
+        add(counts.tickets, cellOf(ticket), delta);
+      }
+    } else if (entity instanceof User user) {
+      OrganizationCounts counts = organizations.get(user.getOrganizationId());
+      if (counts != null) {
+        add(counts.users, user.getRole(), delta);
+      }
+    } else if (entity instanceof Team team) {
+      OrganizationCounts counts = organizations.get(team.getOrganizationId());
+      if (counts != null) {
+        counts.teams.add(delta);
+      }
+    } else if (entity instanceof Category category) {
+      OrganizationCounts counts = organizations.get(category.getOrganizationId());
+      if (counts != null) {
+        counts.categories.add(delta);
+      }
+    }
+  }
+
+  private static <K> void add(Map<K, LongAdder> map, K key, long delta) {
+    map.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+  }
+
+  private static LongAdder adder(long value) {
+    LongAdder adder = new LongAdder();
+    adder.add(value);
+    return adder;
+  }
+
+  private static TicketCell cellOf(Ticket ticket) {
+    return new TicketCell(ticket.getTeamId(), ticket.getCategory(), ticket.getStatus());
+  }
+
+  private static int indexOf(String[] names, String name) {
+    int index = Arrays.asList(names).indexOf(name);
+    if (index < 0) {
+      throw new IllegalStateException("Unknown Ticket property " + name);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,57 @@
+package com.trinket.trinketos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trinket.trinketos.model.Organization;
+import com.trinket.trinketos.model.OrganizationTier;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.OrganizationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Tier lookup used to tag metrics on every request, so it must not hit the
+ * database after the first call per organization. Tiers are changed in the
+ * database, outside the API, so no write path evicts them: cached tiers
+ * expire after {@code tier-ttl-ms}, and ORGANIZATION invalidations from other
+ * nodes drop them sooner.
+ */
+@Service
+public class OrganizationTierResolver {
+
+  private final OrganizationRepository organizationRepository;
+  private final Cache<UUID, OrganizationTier> tiers;
+
+  public OrganizationTierResolver(
+      OrganizationRepository organizationRepository,
+      @Value("${application.cache-invalidation.tier-ttl-ms:300000}") long tierTtlMs) {
+    this.organizationRepository = organizationRepository;
+    this.tiers = Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(tierTtlMs)).build();
+  }
+
+  public OrganizationTier tierOf(UUID organizationId) {
+    if (organizationId == null) {
+      return OrganizationTier.FREE;
+    }
+    return tiers.get(organizationId, id -> organizationRepository.findById(id)
+        .map(Organization::getTier)
+        .orElse(OrganizationTier.FREE));
+  }
+
+  public void evict(UUID organizationId) {
+    tiers.invalidate(organizationId);
+  }
+
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      tiers.invalidateAll();
+    } else if (invalidation.kind() == CacheInvalidation.Kind.ORGANIZATION) {
+      evict(invalidation.organizationId());
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.datasource.ReadRoutingContext;
+import com.trinket.trinketos.observability.SqlStatistics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent read queries concurrently on virtual threads so a
+ * request waits for the slowest query instead of the sum of all of them.
+ * A shared semaphore caps how many of these queries hold a pooled
+ * connection at once, leaving the rest of the pool to regular requests.
+ *
+ * Usage: fork each query on a {@link Batch}, call {@link Batch#join()},
+ * then read the results. Per-request SQL statistics recorded on the worker
+ * threads are merged back into the caller's on join, and the caller's
+ * replica routing decision is carried over to the workers.
+ */
+@Component
+public class ParallelQueryExecutor {
+
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Semaphore permits;
+  private final long timeoutMs;
+
+  public ParallelQueryExecutor(
+      @Value("${application.analytics.parallel.db-permits:4}") int dbPermits,
+      @Value("${application.analytics.parallel.timeout-ms:10000}") long timeoutMs) {
+    this.permits = new Semaphore(dbPermits);
+    this.timeoutMs = timeoutMs;
+  }
+
+  public Batch batch() {
+    return new Batch();
+  }
+
+  private record Outcome<T>(T value, SqlStatistics statistics) {
+  }
+
+  public final class Batch {
+
+    private final boolean tracked = SqlStatistics.current() != null;
+    private final List<CompletableFuture<? extends Outcome<?>>> futures = new ArrayList<>();
+
+    private Batch() {
+    }
+
+    /** Starts {@code query}; the returned supplier is valid after {@link #join()}. */
+    public <T> Supplier<T> fork(Supplier<T> query) {
+      Supplier<T> routed = ReadRoutingContext.propagate(query);
+      CompletableFuture<Outcome<T>> future = CompletableFuture.supplyAsync(() -> run(routed), executor);
+      futures.add(future);
+      return () -> future.join().value();
+    }
+
+    public void join() {
+      CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+      try {
+        all.get(timeoutMs, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        futures.forEach(f -> f.cancel(true));
+        throw new IllegalStateException("Parallel queries timed out after " + timeoutMs + " ms", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        futures.forEach(f -> f.cancel(true));
+        throw new IllegalStateException("Interrupted while waiting for parallel queries", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtime) {
+          throw runtime;
+        }
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        SqlStatistics current = SqlStatistics.current();
+        if (current != null) {
+          futures.stream()
+              .filter(f -> f.isDone() && !f.isCompletedExceptionally())
+              .map(CompletableFuture::join)
+              .filter(outcome -> outcome.statistics() != null)
+              .forEach(outcome -> current.merge(outcome.statistics()));
+        }
+      }
+    }
+
+    private <T> Outcome<T> run(Supplier<T> query) {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for a query permit", e);
+      }
+      SqlStatistics statistics = tracked ? SqlStatistics.begin() : null;
+      try {
+        return new Outcome<>(query.get(), statistics);
+      } finally {
+        if (tracked) {
+          SqlStatistics.end();
+        }
+        permits.release();
+      }
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,141 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.RefreshToken;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.repository.RefreshTokenRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.security.InvalidRefreshTokenException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and rotates refresh tokens. Rotation costs a cache hit (or one
+ * indexed lookup), a delete and an insert: no password hashing. The delete
+ * must affect exactly one row, which keeps tokens single-use across nodes even
+ * when a node's cache is stale.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+  /**
+   * Owner data needed to sign a new access token. JWT claims are informational
+   * only (every request reloads the user), so a cached copy is safe.
+   */
+  public record TokenOwner(UUID userId, String name, String email, Role role, UUID organizationId, UUID teamId) {
+  }
+
+  public record Rotation(String refreshToken, TokenOwner owner) {
+  }
+
+  private record CachedToken(TokenOwner owner, LocalDateTime expiresAt) {
+  }
+
+  private final RefreshTokenRepository refreshTokenRepository;
+  private final UserRepository userRepository;
+  private final SecureRandom secureRandom = new SecureRandom();
+  private final Map<String, CachedToken> cache = new ConcurrentHashMap<>();
+
+  @Value("${application.security.refresh-expiration:2592000000}")
+  private long refreshExpiration;
+
+  /**
+   * Tokens issued while the cache is full are not cached: nothing is evicted,
+   * and their rotation falls back to the indexed lookup. Rotation, revoke and
+   * the expiry purge free entries again.
+   */
+  @Value("${application.security.refresh-cache-size:10000}")
+  private int cacheSize;
+
+  public String issue(User user) {
+    return issue(owner(user));
+  }
+
+  public Rotation rotate(String rawToken) {
+    if (rawToken == null || rawToken.isBlank()) {
+      throw new InvalidRefreshTokenException("Refresh token is required");
+    }
+    String hash = hash(rawToken);
+    CachedToken token = cache.remove(hash);
+    if (token == null) {
+      token = refreshTokenRepository.findWithUserByTokenHash(hash)
+          .map(t -> new CachedToken(owner(t.getUser()), t.getExpiresAt()))
+          .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+    }
+    if (refreshTokenRepository.deleteByTokenHash(hash) != 1) {
+      throw new InvalidRefreshTokenException("Invalid refresh token");
+    }
+    if (token.expiresAt().isBefore(LocalDateTime.now())) {
+      throw new InvalidRefreshTokenException("Refresh token expired");
+    }
+    return new Rotation(issue(token.owner()), token.owner());
+  }
+
+  public void revoke(String rawToken) {
+    if (rawToken == null || rawToken.isBlank()) {
+      return;
+    }
+    String hash = hash(rawToken);
+    cache.remove(hash);
+    refreshTokenRepository.deleteByTokenHash(hash);
+  }
+
+  @Scheduled(cron = "${application.security.refresh-purge-cron:0 0 * * * *}")
+  void purgeExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    cache.values().removeIf(token -> token.expiresAt().isBefore(now));
+    int purged = refreshTokenRepository.deleteExpired(now);
+    if (purged > 0) {
+      log.info("Purged {} expired refresh tokens", purged);
+    }
+  }
+
+  private String issue(TokenOwner owner) {
+    byte[] bytes = new byte[32];
+    secureRandom.nextBytes(bytes);
+    String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    String hash = hash(rawToken);
+    LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(refreshExpiration));
+
+    refreshTokenRepository.save(RefreshToken.builder()
+        .tokenHash(hash)
+        .user(userRepository.getReferenceById(owner.userId()))
+        .expiresAt(expiresAt)
+        .build());
+    if (cache.size() < cacheSize) {
+      cache.put(hash, new CachedToken(owner, expiresAt));
+    }
+    return rawToken;
+  }
+
+  private TokenOwner owner(User user) {
+    return new TokenOwner(user.getId(), user.getName(), user.getEmail(), user.getRole(), user.getOrganizationId(),
+        user.getTeamId());
+  }
+
+  private String hash(String rawToken) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
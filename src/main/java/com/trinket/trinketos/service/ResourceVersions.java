@@ -0,0 +1,262 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ETags for conditional GETs. Single resources get strong tags from their
+ * {@code @Version} (plus the AI analysis time for tickets); the last tag
+ * served is remembered so a matching If-None-Match is answered without
+ * touching the database, and a miss costs a one-row version lookup instead
+ * of the entity and its JSON. List pages get weak tags from a per-tenant
+ * change counter.
+ *
+ * Hibernate post-commit listeners evict tags and bump counters on writes made
+ * through this node. Writes this node can't see (other nodes, bulk SQL) are
+ * bounded by {@code cache-ttl-ms} and {@code list-window-ms}.
+ */
+@Service
+public class ResourceVersions implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+  private record Stamp(UUID organizationId, String etag, long expiresAt) {
+  }
+
+  private final EntityManagerFactory entityManagerFactory;
+  private final TicketRepository ticketRepository;
+  private final TeamRepository teamRepository;
+  private final long cacheTtlMs;
+  private final int maxEntries;
+  private final long listWindowMs;
+
+  private final Map<String, Stamp> stamps = new ConcurrentHashMap<>();
+  private final Map<UUID, AtomicLong> changes = new ConcurrentHashMap<>();
+  // Counters restart at zero, so tags from a previous run must not match
+  private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+  public ResourceVersions(
+      EntityManagerFactory entityManagerFactory,
+      TicketRepository ticketRepository,
+      TeamRepository teamRepository,
+      @Value("${application.etag.cache-ttl-ms:30000}") long cacheTtlMs,
+      @Value("${application.etag.max-entries:100000}") int maxEntries,
+      @Value("${application.etag.list-window-ms:30000}") long listWindowMs) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.ticketRepository = ticketRepository;
+    this.teamRepository = teamRepository;
+    this.cacheTtlMs = cacheTtlMs;
+    this.maxEntries = maxEntries;
+    this.listWindowMs = listWindowMs;
+  }
+
+  @PostConstruct
+  void registerListeners() {
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  // --- Tags ---
+
+  public static String ticketTag(Ticket ticket, TicketAiAnalysis analysis) {
+    return ticketTag(ticket.getVersion(), analysis != null ? analysis.getAnalyzedAt() : null);
+  }
+
+  public static String teamTag(Team team) {
+    return "\"" + team.getVersion() + "\"";
+  }
+
+  public static String ticketTag(Long version, LocalDateTime analyzedAt) {
+    long analysis = analyzedAt != null ? analyzedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+    return "\"" + version + "-" + Long.toString(analysis, 36) + "\"";
+  }
+
+  /** Current tag of a ticket, or null when it doesn't exist in that organization. */
+  public String currentTicketTag(UUID ticketId, UUID organizationId) {
+    String cached = cached("ticket:" + ticketId, organizationId);
+    if (cached != null) {
+      return cached;
+    }
+    return ticketRepository.findVersionStamp(ticketId)
+        .filter(stamp -> stamp.getOrganizationId().equals(organizationId))
+        .map(stamp -> remember(ticketId, organizationId, ticketTag(stamp.getVersion(), stamp.getAnalyzedAt())))
+        .orElse(null);
+  }
+
+  /** Current tag of a team, or null when it doesn't exist in that organization. */
+  public String currentTeamTag(UUID teamId, UUID organizationId) {
+    String cached = cached("team:" + teamId, organizationId);
+    if (cached != null) {
+      return cached;
+    }
+    return teamRepository.findVersionStamp(teamId)
+        .filter(stamp -> stamp.getOrganizationId().equals(organizationId))
+        .map(stamp -> rememberTeam(teamId, organizationId, "\"" + stamp.getVersion() + "\""))
+        .orElse(null);
+  }
+
+  public String remember(UUID ticketId, UUID organizationId, String etag) {
+    return put("ticket:" + ticketId, organizationId, etag);
+  }
+
+  public String rememberTeam(UUID teamId, UUID organizationId, String etag) {
+    return put("team:" + teamId, organizationId, etag);
+  }
+
+  /**
+   * Weak tag for a list page. {@code scope} must cover everything that
+   * changes the page for the caller (user, query string).
+   */
+  public String listTag(UUID organizationId, String resource, Object... scope) {
+    long version = changes.computeIfAbsent(organizationId, id -> new AtomicLong()).get();
+    long window = listWindowMs > 0 ? System.currentTimeMillis() / listWindowMs : 0;
+    int hash = 31 * resource.hashCode() + Arrays.deepHashCode(scope);
+    return "W/\"" + epoch + "-" + version + "-" + Long.toString(window, 36) + "-" + Integer.toHexString(hash) + "\"";
+  }
+
+  /** If-None-Match check with the weak comparison RFC 9110 prescribes for GET. */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null || etag == null) {
+      return false;
+    }
+    String opaque = stripWeak(etag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*") || stripWeak(tag).equals(opaque)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String stripWeak(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+
+  private String cached(String key, UUID organizationId) {
+    Stamp stamp = stamps.get(key);
+    if (stamp == null || stamp.expiresAt() < System.currentTimeMillis()
+        || !stamp.organizationId().equals(organizationId)) {
+      return null;
+    }
+    return stamp.etag();
+  }
+
+  private String put(String key, UUID organizationId, String etag) {
+    if (stamps.size() >= maxEntries) {
+      long now = System.currentTimeMillis();
+      stamps.values().removeIf(stamp -> stamp.expiresAt() < now);
+      if (stamps.size() >= maxEntries) {
+        stamps.clear();
+      }
+    }
+    stamps.put(key, new Stamp(organizationId, etag, System.currentTimeMillis() + cacheTtlMs));
+    return etag;
+  }
+
+  // --- Hibernate post-commit listeners ---
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    changed(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    changed(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    changed(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+
+  private void changed(Object entity) {
+    if (entity instanceof Ticket ticket) {
+      stamps.remove("ticket:" + ticket.getId());
+      bump(ticket.getOrganizationId());
+    } else if (entity instanceof TicketAiAnalysis analysis) {
+      stamps.remove("ticket:" + analysis.getTicketId());
+    } else if (entity instanceof Team team) {
+      stamps.remove("team:" + team.getId());
+      bump(team.getOrganizationId());
+    } else if (entity instanceof User user) {
+      // Team pages can carry member counts
+      bump(user.getOrganizationId());
+    } else if (entity instanceof Category category) {
+      bump(category.getOrganizationId());
+    }
+  }
+
+  /** Changes committed on other nodes, when application.cache-invalidation is on. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      stamps.clear();
+      changes.values().forEach(AtomicLong::incrementAndGet);
+      return;
+    }
+    switch (invalidation.kind()) {
+      case TICKET -> stamps.remove("ticket:" + invalidation.id());
+      case TEAM -> stamps.remove("team:" + invalidation.id());
+      default -> {
+      }
+    }
+    bump(invalidation.organizationId());
+  }
+
+  private void bump(UUID organizationId) {
+    if (organizationId != null) {
+      changes.computeIfAbsent(organizationId, id -> new AtomicLong()).incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Priority;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * First-response and resolution targets per priority. Tickets without a
+ * priority (not yet triaged) are held to the MEDIUM targets.
+ */
+@Component
+public class SlaPolicy {
+
+  private final Map<Priority, Duration> firstResponse = new EnumMap<>(Priority.class);
+  private final Map<Priority, Duration> resolution = new EnumMap<>(Priority.class);
+
+  public SlaPolicy(
+      @Value("${application.sla.first-response.critical:30m}") Duration firstResponseCritical,
+      @Value("${application.sla.first-response.high:2h}") Duration firstResponseHigh,
+      @Value("${application.sla.first-response.medium:8h}") Duration firstResponseMedium,
+      @Value("${application.sla.first-response.low:24h}") Duration firstResponseLow,
+      @Value("${application.sla.resolution.critical:4h}") Duration resolutionCritical,
+      @Value("${application.sla.resolution.high:24h}") Duration resolutionHigh,
+      @Value("${application.sla.resolution.medium:72h}") Duration resolutionMedium,
+      @Value("${application.sla.resolution.low:168h}") Duration resolutionLow) {
+    firstResponse.put(Priority.CRITICAL, firstResponseCritical);
+    firstResponse.put(Priority.HIGH, firstResponseHigh);
+    firstResponse.put(Priority.MEDIUM, firstResponseMedium);
+    firstResponse.put(Priority.LOW, firstResponseLow);
+    resolution.put(Priority.CRITICAL, resolutionCritical);
+    resolution.put(Priority.HIGH, resolutionHigh);
+    resolution.put(Priority.MEDIUM, resolutionMedium);
+    resolution.put(Priority.LOW, resolutionLow);
+  }
+
+  public boolean firstResponseBreached(Priority priority, long elapsedMinutes) {
+    return elapsedMinutes > firstResponse.get(priority != null ? priority : Priority.MEDIUM).toMinutes();
+  }
+
+  public boolean resolutionBreached(Priority priority, long elapsedMinutes) {
+    return elapsedMinutes > resolution.get(priority != null ? priority : Priority.MEDIUM).toMinutes();
+  }
+}
@@ -1,15 +1,29 @@
 package com.trinket.trinketos.service;
 
+import com.trinket.trinketos.ai.AiCallGuard;
+import com.trinket.trinketos.ai.AiRateLimiter;
+import com.trinket.trinketos.ai.AiUnavailableException;
+import com.trinket.trinketos.ai.ResolvedTicketIndex;
+import com.trinket.trinketos.ai.TicketPreClassifier;
+import com.trinket.trinketos.dto.SimilarTicketResponse;
 import com.trinket.trinketos.model.Priority;
 import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.observability.AiMetrics;
+import com.trinket.trinketos.realtime.TicketEvent;
+import com.trinket.trinketos.repository.TicketAiAnalysisRepository;
 import com.trinket.trinketos.repository.TicketRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -17,11 +31,28 @@ import java.util.UUID;
 @Slf4j
 public class TicketAIService {
 
+  static final String ANALYSIS_MODEL = "gemini-3-flash-preview";
+
+  /** Bump when the triage prompt changes, so analyses can be compared per prompt. */
+  static final String ANALYSIS_PROMPT_VERSION = "triage-v2";
+
   private final ChatClient.Builder chatClientBuilder;
   private final TicketRepository ticketRepository;
   private final com.trinket.trinketos.repository.CategoryRepository categoryRepository;
+  private final AiMetrics aiMetrics;
+  private final AiRateLimiter rateLimiter;
+  private final AiCallGuard aiCallGuard;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TicketHistoryService ticketHistoryService;
+  private final TicketAiAnalysisRepository ticketAiAnalysisRepository;
+  private final ResolvedTicketIndex resolvedTicketIndex;
 
-  public String processText(String text, com.trinket.trinketos.model.AIInstructionType instruction) {
+  @Value("${application.ai.similar-tickets.prompt-matches:3}")
+  private int promptMatches;
+
+  public String processText(String text, com.trinket.trinketos.model.AIInstructionType instruction,
+      UUID organizationId) {
+    rateLimiter.acquireOrThrow(organizationId);
     ChatClient chatClient = chatClientBuilder.build();
 
     String systemPrompt = """
@@ -39,19 +70,28 @@ public class TicketAIService {
     }
 
     // User requested Temperature 0.1 for better assertiveness
-    return chatClient.prompt()
-        .system(systemPrompt)
+    String prompt = systemPrompt;
+    return aiMetrics.record("process", organizationId, () -> aiCallGuard.call(() -> chatClient.prompt()
+        .system(prompt)
         .user("Texto original: " + text)
         .options(org.springframework.ai.google.genai.GoogleGenAiChatOptions.builder()
             .model("gemini-3-flash-preview")
             .temperature(0.1)
             .build())
         .call()
-        .content();
+        .content()));
   }
 
-  @Async
-  @Transactional
+  /**
+   * Runs on the AiAnalysisScheduler workers, which already took a rate-limit
+   * token for the ticket's organization. Use AiAnalysisScheduler.submit to queue it.
+   *
+   * Not transactional: no connection is held during the model call. The
+   * result is saved in its own transaction. If an agent edited the ticket
+   * meanwhile (optimistic lock conflict), the agent's values win: on the
+   * fresh copy the AI only fills category, priority and sentiment still
+   * unset, and leaves the title alone.
+   */
   public void analyzeTicket(UUID ticketId) {
     log.info("Starting AI analysis for ticket: {}", ticketId);
     Ticket ticket = ticketRepository.findById(ticketId).orElse(null);
@@ -78,49 +118,200 @@ public class TicketAIService {
         }
         Retorne APENAS o JSON.
         """.formatted(categoriesStr);
+    // How agents fixed similar tickets, so the suggested solution isn't made up from scratch
+    String similarTickets = similarTicketsContext(ticket);
 
-    String response = chatClient.prompt()
-        .system(systemPrompt)
-        .user("Ticket: " + ticket.getTitle() + " - " + ticket.getDescription())
-        .options(org.springframework.ai.google.genai.GoogleGenAiChatOptions.builder()
-            .model("gemini-3-flash-preview")
-            .temperature(0.1)
-            .build())
-        .call()
-        .content();
+    ChatResponse chatResponse;
+    long startedAt = System.nanoTime();
+    try {
+      chatResponse = aiMetrics.record("analyze", ticket.getOrganizationId(), () -> aiCallGuard.call(() -> chatClient.prompt()
+          .system(systemPrompt)
+          .user("Ticket: " + ticket.getTitle() + " - " + ticket.getDescription() + similarTickets)
+          .options(org.springframework.ai.google.genai.GoogleGenAiChatOptions.builder()
+              .model(ANALYSIS_MODEL)
+              .temperature(0.1)
+              .build())
+          .call()
+          .chatResponse()));
+    } catch (AiUnavailableException e) {
+      // Leave the ticket untriaged; AiAnalysisScheduler retries it once the circuit closes
+      log.warn("AI unavailable, ticket {} left untriaged: {}", ticketId, e.getMessage());
+      if (!e.isRejected()) {
+        recordFailure(ticket, TicketAiAnalysis.Failure.UNAVAILABLE);
+      }
+      return;
+    } catch (RuntimeException e) {
+      recordFailure(ticket, TicketAiAnalysis.Failure.UNAVAILABLE);
+      throw e;
+    }
+
+    long latencyMs = (System.nanoTime() - startedAt) / 1_000_000;
+    String response = chatResponse != null && chatResponse.getResult() != null
+        ? chatResponse.getResult().getOutput().getText()
+        : null;
+    if (response == null) {
+      log.warn("Empty AI response for ticket {}", ticketId);
+      recordFailure(ticket, TicketAiAnalysis.Failure.UNPARSEABLE);
+      return;
+    }
 
     log.info("AI Analysis result: {}", response);
 
+    com.fasterxml.jackson.databind.JsonNode root;
     try {
       // Removing Markdown code blocks (```json ... ```) if present
       String cleanJson = response.replaceAll("```json", "").replaceAll("```", "").trim();
 
       com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-      com.fasterxml.jackson.databind.JsonNode root = mapper.readTree(cleanJson);
-
-      if (root.has("title"))
-        ticket.setTitle(root.get("title").asText());
-      if (root.has("sentiment"))
-        ticket.setSentiment(root.get("sentiment").asText());
-      if (root.has("category"))
-        ticket.setCategory(root.get("category").asText());
-      if (root.has("diagnosis"))
-        ticket.setDiagnosis(root.get("diagnosis").asText());
-      if (root.has("suggested_solution"))
-        ticket.setSuggestedSolution(root.get("suggested_solution").asText());
-
-      if (root.has("priority")) {
-        String p = root.get("priority").asText().toUpperCase();
+      root = mapper.readTree(cleanJson);
+    } catch (Exception e) {
+      log.error("Error parsing AI response", e);
+      recordFailure(ticket, TicketAiAnalysis.Failure.UNPARSEABLE);
+      return;
+    }
+
+    saveResult(ticket, root, chatResponse, latencyMs);
+  }
+
+  void saveResult(Ticket ticket, com.fasterxml.jackson.databind.JsonNode root, ChatResponse chatResponse,
+      long latencyMs) {
+    try {
+      Ticket current = ticket;
+      boolean editedMeanwhile = false;
+      for (int attempt = 1; ; attempt++) {
         try {
-          ticket.setPriority(Priority.valueOf(p));
-        } catch (IllegalArgumentException e) {
-          log.warn("Could not parse priority: {}", p);
+          Ticket saved = applyAnalysis(current, root, editedMeanwhile);
+          saveAnalysis(saved, root, chatResponse, latencyMs);
+          eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.AI_ANALYSIS_COMPLETED, saved));
+          return;
+        } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
+          if (attempt == 3) {
+            throw e;
+          }
+          current = ticketRepository.findById(ticket.getId()).orElse(null);
+          if (current == null)
+            return;
+          editedMeanwhile = true;
         }
       }
+    } catch (Exception e) {
+      log.error("Error saving AI analysis for ticket {}", ticket.getId(), e);
+      recordFailure(ticket, TicketAiAnalysis.Failure.UNAVAILABLE);
+    }
+  }
+
+  /**
+   * Counts an attempt that produced no analysis, so AiAnalysisScheduler
+   * stops retrying the ticket; the row is shared by every node. A later
+   * successful analysis replaces it.
+   */
+  private void recordFailure(Ticket ticket, TicketAiAnalysis.Failure failure) {
+    try {
+      TicketAiAnalysis analysis = ticketAiAnalysisRepository.findById(ticket.getId()).orElse(null);
+      if (analysis != null && analysis.getFailure() == null) {
+        return;
+      }
+      int attempts = analysis != null && analysis.getFailedAttempts() != null ? analysis.getFailedAttempts() : 0;
+      ticketAiAnalysisRepository.save(TicketAiAnalysis.builder()
+          .ticketId(ticket.getId())
+          .ticket(ticket)
+          .modelId(ANALYSIS_MODEL)
+          .promptVersion(ANALYSIS_PROMPT_VERSION)
+          .failure(failure)
+          .failedAttempts(attempts + 1)
+          .analyzedAt(LocalDateTime.now())
+          .build());
+    } catch (Exception e) {
+      log.warn("Could not record failed AI analysis of ticket {}", ticket.getId(), e);
+    }
+  }
 
-      ticketRepository.save(ticket);
+  /**
+   * Records a triage done by TicketPreClassifier at creation, so the ticket
+   * counts as analyzed and is not queued for the LLM.
+   */
+  public void saveLocalAnalysis(Ticket ticket) {
+    ticketAiAnalysisRepository.save(TicketAiAnalysis.builder()
+        .ticketId(ticket.getId())
+        .ticket(ticket)
+        .modelId(TicketPreClassifier.MODEL_ID)
+        .promptVersion(TicketPreClassifier.MODEL_VERSION)
+        .latencyMs(0L)
+        .analyzedAt(LocalDateTime.now())
+        .build());
+  }
+
+  /** Compact list of the closest resolved tickets for the triage prompt, empty if there are none. */
+  private String similarTicketsContext(Ticket ticket) {
+    List<SimilarTicketResponse> matches;
+    try {
+      matches = resolvedTicketIndex.similar(ticket.getOrganizationId(), ticket.getId(), ticket.getTitle(),
+          ticket.getDescription(), promptMatches, null, List.of());
     } catch (Exception e) {
-      log.error("Error parsing AI response", e);
+      log.warn("Could not look up similar tickets for {}", ticket.getId(), e);
+      return "";
+    }
+    StringBuilder context = new StringBuilder();
+    for (SimilarTicketResponse match : matches) {
+      if (match.diagnosis() == null && match.suggestedSolution() == null) {
+        continue;
+      }
+      context.append("\n- ").append(compact(match.title(), 120))
+          .append(" | Causa: ").append(compact(match.diagnosis(), 200))
+          .append(" | Solução: ").append(compact(match.suggestedSolution(), 400));
     }
+    return context.isEmpty() ? ""
+        : "\n\nTickets já resolvidos com problemas semelhantes (use como referência, se aplicável):" + context;
+  }
+
+  private static String compact(String text, int maxLength) {
+    if (text == null) {
+      return "-";
+    }
+    String line = text.replaceAll("\\s+", " ").trim();
+    return line.length() > maxLength ? line.substring(0, maxLength) + "…" : line;
+  }
+
+  /**
+   * @param onlyMissing the ticket was edited after it was sent to the model:
+   *                    keep what is set, only fill empty fields
+   */
+  private Ticket applyAnalysis(Ticket ticket, com.fasterxml.jackson.databind.JsonNode root, boolean onlyMissing) {
+    TicketHistoryService.Snapshot before = TicketHistoryService.Snapshot.of(ticket);
+
+    if (root.has("title") && !onlyMissing)
+      ticket.setTitle(root.get("title").asText());
+    if (root.has("sentiment") && (!onlyMissing || ticket.getSentiment() == null))
+      ticket.setSentiment(root.get("sentiment").asText());
+    if (root.has("category") && (!onlyMissing || ticket.getCategory() == null))
+      ticket.setCategory(root.get("category").asText());
+
+    if (root.has("priority") && (!onlyMissing || ticket.getPriority() == null)) {
+      String p = root.get("priority").asText().toUpperCase();
+      try {
+        ticket.setPriority(Priority.valueOf(p));
+      } catch (IllegalArgumentException e) {
+        log.warn("Could not parse priority: {}", p);
+      }
+    }
+
+    return ticketHistoryService.save(ticket, before, null);
+  }
+
+  private void saveAnalysis(Ticket ticket, com.fasterxml.jackson.databind.JsonNode root, ChatResponse chatResponse,
+      long latencyMs) {
+    Usage usage = chatResponse.getMetadata() != null ? chatResponse.getMetadata().getUsage() : null;
+    ticketAiAnalysisRepository.save(TicketAiAnalysis.builder()
+        .ticketId(ticket.getId())
+        .ticket(ticket)
+        .diagnosis(root.has("diagnosis") ? root.get("diagnosis").asText() : null)
+        .suggestedSolution(root.has("suggested_solution") ? root.get("suggested_solution").asText() : null)
+        .modelId(ANALYSIS_MODEL)
+        .promptVersion(ANALYSIS_PROMPT_VERSION)
+        .latencyMs(latencyMs)
+        .promptTokens(usage != null ? usage.getPromptTokens() : null)
+        .completionTokens(usage != null ? usage.getCompletionTokens() : null)
+        .analyzedAt(LocalDateTime.now())
+        .build());
   }
 }
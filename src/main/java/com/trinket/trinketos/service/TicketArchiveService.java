@@ -0,0 +1,303 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.dto.TicketResponse;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.TicketStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Moves CLOSED tickets older than {@code archive-after-months} out of
+ * {@code tickets} into {@code tickets_archive}, a table range-partitioned by
+ * creation month. The hot table and its indexes only hold recent and open
+ * work; archived rows are read only when a caller asks for them.
+ *
+ * The cutoff is kept above one year so analytics (at most
+ * {@code TimePeriod.YEAR}) never needs the archive. Partitions older than
+ * {@code detach-after-months} are detached and left as standalone tables
+ * for dumping or dropping.
+ */
+@Service
+@Slf4j
+public class TicketArchiveService {
+
+  static final int MIN_ARCHIVE_AFTER_MONTHS = 13;
+
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+
+  private static final String CREATE_TABLE = """
+      CREATE TABLE IF NOT EXISTS tickets_archive (
+        id uuid NOT NULL,
+        code text NOT NULL,
+        title text NOT NULL,
+        description text COMPRESSION %1$s,
+        status text,
+        priority text,
+        category text,
+        sentiment text,
+        customer_id uuid,
+        agent_id uuid,
+        team_id uuid,
+        organization_id uuid NOT NULL,
+        first_response_at timestamp,
+        resolved_at timestamp,
+        created_at timestamp NOT NULL,
+        version bigint,
+        diagnosis text COMPRESSION %1$s,
+        suggested_solution text COMPRESSION %1$s,
+        archived_at timestamp NOT NULL,
+        PRIMARY KEY (id, created_at)
+      ) PARTITION BY RANGE (created_at)
+      """;
+
+  private static final List<String> CREATE_INDEXES = List.of(
+      "CREATE INDEX IF NOT EXISTS idx_tickets_archive_org_created ON tickets_archive (organization_id, created_at)",
+      "CREATE INDEX IF NOT EXISTS idx_tickets_archive_code ON tickets_archive (code)");
+
+  private static final String CANDIDATE_CONDITION = """
+      status = 'CLOSED' AND created_at < :cutoff AND (resolved_at IS NULL OR resolved_at < :cutoff)
+      """;
+
+  private static final String CANDIDATE_MONTHS = "SELECT DISTINCT date_trunc('month', created_at) AS month"
+      + " FROM tickets WHERE " + CANDIDATE_CONDITION;
+
+  private static final String MOVE_BATCH = """
+      WITH moved AS (
+        DELETE FROM tickets WHERE id IN (
+          SELECT id FROM tickets WHERE %s
+          ORDER BY created_at LIMIT :batchSize FOR UPDATE SKIP LOCKED)
+        RETURNING *
+      )
+      INSERT INTO tickets_archive (id, code, title, description, status, priority, category, sentiment,
+        customer_id, agent_id, team_id, organization_id, first_response_at, resolved_at, created_at, version,
+        diagnosis, suggested_solution, archived_at)
+      SELECT m.id, m.code, m.title, m.description, m.status, m.priority, m.category, m.sentiment,
+        m.customer_id, m.agent_id, m.team_id, m.organization_id, m.first_response_at, m.resolved_at,
+        m.created_at, m.version, a.diagnosis, a.suggested_solution, now()
+      FROM moved m LEFT JOIN ticket_ai_analysis a ON a.ticket_id = m.id
+      RETURNING organization_id
+      """.formatted(CANDIDATE_CONDITION);
+
+  private static final String ATTACHED_PARTITIONS = """
+      SELECT c.relname FROM pg_inherits i
+      JOIN pg_class c ON c.oid = i.inhrelid
+      JOIN pg_class p ON p.oid = i.inhparent
+      WHERE p.relname = 'tickets_archive'
+      """;
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final CounterService counterService;
+  private final TicketColumnStore ticketColumnStore;
+  private final TimeSeriesService timeSeriesService;
+  private final boolean enabled;
+  private final int archiveAfterMonths;
+  private final int detachAfterMonths;
+  private final int batchSize;
+  private final String compression;
+
+  public TicketArchiveService(
+      NamedParameterJdbcTemplate jdbcTemplate,
+      CounterService counterService,
+      TicketColumnStore ticketColumnStore,
+      TimeSeriesService timeSeriesService,
+      @Value("${application.tickets.archive.enabled:false}") boolean enabled,
+      @Value("${application.tickets.archive.archive-after-months:13}") int archiveAfterMonths,
+      @Value("${application.tickets.archive.detach-after-months:0}") int detachAfterMonths,
+      @Value("${application.tickets.archive.batch-size:1000}") int batchSize,
+      @Value("${application.tickets.archive.compression:pglz}") String compression) {
+    if (!compression.equals("pglz") && !compression.equals("lz4")) {
+      throw new IllegalArgumentException("application.tickets.archive.compression must be pglz or lz4");
+    }
+    if (archiveAfterMonths < MIN_ARCHIVE_AFTER_MONTHS) {
+      log.warn("archive-after-months={} would hide tickets from yearly analytics, using {}",
+          archiveAfterMonths, MIN_ARCHIVE_AFTER_MONTHS);
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.counterService = counterService;
+    this.ticketColumnStore = ticketColumnStore;
+    this.timeSeriesService = timeSeriesService;
+    this.enabled = enabled;
+    this.archiveAfterMonths = Math.max(archiveAfterMonths, MIN_ARCHIVE_AFTER_MONTHS);
+    this.detachAfterMonths = detachAfterMonths;
+    this.batchSize = batchSize;
+    this.compression = compression;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  void createSchema() {
+    if (!enabled) {
+      return;
+    }
+    jdbcTemplate.getJdbcTemplate().execute(CREATE_TABLE.formatted(compression));
+    CREATE_INDEXES.forEach(jdbcTemplate.getJdbcTemplate()::execute);
+  }
+
+  /**
+   * Creates the partitions the next runs will write into, moves eligible
+   * tickets in batches and detaches expired partitions.
+   */
+  @Scheduled(cron = "${application.tickets.archive.cron:0 30 3 * * *}")
+  public void archive() {
+    if (!enabled) {
+      return;
+    }
+    LocalDateTime cutoff = cutoff(LocalDate.now());
+    MapSqlParameterSource params = new MapSqlParameterSource()
+        .addValue("cutoff", Timestamp.valueOf(cutoff))
+        .addValue("batchSize", batchSize);
+
+    Set<LocalDate> months = new HashSet<>();
+    jdbcTemplate.query(CANDIDATE_MONTHS, params,
+        rs -> {
+          months.add(rs.getTimestamp("month").toLocalDateTime().toLocalDate());
+        });
+    // Pre-create the month that crosses the cutoff next
+    months.add(cutoff.toLocalDate().withDayOfMonth(1));
+    months.forEach(this::createPartition);
+
+    Set<UUID> organizations = new HashSet<>();
+    int moved = 0;
+    List<UUID> batch;
+    do {
+      batch = jdbcTemplate.queryForList(MOVE_BATCH, params, UUID.class);
+      organizations.addAll(batch);
+      moved += batch.size();
+    } while (batch.size() == batchSize);
+
+    // Rows left through JDBC, so the Hibernate listeners never saw them
+    organizations.forEach(counterService::refresh);
+    organizations.forEach(ticketColumnStore::refresh);
+    organizations.forEach(timeSeriesService::invalidate);
+    if (moved > 0) {
+      log.info("Archived {} closed tickets created before {}", moved, cutoff);
+    }
+
+    if (detachAfterMonths > 0) {
+      detachBefore(LocalDate.now().withDayOfMonth(1).minusMonths(detachAfterMonths));
+    }
+  }
+
+  /** First day of the month {@code archive-after-months} before {@code today}. */
+  LocalDateTime cutoff(LocalDate today) {
+    return today.withDayOfMonth(1).minusMonths(archiveAfterMonths).atStartOfDay();
+  }
+
+  static String partitionName(LocalDate month) {
+    return "tickets_archive_" + PARTITION_SUFFIX.format(month);
+  }
+
+  private void createPartition(LocalDate month) {
+    LocalDate from = month.withDayOfMonth(1);
+    jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS " + partitionName(from)
+        + " PARTITION OF tickets_archive FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')"
+        + " WITH (fillfactor = 100)");
+  }
+
+  private void detachBefore(LocalDate month) {
+    String limit = partitionName(month);
+    for (String partition : jdbcTemplate.getJdbcTemplate().queryForList(ATTACHED_PARTITIONS, String.class)) {
+      // Names sort chronologically (tickets_archive_pYYYY_MM)
+      if (partition.compareTo(limit) < 0) {
+        jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE tickets_archive DETACH PARTITION " + partition);
+        log.info("Detached archive partition {}", partition);
+      }
+    }
+  }
+
+  // --- Reads (only when the caller asks for archived tickets) ---
+
+  public boolean existsByCode(String code) {
+    if (!enabled) {
+      return false;
+    }
+    Boolean exists = jdbcTemplate.queryForObject(
+        "SELECT EXISTS (SELECT 1 FROM tickets_archive WHERE code = :code)",
+        new MapSqlParameterSource("code", code), Boolean.class);
+    return Boolean.TRUE.equals(exists);
+  }
+
+  /**
+   * @param teamId     agent's team, or null for organization-wide access
+   * @param categories categories handled by the agent's team
+   */
+  public Page<TicketResponse> find(UUID organizationId, UUID teamId, List<String> categories, String search,
+      Pageable pageable) {
+    requireEnabled();
+    MapSqlParameterSource params = new MapSqlParameterSource()
+        .addValue("organizationId", organizationId)
+        .addValue("teamId", teamId)
+        .addValue("categories", categories)
+        .addValue("limit", pageable.getPageSize())
+        .addValue("offset", pageable.getOffset());
+    StringBuilder where = new StringBuilder(" WHERE organization_id = :organizationId");
+    if (teamId != null) {
+      where.append(categories.isEmpty()
+          ? " AND team_id = :teamId"
+          : " AND (team_id = :teamId OR category IN (:categories))");
+    }
+    if (search != null && !search.isBlank()) {
+      params.addValue("search", "%" + search.trim().toLowerCase() + "%");
+      where.append(" AND (lower(code) LIKE :search OR lower(title) LIKE :search)");
+    }
+
+    Long total = jdbcTemplate.queryForObject("SELECT count(*) FROM tickets_archive" + where, params, Long.class);
+    List<TicketResponse> content = jdbcTemplate.query("SELECT * FROM tickets_archive" + where
+        + " ORDER BY created_at DESC LIMIT :limit OFFSET :offset", params, ROW_MAPPER);
+    return new PageImpl<>(content, pageable, total != null ? total : 0);
+  }
+
+  public TicketResponse findById(UUID organizationId, UUID id) {
+    requireEnabled();
+    List<TicketResponse> rows = jdbcTemplate.query(
+        "SELECT * FROM tickets_archive WHERE id = :id AND organization_id = :organizationId",
+        new MapSqlParameterSource().addValue("id", id).addValue("organizationId", organizationId), ROW_MAPPER);
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  private void requireEnabled() {
+    if (!enabled) {
+      throw new IllegalArgumentException("O arquivo de tickets não está habilitado");
+    }
+  }
+
+  private static final RowMapper<TicketResponse> ROW_MAPPER = (rs, rowNum) -> new TicketResponse(
+      rs.getObject("id", UUID.class),
+      rs.getString("code"),
+      rs.getString("title"),
+      rs.getString("description"),
+      rs.getString("status") != null ? TicketStatus.valueOf(rs.getString("status")) : null,
+      rs.getString("priority") != null ? Priority.valueOf(rs.getString("priority")) : null,
+      rs.getString("category"),
+      rs.getString("sentiment"),
+      rs.getString("diagnosis"),
+      rs.getString("suggested_solution"),
+      rs.getObject("customer_id", UUID.class),
+      rs.getObject("agent_id", UUID.class),
+      rs.getObject("team_id", UUID.class),
+      rs.getObject("organization_id", UUID.class),
+      rs.getTimestamp("created_at").toLocalDateTime(),
+      rs.getObject("version", Long.class));
+}
@@ -0,0 +1,414 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory engine for the dashboard distributions of large
+ * tenants. Organizations with at least {@code min-tickets} tickets get a
+ * {@link TicketColumns} snapshot, loaded with one streaming query, kept
+ * current by Hibernate post-commit listeners and rebuilt on reconcile to
+ * absorb bulk statements (archival). Tickets changed on other nodes are
+ * re-read one by one from {@link CacheInvalidation}. Smaller tenants stay on
+ * the SQL GROUP BY path.
+ *
+ * A (re)build streams rows while writes keep committing. Changes that arrive
+ * during the load are buffered and replayed onto the new snapshot as it is
+ * installed; otherwise they would stay missing until the next reconcile.
+ */
+@Service
+@Slf4j
+public class TicketColumnStore implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+    PostCommitDeleteEventListener {
+
+  private static final String LOAD = """
+      SELECT id, status, priority, sentiment, team_id, agent_id, category, created_at
+      FROM tickets WHERE organization_id = ?
+      """;
+
+  private static final String LOAD_ONE = """
+      SELECT id, status, priority, sentiment, team_id, agent_id, category, created_at
+      FROM tickets WHERE id = ?
+      """;
+
+  private static final class Snapshot {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TicketColumns columns;
+    private volatile boolean usable = true;
+
+    private Snapshot(TicketColumns columns) {
+      this.columns = columns;
+    }
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readOnlyTransaction;
+  private final EntityManagerFactory entityManagerFactory;
+  private final CounterService counterService;
+  private final DistributionSummary tenantBytes;
+  private final boolean enabled;
+  private final long minTickets;
+  private final Map<UUID, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  /** One committed ticket change; false when the snapshot can no longer represent it. */
+  @FunctionalInterface
+  private interface Change {
+    boolean applyTo(TicketColumns columns);
+  }
+
+  /** Changes committed while a snapshot is being built, replayed once it is loaded. */
+  private static final class Replay {
+    private final List<Change> changes = new ArrayList<>();
+    private boolean closed;
+  }
+
+  private final Map<UUID, List<Replay>> building = new ConcurrentHashMap<>();
+  private final Map<UUID, Object> firstLoads = new ConcurrentHashMap<>();
+  private final ExecutorService remoteChanges = Executors.newSingleThreadExecutor(
+      Thread.ofVirtual().name("columnar-refresh").factory());
+
+  public TicketColumnStore(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      EntityManagerFactory entityManagerFactory,
+      CounterService counterService,
+      MeterRegistry meterRegistry,
+      @Value("${application.analytics.columnar.enabled:false}") boolean enabled,
+      @Value("${application.analytics.columnar.min-tickets:50000}") long minTickets) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.entityManagerFactory = entityManagerFactory;
+    this.counterService = counterService;
+    this.enabled = enabled;
+    this.minTickets = minTickets;
+    this.tenantBytes = DistributionSummary.builder("trinketos.analytics.columnar.tenant_bytes")
+        .description("Estimated snapshot size per organization, recorded on each (re)build")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("trinketos.analytics.columnar.bytes", this, TicketColumnStore::bytesUsed)
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("trinketos.analytics.columnar.tenants", snapshots, Map::size).register(meterRegistry);
+  }
+
+  @PostConstruct
+  void registerListeners() {
+    if (!enabled) {
+      return;
+    }
+    EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  /**
+   * Distributions for the dashboard scope, or null when the organization is
+   * below the size threshold (or the engine is off) and SQL should be used.
+   */
+  public TicketColumns.Distributions distributions(UUID organizationId, LocalDateTime since,
+      UUID agentId, UUID teamId, Collection<String> categories) {
+    Snapshot snapshot = snapshot(organizationId);
+    if (snapshot == null) {
+      return null;
+    }
+    snapshot.lock.readLock().lock();
+    try {
+      return snapshot.columns.distributions(since, agentId, teamId, categories);
+    } finally {
+      snapshot.lock.readLock().unlock();
+    }
+  }
+
+  /** Estimated size of one organization's snapshot, 0 when it has none. */
+  public long bytesUsed(UUID organizationId) {
+    Snapshot snapshot = snapshots.get(organizationId);
+    return snapshot != null ? snapshot.columns.bytesUsed() : 0;
+  }
+
+  /** Rebuilds an organization after rows changed outside Hibernate. */
+  public void refresh(UUID organizationId) {
+    if (snapshots.containsKey(organizationId)) {
+      rebuild(organizationId);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${application.analytics.columnar.reconcile-interval-ms:600000}")
+  void reconcile() {
+    // Also compacts tombstones and drops tenants that fell below the threshold
+    List.copyOf(snapshots.keySet()).forEach(this::rebuild);
+    snapshots.values().removeIf(snapshot -> !snapshot.usable);
+  }
+
+  /** Tickets changed on another node: re-read them; drop every snapshot after a gap. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      snapshots.clear();
+    } else if (invalidation.kind() == CacheInvalidation.Kind.TICKET
+        && (snapshots.containsKey(invalidation.organizationId())
+            || building.containsKey(invalidation.organizationId()))) {
+      remoteChanges.execute(() -> reload(invalidation.organizationId(), invalidation.id()));
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    remoteChanges.shutdownNow();
+  }
+
+  private long bytesUsed() {
+    return snapshots.values().stream().mapToLong(snapshot -> snapshot.columns.bytesUsed()).sum();
+  }
+
+  private Snapshot snapshot(UUID organizationId) {
+    if (!enabled) {
+      return null;
+    }
+    Snapshot snapshot = snapshots.get(organizationId);
+    if (snapshot == null) {
+      if (counterService.countTickets(organizationId, null, null, null) < minTickets) {
+        return null;
+      }
+      // Outside the map's bin locks, so loading one organization doesn't block others
+      synchronized (firstLoads.computeIfAbsent(organizationId, id -> new Object())) {
+        snapshot = snapshots.get(organizationId);
+        if (snapshot == null) {
+          snapshot = rebuild(organizationId);
+        }
+      }
+    }
+    return snapshot.usable ? snapshot : null;
+  }
+
+  /**
+   * Loads a fresh snapshot and installs it. Committed changes seen meanwhile
+   * are applied to the current snapshot as usual and also buffered; the
+   * buffer is replayed onto the fresh one in commit order, so a row the load
+   * read before a change still ends up with the change.
+   */
+  private Snapshot rebuild(UUID organizationId) {
+    Replay replay = new Replay();
+    building.compute(organizationId, (id, replays) -> {
+      List<Replay> list = replays != null ? replays : new CopyOnWriteArrayList<>();
+      list.add(replay);
+      return list;
+    });
+    try {
+      Snapshot fresh = load(organizationId);
+      // Installed under its write lock: readers and later changes wait for the replay
+      fresh.lock.writeLock().lock();
+      try {
+        snapshots.put(organizationId, fresh);
+        synchronized (replay) {
+          for (Change change : replay.changes) {
+            if (!change.applyTo(fresh.columns)) {
+              fresh.usable = false;
+            }
+          }
+          replay.closed = true;
+        }
+      } finally {
+        fresh.lock.writeLock().unlock();
+      }
+      return fresh;
+    } finally {
+      building.computeIfPresent(organizationId, (id, replays) -> {
+        replays.remove(replay);
+        return replays.isEmpty() ? null : replays;
+      });
+    }
+  }
+
+  private Snapshot load(UUID organizationId) {
+    long expected = counterService.countTickets(organizationId, null, null, null);
+    if (expected < minTickets) {
+      Snapshot dropped = new Snapshot(new TicketColumns(0));
+      dropped.usable = false;
+      return dropped;
+    }
+    Snapshot snapshot = new Snapshot(new TicketColumns((int) Math.min(expected + expected / 8, Integer.MAX_VALUE)));
+    long started = System.nanoTime();
+    // The PostgreSQL driver only honours the fetch size inside a transaction
+    readOnlyTransaction.executeWithoutResult(tx -> jdbcTemplate.query(connection -> {
+      var statement = connection.prepareStatement(LOAD);
+      statement.setFetchSize(10_000);
+      statement.setObject(1, organizationId);
+      return statement;
+    }, rs -> {
+      if (snapshot.usable && !read(rs).applyTo(snapshot.columns)) {
+        snapshot.usable = false;
+      }
+    }));
+    tenantBytes.record(snapshot.columns.bytesUsed());
+    log.info("Columnar snapshot for organization {}: {} tickets, ~{} KiB in {} ms", organizationId,
+        snapshot.columns.size(), snapshot.columns.bytesUsed() / 1024, (System.nanoTime() - started) / 1_000_000);
+    return snapshot;
+  }
+
+  /** Re-reads one ticket changed on another node; it is gone if the row is. */
+  private void reload(UUID organizationId, UUID ticketId) {
+    List<Change> rows;
+    try {
+      rows = jdbcTemplate.query(LOAD_ONE, (rs, rowNum) -> read(rs), ticketId);
+    } catch (RuntimeException e) {
+      log.warn("Could not re-read ticket {} for the columnar snapshot, dropping it", ticketId, e);
+      snapshots.remove(organizationId);
+      return;
+    }
+    apply(organizationId, rows.isEmpty() ? remove(ticketId) : rows.get(0));
+  }
+
+  /** The current row as an upsert; values are read now, the change may be replayed later. */
+  private static Change read(ResultSet rs) throws SQLException {
+    UUID id = rs.getObject("id", UUID.class);
+    String status = rs.getString("status");
+    String priority = rs.getString("priority");
+    String sentiment = rs.getString("sentiment");
+    UUID teamId = rs.getObject("team_id", UUID.class);
+    UUID agentId = rs.getObject("agent_id", UUID.class);
+    String category = rs.getString("category");
+    java.sql.Timestamp createdAt = rs.getTimestamp("created_at");
+    return columns -> columns.upsert(id,
+        status != null ? TicketStatus.valueOf(status) : null,
+        priority != null ? Priority.valueOf(priority) : null,
+        sentiment, teamId, agentId, category,
+        createdAt != null ? createdAt.toLocalDateTime() : null);
+  }
+
+  private static Change remove(UUID ticketId) {
+    return columns -> {
+      columns.remove(ticketId);
+      return true;
+    };
+  }
+
+  /**
+   * Applies a committed change to the organization's snapshot and to every
+   * build in progress. Buffered first: a build closes its buffer only after
+   * installing its snapshot, which the direct apply then reaches. A change
+   * that lands in both is applied twice, which upserts and removes tolerate.
+   */
+  private void apply(UUID organizationId, Change change) {
+    List<Replay> replays = building.get(organizationId);
+    if (replays != null) {
+      for (Replay replay : replays) {
+        synchronized (replay) {
+          if (!replay.closed) {
+            replay.changes.add(change);
+          }
+        }
+      }
+    }
+    // Organizations without a snapshot pick the change up on first load
+    Snapshot snapshot = snapshots.get(organizationId);
+    if (snapshot == null) {
+      return;
+    }
+    snapshot.lock.writeLock().lock();
+    try {
+      if (!change.applyTo(snapshot.columns)) {
+        snapshot.usable = false;
+      }
+    } finally {
+      snapshot.lock.writeLock().unlock();
+    }
+  }
+
+  // --- Hibernate post-commit listeners ---
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    upsert(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    upsert(event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof Ticket ticket) {
+      apply(ticket.getOrganizationId(), remove(ticket.getId()));
+    }
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return true;
+  }
+
+  private void upsert(Object entity) {
+    if (!(entity instanceof Ticket ticket)) {
+      return;
+    }
+    // Values copied now; a buffered change is replayed after the entity may have moved on
+    UUID id = ticket.getId();
+    TicketStatus status = ticket.getStatus();
+    Priority priority = ticket.getPriority();
+    String sentiment = ticket.getSentiment();
+    UUID teamId = ticket.getTeamId();
+    UUID agentId = ticket.getAgentId();
+    String category = ticket.getCategory();
+    LocalDateTime createdAt = ticket.getCreatedAt();
+    apply(ticket.getOrganizationId(),
+        columns -> columns.upsert(id, status, priority, sentiment, teamId, agentId, category, createdAt));
+  }
+}
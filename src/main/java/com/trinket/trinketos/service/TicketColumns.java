@@ -0,0 +1,255 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.TicketStatus;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Column-oriented copy of one organization's tickets: enum fields as byte
+ * codes, team/agent/category/sentiment as dictionary ids and createdAt as
+ * epoch microseconds, each in its own primitive array. A dashboard is one
+ * pass over the arrays with no boxing or per-row objects.
+ *
+ * Deleted tickets leave a tombstone (status {@code NONE}); the row is reused
+ * if the same ticket comes back and the arrays are compacted on the next
+ * rebuild. Not thread-safe; {@link TicketColumnStore} guards each instance.
+ */
+final class TicketColumns {
+
+  static final byte NONE = -1;
+
+  private static final TicketStatus[] STATUSES = TicketStatus.values();
+  private static final Priority[] PRIORITIES = Priority.values();
+
+  /** Bytes per row across all columns. */
+  private static final int ROW_BYTES = Long.BYTES + 3 * Byte.BYTES + 3 * Integer.BYTES;
+
+  /** Dashboard distributions, keyed like the SQL path (enum names, raw sentiment). */
+  record Distributions(Map<String, Long> status, Map<String, Long> priority, Map<String, Long> sentiment,
+      long criticalOpen) {
+  }
+
+  private final Map<UUID, Integer> rows = new HashMap<>();
+  private final Dictionary<UUID> teams = new Dictionary<>();
+  private final Dictionary<UUID> agents = new Dictionary<>();
+  private final Dictionary<String> categories = new Dictionary<>();
+  private final Dictionary<String> sentiments = new Dictionary<>();
+
+  private long[] createdAt;
+  private byte[] status;
+  private byte[] priority;
+  private byte[] sentiment;
+  private int[] team;
+  private int[] agent;
+  private int[] category;
+  private int size;
+
+  TicketColumns(int initialCapacity) {
+    int capacity = Math.max(initialCapacity, 16);
+    createdAt = new long[capacity];
+    status = new byte[capacity];
+    priority = new byte[capacity];
+    sentiment = new byte[capacity];
+    team = new int[capacity];
+    agent = new int[capacity];
+    category = new int[capacity];
+  }
+
+  /**
+   * @return false when the sentiment dictionary is full (more than 127
+   *         distinct values); the caller should fall back to SQL
+   */
+  boolean upsert(UUID id, TicketStatus ticketStatus, Priority ticketPriority, String ticketSentiment,
+      UUID teamId, UUID agentId, String ticketCategory, LocalDateTime ticketCreatedAt) {
+    int sentimentId = sentiments.idOf(ticketSentiment);
+    if (sentimentId > Byte.MAX_VALUE) {
+      return false;
+    }
+    Integer row = rows.get(id);
+    if (row == null) {
+      ensureCapacity(size + 1);
+      row = size++;
+      rows.put(id, row);
+    }
+    createdAt[row] = micros(ticketCreatedAt);
+    status[row] = ticketStatus != null ? (byte) ticketStatus.ordinal() : NONE;
+    priority[row] = ticketPriority != null ? (byte) ticketPriority.ordinal() : NONE;
+    sentiment[row] = (byte) sentimentId;
+    team[row] = teams.idOf(teamId);
+    agent[row] = agents.idOf(agentId);
+    category[row] = categories.idOf(ticketCategory);
+    return true;
+  }
+
+  void remove(UUID id) {
+    Integer row = rows.get(id);
+    if (row != null) {
+      status[row] = NONE;
+      createdAt[row] = Long.MIN_VALUE;
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  /** Array and dictionary footprint, ignoring JVM object headers. */
+  long bytesUsed() {
+    long dictionaries = teams.bytesUsed() + agents.bytesUsed() + categories.bytesUsed() + sentiments.bytesUsed();
+    // id -> row index: UUID key, boxed Integer and map entry, roughly 80 bytes
+    return (long) createdAt.length * ROW_BYTES + (long) rows.size() * 80 + dictionaries;
+  }
+
+  /**
+   * Same filter as {@code TicketRepository.ANALYTICS_SCOPE}: created after
+   * {@code since}, optionally one agent, optionally a team OR the categories
+   * it handles.
+   */
+  Distributions distributions(LocalDateTime since, UUID agentId, UUID teamId, Collection<String> teamCategories) {
+    long sinceMicros = micros(since);
+    int agentFilter = agentId != null ? agents.find(agentId) : NONE;
+    int teamFilter = teamId != null ? teams.find(teamId) : NONE;
+    boolean[] allowedCategory = new boolean[categories.size()];
+    if (teamId != null) {
+      for (String name : teamCategories) {
+        int id = categories.find(name);
+        if (id >= 0) {
+          allowedCategory[id] = true;
+        }
+      }
+    }
+    if (agentId != null && agentFilter < 0) {
+      return toDistributions(new long[STATUSES.length], new long[PRIORITIES.length], new long[sentiments.size()], 0);
+    }
+
+    long[] statusCounts = new long[STATUSES.length];
+    long[] priorityCounts = new long[PRIORITIES.length];
+    long[] sentimentCounts = new long[sentiments.size()];
+    long criticalOpen = 0;
+    byte open = (byte) TicketStatus.OPEN.ordinal();
+    byte critical = (byte) Priority.CRITICAL.ordinal();
+
+    for (int i = 0; i < size; i++) {
+      byte s = status[i];
+      if (s == NONE || createdAt[i] <= sinceMicros) {
+        continue;
+      }
+      if (agentId != null && agent[i] != agentFilter) {
+        continue;
+      }
+      if (teamId != null && (teamFilter < 0 || team[i] != teamFilter)
+          && (category[i] < 0 || !allowedCategory[category[i]])) {
+        continue;
+      }
+      statusCounts[s]++;
+      byte p = priority[i];
+      if (p != NONE) {
+        priorityCounts[p]++;
+        if (p == critical && s == open) {
+          criticalOpen++;
+        }
+      }
+      if (sentiment[i] != NONE) {
+        sentimentCounts[sentiment[i]]++;
+      }
+    }
+    return toDistributions(statusCounts, priorityCounts, sentimentCounts, criticalOpen);
+  }
+
+  private Distributions toDistributions(long[] statusCounts, long[] priorityCounts, long[] sentimentCounts,
+      long criticalOpen) {
+    Map<String, Long> statusMap = new LinkedHashMap<>();
+    for (int i = 0; i < statusCounts.length; i++) {
+      if (statusCounts[i] > 0) {
+        statusMap.put(STATUSES[i].name(), statusCounts[i]);
+      }
+    }
+    Map<String, Long> priorityMap = new LinkedHashMap<>();
+    for (int i = 0; i < priorityCounts.length; i++) {
+      if (priorityCounts[i] > 0) {
+        priorityMap.put(PRIORITIES[i].name(), priorityCounts[i]);
+      }
+    }
+    Map<String, Long> sentimentMap = new LinkedHashMap<>();
+    for (int i = 0; i < sentimentCounts.length; i++) {
+      if (sentimentCounts[i] > 0) {
+        sentimentMap.put(sentiments.valueOf(i), sentimentCounts[i]);
+      }
+    }
+    return new Distributions(statusMap, priorityMap, sentimentMap, criticalOpen);
+  }
+
+  private void ensureCapacity(int required) {
+    if (required <= createdAt.length) {
+      return;
+    }
+    int capacity = Math.max(required, createdAt.length + (createdAt.length >> 1));
+    createdAt = Arrays.copyOf(createdAt, capacity);
+    status = Arrays.copyOf(status, capacity);
+    priority = Arrays.copyOf(priority, capacity);
+    sentiment = Arrays.copyOf(sentiment, capacity);
+    team = Arrays.copyOf(team, capacity);
+    agent = Arrays.copyOf(agent, capacity);
+    category = Arrays.copyOf(category, capacity);
+  }
+
+  /** Microseconds, the precision PostgreSQL keeps for timestamps. */
+  static long micros(LocalDateTime time) {
+    if (time == null) {
+      return Long.MIN_VALUE;
+    }
+    return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+  }
+
+  /** Value to dense int id; null maps to {@link #NONE}. */
+  private static final class Dictionary<T> {
+    private final Map<T, Integer> ids = new HashMap<>();
+    private Object[] values = new Object[8];
+
+    int idOf(T value) {
+      if (value == null) {
+        return NONE;
+      }
+      Integer id = ids.get(value);
+      if (id == null) {
+        id = ids.size();
+        ids.put(value, id);
+        if (id == values.length) {
+          values = Arrays.copyOf(values, id * 2);
+        }
+        values[id] = value;
+      }
+      return id;
+    }
+
+    int find(T value) {
+      Integer id = ids.get(value);
+      return id != null ? id : NONE;
+    }
+
+    @SuppressWarnings("unchecked")
+    T valueOf(int id) {
+      return (T) values[id];
+    }
+
+    int size() {
+      return ids.size();
+    }
+
+    long bytesUsed() {
+      long bytes = (long) values.length * 8;
+      for (T value : ids.keySet()) {
+        bytes += 64 + (value instanceof String s ? s.length() : 16);
+      }
+      return bytes;
+    }
+  }
+}
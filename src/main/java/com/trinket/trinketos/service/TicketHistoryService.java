@@ -0,0 +1,147 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketHistoryEntry;
+import com.trinket.trinketos.model.TicketHistoryType;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.repository.TicketHistoryRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Saves a ticket together with the {@code ticket_events} rows describing what
+ * changed, in one transaction. Also owns the lifecycle timestamps derived
+ * from those transitions ({@code firstResponseAt}, {@code resolvedAt}).
+ *
+ * Saved entries are published as application events so
+ * {@link TicketMetricsEngine} can fold them in after commit.
+ */
+@Service
+@RequiredArgsConstructor
+public class TicketHistoryService {
+
+  /** Fields whose transitions are logged, captured before the ticket is mutated. */
+  public record Snapshot(TicketStatus status, Priority priority, UUID agentId, String sentiment) {
+    public static Snapshot of(Ticket ticket) {
+      return new Snapshot(ticket.getStatus(), ticket.getPriority(), ticket.getAgentId(), ticket.getSentiment());
+    }
+  }
+
+  private final TicketRepository ticketRepository;
+  private final TicketHistoryRepository ticketHistoryRepository;
+  private final SlaPolicy slaPolicy;
+  private final ApplicationEventPublisher eventPublisher;
+
+  /**
+   * @param before  state before the change, or null for a new ticket
+   * @param actorId user making the change, or null for AI/system updates
+   */
+  @Transactional
+  public Ticket save(Ticket ticket, Snapshot before, UUID actorId) {
+    LocalDateTime now = LocalDateTime.now();
+    List<TicketHistoryEntry> entries = new ArrayList<>();
+
+    if (before == null) {
+      Ticket saved = ticketRepository.save(ticket);
+      entries.add(entry(saved, TicketHistoryType.CREATED, null, name(saved.getStatus()), actorId, now));
+      publish(entries);
+      return saved;
+    }
+
+    if (before.status() != ticket.getStatus()) {
+      entries.add(entry(ticket, TicketHistoryType.STATUS_CHANGED, name(before.status()), name(ticket.getStatus()),
+          actorId, now));
+      boolean wasResolved = isResolved(before.status());
+      boolean resolved = isResolved(ticket.getStatus());
+      if (resolved && ticket.getResolvedAt() == null) {
+        ticket.setResolvedAt(now);
+        TicketHistoryEntry entry = entry(ticket, TicketHistoryType.RESOLVED, null, null, actorId, now);
+        entry.setSlaBreached(slaPolicy.resolutionBreached(ticket.getPriority(), entry.getElapsedMinutes()));
+        entries.add(entry);
+      } else if (wasResolved && !resolved) {
+        ticket.setResolvedAt(null);
+        entries.add(entry(ticket, TicketHistoryType.REOPENED, name(before.status()), name(ticket.getStatus()),
+            actorId, now));
+      }
+    }
+    if (before.priority() != ticket.getPriority()) {
+      entries.add(entry(ticket, TicketHistoryType.PRIORITY_CHANGED, name(before.priority()),
+          name(ticket.getPriority()), actorId, now));
+    }
+    if (!Objects.equals(before.agentId(), ticket.getAgentId())) {
+      entries.add(entry(ticket, TicketHistoryType.ASSIGNED, string(before.agentId()), string(ticket.getAgentId()),
+          actorId, now));
+    }
+    if (!Objects.equals(before.sentiment(), ticket.getSentiment())) {
+      entries.add(entry(ticket, TicketHistoryType.SENTIMENT_CHANGED, before.sentiment(), ticket.getSentiment(),
+          actorId, now));
+    }
+
+    // First response: first time a user takes the ticket out of OPEN or assigns it
+    boolean responded = (before.status() == TicketStatus.OPEN && ticket.getStatus() != TicketStatus.OPEN)
+        || (before.agentId() == null && ticket.getAgentId() != null);
+    if (actorId != null && responded && ticket.getFirstResponseAt() == null) {
+      ticket.setFirstResponseAt(now);
+      TicketHistoryEntry entry = entry(ticket, TicketHistoryType.FIRST_RESPONSE, null, null, actorId, now);
+      entry.setSlaBreached(slaPolicy.firstResponseBreached(ticket.getPriority(), entry.getElapsedMinutes()));
+      entries.add(entry);
+    }
+
+    Ticket saved = ticketRepository.save(ticket);
+    publish(entries);
+    return saved;
+  }
+
+  public List<TicketHistoryEntry> history(UUID ticketId) {
+    return ticketHistoryRepository.findByTicketIdOrderByOccurredAtAsc(ticketId);
+  }
+
+  private void publish(List<TicketHistoryEntry> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    ticketHistoryRepository.saveAll(entries).forEach(eventPublisher::publishEvent);
+  }
+
+  private static TicketHistoryEntry entry(Ticket ticket, TicketHistoryType type, String from, String to,
+      UUID actorId, LocalDateTime now) {
+    long elapsed = ticket.getCreatedAt() != null ? Duration.between(ticket.getCreatedAt(), now).toMinutes() : 0;
+    return TicketHistoryEntry.builder()
+        .ticketId(ticket.getId())
+        .organizationId(ticket.getOrganizationId())
+        .type(type)
+        .fromValue(from)
+        .toValue(to)
+        .teamId(ticket.getTeamId())
+        .category(ticket.getCategory())
+        .agentId(ticket.getAgentId())
+        .priority(ticket.getPriority())
+        .actorId(actorId)
+        .elapsedMinutes(Math.max(0, elapsed))
+        .occurredAt(now)
+        .build();
+  }
+
+  private static boolean isResolved(TicketStatus status) {
+    return status == TicketStatus.RESOLVED || status == TicketStatus.CLOSED;
+  }
+
+  private static String name(Enum<?> value) {
+    return value != null ? value.name() : null;
+  }
+
+  private static String string(UUID value) {
+    return value != null ? value.toString() : null;
+  }
+}
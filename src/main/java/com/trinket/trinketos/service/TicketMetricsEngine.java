@@ -0,0 +1,350 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.TicketHistoryEntry;
+import com.trinket.trinketos.model.TicketHistoryType;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.TicketHistoryRepository;
+import com.trinket.trinketos.util.QuantileSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Streaming SLA/FRT metrics over the {@code ticket_events} log. Per
+ * organization it keeps daily buckets split by (team, category, agent), each
+ * holding running sums for first responses, resolutions, SLA breaches,
+ * reopens and sentiment shifts, plus quantile sketches of first-response and
+ * resolution times. A dashboard query sums and merges at most one bucket per
+ * cell and day in the window, independent of ticket volume.
+ *
+ * The full window is seeded from grouped queries on first use, then updated
+ * from committed history entries. The reconcile job only re-reads the most
+ * recent days, where late or concurrent writes can cause drift, and drops
+ * days that fell out of the window. Entries committed while a load runs are
+ * buffered and replayed onto the loaded days, so neither the first load nor
+ * a reconcile overwrites them; buffered entries the load's snapshot already
+ * counted are skipped by id. Tickets changed on other nodes mark the
+ * organization stale; its recent days are re-read on the next query.
+ */
+@Service
+public class TicketMetricsEngine {
+
+  private static final EnumSet<TicketHistoryType> ROLLUP_TYPES = EnumSet.of(
+      TicketHistoryType.FIRST_RESPONSE, TicketHistoryType.RESOLVED, TicketHistoryType.REOPENED);
+
+  /** Dimensions dashboards filter on. */
+  public record Cell(UUID teamId, String category, UUID agentId) {
+  }
+
+  public record Metrics(
+      long firstResponses,
+      double avgFirstResponseMinutes,
+      double firstResponseSlaRate,
+      Map<String, Double> firstResponsePercentiles,
+      long resolutions,
+      double avgResolutionMinutes,
+      double resolutionSlaRate,
+      Map<String, Double> resolutionPercentiles,
+      double fcrRate,
+      Map<String, Long> sentimentShift) {
+  }
+
+  private final class Bucket {
+    private final LongAdder firstResponses = new LongAdder();
+    private final LongAdder firstResponseMinutes = new LongAdder();
+    private final LongAdder firstResponseBreaches = new LongAdder();
+    private final QuantileSketch firstResponseSketch = newSketch();
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder resolutionMinutes = new LongAdder();
+    private final LongAdder resolutionBreaches = new LongAdder();
+    private final QuantileSketch resolutionSketch = newSketch();
+    private final LongAdder reopens = new LongAdder();
+    private final Map<String, LongAdder> sentimentShift = new ConcurrentHashMap<>();
+
+    private void add(TicketHistoryType type, long count, long elapsedMinutes, long breaches) {
+      switch (type) {
+        case FIRST_RESPONSE -> {
+          firstResponses.add(count);
+          firstResponseMinutes.add(elapsedMinutes * count);
+          firstResponseBreaches.add(breaches);
+          firstResponseSketch.add(elapsedMinutes, count);
+        }
+        case RESOLVED -> {
+          resolutions.add(count);
+          resolutionMinutes.add(elapsedMinutes * count);
+          resolutionBreaches.add(breaches);
+          resolutionSketch.add(elapsedMinutes, count);
+        }
+        case REOPENED -> reopens.add(count);
+        default -> {
+        }
+      }
+    }
+  }
+
+  private final TicketHistoryRepository ticketHistoryRepository;
+  private final TransactionTemplate loadTransaction;
+  private final int windowDays;
+  private final int reconcileDays;
+  private final double sketchAccuracy;
+  private final int sketchMaxBins;
+
+  /** Entries committed while an organization's days from {@code from} on are being loaded. */
+  private static final class Replay {
+    private final LocalDate from;
+    private final List<TicketHistoryEntry> entries = new ArrayList<>();
+    private boolean closed;
+
+    private Replay(LocalDate from) {
+      this.from = from;
+    }
+  }
+
+  private final Map<UUID, ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>>> organizations =
+      new ConcurrentHashMap<>();
+  private final Map<UUID, Replay> loading = new ConcurrentHashMap<>();
+  private final Map<UUID, Object> loadLocks = new ConcurrentHashMap<>();
+  private final Set<UUID> stale = ConcurrentHashMap.newKeySet();
+
+  public TicketMetricsEngine(
+      TicketHistoryRepository ticketHistoryRepository,
+      PlatformTransactionManager transactionManager,
+      @Value("${application.analytics.metrics-window-days:400}") int windowDays,
+      @Value("${application.analytics.reconcile-days:2}") int reconcileDays,
+      @Value("${application.analytics.sketch.relative-accuracy:0.01}") double sketchAccuracy,
+      @Value("${application.analytics.sketch.max-bins:512}") int sketchMaxBins) {
+    this.ticketHistoryRepository = ticketHistoryRepository;
+    // One snapshot for the rollups and the replay check; not read-only, so it stays on the primary
+    this.loadTransaction = new TransactionTemplate(transactionManager);
+    this.loadTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.loadTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.windowDays = windowDays;
+    this.reconcileDays = reconcileDays;
+    this.sketchAccuracy = sketchAccuracy;
+    this.sketchMaxBins = sketchMaxBins;
+  }
+
+  public Metrics compute(UUID organizationId, LocalDate since, Predicate<Cell> filter) {
+    long firstResponses = 0, firstResponseMinutes = 0, firstResponseBreaches = 0;
+    long resolutions = 0, resolutionMinutes = 0, resolutionBreaches = 0, reopens = 0;
+    QuantileSketch firstResponseSketch = newSketch();
+    QuantileSketch resolutionSketch = newSketch();
+    Map<String, Long> sentimentShift = new HashMap<>();
+
+    if (stale.remove(organizationId) && organizations.containsKey(organizationId)) {
+      reconcile(organizationId);
+    }
+    for (Map<Cell, Bucket> day : days(organizationId).tailMap(since, true).values()) {
+      for (Map.Entry<Cell, Bucket> entry : day.entrySet()) {
+        if (!filter.test(entry.getKey())) {
+          continue;
+        }
+        Bucket bucket = entry.getValue();
+        firstResponses += bucket.firstResponses.sum();
+        firstResponseMinutes += bucket.firstResponseMinutes.sum();
+        firstResponseBreaches += bucket.firstResponseBreaches.sum();
+        firstResponseSketch.merge(bucket.firstResponseSketch);
+        resolutions += bucket.resolutions.sum();
+        resolutionMinutes += bucket.resolutionMinutes.sum();
+        resolutionBreaches += bucket.resolutionBreaches.sum();
+        resolutionSketch.merge(bucket.resolutionSketch);
+        reopens += bucket.reopens.sum();
+        bucket.sentimentShift.forEach((shift, count) -> sentimentShift.merge(shift, count.sum(), Long::sum));
+      }
+    }
+
+    return new Metrics(
+        firstResponses,
+        average(firstResponseMinutes, firstResponses),
+        rate(firstResponses - firstResponseBreaches, firstResponses),
+        percentiles(firstResponseSketch),
+        resolutions,
+        average(resolutionMinutes, resolutions),
+        rate(resolutions - resolutionBreaches, resolutions),
+        percentiles(resolutionSketch),
+        rate(Math.max(0, resolutions - reopens), resolutions),
+        sentimentShift);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onHistoryEntry(TicketHistoryEntry entry) {
+    Replay replay = loading.get(entry.getOrganizationId());
+    if (replay != null) {
+      // Buffered and applied atomically with respect to the install, so the entry is counted once
+      synchronized (replay) {
+        if (!replay.closed) {
+          if (!entry.getOccurredAt().toLocalDate().isBefore(replay.from)) {
+            replay.entries.add(entry);
+          }
+          add(organizations.get(entry.getOrganizationId()), entry);
+          return;
+        }
+      }
+    }
+    add(organizations.get(entry.getOrganizationId()), entry);
+  }
+
+  /** Tickets changed on another node: their history entries only reach this node through the database. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      stale.addAll(organizations.keySet());
+    } else if (invalidation.kind() == CacheInvalidation.Kind.TICKET
+        && organizations.containsKey(invalidation.organizationId())) {
+      stale.add(invalidation.organizationId());
+    }
+  }
+
+  private void add(ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days, TicketHistoryEntry entry) {
+    // Organizations not loaded yet will read the entry from the database on first use
+    if (days == null) {
+      return;
+    }
+    Bucket bucket = bucket(days, entry.getOccurredAt().toLocalDate(),
+        new Cell(entry.getTeamId(), entry.getCategory(), entry.getAgentId()));
+    if (entry.getType() == TicketHistoryType.SENTIMENT_CHANGED) {
+      if (entry.getFromValue() != null) {
+        bucket.sentimentShift.computeIfAbsent(shift(entry.getFromValue(), entry.getToValue()), s -> new LongAdder())
+            .increment();
+      }
+    } else {
+      bucket.add(entry.getType(), 1, entry.getElapsedMinutes(), entry.isSlaBreached() ? 1 : 0);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${application.analytics.reconcile-interval-ms:600000}")
+  void reconcile() {
+    List.copyOf(organizations.keySet()).forEach(this::reconcile);
+  }
+
+  private void reconcile(UUID organizationId) {
+    stale.remove(organizationId);
+    LocalDate recent = LocalDate.now().minusDays(reconcileDays);
+    LocalDate oldest = LocalDate.now().minusDays(windowDays);
+    reload(organizationId, recent, fresh -> {
+      ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days = organizations.get(organizationId);
+      days.headMap(oldest).clear();
+      // Day by day, so a concurrent dashboard read sees each day's old or new buckets, never an empty gap
+      fresh.forEach(days::put);
+      days.tailMap(recent, true).keySet().removeIf(day -> !fresh.containsKey(day));
+      return days;
+    });
+  }
+
+  private ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days(UUID organizationId) {
+    ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days = organizations.get(organizationId);
+    if (days != null) {
+      return days;
+    }
+    synchronized (loadLock(organizationId)) {
+      days = organizations.get(organizationId);
+      return days != null ? days : reload(organizationId, LocalDate.now().minusDays(windowDays), fresh -> {
+        organizations.put(organizationId, fresh);
+        return fresh;
+      });
+    }
+  }
+
+  /**
+   * Loads the days from {@code from} on and installs them. Entries committed
+   * during the load are still added to the live buckets, which the install
+   * replaces, and replayed onto the installed days unless the load's snapshot
+   * already holds them: an entry committed just before the load can reach
+   * the listener after the buffer opened. One load per organization runs at a
+   * time.
+   */
+  private ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> reload(UUID organizationId, LocalDate from,
+      UnaryOperator<ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>>> install) {
+    synchronized (loadLock(organizationId)) {
+      Replay replay = new Replay(from);
+      loading.put(organizationId, replay);
+      try {
+        return loadTransaction.execute(tx -> {
+          ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> fresh = load(organizationId, from);
+          synchronized (replay) {
+            Set<UUID> loaded = loadedIds(replay.entries);
+            ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days = install.apply(fresh);
+            replay.entries.stream().filter(entry -> !loaded.contains(entry.getId())).forEach(entry -> add(days, entry));
+            replay.closed = true;
+            return days;
+          }
+        });
+      } finally {
+        loading.remove(organizationId, replay);
+      }
+    }
+  }
+
+  /** The buffered entries visible to the current load transaction, i.e. already in the rollups. */
+  private Set<UUID> loadedIds(List<TicketHistoryEntry> entries) {
+    List<UUID> ids = entries.stream().map(TicketHistoryEntry::getId).filter(Objects::nonNull).toList();
+    return ids.isEmpty() ? Set.of() : Set.copyOf(ticketHistoryRepository.findIdsByIdIn(ids));
+  }
+
+  private Object loadLock(UUID organizationId) {
+    return loadLocks.computeIfAbsent(organizationId, id -> new Object());
+  }
+
+  private ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> load(UUID organizationId, LocalDate sinceDay) {
+    ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days = new ConcurrentSkipListMap<>();
+    var since = sinceDay.atStartOfDay();
+    ticketHistoryRepository.rollup(organizationId, since, ROLLUP_TYPES).forEach(row ->
+        bucket(days, row.getDay(), new Cell(row.getTeamId(), row.getCategory(), row.getAgentId()))
+            .add(row.getType(), row.getTotal(), row.getElapsedMinutes(), row.getBreaches()));
+    ticketHistoryRepository.sentimentRollup(organizationId, since).forEach(row ->
+        bucket(days, row.getDay(), new Cell(row.getTeamId(), row.getCategory(), row.getAgentId()))
+            .sentimentShift.computeIfAbsent(shift(row.getFromValue(), row.getToValue()), s -> new LongAdder())
+            .add(row.getTotal()));
+    return days;
+  }
+
+  private Bucket bucket(ConcurrentSkipListMap<LocalDate, Map<Cell, Bucket>> days, LocalDate day, Cell cell) {
+    return days.computeIfAbsent(day, d -> new ConcurrentHashMap<>()).computeIfAbsent(cell, c -> new Bucket());
+  }
+
+  private QuantileSketch newSketch() {
+    return new QuantileSketch(sketchAccuracy, sketchMaxBins);
+  }
+
+  private static Map<String, Double> percentiles(QuantileSketch sketch) {
+    // Minutes, rounded to one decimal
+    Map<String, Double> percentiles = new LinkedHashMap<>();
+    percentiles.put("p50", Math.round(sketch.quantile(0.5) * 10) / 10.0);
+    percentiles.put("p90", Math.round(sketch.quantile(0.9) * 10) / 10.0);
+    percentiles.put("p99", Math.round(sketch.quantile(0.99) * 10) / 10.0);
+    return percentiles;
+  }
+
+  private static String shift(String from, String to) {
+    return from + " -> " + to;
+  }
+
+  private static double average(long total, long count) {
+    return count > 0 ? (double) total / count : 0;
+  }
+
+  private static double rate(long hits, long count) {
+    return count > 0 ? (double) hits / count * 100 : 0;
+  }
+}
@@ -0,0 +1,255 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.dto.TicketRequest;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.realtime.TicketEvent;
+import com.trinket.trinketos.repository.TicketRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies ticket edits. By default each edit is written immediately. With
+ * {@code application.tickets.write-coalescing.enabled}, edits by the same
+ * user to the same ticket arriving within {@code window-ms} are merged field
+ * by field (later edits win) and written as one UPDATE; every caller gets the
+ * merged result. An edit by another user writes out the pending batch first,
+ * so history credits each change to its author.
+ *
+ * Batches for one ticket are flushed in arrival order: tickets are striped
+ * over {@code flush-threads} single-threaded schedulers, so a ticket's
+ * window timers and early flushes all run on the same thread.
+ *
+ * Ticket has a @Version column, so a flush that races with another writer
+ * (the AI analysis, another node) fails with an optimistic lock error. The
+ * flush then reloads the ticket and reapplies the merged edit, minus the
+ * fields the other writer changed in between: those keep its newer values.
+ * Edits that carry the version the client saw are never merged: they are
+ * checked against the copy being written and fail with 409 when stale.
+ */
+@Service
+@Slf4j
+public class TicketWriteService {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final class Pending {
+    private TicketRequest patch;
+    private final UUID actorId;
+    private final List<CompletableFuture<Ticket>> waiters = new ArrayList<>();
+
+    private Pending(TicketRequest patch, UUID actorId) {
+      this.patch = patch;
+      this.actorId = actorId;
+    }
+  }
+
+  private final TicketRepository ticketRepository;
+  private final TicketHistoryService ticketHistoryService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final boolean coalescing;
+  private final long windowMs;
+  private final Counter coalescedEdits;
+  private final Counter flushes;
+
+  private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+  /** Batches whose waiters haven't been completed yet, pending or queued for writing. */
+  private final Set<Pending> unfinished = ConcurrentHashMap.newKeySet();
+  private final ScheduledThreadPoolExecutor[] stripes;
+
+  public TicketWriteService(
+      TicketRepository ticketRepository,
+      TicketHistoryService ticketHistoryService,
+      ApplicationEventPublisher eventPublisher,
+      MeterRegistry meterRegistry,
+      @Value("${application.tickets.write-coalescing.enabled:false}") boolean coalescing,
+      @Value("${application.tickets.write-coalescing.window-ms:250}") long windowMs,
+      @Value("${application.tickets.write-coalescing.flush-threads:2}") int flushThreads) {
+    this.ticketRepository = ticketRepository;
+    this.ticketHistoryService = ticketHistoryService;
+    this.eventPublisher = eventPublisher;
+    this.coalescing = coalescing;
+    this.windowMs = windowMs;
+    this.coalescedEdits = Counter.builder("trinketos.tickets.coalesced_edits")
+        .description("Ticket edits merged into a pending write")
+        .register(meterRegistry);
+    this.flushes = Counter.builder("trinketos.tickets.coalesced_flushes")
+        .description("Coalesced ticket writes flushed to the database")
+        .register(meterRegistry);
+    this.stripes = new ScheduledThreadPoolExecutor[Math.max(1, flushThreads)];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ScheduledThreadPoolExecutor(1, Thread.ofVirtual().name("ticket-write-" + i).factory());
+      // Pending batches are written out explicitly on shutdown; their window timers can go
+      stripes[i].setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+  }
+
+  /**
+   * @param ticket  the ticket as loaded and authorized by the caller
+   * @param patch   non-null fields are applied; the assignee must already be validated
+   * @param actorId user making the edit
+   */
+  public CompletableFuture<Ticket> update(Ticket ticket, TicketRequest patch, UUID actorId) {
+    if (!coalescing || patch.version() != null) {
+      return CompletableFuture.completedFuture(write(ticket, patch, actorId));
+    }
+
+    CompletableFuture<Ticket> result = new CompletableFuture<>();
+    pending.compute(ticket.getId(), (id, current) -> {
+      if (current != null && !current.actorId.equals(actorId)) {
+        // Another user's edits: write them out now, in arrival order, under their own name
+        Pending previous = current;
+        stripe(id).execute(() -> writeBatch(id, previous));
+        current = null;
+      }
+      if (current == null) {
+        Pending batch = new Pending(patch, actorId);
+        unfinished.add(batch);
+        stripe(id).schedule(() -> flush(id, batch), windowMs, TimeUnit.MILLISECONDS);
+        current = batch;
+      } else {
+        current.patch = merge(current.patch, patch);
+        coalescedEdits.increment();
+      }
+      current.waiters.add(result);
+      return current;
+    });
+    return result;
+  }
+
+  /** Same ticket, same thread: its batches can't overtake each other. */
+  private ScheduledThreadPoolExecutor stripe(UUID ticketId) {
+    return stripes[Math.floorMod(ticketId.hashCode(), stripes.length)];
+  }
+
+  private void flush(UUID ticketId, Pending batch) {
+    // Already written out if another user's edit came in meanwhile
+    if (pending.remove(ticketId, batch)) {
+      writeBatch(ticketId, batch);
+    }
+  }
+
+  private void writeBatch(UUID ticketId, Pending batch) {
+    flushes.increment();
+    try {
+      Ticket saved = null;
+      TicketRequest patch = batch.patch;
+      TicketRequest seen = null;
+      for (int attempt = 1; saved == null; attempt++) {
+        Ticket ticket = ticketRepository.findById(ticketId)
+            .orElseThrow(() -> new RuntimeException("Ticket not found"));
+        if (seen != null) {
+          patch = withoutChangesSince(patch, seen, ticket);
+        }
+        seen = fieldsOf(ticket);
+        try {
+          saved = write(ticket, patch, batch.actorId);
+        } catch (ObjectOptimisticLockingFailureException e) {
+          if (attempt == MAX_ATTEMPTS) {
+            throw e;
+          }
+          log.debug("Concurrent update on ticket {}, reapplying coalesced edit", ticketId);
+        }
+      }
+      Ticket result = saved;
+      batch.waiters.forEach(waiter -> waiter.complete(result));
+    } catch (RuntimeException e) {
+      batch.waiters.forEach(waiter -> waiter.completeExceptionally(e));
+    } finally {
+      unfinished.remove(batch);
+    }
+  }
+
+  private static TicketRequest fieldsOf(Ticket ticket) {
+    return new TicketRequest(ticket.getTitle(), ticket.getDescription(), ticket.getPriority(), ticket.getStatus(),
+        null, ticket.getAgentId(), null);
+  }
+
+  /** Drops the edited fields that the conflicting writer changed after {@code seen}; its values are newer. */
+  static TicketRequest withoutChangesSince(TicketRequest patch, TicketRequest seen, Ticket fresh) {
+    return new TicketRequest(
+        Objects.equals(seen.title(), fresh.getTitle()) ? patch.title() : null,
+        Objects.equals(seen.description(), fresh.getDescription()) ? patch.description() : null,
+        seen.priority() == fresh.getPriority() ? patch.priority() : null,
+        seen.status() == fresh.getStatus() ? patch.status() : null,
+        patch.customerId(),
+        Objects.equals(seen.agentId(), fresh.getAgentId()) ? patch.agentId() : null,
+        null);
+  }
+
+  private Ticket write(Ticket ticket, TicketRequest patch, UUID actorId) {
+    // The UPDATE is guarded by the same version (@Version), so this can't pass on a stale copy
+    if (patch.version() != null && !patch.version().equals(ticket.getVersion())) {
+      throw new ObjectOptimisticLockingFailureException(Ticket.class, ticket.getId());
+    }
+    TicketHistoryService.Snapshot before = TicketHistoryService.Snapshot.of(ticket);
+    apply(ticket, patch);
+    Ticket updated = ticketHistoryService.save(ticket, before, actorId);
+    eventPublisher.publishEvent(TicketEvent.of(TicketEvent.Type.TICKET_UPDATED, updated));
+    return updated;
+  }
+
+  private static void apply(Ticket ticket, TicketRequest patch) {
+    if (patch.agentId() != null)
+      ticket.setAgentId(patch.agentId());
+    if (patch.title() != null)
+      ticket.setTitle(patch.title());
+    if (patch.description() != null)
+      ticket.setDescription(patch.description());
+    if (patch.priority() != null)
+      ticket.setPriority(patch.priority());
+    if (patch.status() != null)
+      ticket.setStatus(patch.status());
+  }
+
+  /** Field-wise merge where the later edit wins. */
+  static TicketRequest merge(TicketRequest earlier, TicketRequest later) {
+    return new TicketRequest(
+        later.title() != null ? later.title() : earlier.title(),
+        later.description() != null ? later.description() : earlier.description(),
+        later.priority() != null ? later.priority() : earlier.priority(),
+        later.status() != null ? later.status() : earlier.status(),
+        later.customerId() != null ? later.customerId() : earlier.customerId(),
+        later.agentId() != null ? later.agentId() : earlier.agentId(),
+        null);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    // Write out anything still waiting for its window, behind what its stripe already queued
+    pending.forEach((id, batch) -> stripe(id).execute(() -> flush(id, batch)));
+    for (ScheduledThreadPoolExecutor stripe : stripes) {
+      stripe.shutdown();
+    }
+    try {
+      for (ScheduledThreadPoolExecutor stripe : stripes) {
+        stripe.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (ScheduledThreadPoolExecutor stripe : stripes) {
+      stripe.shutdownNow();
+    }
+    // Never leave a caller waiting on a write that won't happen
+    IllegalStateException stopped = new IllegalStateException("Ticket writes stopped before this edit was saved");
+    unfinished.forEach(batch -> batch.waiters.forEach(waiter -> waiter.completeExceptionally(stopped)));
+  }
+}
@@ -0,0 +1,198 @@
+package com.trinket.trinketos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.trinket.trinketos.dto.TimeGranularity;
+import com.trinket.trinketos.dto.TimePeriod;
+import com.trinket.trinketos.dto.TimeSeriesPoint;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.realtime.TicketEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Created/resolved/backlog series bucketed with {@code date_trunc}, gap-filled
+ * in Java. Buckets that ended before the current one are cached (LRU), so a
+ * repeated request only queries the open bucket. Reopening, deleting or
+ * archiving a ticket rewrites closed buckets, so ticket changes of an
+ * organization, local or from other nodes, bump its generation: entries of
+ * older generations are never read again and age out of the LRU.
+ */
+@Service
+public class TimeSeriesService {
+
+  /** Visibility scope: org-wide when teamId is null, otherwise team OR team categories. */
+  public record Scope(UUID teamId, List<String> categories) {
+    public static final Scope ORGANIZATION = new Scope(null, List.of());
+
+    private String key() {
+      return teamId == null ? "*" : teamId + ":" + categories.stream().sorted().toList();
+    }
+  }
+
+  private record BucketKey(UUID organizationId, long generation, String scope, TimeGranularity granularity,
+      LocalDateTime bucket) {
+  }
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final int maxPoints;
+  private final Cache<BucketKey, TimeSeriesPoint> closedBuckets;
+  private final Map<UUID, Long> generations = new ConcurrentHashMap<>();
+
+  public TimeSeriesService(
+      NamedParameterJdbcTemplate jdbcTemplate,
+      @Value("${application.analytics.timeseries.max-points:1000}") int maxPoints,
+      @Value("${application.analytics.timeseries.cache-size:200000}") int cacheSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.maxPoints = maxPoints;
+    this.closedBuckets = Caffeine.newBuilder().maximumSize(cacheSize).build();
+  }
+
+  @Transactional(readOnly = true)
+  public List<TimeSeriesPoint> timeSeries(UUID organizationId, Scope scope, TimePeriod range,
+      TimeGranularity granularity) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime first = truncate(AnalyticsService.calculateStartDate(range), granularity);
+    LocalDateTime open = truncate(now, granularity);
+
+    List<LocalDateTime> buckets = new ArrayList<>();
+    for (LocalDateTime b = first; !b.isAfter(open); b = next(b, granularity)) {
+      buckets.add(b);
+      if (buckets.size() > maxPoints) {
+        throw new IllegalArgumentException("Intervalo muito grande para a granularidade " + granularity
+            + " (máximo de " + maxPoints + " pontos)");
+      }
+    }
+
+    // Serve the cached prefix of closed buckets, query the rest
+    // Read before querying, so points computed across a concurrent change are stored under the old generation
+    long generation = generations.getOrDefault(organizationId, 0L);
+    String scopeKey = scope.key();
+    List<TimeSeriesPoint> points = new ArrayList<>(buckets.size());
+    for (LocalDateTime bucket : buckets) {
+      TimeSeriesPoint cached = closedBuckets.getIfPresent(
+          new BucketKey(organizationId, generation, scopeKey, granularity, bucket));
+      if (cached == null) {
+        break;
+      }
+      points.add(cached);
+    }
+    if (points.size() == buckets.size()) {
+      return points;
+    }
+
+    LocalDateTime queryFrom = buckets.get(points.size());
+    long backlog = points.isEmpty()
+        ? backlogAt(organizationId, scope, queryFrom)
+        : points.get(points.size() - 1).backlog();
+    Map<LocalDateTime, Long> created = countByBucket("created_at", organizationId, scope, granularity, queryFrom);
+    Map<LocalDateTime, Long> resolved = countByBucket("resolved_at", organizationId, scope, granularity, queryFrom);
+
+    for (LocalDateTime bucket : buckets.subList(points.size(), buckets.size())) {
+      long c = created.getOrDefault(bucket, 0L);
+      long r = resolved.getOrDefault(bucket, 0L);
+      backlog += c - r;
+      TimeSeriesPoint point = new TimeSeriesPoint(bucket, c, r, backlog);
+      points.add(point);
+      if (bucket.isBefore(open)) {
+        closedBuckets.put(new BucketKey(organizationId, generation, scopeKey, granularity, bucket), point);
+      }
+    }
+    return points;
+  }
+
+  /** Makes the organization's cached buckets unreachable; the LRU drops them. */
+  public void invalidate(UUID organizationId) {
+    generations.merge(organizationId, 1L, Long::sum);
+  }
+
+  /** New tickets only touch the open bucket; updates (reopen) and deletes rewrite closed ones. */
+  @TransactionalEventListener(fallbackExecution = true)
+  void onTicketEvent(TicketEvent event) {
+    if (event.type() != TicketEvent.Type.TICKET_CREATED) {
+      invalidate(event.organizationId());
+    }
+  }
+
+  /** Ticket changes on other nodes, when application.cache-invalidation is on. */
+  @EventListener
+  void onCacheInvalidation(CacheInvalidation invalidation) {
+    if (invalidation.isAll()) {
+      closedBuckets.invalidateAll();
+    } else if (invalidation.kind() == CacheInvalidation.Kind.TICKET && invalidation.organizationId() != null) {
+      invalidate(invalidation.organizationId());
+    }
+  }
+
+  private Map<LocalDateTime, Long> countByBucket(String column, UUID organizationId, Scope scope,
+      TimeGranularity granularity, LocalDateTime from) {
+    MapSqlParameterSource params = params(organizationId, scope).addValue("from", Timestamp.valueOf(from));
+    String unit = granularity.name().toLowerCase();
+    String sql = "SELECT date_trunc('" + unit + "', t." + column + ") AS bucket, count(*) AS total FROM tickets t"
+        + " WHERE t.organization_id = :organizationId AND t." + column + " >= :from" + visibility(scope)
+        + " GROUP BY 1";
+    Map<LocalDateTime, Long> counts = new HashMap<>();
+    jdbcTemplate.query(sql, params, rs -> {
+      counts.put(rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("total"));
+    });
+    return counts;
+  }
+
+  /** Tickets created before {@code at} and not yet resolved at that instant. */
+  private long backlogAt(UUID organizationId, Scope scope, LocalDateTime at) {
+    MapSqlParameterSource params = params(organizationId, scope).addValue("at", Timestamp.valueOf(at));
+    String sql = "SELECT count(*) FROM tickets t WHERE t.organization_id = :organizationId"
+        + " AND t.created_at < :at AND (t.resolved_at IS NULL OR t.resolved_at >= :at)" + visibility(scope);
+    Long backlog = jdbcTemplate.queryForObject(sql, params, Long.class);
+    return backlog != null ? backlog : 0;
+  }
+
+  private static MapSqlParameterSource params(UUID organizationId, Scope scope) {
+    return new MapSqlParameterSource()
+        .addValue("organizationId", organizationId)
+        .addValue("teamId", scope.teamId())
+        .addValue("categories", scope.categories());
+  }
+
+  private static String visibility(Scope scope) {
+    if (scope.teamId() == null) {
+      return "";
+    }
+    return scope.categories().isEmpty()
+        ? " AND t.team_id = :teamId"
+        : " AND (t.team_id = :teamId OR t.category IN (:categories))";
+  }
+
+  private static LocalDateTime truncate(LocalDateTime time, TimeGranularity granularity) {
+    return switch (granularity) {
+      case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+      case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+      case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    };
+  }
+
+  private static LocalDateTime next(LocalDateTime bucket, TimeGranularity granularity) {
+    return switch (granularity) {
+      case HOUR -> bucket.plusHours(1);
+      case DAY -> bucket.plusDays(1);
+      case WEEK -> bucket.plusWeeks(1);
+    };
+  }
+}
@@ -0,0 +1,20 @@
+package com.trinket.trinketos.util;
+
+public class AiErrors {
+
+  /**
+   * Gemini quota errors surface as generic runtime exceptions, so the only
+   * signal is the message somewhere in the cause chain.
+   */
+  public static boolean isQuotaExceeded(Throwable ex) {
+    for (Throwable t = ex; t != null; t = t.getCause()) {
+      String message = t.getMessage();
+      if (message != null && (message.contains("Quota exceeded")
+          || message.contains("Too Many Requests")
+          || message.contains("429"))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
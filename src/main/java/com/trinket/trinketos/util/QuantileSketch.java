@@ -0,0 +1,130 @@
+package com.trinket.trinketos.util;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch-style
+ * log buckets). Any quantile is returned within {@code relativeAccuracy} of
+ * the true value, and two sketches built with the same accuracy merge
+ * losslessly, so daily sketches can be combined into any reporting window.
+ *
+ * Only occupied buckets are stored, so a sketch costs about 12 bytes per
+ * distinct bucket and never more than {@code maxBins} of them. Past that the
+ * lowest buckets are collapsed, which only degrades the low quantiles.
+ */
+public class QuantileSketch {
+
+  private final double gamma;
+  private final double logGamma;
+  private final int maxBins;
+
+  private long zeroCount;
+  private long count;
+  private int size;
+  private int[] indexes = new int[4];
+  private long[] counts = new long[4];
+
+  public QuantileSketch(double relativeAccuracy, int maxBins) {
+    this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+    this.logGamma = Math.log(gamma);
+    this.maxBins = maxBins;
+  }
+
+  public void add(double value) {
+    add(value, 1);
+  }
+
+  public synchronized void add(double value, long times) {
+    if (times <= 0) {
+      return;
+    }
+    if (value < 1) {
+      zeroCount += times;
+      count += times;
+      return;
+    }
+    addToBucket((int) Math.ceil(Math.log(value) / logGamma), times);
+  }
+
+  /** Folds {@code other} into this sketch; both must use the same accuracy. */
+  public void merge(QuantileSketch other) {
+    if (other.gamma != gamma) {
+      throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+    }
+    long otherZeroCount;
+    int[] otherIndexes;
+    long[] otherCounts;
+    synchronized (other) {
+      otherZeroCount = other.zeroCount;
+      otherIndexes = Arrays.copyOf(other.indexes, other.size);
+      otherCounts = Arrays.copyOf(other.counts, other.size);
+    }
+    synchronized (this) {
+      zeroCount += otherZeroCount;
+      count += otherZeroCount;
+      for (int i = 0; i < otherIndexes.length; i++) {
+        addToBucket(otherIndexes[i], otherCounts[i]);
+      }
+    }
+  }
+
+  public synchronized long count() {
+    return count;
+  }
+
+  /** Estimated value at quantile {@code q} in [0, 1], or 0 when empty. */
+  public synchronized double quantile(double q) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = (long) Math.floor(q * (count - 1));
+    long seen = zeroCount;
+    if (rank < seen) {
+      return 0;
+    }
+    for (int i = 0; i < size; i++) {
+      seen += counts[i];
+      if (seen > rank) {
+        return valueOf(indexes[i]);
+      }
+    }
+    return valueOf(indexes[size - 1]);
+  }
+
+  private double valueOf(int index) {
+    return 2 * Math.pow(gamma, index) / (gamma + 1);
+  }
+
+  private void addToBucket(int index, long times) {
+    count += times;
+    int position = Arrays.binarySearch(indexes, 0, size, index);
+    if (position >= 0) {
+      counts[position] += times;
+      return;
+    }
+    position = -position - 1;
+    if (size == maxBins) {
+      if (position == 0) {
+        // Below every kept bucket: fold into the lowest one
+        counts[0] += times;
+        return;
+      }
+      // Collapse the two lowest buckets to make room
+      counts[1] += counts[0];
+      System.arraycopy(indexes, 1, indexes, 0, size - 1);
+      System.arraycopy(counts, 1, counts, 0, size - 1);
+      size--;
+      position--;
+    }
+    if (size == indexes.length) {
+      int capacity = Math.min(maxBins, size * 2);
+      indexes = Arrays.copyOf(indexes, capacity);
+      counts = Arrays.copyOf(counts, capacity);
+    }
+    System.arraycopy(indexes, position, indexes, position + 1, size - position);
+    System.arraycopy(counts, position, counts, position + 1, size - position);
+    indexes[position] = index;
+    counts[position] = times;
+    size++;
+  }
+}
@@ -0,0 +1,45 @@
+package com.trinket.trinketos.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Word tokens for in-process text models: accents stripped, lower-cased,
+ * split on anything that isn't a letter or digit, with one-letter tokens and
+ * common Portuguese/English stopwords dropped.
+ */
+public final class TextTokenizer {
+
+  private static final Set<String> STOPWORDS = Set.of(
+      "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas", "um", "uma", "uns", "umas", "o", "os",
+      "as", "e", "ou", "que", "se", "por", "para", "pra", "com", "sem", "ao", "aos", "mas", "como", "mais",
+      "meu", "minha", "seu", "sua", "ele", "ela", "eu", "voce", "isso", "esta", "este", "esse", "essa", "ja",
+      "nao", "sim", "foi", "ser", "ter", "tem", "ha", "me", "te", "lhe", "quando", "muito", "tambem",
+      "the", "a", "an", "and", "or", "of", "to", "in", "on", "for", "is", "it", "my", "with", "not", "be",
+      "this", "that", "at", "i");
+
+  private TextTokenizer() {
+    throw new IllegalStateException("Utility class");
+  }
+
+  public static List<String> tokenize(String... parts) {
+    List<String> tokens = new ArrayList<>();
+    for (String part : parts) {
+      if (part == null || part.isBlank()) {
+        continue;
+      }
+      String normalized = Normalizer.normalize(part, Normalizer.Form.NFD)
+          .replaceAll("\\p{M}", "")
+          .toLowerCase(Locale.ROOT);
+      for (String token : normalized.split("[^\\p{L}\\p{N}]+")) {
+        if (token.length() > 1 && !STOPWORDS.contains(token)) {
+          tokens.add(token);
+        }
+      }
+    }
+    return tokens;
+  }
+}
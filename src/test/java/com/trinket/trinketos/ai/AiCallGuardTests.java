@@ -0,0 +1,127 @@
+package com.trinket.trinketos.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiCallGuardTests {
+
+	private AiCallGuard guard(long timeoutMs, int windowSize, long openDurationMs, int initialLimit) {
+		return new AiCallGuard(new SimpleMeterRegistry(), timeoutMs, windowSize, 0.5, openDurationMs,
+				initialLimit, 1, 32, 1000);
+	}
+
+	@Test
+	void slowCallTimesOut() {
+		AiCallGuard guard = guard(50, 20, 30000, 8);
+		long start = System.nanoTime();
+
+		assertThrows(AiUnavailableException.class, () -> guard.call(() -> sleep(2000)));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+	}
+
+	@Test
+	void failingModelOpensCircuitAndFailsFast() {
+		AiCallGuard guard = guard(1000, 4, 30000, 8);
+		for (int i = 0; i < 4; i++) {
+			assertThrows(IllegalStateException.class, () -> guard.call(() -> {
+				throw new IllegalStateException("stub failure");
+			}));
+		}
+
+		assertFalse(guard.isCircuitClosed());
+		AiUnavailableException ex = assertThrows(AiUnavailableException.class, () -> guard.call(() -> "ok"));
+		assertEquals("AI circuit open", ex.getMessage());
+	}
+
+	@Test
+	void halfOpenProbeClosesCircuit() {
+		long[] now = { 0 };
+		CircuitBreaker breaker = new CircuitBreaker(2, 0.5, 100, () -> now[0]);
+		breaker.onFailure();
+		breaker.onFailure();
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+
+		now[0] = TimeUnit.MILLISECONDS.toNanos(150);
+		assertTrue(breaker.tryAcquire());
+		assertFalse(breaker.tryAcquire());
+		breaker.onSuccess();
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	@Test
+	void interruptedProbeReleasesHalfOpenCircuit() throws Exception {
+		AiCallGuard guard = guard(5000, 2, 50, 8);
+		for (int i = 0; i < 2; i++) {
+			assertThrows(IllegalStateException.class, () -> guard.call(() -> {
+				throw new IllegalStateException("stub failure");
+			}));
+		}
+		Thread.sleep(100);
+
+		CountDownLatch probing = new CountDownLatch(1);
+		Thread probe = Thread.ofVirtual().start(() -> assertThrows(AiUnavailableException.class,
+				() -> guard.call(() -> {
+					probing.countDown();
+					return sleep(2000);
+				})));
+		probing.await();
+		probe.interrupt();
+		probe.join();
+
+		assertEquals("ok", guard.call(() -> "ok"));
+		assertTrue(guard.isCircuitClosed());
+	}
+
+	@Test
+	void concurrencyLimitRejectsExcessCalls() throws Exception {
+		AiCallGuard guard = guard(5000, 20, 30000, 1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread inFlight = Thread.ofVirtual().start(() -> guard.call(() -> {
+			started.countDown();
+			await(release);
+			return "ok";
+		}));
+		started.await();
+
+		assertThrows(AiUnavailableException.class, () -> guard.call(() -> "ok"));
+		release.countDown();
+		inFlight.join();
+		assertEquals("ok", guard.call(() -> "ok"));
+	}
+
+	@Test
+	void limiterBacksOffOnSlowCalls() {
+		AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter(10, 1, 32, 0.5, 100);
+		limiter.onSample(TimeUnit.MILLISECONDS.toNanos(500), false);
+		assertEquals(5, limiter.getLimit());
+		limiter.onSample(0, true);
+		assertEquals(2, limiter.getLimit());
+	}
+
+	private static String sleep(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "late";
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
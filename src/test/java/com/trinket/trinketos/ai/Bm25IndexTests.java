@@ -0,0 +1,83 @@
+package com.trinket.trinketos.ai;
+
+import com.trinket.trinketos.util.TextTokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTests {
+
+	@Test
+	void ranksByTermOverlapAcrossSegmentsAndBuffer() {
+		Bm25Index index = new Bm25Index(2, 8, 100);
+		UUID vpn = UUID.randomUUID();
+		UUID printer = UUID.randomUUID();
+		UUID vpnPassword = UUID.randomUUID();
+		index.add(vpn, TextTokenizer.tokenize("VPN não conecta", "Reinstalar o cliente da VPN"));
+		index.add(printer, TextTokenizer.tokenize("Impressora offline", "Reiniciar o spooler"));
+		index.add(vpnPassword, TextTokenizer.tokenize("Senha expirada", "Redefinir senha no portal"));
+
+		List<Bm25Index.Hit> hits = index.search(TextTokenizer.tokenize("VPN caiu", "cliente vpn travado"), 5, null);
+		assertEquals(vpn, hits.getFirst().id());
+		assertEquals(1, hits.size());
+
+		assertEquals(vpnPassword, index.search(TextTokenizer.tokenize("esqueci a senha"), 5, null).getFirst().id());
+		assertTrue(index.search(TextTokenizer.tokenize("VPN"), 5, vpn).isEmpty());
+	}
+
+	@Test
+	void replacedAndRemovedDocumentsAreNotReturned() {
+		Bm25Index index = new Bm25Index(2, 8, 100);
+		UUID ticket = UUID.randomUUID();
+		index.add(ticket, TextTokenizer.tokenize("Impressora", "toner vazio"));
+		index.add(UUID.randomUUID(), TextTokenizer.tokenize("Outro", "assunto"));
+		index.add(ticket, TextTokenizer.tokenize("Impressora", "papel atolado"));
+
+		assertTrue(index.search(TextTokenizer.tokenize("toner"), 5, null).isEmpty());
+		assertEquals(ticket, index.search(TextTokenizer.tokenize("papel"), 5, null).getFirst().id());
+
+		index.remove(ticket);
+		assertFalse(index.contains(ticket));
+		assertTrue(index.search(TextTokenizer.tokenize("impressora"), 5, null).isEmpty());
+	}
+
+	@Test
+	void churnDoesNotTurnTermWeightsNegative() {
+		Bm25Index index = new Bm25Index(2, 64, 1000);
+		UUID edited = UUID.randomUUID();
+		UUID other = UUID.randomUUID();
+		index.add(other, TextTokenizer.tokenize("Impressora", "toner vazio"));
+		// Dead copies stay in the segments until a merge
+		for (int i = 0; i < 20; i++) {
+			index.add(edited, TextTokenizer.tokenize("Impressora", "papel atolado " + i));
+		}
+
+		List<Bm25Index.Hit> hits = index.search(TextTokenizer.tokenize("impressora"), 5, null);
+		assertEquals(2, hits.size());
+		assertTrue(hits.stream().allMatch(hit -> hit.score() > 0));
+	}
+
+	@Test
+	void mergingAndEvictionBoundMemory() {
+		Bm25Index index = new Bm25Index(16, 4, 1000);
+		List<UUID> ids = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			UUID id = UUID.randomUUID();
+			ids.add(id);
+			index.add(id, TextTokenizer.tokenize("Ticket " + i, "erro código e" + (i % 50)));
+		}
+
+		assertTrue(index.storedDocuments() <= 1000 + 16, "stored " + index.storedDocuments());
+		assertTrue(index.segments() <= 8, "segments " + index.segments());
+		// Oldest tickets are the ones dropped
+		assertFalse(index.contains(ids.getFirst()));
+		assertTrue(index.contains(ids.getLast()));
+		assertEquals(ids.getLast(), index.search(TextTokenizer.tokenize("ticket 4999"), 1, null).getFirst().id());
+	}
+}
@@ -0,0 +1,108 @@
+package com.trinket.trinketos.ai;
+
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.util.TextTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ResolvedTicketIndexTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	/** Runs once, when the next connection is given back: after the build's load, before it installs the index. */
+	private final AtomicReference<Runnable> afterLoad = new AtomicReference<>();
+	private SessionFactory sessionFactory;
+	private ResolvedTicketIndex index;
+
+	@BeforeEach
+	void setUp() {
+		String url = "jdbc:h2:mem:similar-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(Ticket.class)
+				.addAnnotatedClass(TicketAiAnalysis.class)
+				.setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+				.buildSessionFactory();
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL(url);
+		DelegatingDataSource dataSource = new DelegatingDataSource(h2) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				Connection connection = super.getConnection();
+				return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+						(proxy, method, args) -> {
+							Object result = method.invoke(connection, args);
+							Runnable hook = method.getName().equals("close") ? afterLoad.getAndSet(null) : null;
+							if (hook != null) {
+								hook.run();
+							}
+							return result;
+						});
+			}
+		};
+		index = new ResolvedTicketIndex(JdbcClient.create(dataSource), new DataSourceTransactionManager(dataSource),
+				mock(EntityManagerFactory.class), new SimpleMeterRegistry(), true, 1000, 16, 8);
+	}
+
+	@AfterEach
+	void tearDown() {
+		index.stop();
+		sessionFactory.close();
+	}
+
+	@Test
+	void ticketsResolvedDuringTheFirstBuildAreIndexed() throws Exception {
+		Ticket earlier = ticket("Impressora sem toner", TicketStatus.RESOLVED);
+		Ticket resolvedDuringBuild = ticket("Impressora com papel atolado", TicketStatus.IN_PROGRESS);
+		afterLoad.set(() -> {
+			resolvedDuringBuild.setStatus(TicketStatus.RESOLVED);
+			sessionFactory.inTransaction(session -> session.merge(resolvedDuringBuild));
+			index.onPostUpdate(new PostUpdateEvent(resolvedDuringBuild, resolvedDuringBuild.getId(), null, null, null,
+					null, null));
+		});
+
+		List<String> query = TextTokenizer.tokenize("impressora");
+		index.search(organizationId, null, query, 5);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (index.search(organizationId, null, query, 5).size() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(20);
+		}
+
+		assertEquals(2, index.search(organizationId, null, query, 5).size(),
+				"ticket resolved while the index was being built is missing");
+		assertEquals(earlier.getId(), index.search(organizationId, null, TextTokenizer.tokenize("toner"), 5)
+				.getFirst().id());
+	}
+
+	private Ticket ticket(String title, TicketStatus status) {
+		Ticket ticket = Ticket.builder().code("TKT-" + UUID.randomUUID().toString().substring(0, 8)).title(title)
+				.description("Usuário relata problema").status(status).organizationId(organizationId).build();
+		sessionFactory.inTransaction(session -> session.persist(ticket));
+		return ticket;
+	}
+}
@@ -0,0 +1,167 @@
+package com.trinket.trinketos.ai;
+
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketHistoryEntry;
+import com.trinket.trinketos.model.TicketHistoryType;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.repository.CategoryRepository;
+import com.trinket.trinketos.util.TextTokenizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TicketPreClassifierTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+	private TicketPreClassifier classifier;
+
+	@BeforeEach
+	void setUp() {
+		classifier = new TicketPreClassifier(mock(JdbcTemplate.class), mock(PlatformTransactionManager.class),
+				mock(EntityManagerFactory.class), categoryRepository, meters, true, 0.9, 0.9, 20, 1000);
+		when(categoryRepository.findByOrganizationId(organizationId)).thenReturn(List.of(
+				Category.builder().name("Financeiro").organizationId(organizationId).build(),
+				Category.builder().name("Acesso").organizationId(organizationId).build()));
+	}
+
+	@Test
+	void confidentPredictionsSkipTheLlm() {
+		TicketPreClassifier.EvaluationReport report = classifier.fit(organizationId, examples(50));
+		assertTrue(report.autoClassifying());
+		assertEquals(20, report.heldOutTickets());
+
+		TicketPreClassifier.Classification billing = classifier
+				.classify(organizationId, "Boleto da fatura", "A cobrança veio duplicada").orElseThrow();
+		assertEquals("Financeiro", billing.category());
+		assertEquals(Priority.LOW, billing.priority());
+
+		TicketPreClassifier.Classification access = classifier
+				.classify(organizationId, "Não consigo fazer login", "Senha bloqueada, sem acesso").orElseThrow();
+		assertEquals("Acesso", access.category());
+		assertEquals(Priority.HIGH, access.priority());
+	}
+
+	@Test
+	void unknownTextAndDeletedCategoriesGoToTheLlm() {
+		classifier.fit(organizationId, examples(50));
+
+		assertFalse(classifier.classify(organizationId, "Impressora", "Papel atolado").isPresent());
+
+		when(categoryRepository.findByOrganizationId(organizationId)).thenReturn(List.of());
+		assertFalse(classifier.classify(organizationId, "Boleto", "fatura cobrança").isPresent());
+		assertEquals(2, meters.get("trinketos.ai.preclassifier.decisions").tag("result", "llm").counter().count());
+	}
+
+	@Test
+	void smallHistoriesAreNotTrusted() {
+		TicketPreClassifier.EvaluationReport report = classifier.fit(organizationId, examples(5));
+
+		assertFalse(report.autoClassifying());
+		assertFalse(classifier.classify(organizationId, "Boleto", "fatura cobrança").isPresent());
+	}
+
+	@Test
+	void ownUncorrectedLabelsAreLeftOutOfTraining() {
+		String url = "jdbc:h2:mem:preclassifier-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		try (SessionFactory sessionFactory = new Configuration()
+				.addAnnotatedClass(Ticket.class)
+				.addAnnotatedClass(TicketAiAnalysis.class)
+				.addAnnotatedClass(TicketHistoryEntry.class)
+				.addAnnotatedClass(User.class)
+				.setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+				.buildSessionFactory()) {
+			List<UUID> learned = new ArrayList<>();
+			List<UUID> skipped = new ArrayList<>();
+			sessionFactory.inTransaction(session -> {
+				User agent = user(session, Role.ROLE_AGENT);
+				User customer = user(session, Role.ROLE_CUSTOMER);
+				learned.add(resolved(session, "llm-model").getId());
+				learned.add(resolved(session, null).getId());
+				skipped.add(resolved(session, TicketPreClassifier.MODEL_ID).getId());
+				Ticket corrected = resolved(session, TicketPreClassifier.MODEL_ID);
+				priorityChange(session, corrected, agent);
+				learned.add(corrected.getId());
+				Ticket changedByCustomer = resolved(session, TicketPreClassifier.MODEL_ID);
+				priorityChange(session, changedByCustomer, customer);
+				skipped.add(changedByCustomer.getId());
+			});
+
+			JdbcDataSource dataSource = new JdbcDataSource();
+			dataSource.setURL(url);
+			TicketPreClassifier classifier = new TicketPreClassifier(new JdbcTemplate(dataSource),
+					new DataSourceTransactionManager(dataSource), mock(EntityManagerFactory.class), categoryRepository,
+					meters, true, 0.9, 0.9, 20, 1000);
+
+			assertEquals(3, classifier.load(organizationId).size());
+			learned.forEach(id -> assertTrue(classifier.isAgentLabelled(id), id::toString));
+			skipped.forEach(id -> assertFalse(classifier.isAgentLabelled(id), id::toString));
+		}
+	}
+
+	private Ticket resolved(Session session, String modelId) {
+		Ticket ticket = Ticket.builder().code("TKT-" + UUID.randomUUID().toString().substring(0, 8))
+				.title("Boleto duplicado").description("cobrança em dobro").category("Financeiro")
+				.priority(Priority.LOW).status(TicketStatus.RESOLVED).organizationId(organizationId).build();
+		session.persist(ticket);
+		if (modelId != null) {
+			session.persist(TicketAiAnalysis.builder().ticket(ticket).modelId(modelId)
+					.analyzedAt(LocalDateTime.now()).build());
+		}
+		return ticket;
+	}
+
+	private void priorityChange(Session session, Ticket ticket, User actor) {
+		session.persist(TicketHistoryEntry.builder().ticketId(ticket.getId()).organizationId(organizationId)
+				.type(TicketHistoryType.PRIORITY_CHANGED).fromValue("HIGH").toValue("LOW").actorId(actor.getId())
+				.occurredAt(LocalDateTime.now()).build());
+	}
+
+	private User user(Session session, Role role) {
+		User user = User.builder().name(role.name()).email(role + "@trinket.test").password("").role(role)
+				.organizationId(organizationId).build();
+		session.persist(user);
+		return user;
+	}
+
+	/** Oldest first, alternating between two easily separable kinds of ticket. */
+	private static List<TicketPreClassifier.Example> examples(int pairs) {
+		List<TicketPreClassifier.Example> examples = new ArrayList<>();
+		for (int i = 0; i < pairs; i++) {
+			examples.add(new TicketPreClassifier.Example(
+					TextTokenizer.tokenize("Fatura " + i, "boleto cobrança pagamento"), "Financeiro", Priority.LOW));
+			examples.add(new TicketPreClassifier.Example(
+					TextTokenizer.tokenize("Login " + i, "senha acesso bloqueado"), "Acesso", Priority.HIGH));
+		}
+		return examples;
+	}
+}
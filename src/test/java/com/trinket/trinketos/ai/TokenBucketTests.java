@@ -0,0 +1,36 @@
+package com.trinket.trinketos.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	@Test
+	void refillsOverTime() {
+		long[] now = { 0 };
+		TokenBucket bucket = new TokenBucket(2, 1, () -> now[0]);
+
+		assertTrue(bucket.tryConsume());
+		assertTrue(bucket.tryConsume());
+		assertFalse(bucket.tryConsume());
+
+		now[0] = 1_000_000_000L;
+		assertTrue(bucket.tryConsume());
+		assertFalse(bucket.tryConsume());
+	}
+
+	@Test
+	void refusalTellsWhenTheNextTokenArrives() {
+		long[] now = { 0 };
+		TokenBucket bucket = new TokenBucket(1, 2, () -> now[0]);
+
+		assertEquals(0, bucket.tryConsumeOrDelay());
+		assertEquals(500_000_000L, bucket.tryConsumeOrDelay());
+
+		now[0] = 200_000_000L;
+		assertEquals(300_000_000L, bucket.tryConsumeOrDelay());
+	}
+}
@@ -0,0 +1,121 @@
+package com.trinket.trinketos.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeightedFairQueueTests {
+
+	private final UUID large = UUID.randomUUID();
+	private final UUID small = UUID.randomUUID();
+
+	@Test
+	void smallTenantIsNotStuckBehindLargeBacklog() {
+		WeightedFairQueue<String> queue = new WeightedFairQueue<>(1000);
+		for (int i = 0; i < 100; i++) {
+			queue.add(large, 1, "large-" + i);
+		}
+		queue.add(small, 1, "small-0");
+
+		List<String> order = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			order.add(queue.poll(tenant -> 0L));
+		}
+
+		assertTrue(order.contains("small-0"));
+		assertEquals(98, queue.size());
+	}
+
+	@Test
+	void weightsShareThroughput() {
+		WeightedFairQueue<UUID> queue = new WeightedFairQueue<>(1000);
+		for (int i = 0; i < 30; i++) {
+			queue.add(large, 2, large);
+			queue.add(small, 1, small);
+		}
+
+		int largeServed = 0;
+		for (int i = 0; i < 30; i++) {
+			if (large.equals(queue.poll(tenant -> 0L))) {
+				largeServed++;
+			}
+		}
+
+		assertEquals(20, largeServed);
+	}
+
+	@Test
+	void skipsTenantsThatAreNotAdmitted() {
+		WeightedFairQueue<String> queue = new WeightedFairQueue<>(1000);
+		queue.add(large, 1, "large-0");
+		queue.add(small, 1, "small-0");
+
+		assertEquals("small-0", queue.poll(tenant -> small.equals(tenant) ? 0 : 1_000));
+		assertNull(queue.poll(tenant -> small.equals(tenant) ? 0 : 1_000));
+	}
+
+	@Test
+	void throttledTenantsAreNotAskedAgainBeforeTheirRefill() {
+		long[] now = { 0 };
+		WeightedFairQueue<String> queue = new WeightedFairQueue<>(1000, () -> now[0]);
+		queue.add(large, 1, "large-0");
+		Map<UUID, Integer> asked = new HashMap<>();
+		ToLongFunction<UUID> refuse = tenant -> {
+			asked.merge(tenant, 1, Integer::sum);
+			return 6_000_000_000L;
+		};
+
+		assertNull(queue.poll(refuse));
+		now[0] = 5_000_000_000L;
+		assertNull(queue.poll(refuse));
+		assertEquals(1, asked.get(large));
+
+		now[0] = 6_000_000_000L;
+		assertEquals("large-0", queue.poll(tenant -> 0L));
+	}
+
+	@Test
+	void admissionRunsOutsideTheLock() throws Exception {
+		WeightedFairQueue<String> queue = new WeightedFairQueue<>(1000);
+		queue.add(large, 1, "large-0");
+		CountDownLatch admitting = new CountDownLatch(1);
+		CountDownLatch added = new CountDownLatch(1);
+
+		Thread worker = new Thread(() -> queue.poll(tenant -> {
+			admitting.countDown();
+			try {
+				// A slow limiter round trip; producers must not wait on it
+				added.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 0L;
+		}));
+		worker.start();
+		admitting.await(5, TimeUnit.SECONDS);
+		assertTrue(queue.add(small, 1, "small-0"));
+		added.countDown();
+		worker.join(5_000);
+
+		assertEquals(1, queue.size());
+	}
+
+	@Test
+	void rejectsBeyondPerTenantLimit() {
+		WeightedFairQueue<String> queue = new WeightedFairQueue<>(1);
+		assertTrue(queue.add(large, 1, "a"));
+		assertFalse(queue.add(large, 1, "b"));
+	}
+}
@@ -0,0 +1,132 @@
+package com.trinket.trinketos.config;
+
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.DocumentType;
+import com.trinket.trinketos.model.Organization;
+import com.trinket.trinketos.model.Team;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SecondLevelCacheConfigTests {
+
+	private CacheManager cacheManager;
+	private SessionFactory sessionFactory;
+	private Statistics statistics;
+	private UUID organizationId;
+
+	@BeforeEach
+	void setUp() {
+		cacheManager = SecondLevelCacheConfig.createCacheManager(List.of(
+				new SecondLevelCacheConfig.Region("organizations", 100, Duration.ofHours(1)),
+				new SecondLevelCacheConfig.Region("categories", 100, Duration.ofHours(1)),
+				new SecondLevelCacheConfig.Region("teams", 100, Duration.ofHours(1)),
+				new SecondLevelCacheConfig.Region("teams.categories", 100, Duration.ofHours(1)),
+				new SecondLevelCacheConfig.Region(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, 100,
+						Duration.ofMinutes(10))), true);
+
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Organization.class)
+				.addAnnotatedClass(Category.class)
+				.addAnnotatedClass(Team.class);
+		configuration.getProperties().putAll(SecondLevelCacheConfig.hibernateSettings(cacheManager, true, true));
+		configuration.setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:l2c-" + UUID.randomUUID());
+		configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+		sessionFactory = configuration.buildSessionFactory();
+		statistics = sessionFactory.getStatistics();
+
+		organizationId = sessionFactory.fromTransaction(session -> {
+			Organization organization = Organization.builder().name("Acme").slug("acme")
+					.documentType(DocumentType.CNPJ).taxId("00000000000100").build();
+			session.persist(organization);
+			return organization.getId();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		sessionFactory.close();
+		cacheManager.close();
+	}
+
+	@Test
+	void repeatedLookupsSkipTheDatabase() {
+		UUID teamId = createTeam("Suporte", "Billing");
+		sessionFactory.inSession(session -> session.find(Team.class, teamId).getCategories().size());
+		statistics.clear();
+
+		sessionFactory.inSession(session -> session.find(Team.class, teamId).getCategories().size());
+		sessionFactory.inSession(session -> session.find(Organization.class, organizationId));
+
+		assertEquals(0, statistics.getPrepareStatementCount());
+		assertEquals(1, statistics.getDomainDataRegionStatistics("teams").getHitCount());
+		assertEquals(1, statistics.getDomainDataRegionStatistics("teams.categories").getHitCount());
+	}
+
+	@Test
+	void adminWritesAreVisibleOnTheNextRead() {
+		UUID teamId = createTeam("Suporte", "Billing");
+		sessionFactory.inSession(session -> session.find(Team.class, teamId).getCategories().size());
+
+		sessionFactory.inTransaction(session -> {
+			Team team = session.find(Team.class, teamId);
+			Category network = Category.builder().name("Network").organizationId(organizationId).build();
+			session.persist(network);
+			team.setName("Suporte N2");
+			team.getCategories().add(network);
+		});
+
+		sessionFactory.inSession(session -> {
+			Team team = session.find(Team.class, teamId);
+			assertEquals("Suporte N2", team.getName());
+			assertEquals(Set.of("Billing", "Network"),
+					Set.copyOf(team.getCategories().stream().map(Category::getName).toList()));
+		});
+	}
+
+	@Test
+	void cachedQueriesAreInvalidatedByInserts() {
+		createTeam("Suporte", "Billing");
+		assertEquals(1, categoriesOfOrganization().size());
+		assertEquals(1, categoriesOfOrganization().size());
+		assertEquals(1, statistics.getQueryCacheHitCount());
+
+		sessionFactory.inTransaction(session -> session.persist(
+				Category.builder().name("Network").organizationId(organizationId).build()));
+
+		assertEquals(2, categoriesOfOrganization().size());
+	}
+
+	private List<Category> categoriesOfOrganization() {
+		return sessionFactory.fromSession(session -> session
+				.createSelectionQuery("from Category where organizationId = :organizationId", Category.class)
+				.setParameter("organizationId", organizationId)
+				.setCacheable(true)
+				.getResultList());
+	}
+
+	private UUID createTeam(String name, String categoryName) {
+		return sessionFactory.fromTransaction(session -> {
+			Category category = Category.builder().name(categoryName).organizationId(organizationId).build();
+			session.persist(category);
+			Team team = Team.builder().name(name).slug(name.toLowerCase()).organizationId(organizationId)
+					.categories(new HashSet<>(Set.of(category))).build();
+			session.persist(team);
+			return team.getId();
+		});
+	}
+}
@@ -0,0 +1,32 @@
+package com.trinket.trinketos.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityConfigTests {
+
+	@Test
+	void onlyTheScrapeUserReadsMetrics() {
+		AuthenticationManager manager = SecurityConfig.scrapeAuthenticationManager("prometheus", "s3cret");
+
+		Authentication authentication = manager.authenticate(
+				UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "s3cret"));
+		assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_METRICS")));
+		assertThrows(BadCredentialsException.class, () -> manager.authenticate(
+				UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "wrong")));
+	}
+
+	@Test
+	void scrapingIsClosedWithoutAPassword() {
+		AuthenticationManager manager = SecurityConfig.scrapeAuthenticationManager("prometheus", "");
+
+		assertThrows(BadCredentialsException.class, () -> manager.authenticate(
+				UsernamePasswordAuthenticationToken.unauthenticated("prometheus", "")));
+	}
+}
@@ -0,0 +1,179 @@
+package com.trinket.trinketos.controller;
+
+import com.trinket.trinketos.dto.TeamResponse;
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.observability.SqlCountingDataSource;
+import com.trinket.trinketos.observability.SqlStatistics;
+import com.trinket.trinketos.repository.CategoryRepository;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.service.CounterService;
+import com.trinket.trinketos.service.ResourceVersions;
+import jakarta.persistence.EntityManager;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.Repository;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The team listing with member counts over H2: the statement count must not
+ * grow with the number of teams on the page.
+ */
+class TeamControllerTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final Map<UUID, Long> members = new HashMap<>();
+
+	private SessionFactory sessionFactory;
+	private TeamController controller;
+	private User admin;
+
+	@BeforeEach
+	void setUp() {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:teams-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Team.class)
+				.addAnnotatedClass(Category.class)
+				.addAnnotatedClass(User.class)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName());
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, new SqlCountingDataSource(h2));
+		sessionFactory = configuration.buildSessionFactory();
+
+		admin = User.builder().name("Admin").email("admin@trinket.test").password("-").role(Role.ROLE_ADMIN)
+				.organizationId(organizationId).build();
+		sessionFactory.inTransaction(session -> session.persist(admin));
+
+		ResourceVersions resourceVersions = mock(ResourceVersions.class);
+		when(resourceVersions.listTag(any(), any(), any())).thenReturn("W/\"teams\"");
+		controller = new TeamController(repository(TeamRepository.class), repository(UserRepository.class),
+				mock(CategoryRepository.class), mock(CounterService.class), resourceVersions);
+	}
+
+	@AfterEach
+	void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Test
+	void memberCountsTakeTheSameStatementsForAnyNumberOfTeams() throws Exception {
+		int budget = TeamController.class.getMethod("getTeams", Authentication.class, Pageable.class, String.class,
+				boolean.class, String.class, jakarta.servlet.http.HttpServletRequest.class)
+				.getAnnotation(QueryBudget.class).value();
+
+		seed(3);
+		int few = statements(this::listWithMemberCounts);
+		seed(27);
+		List<TeamResponse> teams = new ArrayList<>();
+		int many = statements(() -> teams.addAll(listWithMemberCounts().getContent()));
+
+		assertEquals(few, many);
+		assertTrue(many <= budget, "over the endpoint's query budget of " + budget + ": " + many);
+		assertEquals(30, teams.size());
+		for (TeamResponse team : teams) {
+			assertEquals(members.get(team.id()), team.memberCount(), team.name());
+			assertEquals(1, team.categoryIds().size(), team.name());
+		}
+	}
+
+	/** Teams with 0 to 4 members each, plus a member of another organization's team. */
+	private void seed(int count) {
+		sessionFactory.inTransaction(session -> {
+			for (int i = 0; i < count; i++) {
+				int n = members.size();
+				Category category = Category.builder().name("Categoria " + n).organizationId(organizationId).build();
+				session.persist(category);
+				Team team = Team.builder().name("Time " + n).slug("time-" + n).organizationId(organizationId)
+						.categories(Set.of(category)).build();
+				session.persist(team);
+				long size = n % 5;
+				for (int m = 0; m < size; m++) {
+					session.persist(User.builder().name("Agente " + n + "." + m).email(n + "." + m + "@trinket.test")
+							.password("-").role(Role.ROLE_AGENT).organizationId(organizationId).teamId(team.getId()).build());
+				}
+				members.put(team.getId(), size);
+			}
+			Team other = Team.builder().name("Outro").slug("outro").organizationId(UUID.randomUUID()).build();
+			session.persist(other);
+			session.persist(User.builder().name("Outro").email(UUID.randomUUID() + "@trinket.test").password("-")
+					.role(Role.ROLE_AGENT).organizationId(other.getOrganizationId()).teamId(other.getId()).build());
+		});
+	}
+
+	private Page<TeamResponse> listWithMemberCounts() {
+		var principal = org.springframework.security.core.userdetails.User.withUsername(admin.getEmail())
+				.password("").authorities(List.of()).build();
+		return controller.getTeams(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()),
+				PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "createdAt")), null, true, null,
+				new MockHttpServletRequest()).getBody();
+	}
+
+	/** Runs the request with an open entity manager, as spring.jpa.open-in-view does. */
+	private int statements(Runnable request) {
+		EntityManager entityManager = sessionFactory.createEntityManager();
+		TransactionSynchronizationManager.bindResource(sessionFactory, new EntityManagerHolder(entityManager));
+		SqlStatistics statistics = SqlStatistics.begin();
+		try {
+			request.run();
+			return statistics.getStatements();
+		} finally {
+			SqlStatistics.end();
+			TransactionSynchronizationManager.unbindResource(sessionFactory);
+			entityManager.close();
+		}
+	}
+
+	private <R extends Repository<T, UUID>, T> R repository(Class<R> type) {
+		JpaTransactionManager transactionManager = new JpaTransactionManager(sessionFactory);
+		transactionManager.setJpaDialect(new HibernateJpaDialect());
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("transactionManager", transactionManager);
+		beans.registerSingleton("entityPathResolver", SimpleEntityPathResolver.INSTANCE);
+		JpaRepositoryFactoryBean<R, T, UUID> repository = new JpaRepositoryFactoryBean<>(type);
+		repository.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(sessionFactory));
+		repository.setBeanFactory(beans);
+		repository.setEntityPathResolver(beans.getBeanProvider(EntityPathResolver.class));
+		repository.setTransactionManager("transactionManager");
+		repository.afterPropertiesSet();
+		return repository.getObject();
+	}
+}
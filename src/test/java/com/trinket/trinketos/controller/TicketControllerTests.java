@@ -0,0 +1,113 @@
+package com.trinket.trinketos.controller;
+
+import com.trinket.trinketos.ai.AiAnalysisScheduler;
+import com.trinket.trinketos.ai.ResolvedTicketIndex;
+import com.trinket.trinketos.ai.TicketPreClassifier;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.readmodel.TicketReadModel;
+import com.trinket.trinketos.realtime.TicketEventBroadcaster;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.TicketAiAnalysisRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.service.CounterService;
+import com.trinket.trinketos.service.ResourceVersions;
+import com.trinket.trinketos.service.TicketAIService;
+import com.trinket.trinketos.service.TicketArchiveService;
+import com.trinket.trinketos.service.TicketHistoryService;
+import com.trinket.trinketos.service.TicketWriteService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TicketControllerTests {
+
+	private static final String ETAG = "\"3-0\"";
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final UUID ticketTeam = UUID.randomUUID();
+	private final TicketRepository ticketRepository = mock(TicketRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final TeamRepository teamRepository = mock(TeamRepository.class);
+	private final ResourceVersions resourceVersions = mock(ResourceVersions.class);
+
+	private MockMvc mockMvc;
+	private Ticket ticket;
+
+	@BeforeEach
+	void setUp() {
+		TicketController controller = new TicketController(ticketRepository, mock(TicketAiAnalysisRepository.class),
+				userRepository, teamRepository, mock(AiAnalysisScheduler.class), mock(TicketEventBroadcaster.class),
+				mock(ApplicationEventPublisher.class), mock(CounterService.class), mock(TicketHistoryService.class),
+				mock(TicketWriteService.class), mock(TicketArchiveService.class), resourceVersions,
+				mock(TicketReadModel.class), mock(TicketPreClassifier.class), mock(TicketAIService.class),
+				mock(ResolvedTicketIndex.class));
+		ReflectionTestUtils.setField(controller, "jdbcReadModel", false);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+		ticket = Ticket.builder().id(UUID.randomUUID()).organizationId(organizationId).teamId(ticketTeam)
+				.category("Financeiro").status(TicketStatus.OPEN).version(3L).build();
+		when(ticketRepository.findById(ticket.getId())).thenReturn(Optional.of(ticket));
+		// The client's tag is current, so a shortcut would answer 304
+		when(resourceVersions.currentTicketTag(ticket.getId(), organizationId)).thenReturn(ETAG);
+		when(resourceVersions.remember(any(), any(), any())).thenReturn(ETAG);
+	}
+
+	@Test
+	void agentOutsideTheTicketsTeamGetsForbiddenEvenWithMatchingEtag() throws Exception {
+		UUID otherTeam = UUID.randomUUID();
+		when(teamRepository.findById(otherTeam)).thenReturn(Optional.of(
+				Team.builder().id(otherTeam).organizationId(organizationId).build()));
+
+		mockMvc.perform(get("/api/v1/tickets/{id}", ticket.getId())
+				.header(HttpHeaders.IF_NONE_MATCH, ETAG)
+				.principal(login(Role.ROLE_AGENT, otherTeam)))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void agentOfTheTicketsTeamGetsNotModified() throws Exception {
+		mockMvc.perform(get("/api/v1/tickets/{id}", ticket.getId())
+				.header(HttpHeaders.IF_NONE_MATCH, ETAG)
+				.principal(login(Role.ROLE_AGENT, ticketTeam)))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void adminGetsNotModifiedFromTheVersionMap() throws Exception {
+		when(ticketRepository.findById(ticket.getId())).thenThrow(new AssertionError("ticket loaded"));
+
+		mockMvc.perform(get("/api/v1/tickets/{id}", ticket.getId())
+				.header(HttpHeaders.IF_NONE_MATCH, ETAG)
+				.principal(login(Role.ROLE_ADMIN, null)))
+				.andExpect(status().isNotModified());
+	}
+
+	private UsernamePasswordAuthenticationToken login(Role role, UUID teamId) {
+		User user = User.builder().id(UUID.randomUUID()).email(role + "@trinket.test").role(role)
+				.organizationId(organizationId).teamId(teamId).build();
+		when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+		var principal = org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
+				.password("").authorities(List.of()).build();
+		return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+}
@@ -0,0 +1,366 @@
+package com.trinket.trinketos.controller;
+
+import com.trinket.trinketos.ai.AiAnalysisScheduler;
+import com.trinket.trinketos.ai.ResolvedTicketIndex;
+import com.trinket.trinketos.ai.TicketPreClassifier;
+import com.trinket.trinketos.dto.TicketResponse;
+import com.trinket.trinketos.model.Category;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.observability.QueryBudgetExceededException;
+import com.trinket.trinketos.observability.SqlCountingDataSource;
+import com.trinket.trinketos.observability.SqlStatistics;
+import com.trinket.trinketos.observability.SqlStatisticsFilter;
+import com.trinket.trinketos.readmodel.TicketReadModel;
+import com.trinket.trinketos.realtime.TicketEventBroadcaster;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.TicketAiAnalysisRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.service.CounterService;
+import com.trinket.trinketos.service.ResourceVersions;
+import com.trinket.trinketos.service.TicketAIService;
+import com.trinket.trinketos.service.TicketArchiveService;
+import com.trinket.trinketos.service.TicketHistoryService;
+import com.trinket.trinketos.service.TicketWriteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The JDBC read model (application.read-model.jdbc) against the JPA path it
+ * replaces: the same controller calls, with the flag on and off, over one H2
+ * database must return the same pages, totals, visibility decisions, bodies
+ * and ETags.
+ */
+class TicketReadModelParityTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+	private static final int USER_LOOKUP = 1;
+	private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+	private final Random random = new Random(7);
+	private final UUID organizationId = UUID.randomUUID();
+	private final UUID otherOrganizationId = UUID.randomUUID();
+	private final List<Ticket> tickets = new ArrayList<>();
+	private final List<User> users = new ArrayList<>();
+
+	private SqlCountingDataSource dataSource;
+	private SessionFactory sessionFactory;
+	private Session session;
+	/** Statements each user lookup runs; the lookup is mocked, so by default none. */
+	private int lookupStatements;
+	private TicketController jpa;
+	private TicketController jdbc;
+
+	@BeforeEach
+	void setUp() {
+		String url = "jdbc:h2:mem:parity-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL(url);
+		// Both paths count their statements the way the application does
+		dataSource = new SqlCountingDataSource(h2);
+		Configuration configuration = new Configuration()
+				.addAnnotatedClass(Ticket.class)
+				.addAnnotatedClass(TicketAiAnalysis.class)
+				.addAnnotatedClass(Team.class)
+				.addAnnotatedClass(Category.class)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				// Spring Boot's column naming, which the read model's SQL relies on
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName());
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+		sessionFactory = configuration.buildSessionFactory();
+		Team[] teams = seed();
+		session = sessionFactory.openSession();
+
+		users.add(user(Role.ROLE_ADMIN, null));
+		users.add(user(Role.ROLE_CUSTOMER, null));
+		users.add(user(Role.ROLE_AGENT, teams[0].getId()));
+		users.add(user(Role.ROLE_AGENT, teams[1].getId()));
+		users.add(user(Role.ROLE_AGENT, null));
+		users.add(user(Role.ROLE_AGENT, UUID.randomUUID()));
+
+		TicketReadModel readModel = new TicketReadModel(JdbcClient.create(dataSource));
+		jpa = controller(readModel, false);
+		jdbc = controller(readModel, true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		session.close();
+		sessionFactory.close();
+	}
+
+	@Test
+	void listsMatchTheJpaPath() {
+		Ticket sample = tickets.get(3);
+		List<Pageable> pages = List.of(
+				PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")),
+				PageRequest.of(2, 7, Sort.by(Sort.Direction.DESC, "createdAt")),
+				PageRequest.of(0, 100, Sort.by(Sort.Order.asc("priority"), Sort.Order.desc("createdAt"))));
+		List<Object[]> filters = List.of(
+				new Object[] { null, null, null },
+				new Object[] { TicketStatus.OPEN, null, null },
+				new Object[] { null, Priority.HIGH, null },
+				new Object[] { TicketStatus.IN_PROGRESS, Priority.LOW, null },
+				new Object[] { null, null, "REDE" },
+				new Object[] { null, null, "impressora" },
+				new Object[] { null, null, sample.getCode().substring(0, 7).toLowerCase() },
+				new Object[] { null, null, sample.getCode().substring(4) },
+				new Object[] { null, null, "nada parecido" });
+
+		int compared = 0;
+		for (User user : users) {
+			for (Object[] filter : filters) {
+				for (Pageable pageable : pages) {
+					Page<TicketResponse> expected = list(jpa, user, pageable, filter);
+					Page<TicketResponse> actual = list(jdbc, user, pageable, filter);
+					String scope = user.getRole() + "/" + user.getTeamId() + " " + Arrays.toString(filter) + " " + pageable;
+					assertEquals(expected.getTotalElements(), actual.getTotalElements(), scope);
+					assertEquals(expected.getContent(), actual.getContent(), scope);
+					compared += expected.getNumberOfElements();
+				}
+			}
+		}
+		assertTrue(compared > 500, "only " + compared + " tickets compared");
+	}
+
+	@Test
+	void detailsMatchTheJpaPath() {
+		for (User user : users) {
+			for (Ticket ticket : tickets) {
+				ResponseEntity<TicketResponse> expected = jpa.getTicket(ticket.getId(), false, null, login(user));
+				ResponseEntity<TicketResponse> actual = jdbc.getTicket(ticket.getId(), false, null, login(user));
+				String scope = user.getRole() + "/" + user.getTeamId() + " " + ticket.getCode();
+				assertEquals(expected.getStatusCode(), actual.getStatusCode(), scope);
+				assertEquals(expected.getHeaders().getETag(), actual.getHeaders().getETag(), scope);
+				assertEquals(expected.getBody(), actual.getBody(), scope);
+			}
+		}
+	}
+
+	@Test
+	void bothPathsStayWithinTheEndpointsQueryBudgets() throws Exception {
+		int listBudget = TicketController.class.getMethod("getTickets", Authentication.class, Pageable.class,
+				TicketStatus.class, Priority.class, String.class, boolean.class, String.class,
+				jakarta.servlet.http.HttpServletRequest.class).getAnnotation(QueryBudget.class).value();
+		int detailBudget = TicketController.class.getMethod("getTicket", UUID.class, boolean.class, String.class,
+				Authentication.class).getAnnotation(QueryBudget.class).value();
+		Pageable page = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+		Object[] search = { TicketStatus.OPEN, null, "rede" };
+
+		for (User user : users) {
+			for (TicketController controller : List.of(jpa, jdbc)) {
+				String scope = (controller == jdbc ? "jdbc " : "jpa ") + user.getRole() + "/" + user.getTeamId();
+				int listed = statements(() -> list(controller, user, page, search));
+				// An agent without a team gets an empty page without a query
+				assertTrue(listed > 0 || user.getTeamId() == null, scope + " list ran no counted statement");
+				// The user lookup is mocked here; in the application it is one more statement
+				assertTrue(listed + USER_LOOKUP <= listBudget, scope + " list: " + listed);
+				for (Ticket ticket : tickets.subList(0, 10)) {
+					session.clear();
+					int detail = statements(() -> controller.getTicket(ticket.getId(), false, null, login(user)));
+					assertTrue(detail > 0, scope + " detail ran no counted statement");
+					assertTrue(detail + USER_LOOKUP <= detailBudget, scope + " detail: " + detail);
+				}
+			}
+		}
+	}
+
+	@Test
+	void theTestProfileFailsListRequestsOverTheirBudget() throws Exception {
+		int listBudget = TicketController.class.getMethod("getTickets", Authentication.class, Pageable.class,
+				TicketStatus.class, Priority.class, String.class, boolean.class, String.class,
+				jakarta.servlet.http.HttpServletRequest.class).getAnnotation(QueryBudget.class).value();
+		YamlPropertiesFactoryBean testProfile = new YamlPropertiesFactoryBean();
+		testProfile.setResources(new ClassPathResource("application-test.yaml"));
+		SqlStatisticsFilter filter = new SqlStatisticsFilter(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(filter, "nPlusOneThreshold", 5);
+		ReflectionTestUtils.setField(filter, "enforceBudget",
+				Boolean.parseBoolean(testProfile.getObject().getProperty("application.sql-instrumentation.enforce-budget")));
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(jdbc)
+				.setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+				.addFilters(filter)
+				.build();
+		User admin = users.get(0);
+		lookupStatements = USER_LOOKUP;
+		int used = statements(() -> list(jdbc, admin, PageRequest.of(0, 10), new Object[3]));
+
+		// Padded to exactly the budget, the request passes
+		lookupStatements += listBudget - used;
+		mockMvc.perform(get("/api/v1/tickets").principal(login(admin))).andExpect(status().isOk());
+
+		// One statement more fails it
+		lookupStatements++;
+		assertThrows(QueryBudgetExceededException.class,
+				() -> mockMvc.perform(get("/api/v1/tickets").principal(login(admin))));
+	}
+
+	private static int statements(Runnable request) {
+		SqlStatistics statistics = SqlStatistics.begin();
+		try {
+			request.run();
+			return statistics.getStatements();
+		} finally {
+			SqlStatistics.end();
+		}
+	}
+
+	private Page<TicketResponse> list(TicketController controller, User user, Pageable pageable, Object[] filter) {
+		session.clear();
+		return controller.getTickets(login(user), pageable, (TicketStatus) filter[0], (Priority) filter[1],
+				(String) filter[2], false, null, new MockHttpServletRequest()).getBody();
+	}
+
+	private Team[] seed() {
+		Team[] teams = new Team[2];
+		sessionFactory.inTransaction(session -> {
+			List<Category> categories = new ArrayList<>();
+			for (String name : List.of("Rede", "Financeiro", "Acesso")) {
+				Category category = Category.builder().name(name).organizationId(organizationId).build();
+				session.persist(category);
+				categories.add(category);
+			}
+			teams[0] = Team.builder().name("Infra").slug("infra").organizationId(organizationId)
+					.categories(Set.of(categories.get(0), categories.get(2))).build();
+			teams[1] = Team.builder().name("Financeiro").slug("financeiro").organizationId(organizationId).build();
+			session.persist(teams[0]);
+			session.persist(teams[1]);
+
+			List<String> titles = List.of("Rede lenta no andar 3", "Impressora sem toner", "Senha expirada",
+					"Boleto duplicado", "VPN cai à noite");
+			List<String> categoryNames = Arrays.asList("Rede", "Financeiro", "Acesso", null);
+			for (int i = 0; i < 80; i++) {
+				Ticket ticket = Ticket.builder()
+						.code("TKT-" + code())
+						.title(titles.get(random.nextInt(titles.size())) + " #" + i)
+						.description(random.nextBoolean() ? "Usuário relata problema de rede" : "Sem detalhes")
+						.status(TicketStatus.values()[random.nextInt(TicketStatus.values().length)])
+						.priority(random.nextInt(5) == 0 ? null : Priority.values()[random.nextInt(Priority.values().length)])
+						.category(categoryNames.get(random.nextInt(categoryNames.size())))
+						.sentiment(random.nextBoolean() ? "Neutro" : null)
+						.teamId(random.nextInt(3) == 0 ? null : teams[random.nextInt(2)].getId())
+						.agentId(random.nextBoolean() ? UUID.randomUUID() : null)
+						.customerId(UUID.randomUUID())
+						.organizationId(i < 70 ? organizationId : otherOrganizationId)
+						.build();
+				session.persist(ticket);
+				if (random.nextBoolean()) {
+					session.persist(TicketAiAnalysis.builder().ticket(ticket).diagnosis("Diagnóstico " + i)
+							.suggestedSolution("Solução " + i).analyzedAt(NOW.minusMinutes(i)).build());
+				}
+				tickets.add(ticket);
+			}
+		});
+		// Distinct creation times, so createdAt ordering has no ties
+		sessionFactory.inTransaction(session -> {
+			for (int i = 0; i < tickets.size(); i++) {
+				session.createNativeMutationQuery("UPDATE tickets SET created_at = :createdAt WHERE id = :id")
+						.setParameter("createdAt", NOW.minusHours(i * 7L))
+						.setParameter("id", tickets.get(i).getId())
+						.executeUpdate();
+			}
+		});
+		return teams;
+	}
+
+	private String code() {
+		StringBuilder code = new StringBuilder();
+		for (int i = 0; i < 8; i++) {
+			code.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+		}
+		return code.toString();
+	}
+
+	private TicketController controller(TicketReadModel readModel, boolean jdbcReadModel) {
+		var ticketJpa = new SimpleJpaRepository<Ticket, UUID>(Ticket.class, session);
+		var analysisJpa = new SimpleJpaRepository<TicketAiAnalysis, UUID>(TicketAiAnalysis.class, session);
+		var teamJpa = new SimpleJpaRepository<Team, UUID>(Team.class, session);
+
+		TicketRepository ticketRepository = mock(TicketRepository.class);
+		when(ticketRepository.findAll(any(Specification.class), any(Pageable.class))).thenAnswer(invocation ->
+				ticketJpa.findAll(invocation.<Specification<Ticket>>getArgument(0), invocation.<Pageable>getArgument(1)));
+		when(ticketRepository.findById(any())).thenAnswer(invocation -> ticketJpa.findById(invocation.getArgument(0)));
+		TicketAiAnalysisRepository analysisRepository = mock(TicketAiAnalysisRepository.class);
+		when(analysisRepository.findById(any())).thenAnswer(invocation -> analysisJpa.findById(invocation.getArgument(0)));
+		TeamRepository teamRepository = mock(TeamRepository.class);
+		when(teamRepository.findById(any())).thenAnswer(invocation -> teamJpa.findById(invocation.getArgument(0)));
+		UserRepository userRepository = mock(UserRepository.class);
+		when(userRepository.findByEmail(any())).thenAnswer(invocation -> {
+			for (int i = 0; i < lookupStatements; i++) {
+				JdbcClient.create(dataSource).sql("SELECT count(*) FROM teams").query(Long.class).single();
+			}
+			return users.stream().filter(user -> user.getEmail().equals(invocation.getArgument(0))).findFirst();
+		});
+		ResourceVersions resourceVersions = mock(ResourceVersions.class);
+		when(resourceVersions.listTag(any(), any(), any())).thenReturn("W/\"list\"");
+		when(resourceVersions.remember(any(), any(), any())).thenAnswer(invocation -> invocation.getArgument(2));
+
+		TicketController controller = new TicketController(ticketRepository, analysisRepository, userRepository,
+				teamRepository, mock(AiAnalysisScheduler.class), mock(TicketEventBroadcaster.class),
+				mock(ApplicationEventPublisher.class), mock(CounterService.class), mock(TicketHistoryService.class),
+				mock(TicketWriteService.class), mock(TicketArchiveService.class), resourceVersions, readModel,
+				mock(TicketPreClassifier.class), mock(TicketAIService.class), mock(ResolvedTicketIndex.class));
+		ReflectionTestUtils.setField(controller, "jdbcReadModel", jdbcReadModel);
+		return controller;
+	}
+
+	private User user(Role role, UUID teamId) {
+		return User.builder().id(UUID.randomUUID()).email(UUID.randomUUID() + "@trinket.test").role(role)
+				.organizationId(organizationId).teamId(teamId).build();
+	}
+
+	private Authentication login(User user) {
+		var principal = org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
+				.password("").authorities(List.of()).build();
+		return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+	}
+}
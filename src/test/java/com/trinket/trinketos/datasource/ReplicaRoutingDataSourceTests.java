@@ -0,0 +1,103 @@
+package com.trinket.trinketos.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTests {
+
+	private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(mock(DataSource.class),
+			List.of(mock(DataSource.class), mock(DataSource.class)), 5000, new SimpleMeterRegistry());
+
+	@AfterEach
+	void tearDown() {
+		ReadRoutingContext.clear();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void writesAndUnmarkedThreadsUsePrimary() {
+		routing.markHealthy(0, true);
+		routing.markHealthy(1, true);
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+		ReadRoutingContext.allowReplica();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+	}
+
+	@Test
+	void readOnlyTransactionsRoundRobinOverHealthyReplicas() {
+		routing.markHealthy(0, true);
+		routing.markHealthy(1, true);
+		ReadRoutingContext.allowReplica();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		Set<Object> keys = new HashSet<>();
+		for (int i = 0; i < 4; i++) {
+			keys.add(routing.determineCurrentLookupKey());
+		}
+		assertEquals(Set.of("replica-0", "replica-1"), keys);
+	}
+
+	@Test
+	void unhealthyReplicasAreSkipped() {
+		routing.markHealthy(0, false);
+		routing.markHealthy(1, true);
+		ReadRoutingContext.allowReplica();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals("replica-1", routing.determineCurrentLookupKey());
+		}
+
+		routing.markHealthy(1, false);
+		assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+	}
+
+	@Test
+	void idleReplicaThatReplayedEverythingIsHealthy() throws SQLException {
+		// Nothing committed on the primary for a minute: the last replay is old, but nothing is pending
+		ReplicaRoutingDataSource idle = new ReplicaRoutingDataSource(mock(DataSource.class),
+				List.of(replica(true, 60_000), replica(false, 60_000)), 5000, new SimpleMeterRegistry());
+		ReadRoutingContext.allowReplica();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		idle.checkReplicas();
+
+		for (int i = 0; i < 4; i++) {
+			assertEquals("replica-0", idle.determineCurrentLookupKey());
+		}
+	}
+
+	private static DataSource replica(boolean caughtUp, double sinceLastReplayMs) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.next()).thenReturn(true);
+		when(rs.getBoolean("caught_up")).thenReturn(caughtUp);
+		when(rs.getDouble("since_last_replay_ms")).thenReturn(sinceLastReplayMs);
+		Statement statement = mock(Statement.class);
+		when(statement.executeQuery(anyString())).thenReturn(rs);
+		Connection connection = mock(Connection.class);
+		when(connection.createStatement()).thenReturn(statement);
+		DataSource dataSource = mock(DataSource.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		return dataSource;
+	}
+}
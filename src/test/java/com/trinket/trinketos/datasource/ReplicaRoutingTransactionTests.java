@@ -0,0 +1,143 @@
+package com.trinket.trinketos.datasource;
+
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.repository.TicketRepository;
+import com.trinket.trinketos.service.ParallelQueryExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Routing through real transactions: Spring Data repositories over Hibernate
+ * over ReplicaRoutingDataSource, with a primary and a replica H2 database
+ * holding different rows, so each count tells which one answered.
+ */
+class ReplicaRoutingTransactionTests {
+
+	private static final int PRIMARY_TICKETS = 3;
+	private static final int REPLICA_TICKETS = 5;
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final List<SessionFactory> sessionFactories = new ArrayList<>();
+	private final ParallelQueryExecutor parallelQueryExecutor = new ParallelQueryExecutor(4, 5000);
+	private TicketRepository ticketRepository;
+
+	@BeforeEach
+	void setUp() {
+		JdbcDataSource primary = database("primary", PRIMARY_TICKETS);
+		JdbcDataSource replica = database("replica", REPLICA_TICKETS);
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), 5000,
+				new SimpleMeterRegistry());
+		routing.afterPropertiesSet();
+		routing.markHealthy(0, true);
+
+		Configuration configuration = configuration();
+		configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE,
+				new LazyConnectionDataSourceProxy(routing));
+		SessionFactory sessionFactory = configuration.buildSessionFactory();
+		sessionFactories.add(sessionFactory);
+
+		JpaTransactionManager transactionManager = new JpaTransactionManager(sessionFactory);
+		transactionManager.setJpaDialect(new HibernateJpaDialect());
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("transactionManager", transactionManager);
+		beans.registerSingleton("entityPathResolver", SimpleEntityPathResolver.INSTANCE);
+		// Built the way Spring Boot builds it, transaction proxy included
+		JpaRepositoryFactoryBean<TicketRepository, Ticket, UUID> repository = new JpaRepositoryFactoryBean<>(
+				TicketRepository.class);
+		repository.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(sessionFactory));
+		repository.setBeanFactory(beans);
+		repository.setEntityPathResolver(beans.getBeanProvider(EntityPathResolver.class));
+		repository.setTransactionManager("transactionManager");
+		repository.afterPropertiesSet();
+		ticketRepository = repository.getObject();
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReadRoutingContext.clear();
+		sessionFactories.forEach(SessionFactory::close);
+	}
+
+	@Test
+	void dashboardAggregatesForkedForAReadRequestHitTheReplica() {
+		ReadRoutingContext.allowReplica();
+
+		ParallelQueryExecutor.Batch batch = parallelQueryExecutor.batch();
+		Supplier<Long> statuses = batch.fork(() -> total(ticketRepository.countByStatus(organizationId,
+				LocalDateTime.now().minusDays(7), null, null, List.of())));
+		Supplier<Long> priorities = batch.fork(() -> total(ticketRepository.countByPriority(organizationId,
+				LocalDateTime.now().minusDays(7), null, null, List.of())));
+		Supplier<Long> sentiments = batch.fork(() -> total(ticketRepository.countBySentiment(organizationId,
+				LocalDateTime.now().minusDays(7), null, null, List.of())));
+		Supplier<Long> critical = batch.fork(() -> ticketRepository.countCriticalOpen(organizationId,
+				LocalDateTime.now().minusDays(7), null, null, List.of()));
+		batch.join();
+
+		assertEquals(REPLICA_TICKETS, statuses.get());
+		assertEquals(REPLICA_TICKETS, priorities.get());
+		assertEquals(REPLICA_TICKETS, sentiments.get());
+		assertEquals(0, critical.get());
+	}
+
+	@Test
+	void backgroundThreadsReadThePrimary() {
+		assertEquals(PRIMARY_TICKETS, total(ticketRepository.countByStatus(organizationId,
+				LocalDateTime.now().minusDays(7), null, null, List.of())));
+	}
+
+	private static long total(List<TicketRepository.GroupCount> rows) {
+		return rows.stream().mapToLong(TicketRepository.GroupCount::getTotal).sum();
+	}
+
+	private JdbcDataSource database(String name, int tickets) {
+		String url = "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		SessionFactory sessionFactory = configuration()
+				.setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create")
+				.buildSessionFactory();
+		sessionFactories.add(sessionFactory);
+		sessionFactory.inTransaction(session -> {
+			for (int i = 0; i < tickets; i++) {
+				session.persist(Ticket.builder().code("TKT-" + name + i).title(name + " " + i)
+						.status(TicketStatus.OPEN).priority(Priority.LOW).sentiment("Neutro")
+						.organizationId(organizationId).build());
+			}
+		});
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(url);
+		return dataSource;
+	}
+
+	private static Configuration configuration() {
+		return new Configuration()
+				.addAnnotatedClass(Ticket.class)
+				.addAnnotatedClass(TicketAiAnalysis.class)
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName());
+	}
+}
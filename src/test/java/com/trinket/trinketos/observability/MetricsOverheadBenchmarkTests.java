@@ -0,0 +1,166 @@
+package com.trinket.trinketos.observability;
+
+import com.trinket.trinketos.dto.TicketResponse;
+import com.trinket.trinketos.model.OrganizationTier;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.readmodel.TicketReadModel;
+import com.trinket.trinketos.security.JwtAuthenticationFilter;
+import com.trinket.trinketos.service.OrganizationTierResolver;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.filter.ServerHttpObservationFilter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Cost of the request metrics (http.server.requests with the tier tag and
+ * histogram, SQL statistics) relative to the ticket list path, served by the
+ * JDBC read model over an in-memory H2. Timing whole list requests with and
+ * without metrics is dominated by noise, so the metrics' absolute cost is
+ * measured on an empty handler and divided by the list latency. Both are
+ * printed, so the cost can also be set against production list latencies.
+ * Run with:
+ * ./mvnw test -Dtest=MetricsOverheadBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MetricsOverheadBenchmarkTests {
+
+	private static final int ROUNDS = 7;
+
+	@RestController
+	static class TicketList {
+		private final TicketReadModel readModel;
+		private final UUID organizationId;
+
+		TicketList(TicketReadModel readModel, UUID organizationId) {
+			this.readModel = readModel;
+			this.organizationId = organizationId;
+		}
+
+		@GetMapping("/api/v1/tickets")
+		List<TicketResponse> list() {
+			return readModel.findPage(
+					new TicketReadModel.TicketFilter(organizationId, null, List.of(), null, null, null),
+					PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent();
+		}
+
+		@GetMapping("/api/v1/empty")
+		List<TicketResponse> empty() {
+			return List.of();
+		}
+	}
+
+	@Test
+	void ticketListOverheadStaysUnderOnePercent() throws Exception {
+		String url = "jdbc:h2:mem:metrics-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		UUID organizationId = UUID.randomUUID();
+		try (SessionFactory sessionFactory = new Configuration()
+				.addAnnotatedClass(Ticket.class)
+				.setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				// Spring Boot's column naming, which the read model's SQL relies on
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+				.buildSessionFactory()) {
+			sessionFactory.inTransaction(session -> {
+				for (int i = 0; i < 5000; i++) {
+					session.persist(Ticket.builder().title("Ticket " + i).code("TKT-" + i).description("Descrição " + i)
+							.status(TicketStatus.values()[i % TicketStatus.values().length]).priority(Priority.MEDIUM)
+							.organizationId(organizationId).build());
+				}
+			});
+			sessionFactory.inTransaction(session -> session
+					.createNativeMutationQuery("CREATE INDEX tickets_org_created ON tickets (organization_id, created_at)")
+					.executeUpdate());
+			JdbcDataSource dataSource = new JdbcDataSource();
+			dataSource.setURL(url);
+			TicketList controller = new TicketList(new TicketReadModel(JdbcClient.create(dataSource)), organizationId);
+
+			MockMvc plain = MockMvcBuilders.standaloneSetup(controller).build();
+			MockMvc instrumented = MockMvcBuilders.standaloneSetup(controller)
+					.addFilters(observationFilter(), sqlStatisticsFilter())
+					.build();
+
+			double[] list = new double[ROUNDS];
+			double[] metrics = new double[ROUNDS];
+			measure(plain, "/api/v1/tickets", 500, organizationId);
+			measure(plain, "/api/v1/empty", 20_000, organizationId);
+			measure(instrumented, "/api/v1/empty", 20_000, organizationId);
+			for (int round = 0; round < ROUNDS; round++) {
+				list[round] = measure(plain, "/api/v1/tickets", 500, organizationId);
+				metrics[round] = measure(instrumented, "/api/v1/empty", 20_000, organizationId)
+						- measure(plain, "/api/v1/empty", 20_000, organizationId);
+				System.out.printf("round %d: ticket list %.1f us, metrics %.2f us%n", round, list[round] / 1000,
+						metrics[round] / 1000);
+			}
+			Arrays.sort(list);
+			Arrays.sort(metrics);
+			double overhead = metrics[ROUNDS / 2] / list[ROUNDS / 2] * 100;
+			System.out.printf("ticket list %.1f us, metrics %.2f us per request: %.2f%% overhead%n",
+					list[ROUNDS / 2] / 1000, metrics[ROUNDS / 2] / 1000, overhead);
+			assertTrue(overhead < 1.0, "overhead " + overhead + "%");
+		}
+	}
+
+	/** Mean nanoseconds per request. */
+	private static double measure(MockMvc mockMvc, String path, int requests, UUID organizationId) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			mockMvc.perform(get(path).requestAttr(JwtAuthenticationFilter.ORGANIZATION_ID_ATTRIBUTE, organizationId));
+		}
+		return (System.nanoTime() - start) / (double) requests;
+	}
+
+	private static ServerHttpObservationFilter observationFilter() {
+		PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		// Same histogram as management.metrics.distribution.percentiles-histogram
+		prometheus.config().meterFilter(new MeterFilter() {
+			@Override
+			public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+				return id.getName().equals("http.server.requests")
+						? DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config)
+						: config;
+			}
+		});
+		ObservationRegistry observations = ObservationRegistry.create();
+		observations.observationConfig().observationHandler(new DefaultMeterObservationHandler(prometheus));
+		OrganizationTierResolver tiers = mock(OrganizationTierResolver.class);
+		when(tiers.tierOf(any())).thenReturn(OrganizationTier.FREE);
+		return new ServerHttpObservationFilter(observations, new TenantServerRequestObservationConvention(tiers));
+	}
+
+	private static SqlStatisticsFilter sqlStatisticsFilter() {
+		SqlStatisticsFilter filter = new SqlStatisticsFilter(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+		ReflectionTestUtils.setField(filter, "nPlusOneThreshold", 5);
+		return filter;
+	}
+}
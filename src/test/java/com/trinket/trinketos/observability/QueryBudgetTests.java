@@ -0,0 +1,106 @@
+package com.trinket.trinketos.observability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryBudgetTests {
+
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+	private final SqlCountingDataSource dataSource = new SqlCountingDataSource(database());
+
+	static class Endpoints {
+		@QueryBudget(2)
+		public String list() {
+			return "";
+		}
+	}
+
+	@Test
+	void lazyLoadsDuringSerializationCountTowardsTheBudget() {
+		SqlStatisticsFilter filter = filter(true);
+
+		// Two statements in the handler, a third while the body is written
+		FilterChain chain = (request, response) -> {
+			statement("select * from teams");
+			statement("select count(*) from teams");
+			response.getWriter().write("[");
+			statement("select c from team_categories where team_id=?");
+			response.getWriter().write("]");
+		};
+
+		assertThrows(QueryBudgetExceededException.class, () -> filter.doFilter(request(), new MockHttpServletResponse(), chain));
+		assertEquals(1, meters.get("trinketos.sql.budget.exceeded").tag("endpoint", "Endpoints.list").counter().count());
+	}
+
+	@Test
+	void overrunsAreOnlyCountedWhenNotEnforced() {
+		SqlStatisticsFilter filter = filter(false);
+		FilterChain chain = (request, response) -> {
+			for (int i = 0; i < 3; i++) {
+				statement("select " + i);
+			}
+		};
+
+		assertDoesNotThrow(() -> filter.doFilter(request(), new MockHttpServletResponse(), chain));
+		assertEquals(1, meters.get("trinketos.sql.budget.exceeded").counter().count());
+	}
+
+	@Test
+	void requestsWithinBudgetPass() {
+		SqlStatisticsFilter filter = filter(true);
+
+		assertDoesNotThrow(() -> filter.doFilter(request(), new MockHttpServletResponse(),
+				(request, response) -> statement("select 1")));
+		assertEquals(0, meters.find("trinketos.sql.budget.exceeded").counters().size());
+	}
+
+	private SqlStatisticsFilter filter(boolean enforce) {
+		SqlStatisticsFilter filter = new SqlStatisticsFilter(meters);
+		ReflectionTestUtils.setField(filter, "nPlusOneThreshold", 5);
+		ReflectionTestUtils.setField(filter, "enforceBudget", enforce);
+		return filter;
+	}
+
+	private static MockHttpServletRequest request() throws NoSuchMethodException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/teams");
+		request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE,
+				new HandlerMethod(new Endpoints(), Endpoints.class.getMethod("list")));
+		return request;
+	}
+
+	/** Prepares a statement through the counting DataSource, as any JDBC client would. */
+	private void statement(String sql) {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.prepareStatement(sql);
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static DataSource database() {
+		try {
+			Connection connection = mock(Connection.class);
+			DataSource database = mock(DataSource.class);
+			when(database.getConnection()).thenReturn(connection);
+			return database;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
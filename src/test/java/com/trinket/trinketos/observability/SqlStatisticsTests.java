@@ -0,0 +1,84 @@
+package com.trinket.trinketos.observability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqlStatisticsTests {
+
+	private final SqlCountingDataSource dataSource = new SqlCountingDataSource(database());
+
+	@AfterEach
+	void tearDown() {
+		SqlStatistics.end();
+	}
+
+	@Test
+	void countsStatementsOnlyInsideRequestScope() {
+		statement("select 1");
+		assertNull(SqlStatistics.current());
+
+		SqlStatistics statistics = SqlStatistics.begin();
+		statement("select 1");
+		statement("select 2");
+
+		assertEquals(2, statistics.getStatements());
+	}
+
+	@Test
+	void detectsRepeatedStatement() {
+		SqlStatistics statistics = SqlStatistics.begin();
+		statement("select * from teams");
+		for (int i = 0; i < 10; i++) {
+			statement("select c from team_categories where team_id=?");
+		}
+
+		assertEquals(11, statistics.getStatements());
+		assertEquals(10, statistics.getMaxRepeatedStatement());
+		assertEquals("select c from team_categories where team_id=?", statistics.getMostRepeatedStatement());
+	}
+
+	@Test
+	void countsPlainStatementsWhenExecuted() throws SQLException {
+		SqlStatistics statistics = SqlStatistics.begin();
+		try (Connection connection = dataSource.getConnection()) {
+			Statement statement = connection.createStatement();
+			statement.executeQuery("select 1");
+			statement.addBatch("update teams set name = 'a'");
+			statement.addBatch("update teams set name = 'b'");
+			statement.executeBatch();
+		}
+
+		assertEquals(3, statistics.getStatements());
+	}
+
+	/** Prepares a statement through the counting DataSource, as any JDBC client would. */
+	private void statement(String sql) {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.prepareStatement(sql);
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static DataSource database() {
+		try {
+			Connection connection = mock(Connection.class);
+			DataSource database = mock(DataSource.class);
+			when(database.getConnection()).thenReturn(connection);
+			when(connection.createStatement()).thenReturn(mock(Statement.class));
+			return database;
+		} catch (SQLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
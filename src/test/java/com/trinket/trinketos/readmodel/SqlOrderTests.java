@@ -0,0 +1,33 @@
+package com.trinket.trinketos.readmodel;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SqlOrderTests {
+
+	private static final Map<String, String> SORTABLE = Map.of("name", "u.name", "createdAt", "u.created_at");
+
+	@Test
+	void unsortedHasNoOrderBy() {
+		assertEquals("", SqlOrder.of(Sort.unsorted(), SORTABLE));
+	}
+
+	@Test
+	void mapsPropertiesToColumns() {
+		Sort sort = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.asc("name"));
+
+		assertEquals(" ORDER BY u.created_at DESC, u.name ASC", SqlOrder.of(sort, SORTABLE));
+	}
+
+	@Test
+	void rejectsPropertiesOutsideTheWhitelist() {
+		Sort sort = Sort.by("password; DROP TABLE users");
+
+		assertThrows(IllegalArgumentException.class, () -> SqlOrder.of(sort, SORTABLE));
+	}
+}
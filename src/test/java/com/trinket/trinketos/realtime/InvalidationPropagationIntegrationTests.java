@@ -0,0 +1,143 @@
+package com.trinket.trinketos.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trinket.trinketos.model.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two API nodes on one PostgreSQL: ticket writes committed on the first must
+ * reach the second's caches through LISTEN/NOTIFY. Measures the propagation
+ * latency from commit (post-commit listener) to the CacheInvalidation
+ * published on the other node, with the default 50 ms batch interval.
+ * Run with:
+ * ./mvnw test -Dtest=InvalidationPropagationIntegrationTests -Dpostgres.url=jdbc:postgresql://localhost:5432/trinketos
+ *   [-Dpostgres.username=postgres -Dpostgres.password=...]
+ */
+@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+class InvalidationPropagationIntegrationTests {
+
+	private static final int CHANGES = 500;
+	private static final long BATCH_INTERVAL_MS = 50;
+
+	/** One API node with its own LISTEN connection; caches are mocks, arrivals are timestamped. */
+	private static final class Node {
+		final Map<UUID, Long> arrivals = new ConcurrentHashMap<>();
+		final PostgresInvalidationBus bus;
+
+		Node(DataSourceProperties properties) {
+			EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+			SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+			ServiceRegistryImplementor serviceRegistry = mock(ServiceRegistryImplementor.class);
+			when(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).thenReturn(sessionFactory);
+			when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+			when(sessionFactory.getServiceRegistry()).thenReturn(serviceRegistry);
+			when(serviceRegistry.getService(EventListenerRegistry.class)).thenReturn(mock(EventListenerRegistry.class));
+			when(sessionFactory.getCache()).thenReturn(mock(CacheImplementor.class));
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(properties.determineUrl(),
+					properties.determineUsername(), properties.determinePassword()));
+			bus = new PostgresInvalidationBus(jdbcTemplate, properties, new ObjectMapper(), entityManagerFactory,
+					event -> {
+						if (event instanceof CacheInvalidation change && change.id() != null) {
+							arrivals.put(change.id(), System.nanoTime());
+						}
+					}, new SimpleMeterRegistry());
+		}
+	}
+
+	@Test
+	void ticketWritesReachTheOtherNodeQuickly() throws Exception {
+		DataSourceProperties properties = new DataSourceProperties();
+		properties.setUrl(System.getProperty("postgres.url"));
+		properties.setUsername(System.getProperty("postgres.username", "postgres"));
+		properties.setPassword(System.getProperty("postgres.password", ""));
+		Node a = new Node(properties);
+		Node b = new Node(properties);
+		a.bus.start();
+		b.bus.start();
+		ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+		flusher.scheduleWithFixedDelay(a.bus::flush, BATCH_INTERVAL_MS, BATCH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		try {
+			awaitListening(a, b);
+
+			UUID organizationId = UUID.randomUUID();
+			Map<UUID, Long> committed = new ConcurrentHashMap<>();
+			for (int i = 0; i < CHANGES; i++) {
+				Ticket ticket = Ticket.builder().id(UUID.randomUUID()).organizationId(organizationId).build();
+				committed.put(ticket.getId(), System.nanoTime());
+				a.bus.onPostUpdate(updateOf(ticket));
+				Thread.sleep(2);
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (!b.arrivals.keySet().containsAll(committed.keySet()) && System.nanoTime() < deadline) {
+				Thread.sleep(20);
+			}
+
+			List<Long> latencies = new ArrayList<>();
+			committed.forEach((id, at) -> {
+				Long arrived = b.arrivals.get(id);
+				if (arrived != null) {
+					latencies.add(TimeUnit.NANOSECONDS.toMillis(arrived - at));
+				}
+			});
+			latencies.sort(null);
+			assertEquals(CHANGES, latencies.size(), "changes lost between nodes");
+			long p50 = latencies.get(latencies.size() / 2);
+			long p99 = latencies.get(latencies.size() * 99 / 100);
+			System.out.printf("propagation over %d changes: p50 %d ms, p99 %d ms, max %d ms%n", CHANGES, p50, p99,
+					latencies.get(latencies.size() - 1));
+			// One batch interval plus NOTIFY delivery
+			assertTrue(p99 < BATCH_INTERVAL_MS + 250, "p99 " + p99 + " ms");
+		} finally {
+			flusher.shutdownNow();
+			a.bus.stop();
+			b.bus.stop();
+		}
+	}
+
+	/** LISTEN is issued on the listener threads; probe until the other node hears us. */
+	private static void awaitListening(Node a, Node b) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			Ticket probe = Ticket.builder().id(UUID.randomUUID()).organizationId(UUID.randomUUID()).build();
+			a.bus.onPostUpdate(updateOf(probe));
+			Thread.sleep(200);
+			if (b.arrivals.containsKey(probe.getId())) {
+				b.arrivals.clear();
+				return;
+			}
+		}
+		throw new AssertionError("second node never received a notification");
+	}
+
+	private static PostUpdateEvent updateOf(Object entity) {
+		PostUpdateEvent event = mock(PostUpdateEvent.class);
+		when(event.getEntity()).thenReturn(entity);
+		return event;
+	}
+}
@@ -0,0 +1,126 @@
+package com.trinket.trinketos.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trinket.trinketos.model.Team;
+import com.trinket.trinketos.model.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostgresInvalidationBusTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+
+	/** One API node; pg_notify goes to a mock so payloads can be handed to the other node. */
+	private static final class Node {
+		final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+		final Cache cache = mock(Cache.class);
+		final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+		final PostgresInvalidationBus bus;
+
+		Node() {
+			EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+			SessionFactory sessionFactory = mock(SessionFactory.class);
+			when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+			when(sessionFactory.getCache()).thenReturn(cache);
+			bus = new PostgresInvalidationBus(jdbcTemplate, new DataSourceProperties(), new ObjectMapper(),
+					entityManagerFactory, publisher, meters);
+		}
+
+		List<String> notifications() {
+			ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+			verify(jdbcTemplate, atLeast(0))
+					.queryForObject(anyString(), eq(Object.class), eq(PostgresInvalidationBus.CHANNEL), payload.capture());
+			return payload.getAllValues();
+		}
+	}
+
+	@Test
+	void committedWritesReachTheOtherNode() {
+		Node a = new Node();
+		Node b = new Node();
+		Team team = Team.builder().id(UUID.randomUUID()).organizationId(organizationId).build();
+
+		a.bus.onPostUpdate(updateOf(team));
+		a.bus.onPostUpdate(updateOf(team));
+		a.bus.flush();
+		List<String> notifications = a.notifications();
+		assertEquals(1, notifications.size());
+
+		notifications.forEach(b.bus::receive);
+		verify(b.cache).evictEntityData(Team.class, team.getId());
+		verify(b.cache).evictCollectionData(Team.class.getName() + ".categories", team.getId());
+		verify(b.publisher).publishEvent(new CacheInvalidation(CacheInvalidation.Kind.TEAM, organizationId, team.getId()));
+		assertEquals(1, b.meters.get("trinketos.cache.invalidation.lag").timer().count());
+	}
+
+	@Test
+	void ownNotificationsAreIgnored() {
+		Node a = new Node();
+		a.bus.onPostUpdate(updateOf(Team.builder().id(UUID.randomUUID()).organizationId(organizationId).build()));
+		a.bus.flush();
+
+		a.notifications().forEach(a.bus::receive);
+		verify(a.publisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	void largeBatchesAreSplitUnderThePayloadLimit() {
+		Node a = new Node();
+		int changes = PostgresInvalidationBus.MAX_CHANGES_PER_NOTIFICATION + 1;
+		for (int i = 0; i < changes; i++) {
+			PostInsertEvent insert = mock(PostInsertEvent.class);
+			when(insert.getEntity()).thenReturn(
+					Ticket.builder().id(UUID.randomUUID()).organizationId(organizationId).build());
+			a.bus.onPostInsert(insert);
+		}
+		a.bus.flush();
+
+		List<String> notifications = a.notifications();
+		assertEquals(2, notifications.size());
+		notifications.forEach(payload -> assertTrue(payload.length() < 8000));
+
+		Node b = new Node();
+		notifications.forEach(b.bus::receive);
+		verify(b.publisher, times(changes)).publishEvent(any(CacheInvalidation.class));
+	}
+
+	@Test
+	void reconnectDropsEverything() {
+		Node a = new Node();
+		a.bus.resync();
+
+		verify(a.cache).evictAllRegions();
+		verify(a.publisher).publishEvent(CacheInvalidation.all());
+	}
+
+	private static PostUpdateEvent updateOf(Object entity) {
+		PostUpdateEvent event = mock(PostUpdateEvent.class);
+		when(event.getEntity()).thenReturn(entity);
+		return event;
+	}
+}
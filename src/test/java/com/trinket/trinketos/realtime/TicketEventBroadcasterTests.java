@@ -0,0 +1,99 @@
+package com.trinket.trinketos.realtime;
+
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TicketEventBroadcasterTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+	/** A client whose socket is stuck until {@code release} opens. */
+	private static final class StuckEmitter extends SseEmitter {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger sent = new AtomicInteger();
+		final AtomicBoolean completed = new AtomicBoolean();
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			sent.incrementAndGet();
+		}
+
+		@Override
+		public void complete() {
+			completed.set(true);
+		}
+	}
+
+	@Test
+	void slowClientDoesNotBlockPublisher() throws Exception {
+		TicketEventBroadcaster broadcaster = broadcaster(16);
+		StuckEmitter stuck = new StuckEmitter();
+		broadcaster.subscribe(stuck, admin(), List.of());
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 10; i++) {
+			broadcaster.deliver(event());
+		}
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+		stuck.release.countDown();
+		for (int i = 0; i < 100 && stuck.sent.get() < 10; i++) {
+			Thread.sleep(20);
+		}
+		assertEquals(10, stuck.sent.get());
+	}
+
+	@Test
+	void clientThatFallsBehindIsDisconnected() {
+		TicketEventBroadcaster broadcaster = broadcaster(4);
+		StuckEmitter stuck = new StuckEmitter();
+		broadcaster.subscribe(stuck, admin(), List.of());
+
+		// One event is taken by the drainer, four wait in the queue, the rest overflow
+		for (int i = 0; i < 10; i++) {
+			broadcaster.deliver(event());
+		}
+
+		assertTrue(stuck.completed.get());
+		assertEquals(1, meters.get("trinketos.realtime.overflows").counter().count());
+		assertEquals(0, meters.get("trinketos.realtime.subscribers").gauge().value());
+		stuck.release.countDown();
+	}
+
+	private TicketEventBroadcaster broadcaster(int queueSize) {
+		TicketEventBroadcaster broadcaster = new TicketEventBroadcaster(meters);
+		ReflectionTestUtils.setField(broadcaster, "subscriberQueueSize", queueSize);
+		return broadcaster;
+	}
+
+	private User admin() {
+		return User.builder().role(Role.ROLE_ADMIN).organizationId(organizationId).build();
+	}
+
+	private TicketEvent event() {
+		return new TicketEvent(TicketEvent.Type.TICKET_UPDATED, UUID.randomUUID(), "TKT-1", "Título", null, null,
+				null, null, null, organizationId, LocalDateTime.now());
+	}
+}
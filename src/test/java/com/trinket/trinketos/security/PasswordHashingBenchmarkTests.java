@@ -0,0 +1,58 @@
+package com.trinket.trinketos.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Login throughput of the hashing pool. Run with:
+ * ./mvnw test -Dtest=PasswordHashingBenchmarkTests -Dbenchmark=true -Dbcrypt.strength=10
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PasswordHashingBenchmarkTests {
+
+	@Test
+	void loginsPerSecondPerCore() throws Exception {
+		int strength = Integer.getInteger("bcrypt.strength", 10);
+		int cores = Runtime.getRuntime().availableProcessors();
+		int logins = Integer.getInteger("benchmark.logins", cores * 20);
+
+		PasswordHashingExecutor executor = new PasswordHashingExecutor(new SimpleMeterRegistry(), cores, logins);
+		OffloadedPasswordEncoder encoder = new OffloadedPasswordEncoder(new BCryptPasswordEncoder(strength), executor);
+		String hash = encoder.encode("benchmark-password");
+
+		// Simulated Tomcat threads, many more than cores
+		ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+		AtomicInteger rejected = new AtomicInteger();
+		long start = System.nanoTime();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < logins; i++) {
+			futures.add(CompletableFuture.runAsync(() -> {
+				try {
+					encoder.matches("benchmark-password", hash);
+				} catch (PasswordHashingBusyException e) {
+					rejected.incrementAndGet();
+				}
+			}, callers));
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		executor.shutdown();
+		callers.shutdown();
+
+		double perSecond = (logins - rejected.get()) / seconds;
+		System.out.printf("bcrypt(%d): %d logins in %.2fs, %.1f logins/s, %.1f logins/s/core (%d cores), %d rejected%n",
+				strength, logins, seconds, perSecond, perSecond / cores, cores, rejected.get());
+		assertTrue(perSecond > 0);
+	}
+}
@@ -0,0 +1,149 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.dto.AnalyticsResponse;
+import com.trinket.trinketos.dto.TimePeriod;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyticsCacheTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final AnalyticsCache cache = new AnalyticsCache(registry, 60_000, 100);
+	private final UUID organizationId = UUID.randomUUID();
+	private final AnalyticsCache.Key key = new AnalyticsCache.Key(organizationId, UUID.randomUUID(), null,
+			List.of("Rede"), TimePeriod.MONTH);
+
+	@Test
+	void concurrentRequestsShareOneComputation() throws Exception {
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		AnalyticsResponse response = response();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<AnalyticsResponse>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.get(key, () -> {
+					computations.incrementAndGet();
+					await(release);
+					return response;
+				})));
+			}
+			Thread.sleep(100);
+			release.countDown();
+			for (Future<AnalyticsResponse> result : results) {
+				assertSame(response, result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, computations.get());
+		assertEquals(7, registry.counter("trinketos.analytics.cache.requests", "result", "coalesced").count());
+	}
+
+	@Test
+	void ticketWritesInvalidateTheOrganization() {
+		AtomicInteger computations = new AtomicInteger();
+		cache.get(key, () -> count(computations));
+		cache.get(key, () -> count(computations));
+		assertEquals(1, computations.get());
+
+		cache.invalidate(organizationId);
+		cache.get(key, () -> count(computations));
+		assertEquals(2, computations.get());
+	}
+
+	@Test
+	void failuresAreNotCached() {
+		assertThrows(IllegalStateException.class, () -> cache.get(key, () -> {
+			throw new IllegalStateException("db down");
+		}));
+		AtomicInteger computations = new AtomicInteger();
+		cache.get(key, () -> count(computations));
+		assertEquals(1, computations.get());
+	}
+
+	@Test
+	void errorsAreNotCachedEither() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<AnalyticsResponse> failing = executor.submit(() -> cache.get(key, () -> {
+				started.countDown();
+				await(release);
+				throw new OutOfMemoryError("heap");
+			}));
+			await(started);
+			Future<AnalyticsResponse> waiter = executor.submit(() -> cache.get(key, AnalyticsCacheTests::response));
+			Thread.sleep(100);
+			release.countDown();
+
+			assertInstanceOf(OutOfMemoryError.class, assertThrows(ExecutionException.class,
+					() -> failing.get(5, TimeUnit.SECONDS)).getCause());
+			assertInstanceOf(OutOfMemoryError.class, assertThrows(ExecutionException.class,
+					() -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		AtomicInteger computations = new AtomicInteger();
+		cache.get(key, () -> count(computations));
+		assertEquals(1, computations.get());
+	}
+
+	@Test
+	void liveEntriesAreEvictedOldestFirstOverTheCap() {
+		AnalyticsCache small = new AnalyticsCache(registry, 60_000, 3);
+		List<AnalyticsCache.Key> keys = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			AnalyticsCache.Key agentKey = new AnalyticsCache.Key(organizationId, null, UUID.randomUUID(), List.of(),
+					TimePeriod.MONTH);
+			keys.add(agentKey);
+			small.get(agentKey, AnalyticsCacheTests::response);
+		}
+		Map<?, ?> organizations = (Map<?, ?>) ReflectionTestUtils.getField(small, "organizations");
+		assertTrue(((Map<?, ?>) organizations.get(organizationId)).size() <= 3);
+
+		AtomicInteger computations = new AtomicInteger();
+		small.get(keys.get(9), () -> count(computations));
+		assertEquals(0, computations.get());
+		small.get(keys.get(0), () -> count(computations));
+		assertEquals(1, computations.get());
+	}
+
+	private static AnalyticsResponse count(AtomicInteger computations) {
+		computations.incrementAndGet();
+		return response();
+	}
+
+	private static AnalyticsResponse response() {
+		return new AnalyticsResponse("0 min", "0 min", 0, 0, 0, 0, Map.of(), 0, 0, Map.of(), Map.of(), Map.of(), 0, 0,
+				Map.of(), Map.of());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.CategoryRepository;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CounterServiceTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final TicketRepository ticketRepository = mock(TicketRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final TeamRepository teamRepository = mock(TeamRepository.class);
+	private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+	private final CounterService counters = new CounterService(mock(EntityManagerFactory.class), ticketRepository,
+			userRepository, teamRepository, categoryRepository);
+
+	@Test
+	void remoteChangesRereadOnlyTheAffectedCounterOnce() {
+		List<TicketRepository.TicketCountRow> before = List.of(open(3));
+		List<TicketRepository.TicketCountRow> after = List.of(open(5));
+		when(ticketRepository.countByTeamCategoryAndStatus(organizationId)).thenReturn(before);
+		when(teamRepository.countByOrganizationId(organizationId)).thenReturn(2L);
+		assertEquals(3, counters.countTickets(organizationId, null, null, null));
+
+		// Another node created two tickets
+		when(ticketRepository.countByTeamCategoryAndStatus(organizationId)).thenReturn(after);
+		counters.onCacheInvalidation(ticketChange());
+		counters.onCacheInvalidation(ticketChange());
+
+		assertEquals(2, counters.countTeams(organizationId));
+		assertEquals(5, counters.countTickets(organizationId, null, null, null));
+		assertEquals(5, counters.countTickets(organizationId, null, null, TicketStatus.OPEN));
+		verify(ticketRepository, times(2)).countByTeamCategoryAndStatus(organizationId);
+		verify(teamRepository, times(1)).countByOrganizationId(organizationId);
+		verify(userRepository, times(1)).countByRole(organizationId);
+		verify(categoryRepository, times(1)).countByOrganizationId(organizationId);
+	}
+
+	private CacheInvalidation ticketChange() {
+		return new CacheInvalidation(CacheInvalidation.Kind.TICKET, organizationId, UUID.randomUUID());
+	}
+
+	private static TicketRepository.TicketCountRow open(long total) {
+		TicketRepository.TicketCountRow row = mock(TicketRepository.TicketCountRow.class);
+		when(row.getStatus()).thenReturn(TicketStatus.OPEN);
+		when(row.getTotal()).thenReturn(total);
+		return row;
+	}
+}
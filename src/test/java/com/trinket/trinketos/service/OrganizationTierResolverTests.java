@@ -0,0 +1,44 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Organization;
+import com.trinket.trinketos.model.OrganizationTier;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.OrganizationRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrganizationTierResolverTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final OrganizationRepository organizationRepository = mock(OrganizationRepository.class);
+	private final Organization organization = Organization.builder().id(organizationId).build();
+
+	@Test
+	void tiersChangedInTheDatabaseTakeEffectAfterTheTtl() {
+		when(organizationRepository.findById(organizationId)).thenReturn(Optional.of(organization));
+		OrganizationTierResolver resolver = new OrganizationTierResolver(organizationRepository, 0);
+		assertEquals(OrganizationTier.FREE, resolver.tierOf(organizationId));
+
+		organization.setTier(OrganizationTier.ENTERPRISE);
+		assertEquals(OrganizationTier.ENTERPRISE, resolver.tierOf(organizationId));
+	}
+
+	@Test
+	void remoteOrganizationChangesDropTheCachedTier() {
+		when(organizationRepository.findById(organizationId)).thenReturn(Optional.of(organization));
+		OrganizationTierResolver resolver = new OrganizationTierResolver(organizationRepository, 300_000);
+		assertEquals(OrganizationTier.FREE, resolver.tierOf(organizationId));
+
+		organization.setTier(OrganizationTier.ENTERPRISE);
+		assertEquals(OrganizationTier.FREE, resolver.tierOf(organizationId));
+		resolver.onCacheInvalidation(new CacheInvalidation(CacheInvalidation.Kind.ORGANIZATION, organizationId,
+				organizationId));
+		assertEquals(OrganizationTier.ENTERPRISE, resolver.tierOf(organizationId));
+	}
+}
@@ -0,0 +1,90 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.observability.SqlStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParallelQueryExecutorTests {
+
+	private final ParallelQueryExecutor executor = new ParallelQueryExecutor(4, 2000);
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdown();
+		SqlStatistics.end();
+	}
+
+	@Test
+	void latencyIsBoundedBySlowestQuery() {
+		ParallelQueryExecutor.Batch batch = executor.batch();
+		long start = System.nanoTime();
+		Supplier<Integer> a = batch.fork(() -> sleep(300, 1));
+		Supplier<Integer> b = batch.fork(() -> sleep(300, 2));
+		Supplier<Integer> c = batch.fork(() -> sleep(300, 3));
+		batch.join();
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertEquals(6, a.get() + b.get() + c.get());
+		assertTrue(elapsedMs < 800, "took " + elapsedMs + " ms");
+	}
+
+	@Test
+	void permitsCapConcurrency() {
+		ParallelQueryExecutor limited = new ParallelQueryExecutor(2, 5000);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		ParallelQueryExecutor.Batch batch = limited.batch();
+		for (int i = 0; i < 8; i++) {
+			batch.fork(() -> {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				sleep(50, 0);
+				return inFlight.decrementAndGet();
+			});
+		}
+		batch.join();
+		limited.shutdown();
+
+		assertEquals(2, maxInFlight.get());
+	}
+
+	@Test
+	void failureIsRethrownOnJoin() {
+		ParallelQueryExecutor.Batch batch = executor.batch();
+		IllegalArgumentException failure = new IllegalArgumentException("boom");
+		batch.fork(() -> sleep(10, 1));
+		batch.fork(() -> {
+			throw failure;
+		});
+
+		assertSame(failure, assertThrows(IllegalArgumentException.class, batch::join));
+	}
+
+	@Test
+	void workersRecordIntoTheirOwnStatistics() {
+		SqlStatistics request = SqlStatistics.begin();
+		ParallelQueryExecutor.Batch batch = executor.batch();
+		Supplier<Boolean> isolated = batch.fork(() -> SqlStatistics.current() != null && SqlStatistics.current() != request);
+		batch.join();
+
+		assertTrue(isolated.get());
+		assertSame(request, SqlStatistics.current());
+	}
+
+	private static int sleep(long ms, int value) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return value;
+	}
+}
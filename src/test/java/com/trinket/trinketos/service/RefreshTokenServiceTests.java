@@ -0,0 +1,143 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.RefreshToken;
+import com.trinket.trinketos.model.Role;
+import com.trinket.trinketos.model.User;
+import com.trinket.trinketos.repository.RefreshTokenRepository;
+import com.trinket.trinketos.repository.UserRepository;
+import com.trinket.trinketos.security.InvalidRefreshTokenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTests {
+
+	private static final long THIRTY_DAYS = 2_592_000_000L;
+
+	/** The refresh_tokens table, by token hash. */
+	private final Map<String, RefreshToken> rows = new ConcurrentHashMap<>();
+	private final RefreshTokenRepository refreshTokenRepository = mock(RefreshTokenRepository.class);
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final User user = User.builder().id(UUID.randomUUID()).name("Ana").email("ana@trinket.test")
+			.role(Role.ROLE_AGENT).organizationId(UUID.randomUUID()).teamId(UUID.randomUUID()).build();
+
+	@BeforeEach
+	void setUp() {
+		when(refreshTokenRepository.save(any())).thenAnswer(invocation -> {
+			RefreshToken token = invocation.getArgument(0);
+			rows.put(token.getTokenHash(), token);
+			return token;
+		});
+		when(refreshTokenRepository.findWithUserByTokenHash(anyString()))
+				.thenAnswer(invocation -> Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+		when(refreshTokenRepository.deleteByTokenHash(anyString()))
+				.thenAnswer(invocation -> rows.remove(invocation.<String>getArgument(0)) != null ? 1 : 0);
+		when(refreshTokenRepository.deleteExpired(any())).thenAnswer(invocation -> {
+			LocalDateTime now = invocation.getArgument(0);
+			int before = rows.size();
+			rows.values().removeIf(token -> token.getExpiresAt().isBefore(now));
+			return before - rows.size();
+		});
+		when(userRepository.getReferenceById(user.getId())).thenReturn(user);
+	}
+
+	@Test
+	void rotationReturnsANewTokenAndRejectsTheOldOne() {
+		RefreshTokenService service = service(THIRTY_DAYS, 10);
+		String issued = service.issue(user);
+
+		RefreshTokenService.Rotation rotation = service.rotate(issued);
+
+		assertNotEquals(issued, rotation.refreshToken());
+		assertEquals(user.getId(), rotation.owner().userId());
+		assertEquals(user.getTeamId(), rotation.owner().teamId());
+		assertEquals(1, rows.size());
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(issued));
+		// The new token still rotates
+		service.rotate(rotation.refreshToken());
+	}
+
+	@Test
+	void aTokenRotatedOnAnotherNodeIsRejectedDespiteTheCache() {
+		RefreshTokenService issuer = service(THIRTY_DAYS, 10);
+		RefreshTokenService other = service(THIRTY_DAYS, 10);
+		String issued = issuer.issue(user);
+
+		other.rotate(issued);
+
+		// The issuer still caches the token, but its delete finds no row
+		assertThrows(InvalidRefreshTokenException.class, () -> issuer.rotate(issued));
+	}
+
+	@Test
+	void tokensIssuedWithAFullCacheRotateThroughTheDatabase() {
+		RefreshTokenService service = service(THIRTY_DAYS, 1);
+		service.issue(user);
+		String uncached = service.issue(user);
+		verify(refreshTokenRepository, never()).findWithUserByTokenHash(anyString());
+
+		assertEquals(user.getEmail(), service.rotate(uncached).owner().email());
+		verify(refreshTokenRepository).findWithUserByTokenHash(anyString());
+	}
+
+	@Test
+	void expiredTokensAreRejectedAndDeleted() {
+		RefreshTokenService service = service(-1, 10);
+		String expired = service.issue(user);
+
+		InvalidRefreshTokenException exception = assertThrows(InvalidRefreshTokenException.class,
+				() -> service.rotate(expired));
+		assertEquals("Refresh token expired", exception.getMessage());
+		assertTrue(rows.isEmpty());
+	}
+
+	@Test
+	void revokedTokensAreRejected() {
+		RefreshTokenService service = service(THIRTY_DAYS, 10);
+		String issued = service.issue(user);
+
+		service.revoke(issued);
+
+		assertTrue(rows.isEmpty());
+		assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(issued));
+	}
+
+	@Test
+	void purgeDeletesExpiredRowsAndCacheEntries() {
+		RefreshTokenService service = service(-1, 10);
+		service.issue(user);
+		service.issue(user);
+		ReflectionTestUtils.setField(service, "refreshExpiration", THIRTY_DAYS);
+		String live = service.issue(user);
+
+		service.purgeExpired();
+
+		assertEquals(1, rows.size());
+		assertEquals(1, ((Map<?, ?>) ReflectionTestUtils.getField(service, "cache")).size());
+		service.rotate(live);
+	}
+
+	private RefreshTokenService service(long refreshExpiration, int cacheSize) {
+		RefreshTokenService service = new RefreshTokenService(refreshTokenRepository, userRepository);
+		ReflectionTestUtils.setField(service, "refreshExpiration", refreshExpiration);
+		ReflectionTestUtils.setField(service, "cacheSize", cacheSize);
+		return service;
+	}
+}
@@ -0,0 +1,78 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.repository.TeamRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ResourceVersionsTests {
+
+	private final TicketRepository ticketRepository = mock(TicketRepository.class);
+	private final ResourceVersions versions = new ResourceVersions(mock(EntityManagerFactory.class), ticketRepository,
+			mock(TeamRepository.class), 60_000, 1000, 0);
+	private final UUID organizationId = UUID.randomUUID();
+
+	@Test
+	void ifNoneMatchUsesWeakComparison() {
+		assertTrue(ResourceVersions.matches("\"3-0\"", "\"3-0\""));
+		assertTrue(ResourceVersions.matches("W/\"3-0\"", "\"3-0\""));
+		assertTrue(ResourceVersions.matches("\"1-0\", \"3-0\"", "\"3-0\""));
+		assertTrue(ResourceVersions.matches("*", "\"3-0\""));
+		assertFalse(ResourceVersions.matches("\"2-0\"", "\"3-0\""));
+		assertFalse(ResourceVersions.matches("\"3-0\"", null));
+	}
+
+	@Test
+	void rememberedTagsAnswerWithoutQueryingAndWritesEvictThem() {
+		Ticket ticket = Ticket.builder().id(UUID.randomUUID()).organizationId(organizationId).version(3L).build();
+		String etag = versions.remember(ticket.getId(), organizationId, ResourceVersions.ticketTag(ticket, null));
+
+		assertEquals(etag, versions.currentTicketTag(ticket.getId(), organizationId));
+		verifyNoInteractions(ticketRepository);
+
+		versions.onPostUpdate(updateOf(ticket));
+		when(ticketRepository.findVersionStamp(ticket.getId())).thenReturn(Optional.empty());
+		assertNull(versions.currentTicketTag(ticket.getId(), organizationId));
+	}
+
+	@Test
+	void otherOrganizationsNeverMatch() {
+		UUID ticketId = UUID.randomUUID();
+		versions.remember(ticketId, organizationId, "\"1-0\"");
+		when(ticketRepository.findVersionStamp(ticketId)).thenReturn(Optional.empty());
+		assertNull(versions.currentTicketTag(ticketId, UUID.randomUUID()));
+	}
+
+	@Test
+	void listTagsChangeWithTenantWrites() {
+		String before = versions.listTag(organizationId, "tickets", "user", "page=0");
+		assertEquals(before, versions.listTag(organizationId, "tickets", "user", "page=0"));
+		assertNotEquals(before, versions.listTag(organizationId, "tickets", "user", "page=1"));
+
+		PostInsertEvent insert = mock(PostInsertEvent.class);
+		when(insert.getEntity()).thenReturn(Ticket.builder().id(UUID.randomUUID()).organizationId(organizationId).build());
+		versions.onPostInsert(insert);
+		assertNotEquals(before, versions.listTag(organizationId, "tickets", "user", "page=0"));
+	}
+
+	private static PostUpdateEvent updateOf(Ticket ticket) {
+		PostUpdateEvent event = mock(PostUpdateEvent.class);
+		when(event.getEntity()).thenReturn(ticket);
+		return event;
+	}
+}
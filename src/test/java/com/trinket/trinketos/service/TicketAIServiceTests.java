@@ -0,0 +1,73 @@
+package com.trinket.trinketos.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trinket.trinketos.ai.AiCallGuard;
+import com.trinket.trinketos.ai.AiRateLimiter;
+import com.trinket.trinketos.ai.ResolvedTicketIndex;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.observability.AiMetrics;
+import com.trinket.trinketos.repository.CategoryRepository;
+import com.trinket.trinketos.repository.TicketAiAnalysisRepository;
+import com.trinket.trinketos.repository.TicketRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TicketAIServiceTests {
+
+	private final TicketRepository ticketRepository = mock(TicketRepository.class);
+	private final TicketHistoryService ticketHistoryService = mock(TicketHistoryService.class);
+	private final TicketAiAnalysisRepository ticketAiAnalysisRepository = mock(TicketAiAnalysisRepository.class);
+	private final TicketAIService service = new TicketAIService(mock(ChatClient.Builder.class), ticketRepository,
+			mock(CategoryRepository.class), mock(AiMetrics.class), mock(AiRateLimiter.class), mock(AiCallGuard.class),
+			mock(ApplicationEventPublisher.class), ticketHistoryService, ticketAiAnalysisRepository,
+			mock(ResolvedTicketIndex.class));
+
+	@Test
+	void agentEditsMadeDuringTheModelCallAreKept() throws Exception {
+		UUID ticketId = UUID.randomUUID();
+		Ticket sentToModel = Ticket.builder().id(ticketId).title("impressora nao imprime").status(TicketStatus.OPEN)
+				.version(0L).build();
+		// While the model was thinking, an agent retitled the ticket and set its priority
+		Ticket editedByAgent = Ticket.builder().id(ticketId).title("Impressora do 3º andar").priority(Priority.LOW)
+				.status(TicketStatus.IN_PROGRESS).version(1L).build();
+		when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(editedByAgent));
+		when(ticketHistoryService.save(any(), any(), isNull()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticketId))
+				.thenAnswer(inv -> inv.getArgument(0));
+		JsonNode analysis = new ObjectMapper().readTree("""
+				{"title": "Falha de impressão", "priority": "HIGH", "category": "Hardware",
+				 "sentiment": "Neutro", "diagnosis": "Spooler parado"}
+				""");
+
+		service.saveResult(sentToModel, analysis, mock(ChatResponse.class), 1200);
+
+		ArgumentCaptor<TicketAiAnalysis> saved = ArgumentCaptor.forClass(TicketAiAnalysis.class);
+		verify(ticketAiAnalysisRepository).save(saved.capture());
+		Ticket written = saved.getValue().getTicket();
+		assertEquals("Impressora do 3º andar", written.getTitle());
+		assertEquals(Priority.LOW, written.getPriority());
+		assertEquals(TicketStatus.IN_PROGRESS, written.getStatus());
+		// Fields the agent left empty are still filled in
+		assertEquals("Hardware", written.getCategory());
+		assertEquals("Neutro", written.getSentiment());
+		assertEquals("Spooler parado", saved.getValue().getDiagnosis());
+	}
+}
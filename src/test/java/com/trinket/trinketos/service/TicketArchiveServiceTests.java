@@ -0,0 +1,42 @@
+package com.trinket.trinketos.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class TicketArchiveServiceTests {
+
+	private TicketArchiveService service(int archiveAfterMonths) {
+		return new TicketArchiveService(mock(NamedParameterJdbcTemplate.class), mock(CounterService.class),
+				mock(TicketColumnStore.class), mock(TimeSeriesService.class), true, archiveAfterMonths, 0, 1000, "pglz");
+	}
+
+	@Test
+	void cutoffStartsAtMonthBoundary() {
+		assertEquals(LocalDate.of(2025, 3, 1).atStartOfDay(), service(19).cutoff(LocalDate.of(2026, 10, 19)));
+	}
+
+	@Test
+	void cutoffNeverReachesIntoTheAnalyticsYear() {
+		assertEquals(LocalDate.of(2025, 9, 1).atStartOfDay(), service(3).cutoff(LocalDate.of(2026, 10, 19)));
+	}
+
+	@Test
+	void partitionNamesSortChronologically() {
+		assertEquals("tickets_archive_p2025_09", TicketArchiveService.partitionName(LocalDate.of(2025, 9, 1)));
+		assertEquals(-1, Integer.signum(TicketArchiveService.partitionName(LocalDate.of(2025, 9, 1))
+				.compareTo(TicketArchiveService.partitionName(LocalDate.of(2025, 10, 1)))));
+	}
+
+	@Test
+	void rejectsUnknownCompression() {
+		assertThrows(IllegalArgumentException.class, () -> new TicketArchiveService(
+				mock(NamedParameterJdbcTemplate.class), mock(CounterService.class), mock(TicketColumnStore.class),
+				mock(TimeSeriesService.class), true, 13, 0, 1000, "zstd"));
+	}
+}
@@ -0,0 +1,74 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TicketColumnStoreTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final LocalDateTime createdAt = LocalDateTime.now().minusDays(1);
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final CounterService counterService = mock(CounterService.class);
+
+	@Test
+	void changesCommittedDuringRebuildAreReplayed() throws Exception {
+		TicketColumnStore store = new TicketColumnStore(jdbcTemplate, mock(PlatformTransactionManager.class),
+				mock(EntityManagerFactory.class), counterService, new SimpleMeterRegistry(), true, 1);
+		when(counterService.countTickets(eq(organizationId), any(), any(), any())).thenReturn(1L);
+		UUID ticketId = UUID.randomUUID();
+		ResultSet open = row(ticketId, TicketStatus.OPEN);
+
+		// Every load streams the row as OPEN; the reconcile load is interrupted by a commit that closes it
+		AtomicReference<Runnable> duringLoad = new AtomicReference<>(() -> {
+		});
+		doAnswer(invocation -> {
+			duringLoad.get().run();
+			invocation.getArgument(1, RowCallbackHandler.class).processRow(open);
+			return null;
+		}).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+		assertEquals(Map.of("OPEN", 1L), status(store));
+
+		Ticket closed = Ticket.builder().id(ticketId).organizationId(organizationId).status(TicketStatus.CLOSED)
+				.createdAt(createdAt).build();
+		duringLoad.set(() -> store.onPostUpdate(new PostUpdateEvent(closed, ticketId, null, null, null, null, null)));
+		store.reconcile();
+
+		assertEquals(Map.of("CLOSED", 1L), status(store));
+	}
+
+	private Map<String, Long> status(TicketColumnStore store) {
+		return store.distributions(organizationId, createdAt.minusDays(1), null, null, List.of()).status();
+	}
+
+	private ResultSet row(UUID id, TicketStatus status) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getObject("id", UUID.class)).thenReturn(id);
+		when(rs.getString("status")).thenReturn(status.name());
+		when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(createdAt));
+		return rs;
+	}
+}
@@ -0,0 +1,187 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketAiAnalysis;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.repository.TicketRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.querydsl.EntityPathResolver;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TicketColumnsTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 12, 0);
+
+	private final Random random = new Random(42);
+	private final UUID organizationId = UUID.randomUUID();
+	private final List<UUID> teams = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+	private final List<UUID> agents = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+	private final List<String> categories = List.of("Rede", "Financeiro", "Acesso", "Hardware");
+	private final List<String> sentiments = List.of("Positivo", "Neutro", "Frustrado/Urgente");
+
+	@Test
+	void distributionsMatchTheSqlScope() {
+		TicketColumns columns = new TicketColumns(0);
+		Map<UUID, Ticket> tickets = new HashMap<>();
+		for (int i = 0; i < 5_000; i++) {
+			Ticket ticket = randomTicket(UUID.randomUUID());
+			tickets.put(ticket.getId(), ticket);
+			upsert(columns, ticket);
+		}
+		// Edits and deletes after the initial load
+		List<UUID> ids = new ArrayList<>(tickets.keySet());
+		for (int i = 0; i < 1_000; i++) {
+			UUID id = ids.get(random.nextInt(ids.size()));
+			if (random.nextInt(4) == 0) {
+				tickets.remove(id);
+				columns.remove(id);
+			} else if (tickets.containsKey(id)) {
+				Ticket edited = randomTicket(id);
+				edited.setCreatedAt(tickets.get(id).getCreatedAt());
+				tickets.put(id, edited);
+				upsert(columns, edited);
+			}
+		}
+
+		try (SessionFactory sessionFactory = database(tickets.values())) {
+			TicketRepository repository = repository(sessionFactory);
+			LocalDateTime since = NOW.minusDays(30);
+			assertMatches(columns, repository, since, null, null, List.of());
+			assertMatches(columns, repository, since, agents.get(1), null, List.of());
+			assertMatches(columns, repository, since, null, teams.get(0), List.of("Rede", "Acesso"));
+			assertMatches(columns, repository, since, null, teams.get(2), List.of());
+			assertMatches(columns, repository, since, UUID.randomUUID(), null, List.of());
+			assertMatches(columns, repository, NOW.minusDays(400), null, UUID.randomUUID(), List.of("Hardware"));
+		}
+	}
+
+	@Test
+	void reportsSentimentDictionaryOverflow() {
+		TicketColumns columns = new TicketColumns(0);
+		boolean accepted = true;
+		for (int i = 0; i < 200 && accepted; i++) {
+			accepted = columns.upsert(UUID.randomUUID(), TicketStatus.OPEN, null, "s" + i, null, null, null, NOW);
+		}
+		assertFalse(accepted);
+	}
+
+	/** The columnar distributions against the dashboard's SQL aggregates over the same rows. */
+	private void assertMatches(TicketColumns columns, TicketRepository repository, LocalDateTime since,
+			UUID agentId, UUID teamId, List<String> teamCategories) {
+		TicketColumns.Distributions result = columns.distributions(since, agentId, teamId, teamCategories);
+		assertEquals(group(repository.countByStatus(organizationId, since, agentId, teamId, teamCategories)),
+				result.status());
+		assertEquals(group(repository.countByPriority(organizationId, since, agentId, teamId, teamCategories)),
+				result.priority());
+		assertEquals(group(repository.countBySentiment(organizationId, since, agentId, teamId, teamCategories)),
+				result.sentiment());
+		assertEquals(repository.countCriticalOpen(organizationId, since, agentId, teamId, teamCategories),
+				result.criticalOpen());
+	}
+
+	private static Map<String, Long> group(List<TicketRepository.GroupCount> rows) {
+		return rows.stream().collect(Collectors.toMap(row -> row.getKey().toString(),
+				TicketRepository.GroupCount::getTotal));
+	}
+
+	/** The tickets in H2, next to rows of another organization the scope must leave out. */
+	private SessionFactory database(Collection<Ticket> tickets) {
+		SessionFactory sessionFactory = new Configuration()
+				.addAnnotatedClass(Ticket.class)
+				.addAnnotatedClass(TicketAiAnalysis.class)
+				.setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:columns-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName())
+				.buildSessionFactory();
+		List<Ticket> rows = new ArrayList<>(tickets);
+		for (int i = 0; i < 100; i++) {
+			Ticket other = randomTicket(UUID.randomUUID());
+			other.setOrganizationId(UUID.randomUUID());
+			rows.add(other);
+		}
+		List<LocalDateTime> createdAt = rows.stream().map(Ticket::getCreatedAt).toList();
+		sessionFactory.inTransaction(session -> {
+			for (int i = 0; i < rows.size(); i++) {
+				Ticket ticket = rows.get(i);
+				ticket.setId(null);
+				ticket.setCode("TKT-" + i);
+				ticket.setTitle("Ticket " + i);
+				session.persist(ticket);
+			}
+			// createdAt is set by Hibernate on insert
+			session.flush();
+			session.doWork(connection -> {
+				try (PreparedStatement update = connection.prepareStatement("UPDATE tickets SET created_at = ? WHERE id = ?")) {
+					for (int i = 0; i < rows.size(); i++) {
+						update.setTimestamp(1, Timestamp.valueOf(createdAt.get(i)));
+						update.setObject(2, rows.get(i).getId());
+						update.addBatch();
+					}
+					update.executeBatch();
+				}
+			});
+		});
+		return sessionFactory;
+	}
+
+	/** Built the way Spring Boot builds it, so the @Query methods run as in the application. */
+	private static TicketRepository repository(SessionFactory sessionFactory) {
+		JpaTransactionManager transactionManager = new JpaTransactionManager(sessionFactory);
+		transactionManager.setJpaDialect(new HibernateJpaDialect());
+		DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+		beans.registerSingleton("transactionManager", transactionManager);
+		beans.registerSingleton("entityPathResolver", SimpleEntityPathResolver.INSTANCE);
+		JpaRepositoryFactoryBean<TicketRepository, Ticket, UUID> repository = new JpaRepositoryFactoryBean<>(
+				TicketRepository.class);
+		repository.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(sessionFactory));
+		repository.setBeanFactory(beans);
+		repository.setEntityPathResolver(beans.getBeanProvider(EntityPathResolver.class));
+		repository.setTransactionManager("transactionManager");
+		repository.afterPropertiesSet();
+		return repository.getObject();
+	}
+
+	private Ticket randomTicket(UUID id) {
+		return Ticket.builder()
+				.id(id)
+				.organizationId(organizationId)
+				.status(TicketStatus.values()[random.nextInt(TicketStatus.values().length)])
+				.priority(random.nextInt(5) == 0 ? null : Priority.values()[random.nextInt(Priority.values().length)])
+				.sentiment(random.nextInt(5) == 0 ? null : sentiments.get(random.nextInt(sentiments.size())))
+				.teamId(random.nextInt(4) == 0 ? null : teams.get(random.nextInt(teams.size())))
+				.agentId(random.nextInt(3) == 0 ? null : agents.get(random.nextInt(agents.size())))
+				.category(random.nextInt(6) == 0 ? null : categories.get(random.nextInt(categories.size())))
+				.createdAt(NOW.minusMinutes(random.nextInt(60 * 24 * 90)).minusNanos(random.nextInt(1_000_000) * 1_000L))
+				.build();
+	}
+
+	private static void upsert(TicketColumns columns, Ticket t) {
+		columns.upsert(t.getId(), t.getStatus(), t.getPriority(), t.getSentiment(), t.getTeamId(), t.getAgentId(),
+				t.getCategory(), t.getCreatedAt());
+	}
+}
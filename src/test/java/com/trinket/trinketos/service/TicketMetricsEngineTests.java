@@ -0,0 +1,174 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.model.TicketHistoryEntry;
+import com.trinket.trinketos.model.TicketHistoryType;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.repository.TicketHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TicketMetricsEngineTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final UUID teamA = UUID.randomUUID();
+	private final UUID teamB = UUID.randomUUID();
+
+	private final TicketHistoryRepository repository = mock(TicketHistoryRepository.class);
+
+	private TicketMetricsEngine engine() {
+		when(repository.rollup(any(), any(), any())).thenReturn(List.of());
+		when(repository.sentimentRollup(any(), any())).thenReturn(List.of());
+		return new TicketMetricsEngine(repository, mock(PlatformTransactionManager.class), 400, 2, 0.01, 512);
+	}
+
+	private TicketHistoryRepository.DailyRollup resolved(UUID teamId, LocalDate day, long total) {
+		TicketHistoryRepository.DailyRollup row = mock(TicketHistoryRepository.DailyRollup.class);
+		when(row.getDay()).thenReturn(day);
+		when(row.getTeamId()).thenReturn(teamId);
+		when(row.getType()).thenReturn(TicketHistoryType.RESOLVED);
+		when(row.getElapsedMinutes()).thenReturn(60L);
+		when(row.getTotal()).thenReturn(total);
+		return row;
+	}
+
+	private TicketHistoryEntry entry(TicketHistoryType type, UUID teamId, long minutes, boolean breached,
+			LocalDateTime at) {
+		return TicketHistoryEntry.builder()
+				.id(UUID.randomUUID())
+				.organizationId(organizationId)
+				.ticketId(UUID.randomUUID())
+				.type(type)
+				.teamId(teamId)
+				.elapsedMinutes(minutes)
+				.slaBreached(breached)
+				.occurredAt(at)
+				.build();
+	}
+
+	@Test
+	void foldsEntriesIntoFilteredWindow() {
+		TicketMetricsEngine engine = engine();
+		LocalDateTime now = LocalDateTime.now();
+		engine.compute(organizationId, LocalDate.now(), cell -> true); // load the organization
+
+		engine.onHistoryEntry(entry(TicketHistoryType.FIRST_RESPONSE, teamA, 10, false, now));
+		engine.onHistoryEntry(entry(TicketHistoryType.FIRST_RESPONSE, teamA, 50, true, now));
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamA, 120, false, now));
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamA, 240, true, now));
+		engine.onHistoryEntry(entry(TicketHistoryType.REOPENED, teamA, 300, false, now));
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamB, 60, false, now));
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamA, 1, false, now.minusDays(40)));
+
+		TicketMetricsEngine.Metrics metrics = engine.compute(organizationId, LocalDate.now().minusDays(7),
+				cell -> teamA.equals(cell.teamId()));
+
+		assertEquals(2, metrics.firstResponses());
+		assertEquals(30.0, metrics.avgFirstResponseMinutes());
+		assertEquals(50.0, metrics.firstResponseSlaRate());
+		assertEquals(2, metrics.resolutions());
+		assertEquals(180.0, metrics.avgResolutionMinutes());
+		assertEquals(50.0, metrics.resolutionSlaRate());
+		assertEquals(50.0, metrics.fcrRate());
+		assertEquals(120.0, metrics.resolutionPercentiles().get("p50"), 120 * 0.01);
+	}
+
+	@Test
+	void countsSentimentShifts() {
+		TicketMetricsEngine engine = engine();
+		engine.compute(organizationId, LocalDate.now(), cell -> true);
+
+		TicketHistoryEntry shift = entry(TicketHistoryType.SENTIMENT_CHANGED, teamA, 5, false, LocalDateTime.now());
+		shift.setFromValue("Frustrado/Urgente");
+		shift.setToValue("Positivo");
+		engine.onHistoryEntry(shift);
+		engine.onHistoryEntry(shift);
+		TicketHistoryEntry initial = entry(TicketHistoryType.SENTIMENT_CHANGED, teamA, 0, false, LocalDateTime.now());
+		initial.setToValue("Neutro");
+		engine.onHistoryEntry(initial);
+
+		TicketMetricsEngine.Metrics metrics = engine.compute(organizationId, LocalDate.now(), cell -> true);
+
+		assertEquals(1, metrics.sentimentShift().size());
+		assertEquals(2L, metrics.sentimentShift().get("Frustrado/Urgente -> Positivo"));
+	}
+
+	@Test
+	void reconcileReplacesRecentDaysOnly() {
+		TicketMetricsEngine engine = engine();
+		engine.compute(organizationId, LocalDate.now(), cell -> true);
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamA, 60, false, LocalDateTime.now()));
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamB, 60, false, LocalDateTime.now().minusDays(1)));
+		engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamA, 60, false, LocalDateTime.now().minusDays(10)));
+
+		// The database has three resolutions today and none yesterday
+		List<TicketHistoryRepository.DailyRollup> rows = List.of(resolved(teamA, LocalDate.now(), 3));
+		when(repository.rollup(any(), any(), any())).thenReturn(rows);
+		engine.reconcile();
+
+		assertEquals(3, engine.compute(organizationId, LocalDate.now().minusDays(2), cell -> true).resolutions());
+		assertEquals(4, engine.compute(organizationId, LocalDate.now().minusDays(30), cell -> true).resolutions());
+	}
+
+	@Test
+	void entriesCommittedDuringReconcileAreKept() {
+		TicketMetricsEngine engine = engine();
+		engine.compute(organizationId, LocalDate.now(), cell -> true);
+
+		// The reconcile query misses an entry that commits while it runs
+		List<TicketHistoryRepository.DailyRollup> rows = List.of(resolved(teamA, LocalDate.now(), 2));
+		when(repository.rollup(any(), any(), any())).thenAnswer(invocation -> {
+			engine.onHistoryEntry(entry(TicketHistoryType.RESOLVED, teamA, 60, false, LocalDateTime.now()));
+			return rows;
+		});
+		engine.reconcile();
+
+		assertEquals(3, engine.compute(organizationId, LocalDate.now(), cell -> true).resolutions());
+	}
+
+	@Test
+	void entriesTheReloadAlreadyCountedAreNotReplayed() {
+		TicketMetricsEngine engine = engine();
+		engine.compute(organizationId, LocalDate.now(), cell -> true);
+
+		// Committed before the reconcile's snapshot, but its listener only runs during the load
+		TicketHistoryEntry late = entry(TicketHistoryType.RESOLVED, teamA, 60, false, LocalDateTime.now());
+		TicketHistoryEntry during = entry(TicketHistoryType.RESOLVED, teamA, 60, false, LocalDateTime.now());
+		List<TicketHistoryRepository.DailyRollup> rows = List.of(resolved(teamA, LocalDate.now(), 2));
+		when(repository.rollup(any(), any(), any())).thenAnswer(invocation -> {
+			engine.onHistoryEntry(late);
+			engine.onHistoryEntry(during);
+			return rows;
+		});
+		when(repository.findIdsByIdIn(any())).thenReturn(List.of(late.getId()));
+		engine.reconcile();
+
+		assertEquals(3, engine.compute(organizationId, LocalDate.now(), cell -> true).resolutions());
+	}
+
+	@Test
+	void remoteTicketChangeRereadsRecentDays() {
+		TicketMetricsEngine engine = engine();
+		engine.compute(organizationId, LocalDate.now(), cell -> true);
+
+		List<TicketHistoryRepository.DailyRollup> rows = List.of(resolved(teamA, LocalDate.now(), 1));
+		when(repository.rollup(any(), any(), any())).thenReturn(rows);
+		engine.onCacheInvalidation(new CacheInvalidation(CacheInvalidation.Kind.TICKET, organizationId,
+				UUID.randomUUID()));
+
+		assertEquals(1, engine.compute(organizationId, LocalDate.now(), cell -> true).resolutions());
+		engine.compute(organizationId, LocalDate.now(), cell -> true);
+		verify(repository, times(2)).rollup(any(), any(), any());
+	}
+}
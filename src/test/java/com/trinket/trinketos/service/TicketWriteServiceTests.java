@@ -0,0 +1,186 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.dto.TicketRequest;
+import com.trinket.trinketos.model.Priority;
+import com.trinket.trinketos.model.Ticket;
+import com.trinket.trinketos.model.TicketStatus;
+import com.trinket.trinketos.repository.TicketRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TicketWriteServiceTests {
+
+	private final TicketRepository ticketRepository = mock(TicketRepository.class);
+	private final TicketHistoryService ticketHistoryService = mock(TicketHistoryService.class);
+	private final UUID ticketId = UUID.randomUUID();
+	private final UUID actorId = UUID.randomUUID();
+
+	private TicketWriteService service(boolean coalescing) {
+		return service(coalescing, 100, 1);
+	}
+
+	private TicketWriteService service(boolean coalescing, long windowMs, int flushThreads) {
+		return new TicketWriteService(ticketRepository, ticketHistoryService, mock(ApplicationEventPublisher.class),
+				new SimpleMeterRegistry(), coalescing, windowMs, flushThreads);
+	}
+
+	private Ticket ticket() {
+		return Ticket.builder().id(ticketId).title("Original").status(TicketStatus.OPEN)
+				.priority(Priority.LOW).version(0L).build();
+	}
+
+	private static TicketRequest patch(String title, Priority priority, TicketStatus status) {
+		return new TicketRequest(title, null, priority, status, null, null, null);
+	}
+
+	@Test
+	void rapidEditsAreWrittenOnceWithLastWriterWins() throws Exception {
+		when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket()));
+		when(ticketHistoryService.save(any(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+		TicketWriteService service = service(true);
+
+		CompletableFuture<Ticket> first = service.update(ticket(), patch("First", Priority.HIGH, null), actorId);
+		CompletableFuture<Ticket> second = service.update(ticket(), patch("Second", null, TicketStatus.IN_PROGRESS), actorId);
+		CompletableFuture<Ticket> third = service.update(ticket(), patch(null, Priority.CRITICAL, null), actorId);
+
+		Ticket written = third.get(2, TimeUnit.SECONDS);
+		assertSame(written, first.get(2, TimeUnit.SECONDS));
+		assertSame(written, second.get(2, TimeUnit.SECONDS));
+		assertEquals("Second", written.getTitle());
+		assertEquals(Priority.CRITICAL, written.getPriority());
+		assertEquals(TicketStatus.IN_PROGRESS, written.getStatus());
+		verify(ticketHistoryService, times(1)).save(any(), any(), eq(actorId));
+		service.shutdown();
+	}
+
+	@Test
+	void conflictingFlushIsReappliedOnFreshCopy() throws Exception {
+		when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket()));
+		when(ticketHistoryService.save(any(), any(), any()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticketId))
+				.thenAnswer(inv -> inv.getArgument(0));
+		TicketWriteService service = service(true);
+
+		Ticket written = service.update(ticket(), patch("Edited", null, null), actorId).get(2, TimeUnit.SECONDS);
+
+		assertEquals("Edited", written.getTitle());
+		verify(ticketRepository, times(2)).findById(ticketId);
+		service.shutdown();
+	}
+
+	@Test
+	void conflictingWriterKeepsTheFieldsItChanged() throws Exception {
+		Ticket byOtherWriter = ticket();
+		byOtherWriter.setPriority(Priority.CRITICAL);
+		byOtherWriter.setVersion(1L);
+		when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket()), Optional.of(byOtherWriter));
+		when(ticketHistoryService.save(any(), any(), any()))
+				.thenThrow(new ObjectOptimisticLockingFailureException(Ticket.class, ticketId))
+				.thenAnswer(inv -> inv.getArgument(0));
+		TicketWriteService service = service(true);
+
+		Ticket written = service.update(ticket(), patch("Edited", Priority.HIGH, null), actorId).get(2, TimeUnit.SECONDS);
+
+		assertEquals("Edited", written.getTitle());
+		assertEquals(Priority.CRITICAL, written.getPriority());
+		service.shutdown();
+	}
+
+	@Test
+	void batchesOfOneTicketAreWrittenInArrivalOrder() throws Exception {
+		when(ticketRepository.findById(ticketId)).thenAnswer(inv -> Optional.of(ticket()));
+		List<String> titles = Collections.synchronizedList(new ArrayList<>());
+		when(ticketHistoryService.save(any(), any(), any())).thenAnswer(inv -> {
+			Ticket ticket = inv.getArgument(0);
+			if (titles.isEmpty()) {
+				// The first user's write is slow; the second must not overtake it
+				Thread.sleep(300);
+			}
+			titles.add(ticket.getTitle());
+			return ticket;
+		});
+		TicketWriteService service = service(true, 50, 2);
+
+		CompletableFuture<Ticket> first = service.update(ticket(), patch("First", null, null), actorId);
+		CompletableFuture<Ticket> second = service.update(ticket(), patch("Second", null, null), UUID.randomUUID());
+		first.get(2, TimeUnit.SECONDS);
+		second.get(2, TimeUnit.SECONDS);
+
+		assertEquals(List.of("First", "Second"), titles);
+		service.shutdown();
+	}
+
+	@Test
+	void shutdownWritesPendingEditsBeforeStopping() throws Exception {
+		when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket()));
+		when(ticketHistoryService.save(any(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+		TicketWriteService service = service(true, TimeUnit.MINUTES.toMillis(1), 1);
+
+		CompletableFuture<Ticket> edit = service.update(ticket(), patch("Late", null, null), actorId);
+		service.shutdown();
+
+		assertEquals("Late", edit.getNow(null).getTitle());
+	}
+
+	@Test
+	void directPathWritesImmediately() throws Exception {
+		when(ticketHistoryService.save(any(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+		TicketWriteService service = service(false);
+
+		Ticket written = service.update(ticket(), patch("Now", null, null), actorId).getNow(null);
+
+		assertEquals("Now", written.getTitle());
+		service.shutdown();
+	}
+
+	@Test
+	void editsByDifferentUsersAreCreditedSeparately() throws Exception {
+		when(ticketRepository.findById(ticketId)).thenReturn(Optional.of(ticket()));
+		when(ticketHistoryService.save(any(), any(), any())).thenAnswer(inv -> inv.getArgument(0));
+		UUID otherActor = UUID.randomUUID();
+		TicketWriteService service = service(true);
+
+		CompletableFuture<Ticket> first = service.update(ticket(), patch(null, Priority.HIGH, null), actorId);
+		CompletableFuture<Ticket> second = service.update(ticket(), patch(null, null, TicketStatus.IN_PROGRESS), otherActor);
+
+		first.get(2, TimeUnit.SECONDS);
+		Ticket written = second.get(2, TimeUnit.SECONDS);
+		assertEquals(TicketStatus.IN_PROGRESS, written.getStatus());
+		verify(ticketHistoryService).save(any(), any(), eq(actorId));
+		verify(ticketHistoryService).save(any(), any(), eq(otherActor));
+		service.shutdown();
+	}
+
+	@Test
+	void staleVersionIsRejectedEvenWhenCoalescing() {
+		TicketWriteService service = service(true);
+		Ticket current = ticket();
+		current.setVersion(3L);
+
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.update(current,
+				new TicketRequest("Edited", null, null, null, null, null, 2L), actorId));
+		verify(ticketHistoryService, never()).save(any(), any(), any());
+		service.shutdown();
+	}
+}
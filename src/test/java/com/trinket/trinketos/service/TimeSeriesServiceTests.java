@@ -0,0 +1,150 @@
+package com.trinket.trinketos.service;
+
+import com.trinket.trinketos.controller.AnalyticsController;
+import com.trinket.trinketos.dto.TimeGranularity;
+import com.trinket.trinketos.dto.TimePeriod;
+import com.trinket.trinketos.dto.TimeSeriesPoint;
+import com.trinket.trinketos.observability.QueryBudget;
+import com.trinket.trinketos.observability.SqlCountingDataSource;
+import com.trinket.trinketos.observability.SqlStatistics;
+import com.trinket.trinketos.realtime.CacheInvalidation;
+import com.trinket.trinketos.realtime.TicketEvent;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.security.core.Authentication;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TimeSeriesServiceTests {
+
+	private final UUID organizationId = UUID.randomUUID();
+	private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+	private final TimeSeriesService service = new TimeSeriesService(jdbcTemplate, 1000, 1000);
+
+	/** The backlog query only runs when no closed bucket was served from the cache. */
+	private void verifyBacklogQueries(int times) {
+		verify(jdbcTemplate, times(times)).queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Long.class));
+	}
+
+	private void load() {
+		service.timeSeries(organizationId, TimeSeriesService.Scope.ORGANIZATION, TimePeriod.WEEK, TimeGranularity.DAY);
+	}
+
+	@Test
+	void closedBucketsAreCachedUntilATicketChanges() {
+		when(jdbcTemplate.queryForObject(anyString(), any(MapSqlParameterSource.class), eq(Long.class))).thenReturn(0L);
+
+		load();
+		load();
+		verifyBacklogQueries(1);
+
+		// A new ticket only lands in the open bucket
+		service.onTicketEvent(event(TicketEvent.Type.TICKET_CREATED));
+		load();
+		verifyBacklogQueries(1);
+
+		// A reopen rewrites past resolutions
+		service.onTicketEvent(event(TicketEvent.Type.TICKET_UPDATED));
+		load();
+		verifyBacklogQueries(2);
+
+		service.onCacheInvalidation(new CacheInvalidation(CacheInvalidation.Kind.TICKET, organizationId, UUID.randomUUID()));
+		load();
+		verifyBacklogQueries(3);
+	}
+
+	@Test
+	void emptyBucketsAreFilledAndCarryTheBacklog() throws Exception {
+		DataSource dataSource = h2();
+		TimeSeriesService h2Service = new TimeSeriesService(new NamedParameterJdbcTemplate(dataSource), 1000, 1000);
+		LocalDateTime today = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+		UUID team = UUID.randomUUID();
+		// Open before the range, and resolved inside it
+		insert(dataSource, organizationId, team, "TECHNICAL", today.minusDays(10), null);
+		insert(dataSource, organizationId, team, "TECHNICAL", today.minusDays(9), today.minusDays(5).plusHours(12));
+		// Created and resolved in the same bucket
+		insert(dataSource, organizationId, team, "BILLING", today.minusDays(3).plusHours(10), today.minusDays(3).plusHours(15));
+		insert(dataSource, organizationId, UUID.randomUUID(), "BILLING", today.minusDays(1).plusHours(9), null);
+		insert(dataSource, UUID.randomUUID(), team, "TECHNICAL", today.minusDays(2), null);
+
+		List<TimeSeriesPoint> expected = List.of(
+				new TimeSeriesPoint(today.minusDays(7), 0, 0, 2),
+				new TimeSeriesPoint(today.minusDays(6), 0, 0, 2),
+				new TimeSeriesPoint(today.minusDays(5), 0, 1, 1),
+				new TimeSeriesPoint(today.minusDays(4), 0, 0, 1),
+				new TimeSeriesPoint(today.minusDays(3), 1, 1, 1),
+				new TimeSeriesPoint(today.minusDays(2), 0, 0, 1),
+				new TimeSeriesPoint(today.minusDays(1), 1, 0, 2),
+				new TimeSeriesPoint(today, 0, 0, 2));
+		int budget = AnalyticsController.class.getMethod("getTimeSeries", TimePeriod.class, TimeGranularity.class,
+				Authentication.class).getAnnotation(QueryBudget.class).value();
+		Supplier<List<TimeSeriesPoint>> week = () -> h2Service.timeSeries(organizationId,
+				TimeSeriesService.Scope.ORGANIZATION, TimePeriod.WEEK, TimeGranularity.DAY);
+
+		// Backlog, created and resolved on the first load
+		assertEquals(expected, counted(week, 3, budget));
+		// The closed buckets come from the cache and the backlog continues from the last of them
+		assertEquals(expected, counted(week, 2, budget));
+
+		// The team sees its own tickets plus billing ones routed elsewhere
+		List<TimeSeriesPoint> billing = h2Service.timeSeries(organizationId,
+				new TimeSeriesService.Scope(team, List.of("BILLING")), TimePeriod.WEEK, TimeGranularity.DAY);
+		assertEquals(expected, billing);
+		List<TimeSeriesPoint> teamOnly = h2Service.timeSeries(organizationId,
+				new TimeSeriesService.Scope(team, List.of()), TimePeriod.WEEK, TimeGranularity.DAY);
+		assertEquals(new TimeSeriesPoint(today.minusDays(1), 0, 0, 1), teamOnly.get(6));
+	}
+
+	private static List<TimeSeriesPoint> counted(Supplier<List<TimeSeriesPoint>> call, int statements, int budget) {
+		SqlStatistics statistics = SqlStatistics.begin();
+		try {
+			List<TimeSeriesPoint> points = call.get();
+			assertEquals(statements, statistics.getStatements());
+			assertTrue(statistics.getStatements() <= budget, "over the endpoint's query budget of " + budget);
+			return points;
+		} finally {
+			SqlStatistics.end();
+		}
+	}
+
+	private static DataSource h2() {
+		JdbcDataSource h2 = new JdbcDataSource();
+		// PostgreSQL mode for GROUP BY 1
+		h2.setURL("jdbc:h2:mem:timeseries-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+		JdbcClient.create(h2).sql("CREATE TABLE tickets (id UUID PRIMARY KEY, organization_id UUID, team_id UUID,"
+				+ " category VARCHAR(32), created_at TIMESTAMP, resolved_at TIMESTAMP)").update();
+		return new SqlCountingDataSource(h2);
+	}
+
+	private static void insert(DataSource dataSource, UUID organizationId, UUID teamId, String category,
+			LocalDateTime createdAt, LocalDateTime resolvedAt) {
+		JdbcClient.create(dataSource).sql("INSERT INTO tickets VALUES (?, ?, ?, ?, ?, ?)")
+				.params(UUID.randomUUID(), organizationId, teamId, category, Timestamp.valueOf(createdAt),
+						resolvedAt != null ? Timestamp.valueOf(resolvedAt) : null)
+				.update();
+	}
+
+	private TicketEvent event(TicketEvent.Type type) {
+		return new TicketEvent(type, UUID.randomUUID(), "TKT-1", "Título", null, null, null, null, null,
+				organizationId, LocalDateTime.now());
+	}
+}
@@ -0,0 +1,72 @@
+package com.trinket.trinketos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTests {
+
+	private static final double ACCURACY = 0.01;
+
+	@Test
+	void quantilesStayWithinRelativeAccuracy() {
+		Random random = new Random(42);
+		double[] values = new double[100_000];
+		QuantileSketch sketch = new QuantileSketch(ACCURACY, 2048);
+		for (int i = 0; i < values.length; i++) {
+			// Long-tailed, like resolution times in minutes
+			values[i] = Math.ceil(Math.exp(random.nextGaussian() * 1.5 + 6));
+			sketch.add(values[i]);
+		}
+		Arrays.sort(values);
+
+		for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+			double exact = values[(int) Math.floor(q * (values.length - 1))];
+			assertEquals(exact, sketch.quantile(q), exact * ACCURACY, "q=" + q);
+		}
+	}
+
+	@Test
+	void mergedDailySketchesMatchSingleSketch() {
+		Random random = new Random(7);
+		QuantileSketch whole = new QuantileSketch(ACCURACY, 2048);
+		QuantileSketch merged = new QuantileSketch(ACCURACY, 2048);
+		for (int day = 0; day < 365; day++) {
+			QuantileSketch daily = new QuantileSketch(ACCURACY, 2048);
+			for (int i = 0; i < 50; i++) {
+				double value = random.nextInt(10_000);
+				whole.add(value);
+				daily.add(value);
+			}
+			merged.merge(daily);
+		}
+
+		assertEquals(whole.count(), merged.count());
+		for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+			assertEquals(whole.quantile(q), merged.quantile(q));
+		}
+	}
+
+	@Test
+	void boundedBinsOnlyDegradeLowQuantiles() {
+		QuantileSketch sketch = new QuantileSketch(ACCURACY, 64);
+		for (int value = 1; value <= 100_000; value++) {
+			sketch.add(value);
+		}
+
+		assertEquals(100_000, sketch.count());
+		assertEquals(99_000, sketch.quantile(0.99), 99_000 * ACCURACY);
+		assertTrue(sketch.quantile(0.01) >= 1_000);
+	}
+
+	@Test
+	void rejectsMergeAcrossAccuracies() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new QuantileSketch(0.01, 64).merge(new QuantileSketch(0.02, 64)));
+	}
+}